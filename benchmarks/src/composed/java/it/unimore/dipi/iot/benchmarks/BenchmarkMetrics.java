@@ -0,0 +1,39 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.metrics.MetricsManager;
+
+/**
+ * Initialization of the composed DT MetricsManager shared by the benchmark suites. The Prometheus collectors are
+ * registered in the default registry, so the MetricsManager is initialized only once per benchmark JVM.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:55
+ */
+public class BenchmarkMetrics {
+
+    public static final String DIGITAL_TWIN_ID = "benchmark-composed-dt";
+
+    private BenchmarkMetrics() {
+    }
+
+    public static synchronized MetricsManager initMetricsManager(){
+
+        MetricsManager metricsManager = MetricsManager.getInstance();
+
+        if(metricsManager.getObervationDelayHistogram() == null){
+
+            //Bucket and ODTE configuration of the cdt_conf.yaml file
+            metricsManager.setObservationBucketStart(0.0);
+            metricsManager.setObservationBucketWidth(0.005);
+            metricsManager.setObservationBucketCount(50);
+            metricsManager.setOdteSlidingWindowSec(30);
+            metricsManager.setOdteDesiredTimelinessSec(1.0);
+            metricsManager.setOdteExpectedMsgSec(3.0);
+
+            metricsManager.init(DIGITAL_TWIN_ID);
+        }
+
+        return metricsManager;
+    }
+
+}
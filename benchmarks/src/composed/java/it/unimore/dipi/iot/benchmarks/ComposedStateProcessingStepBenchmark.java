@@ -0,0 +1,116 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedAggregationEngine;
+import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedStateProcessingStep;
+import it.unimore.dipi.iot.digitaltwin.behaviour.DigitalTwinLifeCycle;
+import it.unimore.dipi.iot.digitaltwin.conf.ComposedDigitalTwinConfiguration;
+import it.unimore.dipi.iot.utils.SenMLWriter;
+import it.unimore.dipi.iot.wldt.processing.PipelineData;
+import it.unimore.dipi.iot.wldt.processing.cache.PipelineCache;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ComposedStateProcessingStep: SenML state decoding, history update and aggregation of the composed DT, for each
+ * supported SenML payload encoding and aggregation window. The average time per operation includes the aggregation
+ * executed every aggregationWindow messages. The emulated state computation is disabled by default
+ * (primeNumbersComputationCount = 0) to measure the middleware overhead only.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComposedStateProcessingStepBenchmark {
+
+    private static final String DEVICE_ID = "benchmark-device";
+
+    private static final String ENERGY_RESOURCE_TYPE = "iot.sensor.energy";
+
+    private static final String TEMPERATURE_RESOURCE_TYPE = "iot.sensor.temperature";
+
+    private static final String STATE_TOPIC = String.format("dt/%s/state", DEVICE_ID);
+
+    @Param({"json", "cbor", "binary"})
+    public String senmlPayloadEncoding;
+
+    @Param({"1", "10", "100"})
+    public int aggregationWindow;
+
+    @Param({"0"})
+    public int primeNumbersComputationCount;
+
+    private ComposedStateProcessingStep processingStep;
+
+    private PipelineCache pipelineCache;
+
+    private CapturingProcessingStepListener listener;
+
+    private MqttTopicDescriptor topicDescriptor;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup(){
+
+        BenchmarkMetrics.initMetricsManager();
+
+        Map<String, String> resourceMap = new HashMap<>();
+        resourceMap.put("energy", ENERGY_RESOURCE_TYPE);
+        resourceMap.put("temperature", TEMPERATURE_RESOURCE_TYPE);
+
+        ComposedDigitalTwinConfiguration configuration = new ComposedDigitalTwinConfiguration();
+        configuration.setDigitalTwinId(BenchmarkMetrics.DIGITAL_TWIN_ID);
+        configuration.setDeviceIdList(DEVICE_ID);
+        configuration.setResourceMap(resourceMap);
+        configuration.setAggregationAction("avg");
+        configuration.setAggregationType("sample");
+        configuration.setAggregationUnit("msg");
+        configuration.setAggregationWindow(this.aggregationWindow);
+        configuration.setPrimeNumbersComputationCount(this.primeNumbersComputationCount);
+        configuration.setSenmlPayloadEncoding(this.senmlPayloadEncoding);
+
+        DigitalTwinLifeCycle lifeCycle = new DigitalTwinLifeCycle(BenchmarkMetrics.DIGITAL_TWIN_ID,
+                configuration.getOdteTargetPercentile(),
+                configuration.getUnBoundThresholdMs(),
+                null);
+
+        this.processingStep = new ComposedStateProcessingStep(DEVICE_ID, DEVICE_ID,
+                ComposedAggregationEngine.create(configuration), configuration, lifeCycle);
+        this.pipelineCache = new PipelineCache();
+        this.listener = new CapturingProcessingStepListener();
+
+        this.topicDescriptor = new MqttTopicDescriptor("device_state", "device_state",
+                STATE_TOPIC, MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING);
+
+        //State message generated by the DigitalTwinStateSenmlMqttProcessingStep of the DTs
+        long timestamp = System.currentTimeMillis();
+        this.payload = SenMLWriter.getInstance(this.senmlPayloadEncoding)
+                .writeRecord(ENERGY_RESOURCE_TYPE, timestamp, 42.123456, "kW")
+                .writeRecord(TEMPERATURE_RESOURCE_TYPE, timestamp, 21.654321, "Cel")
+                .toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        this.listener.checkNoErrors(getClass().getSimpleName());
+    }
+
+    @Benchmark
+    public PipelineData execute(){
+        this.processingStep.execute(this.pipelineCache,
+                new MqttPipelineData(STATE_TOPIC, this.topicDescriptor, this.payload, false),
+                this.listener);
+        return this.listener.getLastPipelineData();
+    }
+
+}
@@ -0,0 +1,166 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedAggregationEngine;
+import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedStateProcessingStep;
+import it.unimore.dipi.iot.digitaltwin.behaviour.DigitalTwinLifeCycle;
+import it.unimore.dipi.iot.digitaltwin.conf.ComposedDigitalTwinConfiguration;
+import it.unimore.dipi.iot.utils.SenMLWriter;
+import it.unimore.dipi.iot.wldt.processing.PipelineData;
+import it.unimore.dipi.iot.wldt.processing.cache.PipelineCache;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ComposedStateProcessingSteps of concurrent delivery threads sharing the aggregation engine, as the steps of the
+ * device pipelines of the composed DT (one step for each source device). Each benchmark thread delivers the states of
+ * its own subset of devices (deviceCount devices in total) through their steps, so the sharded aggregation is measured
+ * with contention on the global window counter only. The number of threads is set with the JMH -t option (4 by default), e.g. -t 1 to compare with the single
+ * thread execution.
+ *
+ * @project benchmarks
+ * @created 19/10/2026 - 00:40
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ComposedStateProcessingStepParallelBenchmark {
+
+    private static final String DEVICE_ID = "benchmark-composed";
+
+    private static final String ENERGY_RESOURCE_TYPE = "iot.sensor.energy";
+
+    private static final String TEMPERATURE_RESOURCE_TYPE = "iot.sensor.temperature";
+
+    @Param({"json"})
+    public String senmlPayloadEncoding;
+
+    @Param({"10", "100"})
+    public int aggregationWindow;
+
+    @Param({"100"})
+    public int deviceCount;
+
+    @Param({"0"})
+    public int primeNumbersComputationCount;
+
+    private ComposedDigitalTwinConfiguration configuration;
+
+    private DigitalTwinLifeCycle lifeCycle;
+
+    private ComposedAggregationEngine aggregationEngine;
+
+    private MqttTopicDescriptor topicDescriptor;
+
+    private byte[] payload;
+
+    private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+    @Setup(Level.Trial)
+    public void setup(){
+
+        BenchmarkMetrics.initMetricsManager();
+
+        Map<String, String> resourceMap = new HashMap<>();
+        resourceMap.put("energy", ENERGY_RESOURCE_TYPE);
+        resourceMap.put("temperature", TEMPERATURE_RESOURCE_TYPE);
+
+        ComposedDigitalTwinConfiguration configuration = new ComposedDigitalTwinConfiguration();
+        configuration.setDigitalTwinId(BenchmarkMetrics.DIGITAL_TWIN_ID);
+        configuration.setDeviceIdList(DEVICE_ID);
+        configuration.setResourceMap(resourceMap);
+        configuration.setAggregationAction("avg");
+        configuration.setAggregationType("sample");
+        configuration.setAggregationUnit("msg");
+        configuration.setAggregationWindow(this.aggregationWindow);
+        configuration.setPrimeNumbersComputationCount(this.primeNumbersComputationCount);
+        configuration.setSenmlPayloadEncoding(this.senmlPayloadEncoding);
+
+        this.configuration = configuration;
+        this.lifeCycle = new DigitalTwinLifeCycle(BenchmarkMetrics.DIGITAL_TWIN_ID,
+                configuration.getOdteTargetPercentile(),
+                configuration.getUnBoundThresholdMs(),
+                null);
+
+        this.aggregationEngine = ComposedAggregationEngine.create(configuration);
+
+        this.topicDescriptor = new MqttTopicDescriptor("device_state", "device_state",
+                "dt/+/state", MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING);
+
+        long timestamp = System.currentTimeMillis();
+        this.payload = SenMLWriter.getInstance(this.senmlPayloadEncoding)
+                .writeRecord(ENERGY_RESOURCE_TYPE, timestamp, 42.123456, "kW")
+                .writeRecord(TEMPERATURE_RESOURCE_TYPE, timestamp, 21.654321, "Cel")
+                .toByteArray();
+    }
+
+    /**
+     * Devices, steps and listener of a delivery thread
+     */
+    @State(Scope.Thread)
+    public static class DeliveryThreadState {
+
+        private String[] stateTopics;
+
+        private ComposedStateProcessingStep[] processingSteps;
+
+        private int nextTopicIndex = 0;
+
+        private PipelineCache pipelineCache;
+
+        private CapturingProcessingStepListener listener;
+
+        @Setup(Level.Trial)
+        public void setup(ComposedStateProcessingStepParallelBenchmark benchmark, BenchmarkParams benchmarkParams){
+
+            int threadCount = benchmarkParams.getThreads();
+            int threadIndex = benchmark.threadCounter.getAndIncrement();
+            int threadDeviceCount = Math.max(1, benchmark.deviceCount / threadCount);
+
+            this.stateTopics = new String[threadDeviceCount];
+            this.processingSteps = new ComposedStateProcessingStep[threadDeviceCount];
+
+            for(int i = 0; i < threadDeviceCount; i++){
+                String deviceId = String.format("device-%d", threadIndex * threadDeviceCount + i);
+                this.stateTopics[i] = String.format("dt/%s/state", deviceId);
+                this.processingSteps[i] = new ComposedStateProcessingStep(DEVICE_ID, deviceId,
+                        benchmark.aggregationEngine, benchmark.configuration, benchmark.lifeCycle);
+            }
+
+            this.pipelineCache = new PipelineCache();
+            this.listener = new CapturingProcessingStepListener();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown(){
+            this.listener.checkNoErrors(ComposedStateProcessingStepParallelBenchmark.class.getSimpleName());
+        }
+
+        private PipelineData deliverNextState(MqttTopicDescriptor topicDescriptor, byte[] payload){
+
+            this.processingSteps[this.nextTopicIndex].execute(this.pipelineCache,
+                    new MqttPipelineData(this.stateTopics[this.nextTopicIndex], topicDescriptor, payload, false),
+                    this.listener);
+
+            this.nextTopicIndex = (this.nextTopicIndex + 1) % this.stateTopics.length;
+
+            return this.listener.getLastPipelineData();
+        }
+    }
+
+    @Benchmark
+    public PipelineData execute(DeliveryThreadState threadState){
+        return threadState.deliverNextState(this.topicDescriptor, this.payload);
+    }
+
+}
@@ -0,0 +1,55 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.metrics.MetricsManager;
+import it.unimore.dipi.iot.digitaltwin.metrics.ResourceMetricsContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsManager.addObservationDelaySec of the composed DT: observation delay histogram and ODTE sliding window of
+ * the device_state stream of a single source device, resolved for each observation or once (as cached by the
+ * processing steps)
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsManagerBenchmark {
+
+    private static final String RESOURCE_ID = "device_state";
+
+    private static final String DEVICE_ID = "benchmark-device";
+
+    private MetricsManager metricsManager;
+
+    private ResourceMetricsContext resourceMetricsContext;
+
+    private long observationIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        this.metricsManager = BenchmarkMetrics.initMetricsManager();
+        this.resourceMetricsContext = this.metricsManager.getResourceMetricsContext(RESOURCE_ID, DEVICE_ID);
+    }
+
+    @Benchmark
+    public MetricsManager addObservationDelaySec(){
+        this.observationIndex++;
+        this.metricsManager.addObservationDelaySec(RESOURCE_ID, DEVICE_ID, this.observationIndex, (this.observationIndex & 0xFF) / 1000.0);
+        return this.metricsManager;
+    }
+
+    @Benchmark
+    public MetricsManager addObservationDelaySecResolved(){
+        this.observationIndex++;
+        this.metricsManager.addObservationDelaySec(this.resourceMetricsContext, this.observationIndex, (this.observationIndex & 0xFF) / 1000.0);
+        return this.metricsManager;
+    }
+
+}
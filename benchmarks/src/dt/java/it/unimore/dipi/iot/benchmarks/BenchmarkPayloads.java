@@ -0,0 +1,53 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.digitaltwin.TelemetryMessageDecoder;
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
+import it.unimore.dipi.iot.smartobject.resource.EnergyRawSensor;
+import it.unimore.dipi.iot.smartobject.resource.TemperatureRawSensor;
+
+import java.util.Random;
+
+/**
+ * Telemetry payloads generated as the iiot-device emulator does, shared by the DT benchmark suites
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:50
+ */
+public class BenchmarkPayloads {
+
+    public static final String DEVICE_ID = "benchmark-device";
+
+    public static final String DEVICE_STATE_TOPIC = String.format("device/%s/telemetry/device_state", DEVICE_ID);
+
+    private static final String DEVICE_STATE_TYPE = "iot:device:state";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BenchmarkPayloads() {
+    }
+
+    public static TelemetryMessage<AggregatedResourcePayload> buildStateMessage(int payloadOverheadSizeByte){
+
+        Random random = new Random(42);
+
+        AggregatedResourcePayload aggregatedResourcePayload = new AggregatedResourcePayload();
+        aggregatedResourcePayload.put(EnergyRawSensor.RESOURCE_TYPE, random.nextDouble() * 100.0);
+        aggregatedResourcePayload.put(TemperatureRawSensor.RESOURCE_TYPE, 20.0 + random.nextDouble() * 5.0);
+
+        if(payloadOverheadSizeByte > 0){
+            StringBuilder payloadOverhead = new StringBuilder(payloadOverheadSizeByte);
+            for(int i = 0; i < payloadOverheadSizeByte; i++)
+                payloadOverhead.append((char)('a' + random.nextInt(26)));
+            aggregatedResourcePayload.put(TelemetryMessageDecoder.PAYLOAD_OVERHEAD_FIELD, payloadOverhead.toString());
+        }
+
+        return new TelemetryMessage<>(DEVICE_STATE_TYPE, aggregatedResourcePayload);
+    }
+
+    public static byte[] buildStatePayload(int payloadOverheadSizeByte) throws Exception {
+        return objectMapper.writeValueAsBytes(buildStateMessage(payloadOverheadSizeByte));
+    }
+
+}
@@ -0,0 +1,98 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.DigitalStateProcessingStep;
+import it.unimore.dipi.iot.digitaltwin.DigitalTwinConfiguration;
+import it.unimore.dipi.iot.digitaltwin.DigitalTwinLifeCycle;
+import it.unimore.dipi.iot.digitaltwin.DigitalTwinMetricsContext;
+import it.unimore.dipi.iot.digitaltwin.MetricsManager;
+import it.unimore.dipi.iot.wldt.processing.PipelineData;
+import it.unimore.dipi.iot.wldt.processing.cache.PipelineCache;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DigitalStateProcessingStep: aggregated device state decoding and entanglement observation (histogram and ODTE
+ * sliding window), with and without the payload_overhead padding. The emulated state computation is disabled by
+ * default (primeNumbersComputationCount = 0) to measure the middleware overhead only.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DigitalStateProcessingStepBenchmark {
+
+    @Param({"0", "1024"})
+    public int payloadOverheadSizeByte;
+
+    @Param({"0"})
+    public int primeNumbersComputationCount;
+
+    @Param({"exact", "fixed_bucket", "log_sketch"})
+    public String odteTimelinessEstimator;
+
+    private DigitalStateProcessingStep processingStep;
+
+    private PipelineCache pipelineCache;
+
+    private CapturingProcessingStepListener listener;
+
+    private MqttTopicDescriptor topicDescriptor;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        DigitalTwinConfiguration digitalTwinConfiguration = new DigitalTwinConfiguration();
+        digitalTwinConfiguration.setDigitalTwinId(String.format("benchmark-dt-%d", System.nanoTime()));
+        digitalTwinConfiguration.setTargetDeviceId(BenchmarkPayloads.DEVICE_ID);
+        digitalTwinConfiguration.setPrimeNumbersComputationCount(this.primeNumbersComputationCount);
+        digitalTwinConfiguration.setOdteSlidingWindowSec(30);
+        digitalTwinConfiguration.setOdteDesiredTimelinessSec(1.0);
+        digitalTwinConfiguration.setOdteExpectedMsgSec(3.0);
+        digitalTwinConfiguration.setOdteTimelinessEstimator(this.odteTimelinessEstimator);
+
+        MetricsManager.getInstance().init();
+
+        DigitalTwinMetricsContext metricsContext = MetricsManager.getInstance()
+                .createMetricsContext(digitalTwinConfiguration)
+                .orElseThrow(() -> new IllegalStateException("Error creating the Digital Twin Metrics Context !"));
+
+        //Life cycle without deadline scheduler: each observation only updates the last observation timestamp
+        DigitalTwinLifeCycle lifeCycle = new DigitalTwinLifeCycle(digitalTwinConfiguration.getDigitalTwinId(),
+                digitalTwinConfiguration.getOdteTargetPercentile(),
+                digitalTwinConfiguration.getUnBoundThresholdMs(),
+                null);
+
+        this.processingStep = new DigitalStateProcessingStep(digitalTwinConfiguration, metricsContext, lifeCycle);
+        this.pipelineCache = new PipelineCache();
+        this.listener = new CapturingProcessingStepListener();
+
+        this.topicDescriptor = new MqttTopicDescriptor("device_state", "device_state",
+                BenchmarkPayloads.DEVICE_STATE_TOPIC, MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING);
+
+        this.payload = BenchmarkPayloads.buildStatePayload(this.payloadOverheadSizeByte);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        this.listener.checkNoErrors(getClass().getSimpleName());
+    }
+
+    @Benchmark
+    public PipelineData execute(){
+        this.processingStep.execute(this.pipelineCache,
+                new MqttPipelineData(BenchmarkPayloads.DEVICE_STATE_TOPIC, this.topicDescriptor, this.payload, false),
+                this.listener);
+        return this.listener.getLastPipelineData();
+    }
+
+}
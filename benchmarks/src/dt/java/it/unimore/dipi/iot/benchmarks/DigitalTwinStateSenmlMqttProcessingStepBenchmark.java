@@ -0,0 +1,85 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.DigitalTwinStateSenmlMqttProcessingStep;
+import it.unimore.dipi.iot.digitaltwin.TelemetryMqttPipelineData;
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
+import it.unimore.dipi.iot.wldt.processing.PipelineData;
+import it.unimore.dipi.iot.wldt.processing.cache.PipelineCache;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DigitalTwinStateSenmlMqttProcessingStep: aggregated device state to SenML conversion, for each supported SenML
+ * payload encoding. The executeDecoded benchmark reuses the message decoded by the DigitalStateProcessingStep (as in
+ * the DT pipeline) while executeRaw decodes the original payload.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:55
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DigitalTwinStateSenmlMqttProcessingStepBenchmark {
+
+    @Param({"json", "cbor", "binary"})
+    public String senmlPayloadEncoding;
+
+    @Param({"0", "1024"})
+    public int payloadOverheadSizeByte;
+
+    private DigitalTwinStateSenmlMqttProcessingStep processingStep;
+
+    private PipelineCache pipelineCache;
+
+    private CapturingProcessingStepListener listener;
+
+    private MqttTopicDescriptor topicDescriptor;
+
+    private TelemetryMessage<AggregatedResourcePayload> stateMessage;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        this.processingStep = new DigitalTwinStateSenmlMqttProcessingStep(BenchmarkPayloads.DEVICE_ID, this.senmlPayloadEncoding);
+        this.pipelineCache = new PipelineCache();
+        this.listener = new CapturingProcessingStepListener();
+
+        this.topicDescriptor = new MqttTopicDescriptor("device_state", "device_state",
+                BenchmarkPayloads.DEVICE_STATE_TOPIC, MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING);
+
+        this.stateMessage = BenchmarkPayloads.buildStateMessage(this.payloadOverheadSizeByte);
+        this.payload = BenchmarkPayloads.buildStatePayload(this.payloadOverheadSizeByte);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        this.listener.checkNoErrors(getClass().getSimpleName());
+    }
+
+    @Benchmark
+    public PipelineData executeDecoded(){
+        MqttPipelineData mqttPipelineData = new MqttPipelineData(BenchmarkPayloads.DEVICE_STATE_TOPIC, this.topicDescriptor, this.payload, false);
+        this.processingStep.execute(this.pipelineCache,
+                new TelemetryMqttPipelineData<>(mqttPipelineData, this.stateMessage),
+                this.listener);
+        return this.listener.getLastPipelineData();
+    }
+
+    @Benchmark
+    public PipelineData executeRaw(){
+        this.processingStep.execute(this.pipelineCache,
+                new MqttPipelineData(BenchmarkPayloads.DEVICE_STATE_TOPIC, this.topicDescriptor, this.payload, false),
+                this.listener);
+        return this.listener.getLastPipelineData();
+    }
+
+}
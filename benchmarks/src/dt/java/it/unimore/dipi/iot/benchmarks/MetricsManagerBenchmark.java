@@ -0,0 +1,78 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.DigitalTwin;
+import it.unimore.dipi.iot.digitaltwin.DigitalTwinConfiguration;
+import it.unimore.dipi.iot.digitaltwin.DigitalTwinMetricsContext;
+import it.unimore.dipi.iot.digitaltwin.MetricsManager;
+import it.unimore.dipi.iot.digitaltwin.ResourceMetricsContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Observation delay recording (histogram and ODTE sliding window) of the MetricsManager. In this module the
+ * observations are recorded through the {@link DigitalTwinMetricsContext} of each hosted Digital Twin, created by the
+ * MetricsManager with the labelled children of the shared collectors. Each operation updates the stream of the
+ * device_state resource of a single device, resolved through the per resource map of the context for each
+ * observation or once (as cached by the processing steps).
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsManagerBenchmark {
+
+    @Param({"default", "linear"})
+    public String observationBucketType;
+
+    private DigitalTwinMetricsContext metricsContext;
+
+    private ResourceMetricsContext resourceMetricsContext;
+
+    private long observationIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setup(){
+
+        DigitalTwinConfiguration digitalTwinConfiguration = new DigitalTwinConfiguration();
+        digitalTwinConfiguration.setDigitalTwinId(String.format("benchmark-dt-%d", System.nanoTime()));
+        digitalTwinConfiguration.setOdteSlidingWindowSec(30);
+        digitalTwinConfiguration.setOdteDesiredTimelinessSec(1.0);
+        digitalTwinConfiguration.setOdteExpectedMsgSec(3.0);
+
+        //Bucket configuration of the yaml files: 50 linear buckets of 5ms
+        MetricsManager.getInstance().setObservationBucketType(this.observationBucketType);
+        MetricsManager.getInstance().setObservationBucketStart(0.0);
+        MetricsManager.getInstance().setObservationBucketWidth(0.005);
+        MetricsManager.getInstance().setObservationBucketCount(50);
+        MetricsManager.getInstance().init();
+
+        this.metricsContext = MetricsManager.getInstance()
+                .createMetricsContext(digitalTwinConfiguration)
+                .orElseThrow(() -> new IllegalStateException("Error creating the Digital Twin Metrics Context !"));
+
+        this.resourceMetricsContext = this.metricsContext.getResourceMetricsContext(DigitalTwin.DEVICE_STATE_RESOURCE_ID, BenchmarkPayloads.DEVICE_ID);
+    }
+
+    @Benchmark
+    public DigitalTwinMetricsContext addObservationDelaySec(){
+        this.observationIndex++;
+        this.metricsContext.addObservationDelaySec(DigitalTwin.DEVICE_STATE_RESOURCE_ID,
+                BenchmarkPayloads.DEVICE_ID,
+                this.observationIndex, (this.observationIndex & 0xFF) / 1000.0);
+        return this.metricsContext;
+    }
+
+    @Benchmark
+    public DigitalTwinMetricsContext addObservationDelaySecResolved(){
+        this.observationIndex++;
+        this.metricsContext.addObservationDelaySec(this.resourceMetricsContext, this.observationIndex, (this.observationIndex & 0xFF) / 1000.0);
+        return this.metricsContext;
+    }
+
+}
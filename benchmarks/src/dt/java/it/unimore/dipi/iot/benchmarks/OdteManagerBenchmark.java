@@ -0,0 +1,113 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.digitaltwin.odte.OdteManager;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteSlidingWindow;
+import it.unimore.dipi.iot.digitaltwin.odte.TimelinessEstimatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OdteManager.computeOdte with windows from 10 to 1M samples:
+ * - computeOdteSamplesList: original path, the whole list of samples is copied and sorted at each computation
+ * - computeOdteSlidingWindow: incremental path, each operation appends a new observation, expires the oldest one and
+ *   computes the ODTE on the sliding window (steady state with windowSize samples in the window)
+ *
+ * The observation timestamps are generated by a simulated clock advancing by the expected inter-arrival time, so that
+ * the window always holds windowSize samples regardless of the benchmark throughput.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:55
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OdteManagerBenchmark {
+
+    private static final int SLIDING_WINDOW_SEC = 30;
+
+    private static final double DESIRED_TIMELINESS_SEC = 1.0;
+
+    private static final int OBSERVATION_POOL_SIZE = 4096;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int windowSize;
+
+    @Param({"exact", "fixed_bucket", "log_sketch"})
+    public String odteTimelinessEstimator;
+
+    private double expectedMsgSec;
+
+    private double interArrivalMs;
+
+    private List<Double> samplesList;
+
+    private OdteSlidingWindow slidingWindow;
+
+    private double[] observationPool;
+
+    private long baseTimestampMs;
+
+    private long observationIndex;
+
+    @Setup(Level.Trial)
+    public void setup(){
+
+        Random random = new Random(42);
+
+        //Timeliness observations around the desired timeliness
+        this.observationPool = new double[OBSERVATION_POOL_SIZE];
+        for(int i = 0; i < OBSERVATION_POOL_SIZE; i++)
+            this.observationPool[i] = Math.abs(DESIRED_TIMELINESS_SEC + random.nextGaussian() * 0.5);
+
+        this.expectedMsgSec = (double)this.windowSize / (double)SLIDING_WINDOW_SEC;
+        this.interArrivalMs = 1000.0 / this.expectedMsgSec;
+
+        this.samplesList = new ArrayList<>(this.windowSize);
+        for(int i = 0; i < this.windowSize; i++)
+            this.samplesList.add(nextObservation(i));
+
+        this.slidingWindow = new OdteSlidingWindow(SLIDING_WINDOW_SEC,
+                DESIRED_TIMELINESS_SEC,
+                this.expectedMsgSec,
+                TimelinessEstimatorFactory.createEstimator(this.odteTimelinessEstimator, 0.0));
+
+        this.baseTimestampMs = System.currentTimeMillis();
+
+        //Fill the sliding window
+        for(this.observationIndex = 0; this.observationIndex < this.windowSize; this.observationIndex++)
+            this.slidingWindow.addObservation(timestampMs(this.observationIndex), nextObservation(this.observationIndex));
+
+        this.slidingWindow.update(timestampMs(this.observationIndex));
+    }
+
+    @Benchmark
+    public Optional<OdteResultDescription> computeOdteSamplesList(){
+        return OdteManager.getInstance().computeOdte(this.samplesList, DESIRED_TIMELINESS_SEC, this.expectedMsgSec, SLIDING_WINDOW_SEC);
+    }
+
+    @Benchmark
+    public Optional<OdteResultDescription> computeOdteSlidingWindow(){
+        long timestampMs = timestampMs(this.observationIndex);
+        this.slidingWindow.addObservation(timestampMs, nextObservation(this.observationIndex));
+        this.observationIndex++;
+        return OdteManager.getInstance().computeOdte(this.slidingWindow, timestampMs, this.expectedMsgSec);
+    }
+
+    private long timestampMs(long index){
+        return this.baseTimestampMs + (long)(index * this.interArrivalMs);
+    }
+
+    private double nextObservation(long index){
+        return this.observationPool[(int)(index % OBSERVATION_POOL_SIZE)];
+    }
+
+}
@@ -0,0 +1,77 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.digitaltwin.SenmlMqttProcessingStep;
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.smartobject.resource.EnergyRawSensor;
+import it.unimore.dipi.iot.smartobject.resource.TemperatureRawSensor;
+import it.unimore.dipi.iot.wldt.processing.PipelineData;
+import it.unimore.dipi.iot.wldt.processing.cache.PipelineCache;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SenmlMqttProcessingStep: single resource telemetry message (JSON) to SenML conversion, for each supported
+ * SenML payload encoding.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:45
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SenmlMqttProcessingStepBenchmark {
+
+    @Param({"json", "cbor", "binary"})
+    public String senmlPayloadEncoding;
+
+    @Param({"energy", "temperature"})
+    public String resource;
+
+    private SenmlMqttProcessingStep processingStep;
+
+    private PipelineCache pipelineCache;
+
+    private CapturingProcessingStepListener listener;
+
+    private MqttTopicDescriptor topicDescriptor;
+
+    private String topic;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        this.processingStep = new SenmlMqttProcessingStep(BenchmarkPayloads.DEVICE_ID, this.senmlPayloadEncoding);
+        this.pipelineCache = new PipelineCache();
+        this.listener = new CapturingProcessingStepListener();
+
+        this.topic = String.format("device/%s/telemetry/%s", BenchmarkPayloads.DEVICE_ID, this.resource);
+        this.topicDescriptor = new MqttTopicDescriptor(this.resource, this.resource, this.topic, MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING);
+
+        String resourceType = "energy".equals(this.resource) ? EnergyRawSensor.RESOURCE_TYPE : TemperatureRawSensor.RESOURCE_TYPE;
+        this.payload = new ObjectMapper().writeValueAsBytes(new TelemetryMessage<>(resourceType, 21.456789));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        this.listener.checkNoErrors(getClass().getSimpleName());
+    }
+
+    @Benchmark
+    public PipelineData execute(){
+        //The step replaces the payload of the received pipeline data: a new one is created per message as in the MQTT worker
+        this.processingStep.execute(this.pipelineCache,
+                new MqttPipelineData(this.topic, this.topicDescriptor, this.payload, false),
+                this.listener);
+        return this.listener.getLastPipelineData();
+    }
+
+}
@@ -0,0 +1,85 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.digitaltwin.TelemetryMessageDecoder;
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
+import it.unimore.dipi.iot.smartobject.resource.EnergyRawSensor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TelemetryMessageDecoder: streaming decoding of the single resource and aggregated state telemetry messages compared
+ * with the original ObjectMapper decoding path (String copy + TypeReference), with and without the payload_overhead
+ * padding of the state messages.
+ *
+ * @project benchmarks
+ * @created 19/10/2026 - 12:10
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TelemetryMessageDecoderBenchmark {
+
+    private static final TypeReference<TelemetryMessage<Double>> DOUBLE_TELEMETRY_TYPE = new TypeReference<TelemetryMessage<Double>>() {};
+
+    private static final TypeReference<TelemetryMessage<AggregatedResourcePayload>> STATE_TELEMETRY_TYPE = new TypeReference<TelemetryMessage<AggregatedResourcePayload>>() {};
+
+    @Param({"0", "1024"})
+    public int payloadOverheadSizeByte;
+
+    private ObjectMapper objectMapper;
+
+    private TelemetryMessageDecoder decoder;
+
+    private byte[] doublePayload;
+
+    private byte[] statePayload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        this.objectMapper = new ObjectMapper();
+        this.decoder = TelemetryMessageDecoder.getInstance();
+
+        this.doublePayload = this.objectMapper.writeValueAsBytes(new TelemetryMessage<>(EnergyRawSensor.RESOURCE_TYPE, 12.345678));
+        this.statePayload = BenchmarkPayloads.buildStatePayload(this.payloadOverheadSizeByte);
+
+        //Both paths have to decode the payloads, a failure would make the results meaningless
+        if(!this.decoder.decodeDoubleTelemetryMessage(this.doublePayload).isPresent()
+                || !this.decoder.decodeAggregatedStateTelemetryMessage(this.statePayload, false).isPresent())
+            throw new IllegalStateException("Error decoding the benchmark payloads !");
+    }
+
+    @Benchmark
+    public TelemetryMessage<Double> doubleObjectMapper() throws Exception {
+        return this.objectMapper.readValue(new String(this.doublePayload), DOUBLE_TELEMETRY_TYPE);
+    }
+
+    @Benchmark
+    public Optional<TelemetryMessage<Double>> doubleDecoder(){
+        return this.decoder.decodeDoubleTelemetryMessage(this.doublePayload);
+    }
+
+    @Benchmark
+    public TelemetryMessage<AggregatedResourcePayload> stateObjectMapper() throws Exception {
+        return this.objectMapper.readValue(new String(this.statePayload), STATE_TELEMETRY_TYPE);
+    }
+
+    @Benchmark
+    public Optional<TelemetryMessage<AggregatedResourcePayload>> stateDecoder(){
+        return this.decoder.decodeAggregatedStateTelemetryMessage(this.statePayload, false);
+    }
+
+    @Benchmark
+    public Optional<TelemetryMessage<AggregatedResourcePayload>> stateDecoderSkipOverhead(){
+        return this.decoder.decodeAggregatedStateTelemetryMessage(this.statePayload, true);
+    }
+
+}
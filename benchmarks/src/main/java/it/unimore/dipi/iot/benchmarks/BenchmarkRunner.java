@@ -0,0 +1,40 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It accepts the standard JMH command line options (e.g. a benchmark regex,
+ * -rf json -rff results.json) and always attaches the GC profiler, so that each suite reports the allocation rate
+ * (gc.alloc.rate.norm = allocated bytes per operation) together with the execution time.
+ *
+ * Run Command: java -jar target/benchmarks.jar [JMH options]
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:40
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) {
+
+        try{
+
+            CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+            Options options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+
+            new Runner(options).run();
+
+        }catch (Exception e){
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+}
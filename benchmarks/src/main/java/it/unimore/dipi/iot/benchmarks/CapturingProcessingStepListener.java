@@ -0,0 +1,70 @@
+package it.unimore.dipi.iot.benchmarks;
+
+import it.unimore.dipi.iot.wldt.processing.PipelineData;
+import it.unimore.dipi.iot.wldt.processing.ProcessingStep;
+import it.unimore.dipi.iot.wldt.processing.ProcessingStepListener;
+
+import java.util.Optional;
+
+/**
+ * Processing Step Listener keeping the last result of the benchmarked step, returned by the benchmark methods to avoid
+ * the dead code elimination of the step execution. It does not allocate, so it does not affect the measured
+ * allocation rate.
+ *
+ * @project benchmarks
+ * @created 18/10/2026 - 23:40
+ */
+public class CapturingProcessingStepListener implements ProcessingStepListener {
+
+    private PipelineData lastPipelineData;
+
+    private long doneCount = 0;
+
+    private long skipCount = 0;
+
+    private long errorCount = 0;
+
+    @Override
+    public void onStepDone(ProcessingStep processingStep, Optional<PipelineData> result) {
+        this.lastPipelineData = result.orElse(null);
+        this.doneCount++;
+    }
+
+    @Override
+    public void onStepError(ProcessingStep processingStep, PipelineData pipelineData, String errorMessage) {
+        this.lastPipelineData = pipelineData;
+        this.errorCount++;
+    }
+
+    @Override
+    public void onStepSkip(ProcessingStep processingStep, PipelineData pipelineData) {
+        this.lastPipelineData = pipelineData;
+        this.skipCount++;
+    }
+
+    public PipelineData getLastPipelineData() {
+        return lastPipelineData;
+    }
+
+    public long getDoneCount() {
+        return doneCount;
+    }
+
+    public long getSkipCount() {
+        return skipCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Check that the benchmarked step has not failed, otherwise the suite would measure the error path
+     */
+    public void checkNoErrors(String benchmarkName){
+        if(this.errorCount > 0)
+            throw new IllegalStateException(String.format("%s -> %d Processing Step errors ! Done: %d Skipped: %d",
+                    benchmarkName, this.errorCount, this.doneCount, this.skipCount));
+    }
+
+}
@@ -0,0 +1,174 @@
+package it.unimore.dipi.iot.harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.paho.client.mqttv3.*;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * MQTT subscriber of the digital broker measuring the end-to-end latency of the DT outputs: the SenML records
+ * generated by the DTs keep the timestamp of the original device message, so the latency is the difference between
+ * the reception time and the record timestamp (devices, DTs and harness share the same clock).
+ *
+ * Messages on the device telemetry topics (device/<device_id>/telemetry/<resource>) are DT outputs, all the other
+ * messages of the digital broker are counted as composed DT outputs. The DTs have to use the JSON SenML encoding.
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:40
+ */
+public class DigitalTwinOutputCollector implements MqttCallback {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigitalTwinOutputCollector.class);
+
+    private static final Pattern DT_TELEMETRY_TOPIC_PATTERN = Pattern.compile("device/[^/]+/telemetry/.+");
+
+    private static final String ALL_TOPICS_FILTER = "#";
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IMqttClient mqttClient;
+
+    private boolean recording = false;
+
+    private double[] latencyMsArray = new double[INITIAL_CAPACITY];
+
+    private int latencyCount = 0;
+
+    private long composedMessageCount = 0;
+
+    private long invalidMessageCount = 0;
+
+    public void start(String brokerAddress, int brokerPort) throws MqttException {
+
+        this.mqttClient = new MqttClient(String.format("tcp://%s:%d", brokerAddress, brokerPort),
+                String.format("e2e-harness-collector-%d", System.currentTimeMillis()),
+                new MemoryPersistence());
+
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setAutomaticReconnect(true);
+        options.setCleanSession(true);
+        options.setConnectionTimeout(10);
+
+        this.mqttClient.setCallback(this);
+        this.mqttClient.connect(options);
+        this.mqttClient.subscribe(ALL_TOPICS_FILTER, 0);
+
+        logger.info("DigitalTwinOutputCollector -> Subscribed to {}:{} !", brokerAddress, brokerPort);
+    }
+
+    public void stop(){
+        try{
+            if(this.mqttClient != null && this.mqttClient.isConnected())
+                this.mqttClient.disconnect();
+        }catch (Exception e){
+            logger.error("DigitalTwinOutputCollector -> Error disconnecting ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Discard the collected samples and start a new measurement
+     */
+    public synchronized void startRecording(){
+        this.latencyCount = 0;
+        this.composedMessageCount = 0;
+        this.invalidMessageCount = 0;
+        this.recording = true;
+    }
+
+    /**
+     * Stop the measurement
+     * @return the latencies [ms] of the DT outputs received during the measurement
+     */
+    public synchronized double[] stopRecording(){
+        this.recording = false;
+        return Arrays.copyOf(this.latencyMsArray, this.latencyCount);
+    }
+
+    public synchronized long getComposedMessageCount() {
+        return composedMessageCount;
+    }
+
+    public synchronized long getInvalidMessageCount() {
+        return invalidMessageCount;
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage mqttMessage) {
+
+        long receivedTimestampMs = System.currentTimeMillis();
+
+        if(!DT_TELEMETRY_TOPIC_PATTERN.matcher(topic).matches()){
+            synchronized (this){
+                if(this.recording)
+                    this.composedMessageCount++;
+            }
+            return;
+        }
+
+        long originalTimestampMs = readOriginalTimestampMs(mqttMessage.getPayload());
+
+        synchronized (this){
+
+            if(!this.recording)
+                return;
+
+            if(originalTimestampMs <= 0){
+                this.invalidMessageCount++;
+                return;
+            }
+
+            if(this.latencyCount == this.latencyMsArray.length)
+                this.latencyMsArray = Arrays.copyOf(this.latencyMsArray, this.latencyMsArray.length * 2);
+
+            this.latencyMsArray[this.latencyCount++] = receivedTimestampMs - originalTimestampMs;
+        }
+    }
+
+    /**
+     * @return the most recent record time (bt + t) of the SenML pack or -1 if the payload is not a JSON SenML pack
+     */
+    private long readOriginalTimestampMs(byte[] payload){
+
+        try{
+
+            JsonNode senmlPack = this.objectMapper.readTree(payload);
+
+            if(senmlPack == null || !senmlPack.isArray())
+                return -1;
+
+            long timestampMs = -1;
+            double baseTime = 0.0;
+
+            for(JsonNode senmlRecord : senmlPack){
+
+                if(senmlRecord.has("bt"))
+                    baseTime = senmlRecord.get("bt").asDouble();
+
+                if(senmlRecord.has("t"))
+                    timestampMs = Math.max(timestampMs, (long)(baseTime + senmlRecord.get("t").asDouble()));
+            }
+
+            return timestampMs;
+
+        }catch (Exception e){
+            return -1;
+        }
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        logger.warn("DigitalTwinOutputCollector -> Connection lost ! Msg: {}", cause != null ? cause.getLocalizedMessage() : null);
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+    }
+
+}
@@ -0,0 +1,100 @@
+package it.unimore.dipi.iot.harness;
+
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * In-process MQTT broker (Moquette) replacing the physical and digital Mosquitto brokers of the experiments.
+ * Sessions and retained messages are kept in memory and each outbound message is flushed immediately, so that the
+ * broker does not add batching delays to the measured latency.
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:35
+ */
+public class EmbeddedMqttBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedMqttBroker.class);
+
+    private static final String NETTY_MAX_BYTES_PROPERTY_NAME = "netty.mqtt.message_size";
+
+    private static final String IMMEDIATE_BUFFER_FLUSH_PROPERTY_NAME = "immediate_buffer_flush";
+
+    private static final String WEB_SOCKET_PORT_PROPERTY_NAME = "websocket_port";
+
+    private static final String DISABLED_PORT_BIND = "disabled";
+
+    private final String name;
+
+    private final String address;
+
+    private final int port;
+
+    private final int maxMessageSizeByte;
+
+    private Server server;
+
+    public EmbeddedMqttBroker(String name, String address, int port, int maxMessageSizeByte) {
+        this.name = name;
+        this.address = address;
+        this.port = port;
+        this.maxMessageSizeByte = maxMessageSizeByte;
+    }
+
+    public synchronized void start() throws IOException {
+
+        if(this.server != null){
+            logger.warn("EmbeddedMqttBroker -> {} already started !", this.name);
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, this.address);
+        properties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, String.valueOf(this.port));
+        properties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, Boolean.TRUE.toString());
+        //Empty path: in-memory sessions and retained messages
+        properties.setProperty(BrokerConstants.PERSISTENT_STORE_PROPERTY_NAME, "");
+        properties.setProperty(NETTY_MAX_BYTES_PROPERTY_NAME, String.valueOf(this.maxMessageSizeByte));
+        properties.setProperty(IMMEDIATE_BUFFER_FLUSH_PROPERTY_NAME, Boolean.TRUE.toString());
+        properties.setProperty(WEB_SOCKET_PORT_PROPERTY_NAME, DISABLED_PORT_BIND);
+
+        Server newServer = new Server();
+        newServer.startServer(new MemoryConfig(properties));
+        this.server = newServer;
+
+        logger.info("EmbeddedMqttBroker -> {} started on {}:{}", this.name, this.address, this.port);
+    }
+
+    public synchronized void stop(){
+
+        if(this.server == null)
+            return;
+
+        try{
+            this.server.stopServer();
+            logger.info("EmbeddedMqttBroker -> {} stopped !", this.name);
+        }catch (Exception e){
+            logger.error("EmbeddedMqttBroker -> Error stopping {} ! Msg: {}", this.name, e.getLocalizedMessage());
+        }finally {
+            this.server = null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+}
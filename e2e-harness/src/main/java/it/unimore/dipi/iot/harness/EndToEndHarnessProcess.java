@@ -0,0 +1,317 @@
+package it.unimore.dipi.iot.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * End-to-end latency harness: two embedded MQTT brokers (physical and digital) run in the harness JVM together with
+ * the collector of the DT outputs, while the device fleet (iiot-device), the DT host and the optional composed DT run
+ * as child processes configured by the harness. For each rate of the configured rate steps the harness measures the
+ * device-to-DT output latency percentiles, the throughput, the timeliness, the reliability and the resulting ODTE,
+ * together with the ODTE gauges exposed by the DTs, and appends a line to the CSV report.
+ *
+ * Configuration file: harness_conf.yaml (or the path passed as first argument).
+ *
+ * Mvn Command: mvn exec:java -Dexec.mainClass="it.unimore.dipi.iot.harness.EndToEndHarnessProcess"
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:55
+ */
+public class EndToEndHarnessProcess {
+
+    private static final String TAG = "[E2E-Harness-Process]";
+
+    private static final Logger logger = LoggerFactory.getLogger(EndToEndHarnessProcess.class);
+
+    private static final String HARNESS_CONFIGURATION_FILE = "harness_conf.yaml";
+
+    private static final String DEVICE_MAIN_CLASS = "it.unimore.dipi.iot.smartobject.process.DeploymentProcess";
+
+    private static final String DT_HOST_MAIN_CLASS = "it.unimore.dipi.iot.digitaltwin.DigitalTwinHostProcess";
+
+    private static final String COMPOSED_DT_MAIN_CLASS = "it.unimore.dipi.iot.digitaltwin.ComposedMqttDigitalTwinProcess";
+
+    private static final String ODTE_GAUGE_NAME = "dt_odte_value";
+
+    private static HarnessConfiguration harnessConfiguration;
+
+    private static EmbeddedMqttBroker physicalBroker;
+
+    private static EmbeddedMqttBroker digitalBroker;
+
+    private static DigitalTwinOutputCollector outputCollector;
+
+    private static final List<ModuleProcess> runningProcessList = new ArrayList<>();
+
+    public static void main(String[] args) {
+
+        try{
+
+            String configurationFile = args.length > 0 ? args[0] : HARNESS_CONFIGURATION_FILE;
+
+            harnessConfiguration = readConfigurationFile(configurationFile);
+            logger.info("{} Harness Configuration: {}", TAG, harnessConfiguration);
+
+            if(harnessConfiguration == null)
+                return;
+
+            Runtime.getRuntime().addShutdownHook(new Thread(EndToEndHarnessProcess::stop));
+
+            File workDir = new File(harnessConfiguration.getWorkDir());
+
+            if(!workDir.isDirectory() && !workDir.mkdirs())
+                throw new IOException(String.format("Unable to create the working directory %s", workDir.getAbsolutePath()));
+
+            physicalBroker = new EmbeddedMqttBroker("physical-broker",
+                    harnessConfiguration.getBrokerAddress(),
+                    harnessConfiguration.getPhysicalBrokerPort(),
+                    harnessConfiguration.getBrokerMaxMessageSizeByte());
+            physicalBroker.start();
+
+            digitalBroker = new EmbeddedMqttBroker("digital-broker",
+                    harnessConfiguration.getBrokerAddress(),
+                    harnessConfiguration.getDigitalBrokerPort(),
+                    harnessConfiguration.getBrokerMaxMessageSizeByte());
+            digitalBroker.start();
+
+            outputCollector = new DigitalTwinOutputCollector();
+            outputCollector.start(harnessConfiguration.getBrokerAddress(), harnessConfiguration.getDigitalBrokerPort());
+
+            File reportFile = new File(workDir, harnessConfiguration.getReportFile());
+            List<RateStepReport> reportList = new ArrayList<>();
+
+            try(PrintWriter reportWriter = new PrintWriter(new FileWriter(reportFile, false))){
+
+                reportWriter.println(RateStepReport.CSV_HEADER);
+                reportWriter.flush();
+
+                int stepIndex = 0;
+
+                for(Double rateMsgSec : harnessConfiguration.getRateStepList()){
+
+                    File stepWorkDir = new File(workDir, String.format("step-%d", stepIndex++));
+
+                    if(!stepWorkDir.isDirectory() && !stepWorkDir.mkdirs())
+                        throw new IOException(String.format("Unable to create the working directory %s", stepWorkDir.getAbsolutePath()));
+
+                    RateStepReport rateStepReport = executeRateStep(stepWorkDir, rateMsgSec);
+                    logger.info("{} Rate Step Report: {}", TAG, rateStepReport);
+
+                    reportList.add(rateStepReport);
+                    reportWriter.println(rateStepReport.toCsvLine());
+                    reportWriter.flush();
+                }
+            }
+
+            logger.info("{} Completed {} Rate Steps ! Report: {}", TAG, reportList.size(), reportFile.getAbsolutePath());
+
+            for(RateStepReport rateStepReport : reportList)
+                logger.info("{} {} msg/sec -> Latency P50: {} ms P99: {} ms Throughput: {} msg/sec ODTE: {} (DT ODTE: {})",
+                        TAG,
+                        rateStepReport.getRateMsgSec(),
+                        rateStepReport.getLatencyP50Ms(),
+                        rateStepReport.getLatencyP99Ms(),
+                        rateStepReport.getThroughputMsgSec(),
+                        rateStepReport.getOdte(),
+                        rateStepReport.getDtOdte());
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }finally {
+            stop();
+        }
+    }
+
+    /**
+     * Start the module processes configured for the target rate, wait for the startup and the warm-up and measure the
+     * DT outputs for the configured step duration
+     */
+    private static RateStepReport executeRateStep(File stepWorkDir, double rateMsgSec) throws Exception {
+
+        logger.info("{} Starting Rate Step: {} msg/sec - Devices: {} - Working Dir: {}", TAG, rateMsgSec,
+                harnessConfiguration.getDeviceCount(), stepWorkDir.getPath());
+
+        File logbackConfigurationFile = ModuleConfigurationFactory.writeLogbackConfiguration(stepWorkDir, harnessConfiguration.getChildLogLevel());
+        ModuleConfigurationFactory.writeDeviceConfiguration(stepWorkDir, harnessConfiguration, rateMsgSec);
+        ModuleConfigurationFactory.writeDigitalTwinHostConfiguration(stepWorkDir, harnessConfiguration, rateMsgSec);
+
+        try{
+
+            //DTs are started before the devices in order to observe the first telemetry messages
+            if(harnessConfiguration.isComposedTwinEnabled()){
+                ModuleConfigurationFactory.writeComposedDigitalTwinConfiguration(stepWorkDir, harnessConfiguration, rateMsgSec);
+                startModuleProcess(new ModuleProcess("composed-dt",
+                        new File(harnessConfiguration.getComposedDigitalTwinModulePath()),
+                        COMPOSED_DT_MAIN_CLASS), stepWorkDir, logbackConfigurationFile);
+            }
+
+            startModuleProcess(new ModuleProcess("dt-host",
+                    new File(harnessConfiguration.getDigitalTwinModulePath()),
+                    DT_HOST_MAIN_CLASS,
+                    ModuleConfigurationFactory.DT_HOST_CONFIGURATION_FILE), stepWorkDir, logbackConfigurationFile);
+
+            Thread.sleep(harnessConfiguration.getStartupDelaySec() * 1000L);
+
+            startModuleProcess(new ModuleProcess("iiot-device",
+                    new File(harnessConfiguration.getIiotDeviceModulePath()),
+                    DEVICE_MAIN_CLASS), stepWorkDir, logbackConfigurationFile);
+
+            Thread.sleep(harnessConfiguration.getWarmupSec() * 1000L);
+
+            checkModuleProcesses();
+
+            outputCollector.startRecording();
+            long recordingStartMs = System.currentTimeMillis();
+
+            Thread.sleep(harnessConfiguration.getStepDurationSec() * 1000L);
+
+            double[] latencyMsArray = outputCollector.stopRecording();
+            double durationSec = (System.currentTimeMillis() - recordingStartMs) / 1000.0;
+
+            checkModuleProcesses();
+
+            if(outputCollector.getInvalidMessageCount() > 0)
+                logger.warn("{} {} DT outputs without a valid SenML JSON timestamp !", TAG, outputCollector.getInvalidMessageCount());
+
+            RateStepReport rateStepReport = buildRateStepReport(rateMsgSec, durationSec, latencyMsArray, outputCollector.getComposedMessageCount());
+
+            //The gauges are read before stopping the DTs
+            rateStepReport.setDtOdte(PrometheusScraper.readGaugeMean(harnessConfiguration.getBrokerAddress(),
+                    harnessConfiguration.getDtPrometheusHttpApiPort(), ODTE_GAUGE_NAME).orElse(Double.NaN));
+
+            if(harnessConfiguration.isComposedTwinEnabled())
+                rateStepReport.setComposedOdte(PrometheusScraper.readGaugeMean(harnessConfiguration.getBrokerAddress(),
+                        harnessConfiguration.getComposedPrometheusHttpApiPort(), ODTE_GAUGE_NAME).orElse(Double.NaN));
+
+            return rateStepReport;
+
+        }finally {
+            stopModuleProcesses();
+        }
+    }
+
+    private static RateStepReport buildRateStepReport(double rateMsgSec, double durationSec, double[] latencyMsArray, long composedMsgCount){
+
+        //Each device telemetry message generates one DT output
+        long expectedMsgCount = Math.round(rateMsgSec * harnessConfiguration.getDeviceCount() * durationSec);
+        double desiredTimelinessMs = harnessConfiguration.getOdteDesiredTimelinessSec() * 1000.0;
+
+        Arrays.sort(latencyMsArray);
+
+        long timelyMsgCount = 0;
+        for(double latencyMs : latencyMsArray)
+            if(latencyMs <= desiredTimelinessMs)
+                timelyMsgCount++;
+
+        double timeliness = latencyMsArray.length > 0 ? (double) timelyMsgCount / latencyMsArray.length : 0.0;
+        double reliability = expectedMsgCount > 0 ? Math.min(1.0, (double) latencyMsArray.length / expectedMsgCount) : 0.0;
+
+        RateStepReport rateStepReport = new RateStepReport();
+        rateStepReport.setRateMsgSec(rateMsgSec);
+        rateStepReport.setDeviceCount(harnessConfiguration.getDeviceCount());
+        rateStepReport.setDurationSec(durationSec);
+        rateStepReport.setExpectedMsgCount(expectedMsgCount);
+        rateStepReport.setReceivedMsgCount(latencyMsArray.length);
+        rateStepReport.setThroughputMsgSec(latencyMsArray.length / durationSec);
+        rateStepReport.setLatencyP50Ms(percentile(latencyMsArray, 0.50));
+        rateStepReport.setLatencyP90Ms(percentile(latencyMsArray, 0.90));
+        rateStepReport.setLatencyP95Ms(percentile(latencyMsArray, 0.95));
+        rateStepReport.setLatencyP99Ms(percentile(latencyMsArray, 0.99));
+        rateStepReport.setLatencyMaxMs(latencyMsArray.length > 0 ? latencyMsArray[latencyMsArray.length - 1] : Double.NaN);
+        rateStepReport.setTimeliness(timeliness);
+        rateStepReport.setReliability(reliability);
+        //Availability is 1.0 as the DTs are running for the whole step (checked before and after the measurement)
+        rateStepReport.setOdte(timeliness * reliability);
+        rateStepReport.setDtOdte(Double.NaN);
+        rateStepReport.setComposedMsgCount(composedMsgCount);
+        rateStepReport.setComposedThroughputMsgSec(composedMsgCount / durationSec);
+        rateStepReport.setComposedOdte(Double.NaN);
+
+        return rateStepReport;
+    }
+
+    /**
+     * Nearest-rank percentile of a sorted array
+     * @return the percentile value or NaN if the array is empty
+     */
+    private static double percentile(double[] sortedArray, double percentile){
+
+        if(sortedArray.length == 0)
+            return Double.NaN;
+
+        int rank = (int) Math.ceil(percentile * sortedArray.length);
+        return sortedArray[Math.max(0, Math.min(sortedArray.length - 1, rank - 1))];
+    }
+
+    private static void startModuleProcess(ModuleProcess moduleProcess, File stepWorkDir, File logbackConfigurationFile) throws IOException {
+
+        synchronized (runningProcessList){
+            runningProcessList.add(moduleProcess);
+        }
+
+        moduleProcess.start(harnessConfiguration.getJavaCommand(),
+                harnessConfiguration.getChildJvmOptions(),
+                stepWorkDir,
+                logbackConfigurationFile);
+    }
+
+    private static void checkModuleProcesses(){
+        synchronized (runningProcessList){
+            for(ModuleProcess moduleProcess : runningProcessList)
+                if(!moduleProcess.isAlive())
+                    throw new IllegalStateException(String.format("Module process %s terminated ! Check %s.log", moduleProcess.getName(), moduleProcess.getName()));
+        }
+    }
+
+    private static void stopModuleProcesses(){
+        synchronized (runningProcessList){
+            //Devices are stopped first, DTs last
+            for(int processIndex = runningProcessList.size() - 1; processIndex >= 0; processIndex--)
+                runningProcessList.get(processIndex).stop();
+
+            runningProcessList.clear();
+        }
+    }
+
+    private static synchronized void stop(){
+
+        stopModuleProcesses();
+
+        if(outputCollector != null){
+            outputCollector.stop();
+            outputCollector = null;
+        }
+
+        if(digitalBroker != null){
+            digitalBroker.stop();
+            digitalBroker = null;
+        }
+
+        if(physicalBroker != null){
+            physicalBroker.stop();
+            physicalBroker = null;
+        }
+    }
+
+    private static HarnessConfiguration readConfigurationFile(String configurationFile) {
+        try{
+            File file = new File(configurationFile);
+            ObjectMapper om = new ObjectMapper(new YAMLFactory());
+            return om.readValue(file, HarnessConfiguration.class);
+        }catch (Exception e){
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,347 @@
+package it.unimore.dipi.iot.harness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration of the end-to-end harness (harness_conf.yaml). Module paths are relative to the harness working
+ * directory and each module has to be built with: mvn clean install dependency:copy-dependencies
+ *
+ * rateStepList contains the telemetry rates [msg/sec] of each emulated device: a new deployment (devices, DTs and
+ * the optional composed DT) is executed for each rate step.
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:30
+ */
+public class HarnessConfiguration {
+
+    private String workDir = "harness-work";
+
+    private String javaCommand = "java";
+
+    private String childJvmOptions = "-Xmx256m";
+
+    private String childLogLevel = "warn";
+
+    private String iiotDeviceModulePath = "../iiot-device";
+
+    private String digitalTwinModulePath = "../wldt-digital-twin-mqtt";
+
+    private String composedDigitalTwinModulePath = "../wldt-composed-digital-twin-mqtt";
+
+    private String brokerAddress = "127.0.0.1";
+
+    private int physicalBrokerPort = 1883;
+
+    private int digitalBrokerPort = 1884;
+
+    private int brokerMaxMessageSizeByte = 1048576;
+
+    private int deviceCount = 1;
+
+    private List<Double> rateStepList = new ArrayList<>(Arrays.asList(1.0, 5.0, 10.0));
+
+    private int payloadSizeByte = 0;
+
+    private int startupDelaySec = 15;
+
+    private int warmupSec = 5;
+
+    private int stepDurationSec = 30;
+
+    private int primeNumbersComputationCount = 0;
+
+    private double odteDesiredTimelinessSec = 1.0;
+
+    private int odteSlidingWindowSec = 30;
+
+    private String odteTimelinessEstimator = "exact";
+
+    private boolean composedTwinEnabled = false;
+
+    private int composedAggregationWindow = 10;
+
+    private int deviceHttpApiPort = 5555;
+
+    private int dtHttpApiPort = 5556;
+
+    private int dtPrometheusHttpApiPort = 1234;
+
+    private int composedHttpApiPort = 5558;
+
+    private int composedPrometheusHttpApiPort = 1237;
+
+    private String reportFile = "harness_report.csv";
+
+    public HarnessConfiguration() {
+    }
+
+    public String getWorkDir() {
+        return workDir;
+    }
+
+    public void setWorkDir(String workDir) {
+        this.workDir = workDir;
+    }
+
+    public String getJavaCommand() {
+        return javaCommand;
+    }
+
+    public void setJavaCommand(String javaCommand) {
+        this.javaCommand = javaCommand;
+    }
+
+    public String getChildJvmOptions() {
+        return childJvmOptions;
+    }
+
+    public void setChildJvmOptions(String childJvmOptions) {
+        this.childJvmOptions = childJvmOptions;
+    }
+
+    public String getChildLogLevel() {
+        return childLogLevel;
+    }
+
+    public void setChildLogLevel(String childLogLevel) {
+        this.childLogLevel = childLogLevel;
+    }
+
+    public String getIiotDeviceModulePath() {
+        return iiotDeviceModulePath;
+    }
+
+    public void setIiotDeviceModulePath(String iiotDeviceModulePath) {
+        this.iiotDeviceModulePath = iiotDeviceModulePath;
+    }
+
+    public String getDigitalTwinModulePath() {
+        return digitalTwinModulePath;
+    }
+
+    public void setDigitalTwinModulePath(String digitalTwinModulePath) {
+        this.digitalTwinModulePath = digitalTwinModulePath;
+    }
+
+    public String getComposedDigitalTwinModulePath() {
+        return composedDigitalTwinModulePath;
+    }
+
+    public void setComposedDigitalTwinModulePath(String composedDigitalTwinModulePath) {
+        this.composedDigitalTwinModulePath = composedDigitalTwinModulePath;
+    }
+
+    public String getBrokerAddress() {
+        return brokerAddress;
+    }
+
+    public void setBrokerAddress(String brokerAddress) {
+        this.brokerAddress = brokerAddress;
+    }
+
+    public int getPhysicalBrokerPort() {
+        return physicalBrokerPort;
+    }
+
+    public void setPhysicalBrokerPort(int physicalBrokerPort) {
+        this.physicalBrokerPort = physicalBrokerPort;
+    }
+
+    public int getDigitalBrokerPort() {
+        return digitalBrokerPort;
+    }
+
+    public void setDigitalBrokerPort(int digitalBrokerPort) {
+        this.digitalBrokerPort = digitalBrokerPort;
+    }
+
+    public int getBrokerMaxMessageSizeByte() {
+        return brokerMaxMessageSizeByte;
+    }
+
+    public void setBrokerMaxMessageSizeByte(int brokerMaxMessageSizeByte) {
+        this.brokerMaxMessageSizeByte = brokerMaxMessageSizeByte;
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    public void setDeviceCount(int deviceCount) {
+        this.deviceCount = deviceCount;
+    }
+
+    public List<Double> getRateStepList() {
+        return rateStepList;
+    }
+
+    public void setRateStepList(List<Double> rateStepList) {
+        this.rateStepList = rateStepList;
+    }
+
+    public int getPayloadSizeByte() {
+        return payloadSizeByte;
+    }
+
+    public void setPayloadSizeByte(int payloadSizeByte) {
+        this.payloadSizeByte = payloadSizeByte;
+    }
+
+    public int getStartupDelaySec() {
+        return startupDelaySec;
+    }
+
+    public void setStartupDelaySec(int startupDelaySec) {
+        this.startupDelaySec = startupDelaySec;
+    }
+
+    public int getWarmupSec() {
+        return warmupSec;
+    }
+
+    public void setWarmupSec(int warmupSec) {
+        this.warmupSec = warmupSec;
+    }
+
+    public int getStepDurationSec() {
+        return stepDurationSec;
+    }
+
+    public void setStepDurationSec(int stepDurationSec) {
+        this.stepDurationSec = stepDurationSec;
+    }
+
+    public int getPrimeNumbersComputationCount() {
+        return primeNumbersComputationCount;
+    }
+
+    public void setPrimeNumbersComputationCount(int primeNumbersComputationCount) {
+        this.primeNumbersComputationCount = primeNumbersComputationCount;
+    }
+
+    public double getOdteDesiredTimelinessSec() {
+        return odteDesiredTimelinessSec;
+    }
+
+    public void setOdteDesiredTimelinessSec(double odteDesiredTimelinessSec) {
+        this.odteDesiredTimelinessSec = odteDesiredTimelinessSec;
+    }
+
+    public int getOdteSlidingWindowSec() {
+        return odteSlidingWindowSec;
+    }
+
+    public void setOdteSlidingWindowSec(int odteSlidingWindowSec) {
+        this.odteSlidingWindowSec = odteSlidingWindowSec;
+    }
+
+    public String getOdteTimelinessEstimator() {
+        return odteTimelinessEstimator;
+    }
+
+    public void setOdteTimelinessEstimator(String odteTimelinessEstimator) {
+        this.odteTimelinessEstimator = odteTimelinessEstimator;
+    }
+
+    public boolean isComposedTwinEnabled() {
+        return composedTwinEnabled;
+    }
+
+    public void setComposedTwinEnabled(boolean composedTwinEnabled) {
+        this.composedTwinEnabled = composedTwinEnabled;
+    }
+
+    public int getComposedAggregationWindow() {
+        return composedAggregationWindow;
+    }
+
+    public void setComposedAggregationWindow(int composedAggregationWindow) {
+        this.composedAggregationWindow = composedAggregationWindow;
+    }
+
+    public int getDeviceHttpApiPort() {
+        return deviceHttpApiPort;
+    }
+
+    public void setDeviceHttpApiPort(int deviceHttpApiPort) {
+        this.deviceHttpApiPort = deviceHttpApiPort;
+    }
+
+    public int getDtHttpApiPort() {
+        return dtHttpApiPort;
+    }
+
+    public void setDtHttpApiPort(int dtHttpApiPort) {
+        this.dtHttpApiPort = dtHttpApiPort;
+    }
+
+    public int getDtPrometheusHttpApiPort() {
+        return dtPrometheusHttpApiPort;
+    }
+
+    public void setDtPrometheusHttpApiPort(int dtPrometheusHttpApiPort) {
+        this.dtPrometheusHttpApiPort = dtPrometheusHttpApiPort;
+    }
+
+    public int getComposedHttpApiPort() {
+        return composedHttpApiPort;
+    }
+
+    public void setComposedHttpApiPort(int composedHttpApiPort) {
+        this.composedHttpApiPort = composedHttpApiPort;
+    }
+
+    public int getComposedPrometheusHttpApiPort() {
+        return composedPrometheusHttpApiPort;
+    }
+
+    public void setComposedPrometheusHttpApiPort(int composedPrometheusHttpApiPort) {
+        this.composedPrometheusHttpApiPort = composedPrometheusHttpApiPort;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("HarnessConfiguration{");
+        sb.append("workDir='").append(workDir).append('\'');
+        sb.append(", javaCommand='").append(javaCommand).append('\'');
+        sb.append(", childJvmOptions='").append(childJvmOptions).append('\'');
+        sb.append(", childLogLevel='").append(childLogLevel).append('\'');
+        sb.append(", iiotDeviceModulePath='").append(iiotDeviceModulePath).append('\'');
+        sb.append(", digitalTwinModulePath='").append(digitalTwinModulePath).append('\'');
+        sb.append(", composedDigitalTwinModulePath='").append(composedDigitalTwinModulePath).append('\'');
+        sb.append(", brokerAddress='").append(brokerAddress).append('\'');
+        sb.append(", physicalBrokerPort=").append(physicalBrokerPort);
+        sb.append(", digitalBrokerPort=").append(digitalBrokerPort);
+        sb.append(", brokerMaxMessageSizeByte=").append(brokerMaxMessageSizeByte);
+        sb.append(", deviceCount=").append(deviceCount);
+        sb.append(", rateStepList=").append(rateStepList);
+        sb.append(", payloadSizeByte=").append(payloadSizeByte);
+        sb.append(", startupDelaySec=").append(startupDelaySec);
+        sb.append(", warmupSec=").append(warmupSec);
+        sb.append(", stepDurationSec=").append(stepDurationSec);
+        sb.append(", primeNumbersComputationCount=").append(primeNumbersComputationCount);
+        sb.append(", odteDesiredTimelinessSec=").append(odteDesiredTimelinessSec);
+        sb.append(", odteSlidingWindowSec=").append(odteSlidingWindowSec);
+        sb.append(", odteTimelinessEstimator='").append(odteTimelinessEstimator).append('\'');
+        sb.append(", composedTwinEnabled=").append(composedTwinEnabled);
+        sb.append(", composedAggregationWindow=").append(composedAggregationWindow);
+        sb.append(", deviceHttpApiPort=").append(deviceHttpApiPort);
+        sb.append(", dtHttpApiPort=").append(dtHttpApiPort);
+        sb.append(", dtPrometheusHttpApiPort=").append(dtPrometheusHttpApiPort);
+        sb.append(", composedHttpApiPort=").append(composedHttpApiPort);
+        sb.append(", composedPrometheusHttpApiPort=").append(composedPrometheusHttpApiPort);
+        sb.append(", reportFile='").append(reportFile).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package it.unimore.dipi.iot.harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generate the configuration files read by the module processes of a rate step: device_conf.yaml (iiot-device fleet
+ * mode), dt_host_conf.yaml (one DT for each device hosted by the same process) and cdt_conf.yaml (composed DT).
+ * The files contain only the fields of the module configuration classes, as the modules reject unknown fields.
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:50
+ */
+public class ModuleConfigurationFactory {
+
+    public static final String DEVICE_CONFIGURATION_FILE = "device_conf.yaml";
+
+    public static final String DT_HOST_CONFIGURATION_FILE = "dt_host_conf.yaml";
+
+    public static final String COMPOSED_DT_CONFIGURATION_FILE = "cdt_conf.yaml";
+
+    public static final String LOGBACK_CONFIGURATION_FILE = "logback.xml";
+
+    public static final String DEVICE_ID_PREFIX = "harness-device";
+
+    public static final String DIGITAL_TWIN_ID_PREFIX = "harness-dt";
+
+    public static final String COMPOSED_DIGITAL_TWIN_ID = "harness-composed-dt";
+
+    private static final String SENML_PAYLOAD_ENCODING = "json";
+
+    private static final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+
+    private ModuleConfigurationFactory() {
+    }
+
+    /**
+     * @return the ids of the devices created by the iiot-device fleet mode (<deviceId>-<index>)
+     */
+    public static List<String> getDeviceIdList(int deviceCount){
+
+        List<String> deviceIdList = new ArrayList<>(deviceCount);
+
+        for(int deviceIndex = 0; deviceIndex < deviceCount; deviceIndex++)
+            deviceIdList.add(String.format("%s-%d", DEVICE_ID_PREFIX, deviceIndex));
+
+        return deviceIdList;
+    }
+
+    public static void writeDeviceConfiguration(File workDir, HarnessConfiguration configuration, double rateMsgSec) throws IOException {
+
+        Map<String, Object> deviceConfiguration = new LinkedHashMap<>();
+        deviceConfiguration.put("deviceId", DEVICE_ID_PREFIX);
+        deviceConfiguration.put("httpApiPort", configuration.getDeviceHttpApiPort());
+        deviceConfiguration.put("targetMqttBrokerAddress", configuration.getBrokerAddress());
+        deviceConfiguration.put("targetMqttBrokerPort", configuration.getPhysicalBrokerPort());
+        //Resources are sampled at the telemetry rate
+        deviceConfiguration.put("updatePeriodMs", Math.max(1L, Math.round(1000.0 / rateMsgSec)));
+        deviceConfiguration.put("updateInitialDelayMs", 1000);
+        deviceConfiguration.put("aggregatedTelemetry", true);
+        deviceConfiguration.put("aggregatedTelemetryMsgSec", rateMsgSec);
+        deviceConfiguration.put("singleResourceTelemetryEnabled", false);
+        deviceConfiguration.put("targetAggregatedTelemetryPayloadSizeByte", configuration.getPayloadSizeByte());
+        deviceConfiguration.put("fleetSize", configuration.getDeviceCount());
+        deviceConfiguration.put("resourceMap", getResourceMap());
+
+        yamlMapper.writeValue(new File(workDir, DEVICE_CONFIGURATION_FILE), deviceConfiguration);
+    }
+
+    public static void writeDigitalTwinHostConfiguration(File workDir, HarnessConfiguration configuration, double rateMsgSec) throws IOException {
+
+        List<Map<String, Object>> digitalTwinList = new ArrayList<>();
+
+        int deviceIndex = 0;
+
+        for(String deviceId : getDeviceIdList(configuration.getDeviceCount())){
+
+            Map<String, Object> dtConfiguration = new LinkedHashMap<>();
+            dtConfiguration.put("digitalTwinId", String.format("%s-%d", DIGITAL_TWIN_ID_PREFIX, deviceIndex++));
+            dtConfiguration.put("targetDeviceId", deviceId);
+            dtConfiguration.put("physicalMqttBrokerAddress", configuration.getBrokerAddress());
+            dtConfiguration.put("physicalMqttBrokerPort", configuration.getPhysicalBrokerPort());
+            dtConfiguration.put("digitalMqttBrokerAddress", configuration.getBrokerAddress());
+            dtConfiguration.put("digitalMqttBrokerPort", configuration.getDigitalBrokerPort());
+            dtConfiguration.put("metricsEnabled", true);
+            dtConfiguration.put("httpApiPort", configuration.getDtHttpApiPort());
+            dtConfiguration.put("prometheusHttpApiPort", configuration.getDtPrometheusHttpApiPort());
+            dtConfiguration.put("expectedMsgSec", rateMsgSec);
+            putObservationBucketConfiguration(dtConfiguration);
+            putOdteConfiguration(dtConfiguration, configuration, rateMsgSec);
+            digitalTwinList.add(dtConfiguration);
+        }
+
+        Map<String, Object> hostConfiguration = new LinkedHashMap<>();
+        hostConfiguration.put("hostId", String.format("%s-host", DIGITAL_TWIN_ID_PREFIX));
+        hostConfiguration.put("metricsEnabled", true);
+        hostConfiguration.put("httpApiPort", configuration.getDtHttpApiPort());
+        hostConfiguration.put("prometheusHttpApiPort", configuration.getDtPrometheusHttpApiPort());
+        putObservationBucketConfiguration(hostConfiguration);
+        hostConfiguration.put("digitalTwinList", digitalTwinList);
+
+        yamlMapper.writeValue(new File(workDir, DT_HOST_CONFIGURATION_FILE), hostConfiguration);
+    }
+
+    public static void writeComposedDigitalTwinConfiguration(File workDir, HarnessConfiguration configuration, double rateMsgSec) throws IOException {
+
+        //The composed DT receives the states of all the DTs
+        double composedRateMsgSec = rateMsgSec * configuration.getDeviceCount();
+
+        Map<String, Object> composedConfiguration = new LinkedHashMap<>();
+        composedConfiguration.put("digitalTwinId", COMPOSED_DIGITAL_TWIN_ID);
+        composedConfiguration.put("deviceIdList", String.join(",", getDeviceIdList(configuration.getDeviceCount())));
+        composedConfiguration.put("resourceMap", getResourceMap());
+        composedConfiguration.put("aggregationAction", "avg");
+        composedConfiguration.put("aggregationType", "sample");
+        composedConfiguration.put("aggregationUnit", "msg");
+        composedConfiguration.put("aggregationWindow", configuration.getComposedAggregationWindow());
+        composedConfiguration.put("aggregationStateTopic", "aggregated_state");
+        composedConfiguration.put("targetMqttBrokerAddress", configuration.getBrokerAddress());
+        composedConfiguration.put("targetMqttBrokerPort", configuration.getDigitalBrokerPort());
+        composedConfiguration.put("metricsEnabled", true);
+        composedConfiguration.put("aggregateWithStateMessages", true);
+        composedConfiguration.put("httpApiPort", configuration.getComposedHttpApiPort());
+        composedConfiguration.put("prometheusHttpApiPort", configuration.getComposedPrometheusHttpApiPort());
+        composedConfiguration.put("expectedMsgSec", composedRateMsgSec);
+        putObservationBucketConfiguration(composedConfiguration);
+        putOdteConfiguration(composedConfiguration, configuration, composedRateMsgSec);
+
+        yamlMapper.writeValue(new File(workDir, COMPOSED_DT_CONFIGURATION_FILE), composedConfiguration);
+    }
+
+    /**
+     * Logback configuration of the module processes: the per-message logs of devices and DTs affect the measured
+     * latency, so the configured level (default: warn) is applied to the root logger
+     */
+    public static File writeLogbackConfiguration(File workDir, String logLevel) throws IOException {
+
+        String logbackConfiguration = String.format("<configuration>\n" +
+                "    <appender name=\"STDOUT\" class=\"ch.qos.logback.core.ConsoleAppender\">\n" +
+                "        <encoder>\n" +
+                "            <pattern>%%d{HH:mm:ss.SSS} [%%thread] %%-5level %%logger{36} - %%msg%%n</pattern>\n" +
+                "        </encoder>\n" +
+                "    </appender>\n" +
+                "    <root level=\"%s\">\n" +
+                "        <appender-ref ref=\"STDOUT\" />\n" +
+                "    </root>\n" +
+                "</configuration>\n", logLevel);
+
+        File logbackFile = new File(workDir, LOGBACK_CONFIGURATION_FILE);
+        Files.write(logbackFile.toPath(), logbackConfiguration.getBytes(StandardCharsets.UTF_8));
+
+        return logbackFile;
+    }
+
+    private static Map<String, String> getResourceMap(){
+        Map<String, String> resourceMap = new LinkedHashMap<>();
+        resourceMap.put("energy", "iot.sensor.energy");
+        resourceMap.put("temperature", "iot.sensor.temperature");
+        return resourceMap;
+    }
+
+    private static void putObservationBucketConfiguration(Map<String, Object> targetConfiguration){
+        targetConfiguration.put("observationBucketType", "default");
+        targetConfiguration.put("observationBucketStart", 0.0);
+        targetConfiguration.put("observationBucketWidth", 0.005);
+        targetConfiguration.put("observationBucketCount", 50);
+    }
+
+    private static void putOdteConfiguration(Map<String, Object> targetConfiguration, HarnessConfiguration configuration, double expectedMsgSec){
+        targetConfiguration.put("primeNumbersComputationCount", configuration.getPrimeNumbersComputationCount());
+        targetConfiguration.put("shadowedThresholdMs", 1000);
+        targetConfiguration.put("unBoundThresholdMs", 10000);
+        targetConfiguration.put("odteSlidingWindowSec", configuration.getOdteSlidingWindowSec());
+        targetConfiguration.put("odteDesiredTimelinessSec", configuration.getOdteDesiredTimelinessSec());
+        targetConfiguration.put("odteExpectedMsgSec", expectedMsgSec);
+        targetConfiguration.put("odteTargetPercentile", 0.9);
+        targetConfiguration.put("odteTimelinessEstimator", configuration.getOdteTimelinessEstimator());
+        targetConfiguration.put("odteTimelinessErrorBound", 0.0);
+        targetConfiguration.put("senmlPayloadEncoding", SENML_PAYLOAD_ENCODING);
+    }
+
+}
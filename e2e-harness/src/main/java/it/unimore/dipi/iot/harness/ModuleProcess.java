@@ -0,0 +1,116 @@
+package it.unimore.dipi.iot.harness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main class of a repository module (iiot-device, DT or composed DT) executed in a dedicated JVM. The modules share
+ * package and class names, so they cannot run in the harness JVM: each process uses the classpath created by
+ * "mvn clean install dependency:copy-dependencies" (as the module run.sh script) and the configuration files of its
+ * working directory. The process output is written to <name>.log in the working directory.
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:35
+ */
+public class ModuleProcess {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModuleProcess.class);
+
+    private static final long STOP_TIMEOUT_SEC = 10;
+
+    private final String name;
+
+    private final File modulePath;
+
+    private final String mainClass;
+
+    private final List<String> argumentList;
+
+    private Process process;
+
+    public ModuleProcess(String name, File modulePath, String mainClass, String... arguments) {
+        this.name = name;
+        this.modulePath = modulePath;
+        this.mainClass = mainClass;
+        this.argumentList = Arrays.asList(arguments);
+    }
+
+    public synchronized void start(String javaCommand, String jvmOptions, File workDir, File logbackConfigurationFile) throws IOException {
+
+        File classesDir = new File(this.modulePath, "target/classes");
+        File dependencyDir = new File(this.modulePath, "target/dependency");
+
+        if(!classesDir.isDirectory() || !dependencyDir.isDirectory())
+            throw new IllegalStateException(String.format("Module %s not built ! Run: mvn clean install dependency:copy-dependencies in %s",
+                    this.name, this.modulePath.getAbsolutePath()));
+
+        List<String> commandList = new ArrayList<>();
+        commandList.add(javaCommand);
+
+        if(jvmOptions != null && !jvmOptions.trim().isEmpty())
+            commandList.addAll(Arrays.asList(jvmOptions.trim().split("\\s+")));
+
+        commandList.add(String.format("-Dlogback.configurationFile=%s", logbackConfigurationFile.getAbsolutePath()));
+        commandList.add("-classpath");
+        commandList.add(String.format("%s%s%s%s*",
+                classesDir.getAbsolutePath(),
+                File.pathSeparator,
+                dependencyDir.getAbsolutePath(),
+                File.separator));
+        commandList.add(this.mainClass);
+        commandList.addAll(this.argumentList);
+
+        File logFile = new File(workDir, String.format("%s.log", this.name));
+
+        this.process = new ProcessBuilder(commandList)
+                .directory(workDir)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                .start();
+
+        logger.info("ModuleProcess -> {} started ({}) ! Log: {}", this.name, this.mainClass, logFile.getPath());
+    }
+
+    public synchronized boolean isAlive(){
+        return this.process != null && this.process.isAlive();
+    }
+
+    /**
+     * Terminate the process (shutdown hooks are executed), killing it if it does not exit within the timeout
+     */
+    public synchronized void stop(){
+
+        if(this.process == null)
+            return;
+
+        try{
+
+            this.process.destroy();
+
+            if(!this.process.waitFor(STOP_TIMEOUT_SEC, TimeUnit.SECONDS)){
+                logger.warn("ModuleProcess -> {} not terminated after {} sec ! Killing it ...", this.name, STOP_TIMEOUT_SEC);
+                this.process.destroyForcibly().waitFor(STOP_TIMEOUT_SEC, TimeUnit.SECONDS);
+            }
+
+            logger.info("ModuleProcess -> {} stopped !", this.name);
+
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            this.process.destroyForcibly();
+        }finally {
+            this.process = null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
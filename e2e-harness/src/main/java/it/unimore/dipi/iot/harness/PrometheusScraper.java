@@ -0,0 +1,80 @@
+package it.unimore.dipi.iot.harness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Read the gauges exposed by the Prometheus HTTP server of the DTs (text exposition format)
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:45
+ */
+public class PrometheusScraper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusScraper.class);
+
+    private static final int TIMEOUT_MS = 5000;
+
+    private PrometheusScraper() {
+    }
+
+    /**
+     * @param metricName name of the gauge (e.g. dt_odte_value)
+     * @return the mean value of the gauge children (e.g. one per hosted DT) or an empty Optional if the metric is not
+     * available
+     */
+    public static Optional<Double> readGaugeMean(String address, int port, String metricName){
+
+        HttpURLConnection connection = null;
+
+        try{
+
+            connection = (HttpURLConnection) new URL(String.format("http://%s:%d/metrics", address, port)).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+
+            double valueSum = 0.0;
+            int valueCount = 0;
+
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))){
+
+                String line;
+
+                while((line = reader.readLine()) != null){
+
+                    if(!line.startsWith(metricName) || line.length() <= metricName.length())
+                        continue;
+
+                    //Skip the metrics sharing the same prefix
+                    char nextChar = line.charAt(metricName.length());
+                    if(nextChar != '{' && nextChar != ' ')
+                        continue;
+
+                    double value = Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+
+                    if(!Double.isNaN(value)){
+                        valueSum += value;
+                        valueCount++;
+                    }
+                }
+            }
+
+            return valueCount > 0 ? Optional.of(valueSum / valueCount) : Optional.empty();
+
+        }catch (Exception e){
+            logger.error("PrometheusScraper -> Error reading {} from {}:{} ! Msg: {}", metricName, address, port, e.getLocalizedMessage());
+            return Optional.empty();
+        }finally {
+            if(connection != null)
+                connection.disconnect();
+        }
+    }
+
+}
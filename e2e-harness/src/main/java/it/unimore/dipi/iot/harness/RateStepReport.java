@@ -0,0 +1,243 @@
+package it.unimore.dipi.iot.harness;
+
+/**
+ * Results of a rate step: end-to-end latency percentiles and throughput of the DT outputs, the ODTE computed by the
+ * harness on the measured latencies (timeliness * reliability, availability = 1.0) and the ODTE reported by the DTs
+ * through Prometheus at the end of the step (NaN if not available).
+ *
+ * @project e2e-harness
+ * @created 18/10/2026 - 23:45
+ */
+public class RateStepReport {
+
+    public static final String CSV_HEADER = "rateMsgSec,deviceCount,durationSec,expectedMsgCount,receivedMsgCount,throughputMsgSec,latencyP50Ms,latencyP90Ms,latencyP95Ms,latencyP99Ms,latencyMaxMs,timeliness,reliability,odte,dtOdte,composedMsgCount,composedThroughputMsgSec,composedOdte";
+
+    private double rateMsgSec;
+
+    private int deviceCount;
+
+    private double durationSec;
+
+    private long expectedMsgCount;
+
+    private long receivedMsgCount;
+
+    private double throughputMsgSec;
+
+    private double latencyP50Ms;
+
+    private double latencyP90Ms;
+
+    private double latencyP95Ms;
+
+    private double latencyP99Ms;
+
+    private double latencyMaxMs;
+
+    private double timeliness;
+
+    private double reliability;
+
+    private double odte;
+
+    private double dtOdte;
+
+    private long composedMsgCount;
+
+    private double composedThroughputMsgSec;
+
+    private double composedOdte;
+
+    public RateStepReport() {
+    }
+
+    public double getRateMsgSec() {
+        return rateMsgSec;
+    }
+
+    public void setRateMsgSec(double rateMsgSec) {
+        this.rateMsgSec = rateMsgSec;
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    public void setDeviceCount(int deviceCount) {
+        this.deviceCount = deviceCount;
+    }
+
+    public double getDurationSec() {
+        return durationSec;
+    }
+
+    public void setDurationSec(double durationSec) {
+        this.durationSec = durationSec;
+    }
+
+    public long getExpectedMsgCount() {
+        return expectedMsgCount;
+    }
+
+    public void setExpectedMsgCount(long expectedMsgCount) {
+        this.expectedMsgCount = expectedMsgCount;
+    }
+
+    public long getReceivedMsgCount() {
+        return receivedMsgCount;
+    }
+
+    public void setReceivedMsgCount(long receivedMsgCount) {
+        this.receivedMsgCount = receivedMsgCount;
+    }
+
+    public double getThroughputMsgSec() {
+        return throughputMsgSec;
+    }
+
+    public void setThroughputMsgSec(double throughputMsgSec) {
+        this.throughputMsgSec = throughputMsgSec;
+    }
+
+    public double getLatencyP50Ms() {
+        return latencyP50Ms;
+    }
+
+    public void setLatencyP50Ms(double latencyP50Ms) {
+        this.latencyP50Ms = latencyP50Ms;
+    }
+
+    public double getLatencyP90Ms() {
+        return latencyP90Ms;
+    }
+
+    public void setLatencyP90Ms(double latencyP90Ms) {
+        this.latencyP90Ms = latencyP90Ms;
+    }
+
+    public double getLatencyP95Ms() {
+        return latencyP95Ms;
+    }
+
+    public void setLatencyP95Ms(double latencyP95Ms) {
+        this.latencyP95Ms = latencyP95Ms;
+    }
+
+    public double getLatencyP99Ms() {
+        return latencyP99Ms;
+    }
+
+    public void setLatencyP99Ms(double latencyP99Ms) {
+        this.latencyP99Ms = latencyP99Ms;
+    }
+
+    public double getLatencyMaxMs() {
+        return latencyMaxMs;
+    }
+
+    public void setLatencyMaxMs(double latencyMaxMs) {
+        this.latencyMaxMs = latencyMaxMs;
+    }
+
+    public double getTimeliness() {
+        return timeliness;
+    }
+
+    public void setTimeliness(double timeliness) {
+        this.timeliness = timeliness;
+    }
+
+    public double getReliability() {
+        return reliability;
+    }
+
+    public void setReliability(double reliability) {
+        this.reliability = reliability;
+    }
+
+    public double getOdte() {
+        return odte;
+    }
+
+    public void setOdte(double odte) {
+        this.odte = odte;
+    }
+
+    public double getDtOdte() {
+        return dtOdte;
+    }
+
+    public void setDtOdte(double dtOdte) {
+        this.dtOdte = dtOdte;
+    }
+
+    public long getComposedMsgCount() {
+        return composedMsgCount;
+    }
+
+    public void setComposedMsgCount(long composedMsgCount) {
+        this.composedMsgCount = composedMsgCount;
+    }
+
+    public double getComposedThroughputMsgSec() {
+        return composedThroughputMsgSec;
+    }
+
+    public void setComposedThroughputMsgSec(double composedThroughputMsgSec) {
+        this.composedThroughputMsgSec = composedThroughputMsgSec;
+    }
+
+    public double getComposedOdte() {
+        return composedOdte;
+    }
+
+    public void setComposedOdte(double composedOdte) {
+        this.composedOdte = composedOdte;
+    }
+
+    public String toCsvLine() {
+        return rateMsgSec + "," +
+                deviceCount + "," +
+                durationSec + "," +
+                expectedMsgCount + "," +
+                receivedMsgCount + "," +
+                throughputMsgSec + "," +
+                latencyP50Ms + "," +
+                latencyP90Ms + "," +
+                latencyP95Ms + "," +
+                latencyP99Ms + "," +
+                latencyMaxMs + "," +
+                timeliness + "," +
+                reliability + "," +
+                odte + "," +
+                dtOdte + "," +
+                composedMsgCount + "," +
+                composedThroughputMsgSec + "," +
+                composedOdte;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("RateStepReport{");
+        sb.append("rateMsgSec=").append(rateMsgSec);
+        sb.append(", deviceCount=").append(deviceCount);
+        sb.append(", durationSec=").append(durationSec);
+        sb.append(", expectedMsgCount=").append(expectedMsgCount);
+        sb.append(", receivedMsgCount=").append(receivedMsgCount);
+        sb.append(", throughputMsgSec=").append(throughputMsgSec);
+        sb.append(", latencyP50Ms=").append(latencyP50Ms);
+        sb.append(", latencyP90Ms=").append(latencyP90Ms);
+        sb.append(", latencyP95Ms=").append(latencyP95Ms);
+        sb.append(", latencyP99Ms=").append(latencyP99Ms);
+        sb.append(", latencyMaxMs=").append(latencyMaxMs);
+        sb.append(", timeliness=").append(timeliness);
+        sb.append(", reliability=").append(reliability);
+        sb.append(", odte=").append(odte);
+        sb.append(", dtOdte=").append(dtOdte);
+        sb.append(", composedMsgCount=").append(composedMsgCount);
+        sb.append(", composedThroughputMsgSec=").append(composedThroughputMsgSec);
+        sb.append(", composedOdte=").append(composedOdte);
+        sb.append('}');
+        return sb.toString();
+    }
+}
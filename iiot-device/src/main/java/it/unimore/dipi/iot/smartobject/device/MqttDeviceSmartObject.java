@@ -1,10 +1,9 @@
 package it.unimore.dipi.iot.smartobject.device;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
 import it.unimore.dipi.iot.smartobject.resource.*;
-import org.apache.commons.lang3.RandomStringUtils;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.IMqttClient;
 import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
 import org.eclipse.paho.client.mqttv3.MqttException;
@@ -12,7 +11,10 @@ import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -33,20 +35,34 @@ public class MqttDeviceSmartObject {
 
     private static final String COMMAND_TOPIC = "command";
 
+    //ObjectMapper is thread-safe: a single instance is shared by all the devices emulated in the same process
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private String deviceId;
 
     private ObjectMapper mapper;
 
     private IMqttClient mqttClient;
 
+    //Non-blocking client, possibly shared with other devices of an emulated fleet
+    private IMqttAsyncClient mqttAsyncClient;
+
     private Map<String, SmartObjectResource<?>> resourceMap;
 
     private boolean singleResourceTelemetryEnabled = false;
 
     private int targetAggregatedTelemetryPayloadSizeByte = 0;
 
+    private int publishQueueCapacity = TelemetryPublishQueue.DEFAULT_CAPACITY;
+
+    private PublishBackpressurePolicy publishBackpressurePolicy = PublishBackpressurePolicy.DROP_OLDEST;
+
+    private TelemetryPublishQueue telemetryPublishQueue;
+
+    private PayloadPaddingEngine payloadPaddingEngine = PayloadPaddingEngine.getInstance();
+
     public MqttDeviceSmartObject() {
-        this.mapper = new ObjectMapper();
+        this.mapper = OBJECT_MAPPER;
     }
 
     /**
@@ -68,6 +84,26 @@ public class MqttDeviceSmartObject {
         logger.info("Vehicle Smart Object correctly created ! Resource Number: {}", resourceMap.keySet().size());
     }
 
+    /**
+     * Init the smart object with an asynchronous MQTT Client. The same client (and connection) can be shared by
+     * multiple smart objects since every topic contains the device id
+     * @param deviceId
+     * @param mqttAsyncClient
+     * @param resourceMap
+     */
+    public void init(String deviceId,
+                     IMqttAsyncClient mqttAsyncClient,
+                     Map<String, SmartObjectResource<?>> resourceMap,
+                     boolean singleResourceTelemetryEnabled){
+
+        this.deviceId = deviceId;
+        this.mqttAsyncClient = mqttAsyncClient;
+        this.resourceMap = resourceMap;
+        this.singleResourceTelemetryEnabled = singleResourceTelemetryEnabled;
+
+        logger.debug("Device Smart Object correctly created ! Device Id: {} Resource Number: {}", deviceId, resourceMap.keySet().size());
+    }
+
     /**
      * Start vehicle behaviour
      */
@@ -75,12 +111,18 @@ public class MqttDeviceSmartObject {
 
         try{
 
-            if(this.mqttClient != null &&
+            if((this.mqttClient != null || this.mqttAsyncClient != null) &&
                 this.deviceId != null  && this.deviceId.length() > 0 &&
                 this.resourceMap != null && resourceMap.keySet().size() > 0){
 
                 logger.info("Starting Device Emulator ....");
 
+                //Messages are published by the shared publisher pool and never by the resource update threads
+                this.telemetryPublishQueue = new TelemetryPublishQueue(this.deviceId,
+                        this.publishQueueCapacity,
+                        this.publishBackpressurePolicy,
+                        this::publishMqttMessage);
+
                 registerToControlChannel();
 
                 registerToAvailableResources();
@@ -101,7 +143,7 @@ public class MqttDeviceSmartObject {
 
             logger.info("Registering to Control Topic ({}) ... ", deviceControlTopic);
 
-            this.mqttClient.subscribe(deviceControlTopic, new IMqttMessageListener() {
+            IMqttMessageListener controlMessageListener = new IMqttMessageListener() {
                 @Override
                 public void messageArrived(String topic, MqttMessage message) throws Exception {
 
@@ -110,7 +152,12 @@ public class MqttDeviceSmartObject {
                     else
                         logger.error("[CONTROL CHANNEL] -> Null control message received !");
                 }
-            });
+            };
+
+            if(this.mqttAsyncClient != null)
+                this.mqttAsyncClient.subscribe(deviceControlTopic, 0, controlMessageListener);
+            else
+                this.mqttClient.subscribe(deviceControlTopic, controlMessageListener);
 
         }catch (Exception e){
             logger.error("ERROR Registering to Control Channel ! Msg: {}", e.getLocalizedMessage());
@@ -140,7 +187,7 @@ public class MqttDeviceSmartObject {
                                     publishTelemetryData(
                                             String.format("%s/%s/%s/%s", BASIC_TOPIC, deviceId, TELEMETRY_TOPIC, resourceEntry.getKey()),
                                             new TelemetryMessage<>(smartObjectResource.getType(), updatedValue));
-                                } catch (MqttException | JsonProcessingException e) {
+                                } catch (MqttException | IOException e) {
                                     e.printStackTrace();
                                 }
                             }
@@ -162,7 +209,7 @@ public class MqttDeviceSmartObject {
                                     publishTelemetryData(
                                             String.format("%s/%s/%s/%s", BASIC_TOPIC, deviceId, TELEMETRY_TOPIC, resourceEntry.getKey()),
                                             new TelemetryMessage<>(smartObjectResource.getType(), updatedValue));
-                                } catch (MqttException | JsonProcessingException e) {
+                                } catch (MqttException | IOException e) {
                                     e.printStackTrace();
                                 }
                             }
@@ -182,19 +229,12 @@ public class MqttDeviceSmartObject {
                             public void onDataChanged(SmartObjectResource<AggregatedResourcePayload> resource,
                                                       AggregatedResourcePayload updatedValue) {
                                 try {
-
-                                    //If necessary enrich the payload to reach the target expected payload size
-                                    if(targetAggregatedTelemetryPayloadSizeByte > 0){
-                                        String defaultPayload = mapper.writeValueAsString(updatedValue);
-                                        int payloadSize = defaultPayload.length();
-                                        if(targetAggregatedTelemetryPayloadSizeByte - payloadSize > 0)
-                                            updatedValue.put("payload_overhead", RandomStringUtils.randomAlphabetic(targetAggregatedTelemetryPayloadSizeByte - payloadSize));
-                                    }
-
+                                    //If necessary the payload is padded to reach the target expected payload size
                                     publishTelemetryData(
                                             String.format("%s/%s/%s/%s", BASIC_TOPIC, deviceId, TELEMETRY_TOPIC, resourceEntry.getKey()),
-                                            new TelemetryMessage<>(smartObjectResource.getType(), updatedValue));
-                                } catch (MqttException | JsonProcessingException e) {
+                                            new TelemetryMessage<>(smartObjectResource.getType(), updatedValue),
+                                            targetAggregatedTelemetryPayloadSizeByte);
+                                } catch (MqttException | IOException e) {
                                     e.printStackTrace();
                                 }
                             }
@@ -213,30 +253,48 @@ public class MqttDeviceSmartObject {
      */
     public void stop(){
         //TODO Implement a proper closing method
+        if(this.telemetryPublishQueue != null)
+            this.telemetryPublishQueue.close();
+    }
+
+    private void publishTelemetryData(String topic, TelemetryMessage<?> telemetryMessage) throws MqttException, IOException {
+        publishTelemetryData(topic, telemetryMessage, 0);
     }
 
-    private void publishTelemetryData(String topic, TelemetryMessage<?> telemetryMessage) throws MqttException, JsonProcessingException {
+    private void publishTelemetryData(String topic, TelemetryMessage<?> telemetryMessage, int targetPayloadSizeByte) throws MqttException, IOException {
 
         //logger.info("Sending Telemetry Message to topic: {} -> Data: {}", topic, telemetryMessage);
 
-        if(this.mqttClient != null && this.mqttClient.isConnected() && telemetryMessage != null && topic != null){
+        if(isMqttClientConnected() && telemetryMessage != null && topic != null){
 
-            String messagePayload = mapper.writeValueAsString(telemetryMessage);
+            byte[] messagePayload = this.payloadPaddingEngine.writePayload(mapper, telemetryMessage, targetPayloadSizeByte);
             publishTelemetryData(topic, messagePayload);
         }
         else
             logger.error("Error: Topic or Msg = Null or MQTT Client is not Connected !");
     }
 
-    private void publishTelemetryData(String topic, String message) throws MqttException, JsonProcessingException {
+    private void publishTelemetryData(String topic, byte[] message) throws MqttException {
 
-        logger.info("Sending Message to topic: {} -> Data: {}", topic, message);
+        if(logger.isDebugEnabled() && message != null)
+            logger.debug("Sending Message to topic: {} -> Data: {}", topic, new String(message, StandardCharsets.UTF_8));
 
-        if(this.mqttClient != null && this.mqttClient.isConnected() && message != null && topic != null){
+        if(isMqttClientConnected() && message != null && topic != null){
 
-            MqttMessage mqttMessage = new MqttMessage(message.getBytes());
+            MqttMessage mqttMessage = new MqttMessage(message);
             mqttMessage.setQos(0);
 
+            this.telemetryPublishQueue.enqueue(topic, mqttMessage);
+        }
+        else
+            logger.error("Error: Topic or Msg = Null or MQTT Client is not Connected !");
+    }
+
+    /**
+     * Publish a message dequeued from the TelemetryPublishQueue
+     */
+    private void publishMqttMessage(String topic, MqttMessage mqttMessage) throws MqttException {
+
 //            long leftLimit = 500;
 //            long rightLimit = 1500;
 //            long generatedLong = leftLimit + (long) (Math.random() * (rightLimit - leftLimit));
@@ -247,13 +305,30 @@ public class MqttDeviceSmartObject {
 //                e.printStackTrace();
 //            }
 
-            mqttClient.publish(topic, mqttMessage);
+        if(this.mqttAsyncClient != null)
+            this.mqttAsyncClient.publish(topic, mqttMessage);
+        else
+            this.mqttClient.publish(topic, mqttMessage);
 
-            logger.info("Data Correctly Published to topic: {}", topic);
+        logger.debug("Data Correctly Published to topic: {}", topic);
+    }
 
-        }
+    private boolean isMqttClientConnected(){
+        if(this.mqttAsyncClient != null)
+            return this.mqttAsyncClient.isConnected();
         else
-            logger.error("Error: Topic or Msg = Null or MQTT Client is not Connected !");
+            return this.mqttClient != null && this.mqttClient.isConnected();
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * @return the counters of the outbound telemetry queue or an empty Optional if the device has not been started
+     */
+    public Optional<TelemetryPublishQueueStats> getPublishStats(){
+        return this.telemetryPublishQueue != null ? Optional.of(this.telemetryPublishQueue.getStats()) : Optional.empty();
     }
 
     public int getTargetAggregatedTelemetryPayloadSizeByte() {
@@ -263,4 +338,24 @@ public class MqttDeviceSmartObject {
     public void setTargetAggregatedTelemetryPayloadSizeByte(int targetAggregatedTelemetryPayloadSizeByte) {
         this.targetAggregatedTelemetryPayloadSizeByte = targetAggregatedTelemetryPayloadSizeByte;
     }
+
+    public int getPublishQueueCapacity() {
+        return publishQueueCapacity;
+    }
+
+    public void setPublishQueueCapacity(int publishQueueCapacity) {
+        this.publishQueueCapacity = publishQueueCapacity;
+    }
+
+    public PublishBackpressurePolicy getPublishBackpressurePolicy() {
+        return publishBackpressurePolicy;
+    }
+
+    public void setPublishBackpressurePolicy(PublishBackpressurePolicy publishBackpressurePolicy) {
+        this.publishBackpressurePolicy = publishBackpressurePolicy;
+    }
+
+    public void setPayloadPaddingFiller(String payloadPaddingFiller) {
+        this.payloadPaddingEngine = PayloadPaddingEngine.getInstance(payloadPaddingFiller);
+    }
 }
@@ -0,0 +1,202 @@
+package it.unimore.dipi.iot.smartobject.device;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serialize the telemetry messages and pad their data object in a single pass. The message is written once into a
+ * per-thread reusable buffer and, if its serialized data object is smaller than the target size, the payload_overhead
+ * field is spliced at the end of the data object while copying it into the outbound byte[]: the data Map is never
+ * modified and no String is created for the filler, which is copied from a pre-computed block.
+ *
+ * The filler length is the target size - the size of the serialized data object (without the padding), as in the
+ * original padding of the data Map, so the published messages are larger than the target by the payload_overhead
+ * field syntax and the message envelope (timestamp and type).
+ *
+ * Supported fillers:
+ * - incompressible: random alphabetic characters (as the former RandomStringUtils padding), read from a random
+ *   offset of the pre-computed block so that consecutive messages do not share the same filler
+ * - compressible: a repeated character, to emulate payloads that are efficiently compressed by the network
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 23:10
+ */
+public class PayloadPaddingEngine {
+
+    public static final String FILLER_INCOMPRESSIBLE = "incompressible";
+
+    public static final String FILLER_COMPRESSIBLE = "compressible";
+
+    public static final String FILLER_DEFAULT = FILLER_INCOMPRESSIBLE;
+
+    public static final String PAYLOAD_OVERHEAD_FIELD = "payload_overhead";
+
+    private static final byte[] DATA_FIELD_PREFIX = "\"data\":{".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] PAYLOAD_OVERHEAD_FIELD_PREFIX = String.format("\"%s\":\"", PAYLOAD_OVERHEAD_FIELD).getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ALPHABETIC_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte COMPRESSIBLE_CHAR = 'x';
+
+    private static final int MIN_FILLER_BLOCK_SIZE = 4096;
+
+    private static final PayloadPaddingEngine incompressibleInstance = new PayloadPaddingEngine(false);
+
+    private static final PayloadPaddingEngine compressibleInstance = new PayloadPaddingEngine(true);
+
+    private static final ThreadLocal<ReusableByteArrayOutputStream> threadBuffer = ThreadLocal.withInitial(ReusableByteArrayOutputStream::new);
+
+    private final boolean compressible;
+
+    private volatile byte[] fillerBlock;
+
+    private PayloadPaddingEngine(boolean compressible) {
+        this.compressible = compressible;
+        this.fillerBlock = buildFillerBlock(MIN_FILLER_BLOCK_SIZE);
+    }
+
+    public static PayloadPaddingEngine getInstance(){
+        return incompressibleInstance;
+    }
+
+    /**
+     * @param filler incompressible or compressible, the incompressible engine is returned for unknown values
+     */
+    public static PayloadPaddingEngine getInstance(String filler){
+        return FILLER_COMPRESSIBLE.equals(filler) ? compressibleInstance : incompressibleInstance;
+    }
+
+    public static boolean isSupported(String filler){
+        return FILLER_INCOMPRESSIBLE.equals(filler) || FILLER_COMPRESSIBLE.equals(filler);
+    }
+
+    /**
+     * Serialize the message and pad its data object up to the target size. The message has to be serialized as a JSON
+     * object whose last field is the data object (as the TelemetryMessage), the padding is skipped otherwise or if the
+     * data object is not smaller than the target size
+     * @param targetSizeByte target size of the data object, 0 to disable the padding
+     * @return the serialized (and padded) payload
+     */
+    public byte[] writePayload(ObjectMapper mapper, Object message, int targetSizeByte) throws IOException {
+
+        ReusableByteArrayOutputStream buffer = threadBuffer.get();
+        buffer.reset();
+        mapper.writeValue(buffer, message);
+
+        byte[] payload = buffer.getBuffer();
+        int length = buffer.size();
+
+        //Splice position: the closing brace of the data object followed by the one of the message
+        int dataEnd = length - 2;
+
+        if(targetSizeByte <= 0 || dataEnd < 1 || payload[dataEnd] != '}' || payload[length - 1] != '}')
+            return buffer.toByteArray();
+
+        //The key of the data field is the first one outside the string values, whose quotes are escaped
+        int dataStart = indexOf(payload, length, DATA_FIELD_PREFIX);
+
+        if(dataStart < 0)
+            return buffer.toByteArray();
+
+        dataStart += DATA_FIELD_PREFIX.length - 1;
+
+        int fillerLength = targetSizeByte - (dataEnd + 1 - dataStart);
+
+        if(fillerLength <= 0)
+            return buffer.toByteArray();
+
+        boolean emptyData = dataEnd == dataStart + 1;
+        int fieldOverhead = (emptyData ? 0 : 1) + PAYLOAD_OVERHEAD_FIELD_PREFIX.length + 1;
+
+        byte[] paddedPayload = new byte[length + fieldOverhead + fillerLength];
+        int position = 0;
+
+        System.arraycopy(payload, 0, paddedPayload, position, dataEnd);
+        position += dataEnd;
+
+        if(!emptyData)
+            paddedPayload[position++] = ',';
+
+        System.arraycopy(PAYLOAD_OVERHEAD_FIELD_PREFIX, 0, paddedPayload, position, PAYLOAD_OVERHEAD_FIELD_PREFIX.length);
+        position += PAYLOAD_OVERHEAD_FIELD_PREFIX.length;
+
+        byte[] block = getFillerBlock(fillerLength);
+        int offset = this.compressible ? 0 : ThreadLocalRandom.current().nextInt(block.length - fillerLength + 1);
+        System.arraycopy(block, offset, paddedPayload, position, fillerLength);
+        position += fillerLength;
+
+        paddedPayload[position++] = '"';
+
+        System.arraycopy(payload, dataEnd, paddedPayload, position, length - dataEnd);
+
+        return paddedPayload;
+    }
+
+    private static int indexOf(byte[] payload, int length, byte[] target){
+
+        for(int i = 0; i <= length - target.length; i++){
+
+            int j = 0;
+
+            while(j < target.length && payload[i + j] == target[j])
+                j++;
+
+            if(j == target.length)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private byte[] getFillerBlock(int fillerLength){
+
+        byte[] block = this.fillerBlock;
+
+        if(block.length >= fillerLength)
+            return block;
+
+        synchronized (this){
+            //Leave room to pick a random offset of the incompressible filler
+            if(this.fillerBlock.length < fillerLength)
+                this.fillerBlock = buildFillerBlock(fillerLength * 2);
+
+            return this.fillerBlock;
+        }
+    }
+
+    private byte[] buildFillerBlock(int size){
+
+        byte[] block = new byte[size];
+
+        if(this.compressible)
+            for(int i = 0; i < size; i++)
+                block[i] = COMPRESSIBLE_CHAR;
+        else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for(int i = 0; i < size; i++)
+                block[i] = ALPHABETIC_CHARS[random.nextInt(ALPHABETIC_CHARS.length)];
+        }
+
+        return block;
+    }
+
+    /**
+     * ByteArrayOutputStream exposing its internal buffer to avoid the toByteArray() copy
+     */
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+        private ReusableByteArrayOutputStream() {
+            super(1024);
+        }
+
+        private byte[] getBuffer(){
+            return this.buf;
+        }
+    }
+
+}
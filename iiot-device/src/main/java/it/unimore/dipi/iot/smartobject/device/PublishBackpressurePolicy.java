@@ -0,0 +1,44 @@
+package it.unimore.dipi.iot.smartobject.device;
+
+import java.util.Optional;
+
+/**
+ * Behaviour of a {@link TelemetryPublishQueue} when a new message is published and the queue is full
+ *
+ * - DROP_OLDEST: the oldest queued message is discarded to make room for the new one (freshest data is sent)
+ * - DROP_NEWEST: the new message is discarded
+ * - BLOCK: the publishing thread waits until the queue has room for the new message, up to
+ *   {@link TelemetryPublishQueue#BLOCK_TIMEOUT_MS} (the new message is then discarded), so a slow broker does not
+ *   stall the shared scheduler threads updating the other devices
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 22:30
+ */
+public enum PublishBackpressurePolicy {
+
+    DROP_OLDEST("drop_oldest"),
+    DROP_NEWEST("drop_newest"),
+    BLOCK("block");
+
+    private final String configValue;
+
+    PublishBackpressurePolicy(String configValue) {
+        this.configValue = configValue;
+    }
+
+    public String getConfigValue() {
+        return configValue;
+    }
+
+    /**
+     * @return the policy associated to the configuration value (e.g. drop_oldest) or an empty Optional if not found
+     */
+    public static Optional<PublishBackpressurePolicy> fromConfigValue(String configValue){
+
+        for(PublishBackpressurePolicy policy : values())
+            if(policy.configValue.equalsIgnoreCase(configValue))
+                return Optional.of(policy);
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,194 @@
+package it.unimore.dipi.iot.smartobject.device;
+
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded outbound queue of a device. Messages are enqueued by the threads generating the telemetry data and
+ * published by the shared {@link TelemetryPublisherPool}, so that a slow broker round-trip never delays the following
+ * samples. When the queue is full the configured {@link PublishBackpressurePolicy} is applied.
+ *
+ * At most one drain task per queue is submitted to the pool at a time: messages of the same device are published in
+ * order, and each drain task publishes a limited batch to share the pool threads among the devices of a fleet.
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 22:40
+ */
+public class TelemetryPublishQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryPublishQueue.class);
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private static final int MAX_DRAIN_BATCH_SIZE = 64;
+
+    //Max wait of the BLOCK policy: the enqueuing thread is a shared scheduler thread updating the other devices too
+    public static final long BLOCK_TIMEOUT_MS = 50;
+
+    /**
+     * Publish operation executed for each dequeued message (e.g. the publish method of the device MQTT Client)
+     */
+    public interface PublishAction {
+        void publish(String topic, MqttMessage mqttMessage) throws MqttException;
+    }
+
+    private final String deviceId;
+
+    private final int capacity;
+
+    private final PublishBackpressurePolicy backpressurePolicy;
+
+    private final PublishAction publishAction;
+
+    private final BlockingQueue<PendingMessage> queue;
+
+    private final Executor executor;
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final LongAdder queuedCount = new LongAdder();
+
+    private final LongAdder sentCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private volatile boolean closed = false;
+
+    public TelemetryPublishQueue(String deviceId, int capacity, PublishBackpressurePolicy backpressurePolicy, PublishAction publishAction) {
+        this.deviceId = deviceId;
+        this.capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+        this.backpressurePolicy = backpressurePolicy != null ? backpressurePolicy : PublishBackpressurePolicy.DROP_OLDEST;
+        this.publishAction = publishAction;
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.executor = TelemetryPublisherPool.getInstance().getExecutor();
+    }
+
+    /**
+     * Enqueue a message applying the backpressure policy if the queue is full
+     * @return true if the message has been queued, false if it has been dropped
+     */
+    public boolean enqueue(String topic, MqttMessage mqttMessage){
+
+        if(this.closed)
+            return false;
+
+        PendingMessage pendingMessage = new PendingMessage(topic, mqttMessage);
+
+        switch (this.backpressurePolicy){
+            case DROP_NEWEST:
+                if(!this.queue.offer(pendingMessage)){
+                    this.droppedCount.increment();
+                    return false;
+                }
+                break;
+            case BLOCK:
+                try {
+                    //The new message is dropped if the queue is still full after the timeout
+                    if(!this.queue.offer(pendingMessage, BLOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS)){
+                        this.droppedCount.increment();
+                        return false;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.droppedCount.increment();
+                    return false;
+                }
+                break;
+            case DROP_OLDEST:
+            default:
+                while(!this.queue.offer(pendingMessage)){
+                    if(this.queue.poll() != null)
+                        this.droppedCount.increment();
+                }
+                break;
+        }
+
+        this.queuedCount.increment();
+        scheduleDrain();
+
+        return true;
+    }
+
+    private void scheduleDrain(){
+        if(this.drainScheduled.compareAndSet(false, true))
+            this.executor.execute(this::drain);
+    }
+
+    private void drain(){
+
+        try{
+
+            PendingMessage pendingMessage;
+            int publishedCount = 0;
+
+            while(publishedCount < MAX_DRAIN_BATCH_SIZE && (pendingMessage = this.queue.poll()) != null){
+
+                try{
+                    this.publishAction.publish(pendingMessage.topic, pendingMessage.mqttMessage);
+                    this.sentCount.increment();
+                }catch (Exception e){
+                    this.failedCount.increment();
+                    logger.error("TelemetryPublishQueue -> Device {} Error publishing to topic: {} ! Msg: {}",
+                            this.deviceId,
+                            pendingMessage.topic,
+                            e.getLocalizedMessage());
+                }
+
+                publishedCount++;
+            }
+
+        }finally {
+            this.drainScheduled.set(false);
+
+            //Messages enqueued after the last poll or left by the batch limit
+            if(!this.queue.isEmpty() && !this.closed)
+                scheduleDrain();
+        }
+    }
+
+    /**
+     * Stop accepting new messages and discard the queued ones
+     */
+    public void close(){
+        this.closed = true;
+        int discardedCount = this.queue.size();
+        this.queue.clear();
+        this.droppedCount.add(discardedCount);
+    }
+
+    public TelemetryPublishQueueStats getStats(){
+        return new TelemetryPublishQueueStats(
+                this.deviceId,
+                this.backpressurePolicy.getConfigValue(),
+                this.capacity,
+                this.queue.size(),
+                this.queuedCount.sum(),
+                this.sentCount.sum(),
+                this.droppedCount.sum(),
+                this.failedCount.sum());
+    }
+
+    private static class PendingMessage {
+
+        private final String topic;
+
+        private final MqttMessage mqttMessage;
+
+        private PendingMessage(String topic, MqttMessage mqttMessage) {
+            this.topic = topic;
+            this.mqttMessage = mqttMessage;
+        }
+    }
+
+}
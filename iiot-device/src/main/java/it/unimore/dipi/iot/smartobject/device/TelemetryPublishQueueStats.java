@@ -0,0 +1,120 @@
+package it.unimore.dipi.iot.smartobject.device;
+
+/**
+ * Snapshot of the counters of a {@link TelemetryPublishQueue}. queuedCount is the number of messages accepted in the
+ * queue while droppedCount also includes the queued messages evicted by the drop_oldest policy
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 22:45
+ */
+public class TelemetryPublishQueueStats {
+
+    private String deviceId;
+
+    private String backpressurePolicy;
+
+    private int capacity;
+
+    private int queueSize;
+
+    private long queuedCount;
+
+    private long sentCount;
+
+    private long droppedCount;
+
+    private long failedCount;
+
+    public TelemetryPublishQueueStats() {
+    }
+
+    public TelemetryPublishQueueStats(String deviceId, String backpressurePolicy, int capacity, int queueSize, long queuedCount, long sentCount, long droppedCount, long failedCount) {
+        this.deviceId = deviceId;
+        this.backpressurePolicy = backpressurePolicy;
+        this.capacity = capacity;
+        this.queueSize = queueSize;
+        this.queuedCount = queuedCount;
+        this.sentCount = sentCount;
+        this.droppedCount = droppedCount;
+        this.failedCount = failedCount;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    public void setBackpressurePolicy(String backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public long getQueuedCount() {
+        return queuedCount;
+    }
+
+    public void setQueuedCount(long queuedCount) {
+        this.queuedCount = queuedCount;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public void setDroppedCount(long droppedCount) {
+        this.droppedCount = droppedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("TelemetryPublishQueueStats{");
+        sb.append("deviceId='").append(deviceId).append('\'');
+        sb.append(", backpressurePolicy='").append(backpressurePolicy).append('\'');
+        sb.append(", capacity=").append(capacity);
+        sb.append(", queueSize=").append(queueSize);
+        sb.append(", queuedCount=").append(queuedCount);
+        sb.append(", sentCount=").append(sentCount);
+        sb.append(", droppedCount=").append(droppedCount);
+        sb.append(", failedCount=").append(failedCount);
+        sb.append('}');
+        return sb.toString();
+    }
+}
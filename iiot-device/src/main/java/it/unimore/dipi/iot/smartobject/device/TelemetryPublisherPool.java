@@ -0,0 +1,69 @@
+package it.unimore.dipi.iot.smartobject.device;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared pool of threads draining the {@link TelemetryPublishQueue} of the devices running in the process, so that
+ * the MQTT publish operations are never executed by the threads generating the telemetry data
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 22:35
+ */
+public class TelemetryPublisherPool {
+
+    public static final int DEFAULT_THREAD_COUNT = 1;
+
+    private final ThreadPoolExecutor executor;
+
+    private TelemetryPublisherPool(){
+
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        ThreadFactory threadFactory = runnable -> new Thread(runnable, String.format("telemetry-publisher-%d", threadCounter.incrementAndGet()));
+
+        this.executor = new ThreadPoolExecutor(DEFAULT_THREAD_COUNT, DEFAULT_THREAD_COUNT,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory);
+    }
+
+    private static class InstanceHolder {
+        private static final TelemetryPublisherPool INSTANCE = new TelemetryPublisherPool();
+    }
+
+    public static TelemetryPublisherPool getInstance(){
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Update the number of threads publishing the queued messages
+     */
+    public synchronized void setThreadCount(int threadCount){
+
+        if(threadCount <= 0)
+            return;
+
+        //The maximum pool size can never be lower than the core one
+        if(threadCount > this.executor.getMaximumPoolSize()){
+            this.executor.setMaximumPoolSize(threadCount);
+            this.executor.setCorePoolSize(threadCount);
+        }
+        else {
+            this.executor.setCorePoolSize(threadCount);
+            this.executor.setMaximumPoolSize(threadCount);
+        }
+    }
+
+    public int getThreadCount(){
+        return this.executor.getCorePoolSize();
+    }
+
+    Executor getExecutor(){
+        return this.executor;
+    }
+
+}
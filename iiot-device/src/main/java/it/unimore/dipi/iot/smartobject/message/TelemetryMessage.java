@@ -1,12 +1,15 @@
 package it.unimore.dipi.iot.smartobject.message;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
  * @project mqtt-demo-fleet-monitoring
  * @created 04/11/2020 - 15:56
  */
+//data is serialized as the last field: the PayloadPaddingEngine splices the padding at the end of the data object
+@JsonPropertyOrder({"timestamp", "type", "data"})
 public class TelemetryMessage<T> {
 
     @JsonProperty("timestamp")
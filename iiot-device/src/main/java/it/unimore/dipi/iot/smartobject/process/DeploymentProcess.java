@@ -1,21 +1,42 @@
 package it.unimore.dipi.iot.smartobject.process;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.undertow.Undertow;
+import io.undertow.server.RoutingHandler;
+import io.undertow.util.Methods;
 import it.unimore.dipi.iot.smartobject.device.MqttDeviceSmartObject;
+import it.unimore.dipi.iot.smartobject.device.PayloadPaddingEngine;
+import it.unimore.dipi.iot.smartobject.device.PublishBackpressurePolicy;
+import it.unimore.dipi.iot.smartobject.device.TelemetryPublisherPool;
+import it.unimore.dipi.iot.smartobject.resource.AggregatedDeviceStateResource;
 import it.unimore.dipi.iot.smartobject.resource.EnergyRawSensor;
 import it.unimore.dipi.iot.smartobject.resource.SmartObjectResource;
 import it.unimore.dipi.iot.smartobject.resource.TemperatureRawSensor;
-import org.eclipse.paho.client.mqttv3.IMqttClient;
-import org.eclipse.paho.client.mqttv3.MqttClient;
-import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Random;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
+ * Emulate a fleet of devices in a single process (fleet mode). The fleet is configured through the device_conf.yaml
+ * file: fleetSize devices with id <deviceId>-<index> are created, each one with the configured resources and rates.
+ *
+ * The process does not create any thread per device: all the periodic resource updates are executed by the shared
+ * {@link ResourceScheduler} and the devices are multiplexed over a pool of asynchronous MQTT clients, each one shared
+ * by fleetDevicesPerConnection devices. Device start times are spread over the update period to avoid bursts.
+ * The HTTP API exposes the scheduler (/scheduler) and the telemetry publishing (/publisher) statistics of the fleet.
+ *
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
  * @project mqtt-demo-fleet-monitoring
  * @created 04/11/2020 - 16:15
@@ -24,70 +45,203 @@ public class DeploymentProcess {
 
     private static final Logger logger = LoggerFactory.getLogger(DeploymentProcess.class);
 
-    private static String MQTT_BROKER_IP = "127.0.0.1";
+    private static final String DEVICE_CONFIGURATION_FILE_PATH = "device_conf.yaml";
 
-    private static int MQTT_BROKER_PORT = 1883;
+    private static final int DEFAULT_FLEET_SIZE = 3;
+
+    private static DeviceConfiguration deviceConfiguration;
+
+    private static List<IMqttAsyncClient> mqttClientList;
+
+    private static List<MqttDeviceSmartObject> deviceList;
 
     public static void main(String[] args) {
 
         try{
 
-            executeNewDeviceEmulator("testDevice1");
+            deviceConfiguration = readConfigurationFile();
+
+            if(deviceConfiguration == null){
+                logger.error("Error Loading DeviceConfiguration from file: {}", DEVICE_CONFIGURATION_FILE_PATH);
+                return;
+            }
+
+            int fleetSize = deviceConfiguration.getFleetSize() > 0 ? deviceConfiguration.getFleetSize() : DEFAULT_FLEET_SIZE;
+            int devicesPerConnection = Math.max(1, deviceConfiguration.getFleetDevicesPerConnection());
+
+            //Configure the shared scheduler executing the periodic resource updates of the whole fleet
+            ResourceScheduler.getInstance().setThreadCount(deviceConfiguration.getSchedulerThreadCount());
+            ResourceScheduler.getInstance().setJitterReportPeriodSec(deviceConfiguration.getSchedulerJitterReportPeriodSec());
+
+            //Configure the shared pool publishing the queued telemetry messages of the whole fleet
+            TelemetryPublisherPool.getInstance().setThreadCount(deviceConfiguration.getPublisherThreadCount());
+
+            if(!PayloadPaddingEngine.isSupported(deviceConfiguration.getPayloadPaddingFiller()))
+                logger.warn("Unknown Payload Padding Filler: {} ! Using: {}",
+                        deviceConfiguration.getPayloadPaddingFiller(),
+                        PayloadPaddingEngine.FILLER_DEFAULT);
+
+            logger.info("Starting Device Fleet ! Fleet Size: {} Devices per Connection: {} Aggregated Telemetry Msg/Sec: {}",
+                    fleetSize,
+                    devicesPerConnection,
+                    deviceConfiguration.getAggregatedTelemetryMsgSec());
+
+            connectMqttClients((fleetSize + devicesPerConnection - 1) / devicesPerConnection);
+
+            deviceList = new CopyOnWriteArrayList<>();
+
+            startFleetHttpApi();
+
+            PublishBackpressurePolicy publishBackpressurePolicy = getPublishBackpressurePolicy();
+
+            for(int deviceIndex = 0; deviceIndex < fleetSize; deviceIndex++)
+                executeNewDeviceEmulator(deviceIndex, fleetSize, mqttClientList.get(deviceIndex / devicesPerConnection), publishBackpressurePolicy);
+
+            logger.info("Device Fleet Started ! Devices: {} MQTT Connections: {}", deviceList.size(), mqttClientList.size());
+
+            Runtime.getRuntime().addShutdownHook(new Thread(DeploymentProcess::disconnectMqttClients));
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    private static void connectMqttClients(int connectionCount) throws Exception {
+
+        mqttClientList = new ArrayList<>(connectionCount);
+
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setAutomaticReconnect(true);
+        options.setCleanSession(true);
+        options.setConnectionTimeout(10);
+        //Only QoS 1 and 2 messages are counted as in-flight by Paho, the limit does not apply to the QoS 0 telemetry
+        options.setMaxInflight(deviceConfiguration.getFleetMaxInflight());
+
+        for(int connectionIndex = 0; connectionIndex < connectionCount; connectionIndex++){
+
+            String clientId = String.format("%s-fleet-%d", deviceConfiguration.getDeviceId(), connectionIndex);
+
+            IMqttAsyncClient mqttClient = new MqttAsyncClient(String.format("tcp://%s:%d",
+                    deviceConfiguration.getTargetMqttBrokerAddress(),
+                    deviceConfiguration.getTargetMqttBrokerPort()),
+                    clientId,
+                    new MemoryPersistence());
+
+            //Connect to MQTT Broker
+            mqttClient.connect(options).waitForCompletion();
+            mqttClientList.add(mqttClient);
+
+            logger.info("MQTT Client Connected ! Client Id: {}", clientId);
+        }
+    }
+
+    private static void disconnectMqttClients(){
+
+        for(IMqttAsyncClient mqttClient : mqttClientList){
+            try{
+                if(mqttClient.isConnected())
+                    mqttClient.disconnect().waitForCompletion();
+            }catch (Exception e){
+                logger.error("Error disconnecting MQTT Client {} ! Msg: {}", mqttClient.getClientId(), e.getLocalizedMessage());
+            }
+        }
+    }
+
+    private static void executeNewDeviceEmulator(int deviceIndex, int fleetSize, IMqttAsyncClient mqttClient, PublishBackpressurePolicy publishBackpressurePolicy){
+
+        try{
+
+            String deviceId = String.format("%s-%d", deviceConfiguration.getDeviceId(), deviceIndex);
+
+            //Spread the first update of each device over the aggregated telemetry period
+            long telemetryPeriodMs = deviceConfiguration.getAggregatedTelemetryMsgSec() > 0 ?
+                    (long)(1000.0 / deviceConfiguration.getAggregatedTelemetryMsgSec()) :
+                    deviceConfiguration.getUpdatePeriodMs();
+            long initialDelayMs = deviceConfiguration.getUpdateInitialDelayMs() + (telemetryPeriodMs * deviceIndex / fleetSize);
+
+            MqttDeviceSmartObject mqttDeviceSmartObject = new MqttDeviceSmartObject();
+            mqttDeviceSmartObject.init(deviceId,
+                    mqttClient,
+                    buildResourceMap(initialDelayMs),
+                    deviceConfiguration.getSingleResourceTelemetryEnabled());
+
+            //Configure the target expected payload size
+            mqttDeviceSmartObject.setTargetAggregatedTelemetryPayloadSizeByte(deviceConfiguration.getTargetAggregatedTelemetryPayloadSizeByte());
+            mqttDeviceSmartObject.setPayloadPaddingFiller(deviceConfiguration.getPayloadPaddingFiller());
 
-            Thread.sleep(5000);
-            executeNewDeviceEmulator("testDevice2");
+            //Configure the outbound telemetry queue
+            mqttDeviceSmartObject.setPublishQueueCapacity(deviceConfiguration.getPublishQueueCapacity());
+            mqttDeviceSmartObject.setPublishBackpressurePolicy(publishBackpressurePolicy);
 
-            Thread.sleep(5000);
-            executeNewDeviceEmulator("testDevice3");
+            mqttDeviceSmartObject.start();
+
+            deviceList.add(mqttDeviceSmartObject);
 
         }catch (Exception e){
             e.printStackTrace();
         }
     }
 
-    private static void executeNewDeviceEmulator(String deviceId){
+    private static Map<String, SmartObjectResource<?>> buildResourceMap(long initialDelayMs){
 
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
+        Map<String, SmartObjectResource<?>> resourceMap = new HashMap<>();
 
-                    try{
+        for (Map.Entry<String, String> entry : deviceConfiguration.getResourceMap().entrySet()) {
 
-                        //Create MQTT Client
-                        MqttClientPersistence persistence = new MemoryPersistence();
-                        IMqttClient mqttClient = new MqttClient(String.format("tcp://%s:%d",
-                                MQTT_BROKER_IP,
-                                MQTT_BROKER_PORT),
-                                deviceId,
-                                persistence);
+            String resourceKey = entry.getKey();
+            String resourceType = entry.getValue();
 
-                        MqttConnectOptions options = new MqttConnectOptions();
-                        options.setAutomaticReconnect(true);
-                        options.setCleanSession(true);
-                        options.setConnectionTimeout(10);
+            if(resourceType.equals(EnergyRawSensor.RESOURCE_TYPE))
+                resourceMap.put(resourceKey, new EnergyRawSensor(deviceConfiguration.getUpdatePeriodMs(), initialDelayMs));
+            else if(resourceType.equals(TemperatureRawSensor.RESOURCE_TYPE))
+                resourceMap.put(resourceKey, new TemperatureRawSensor(deviceConfiguration.getUpdatePeriodMs(), initialDelayMs));
+            else
+                logger.error("ERROR ! Resource Type: {} NOT FOUND for Resource Key: {}", resourceType, resourceKey);
+        }
 
-                        //Connect to MQTT Broker
-                        mqttClient.connect(options);
+        if(deviceConfiguration.getAggregatedTelemetry() && resourceMap.size() > 0)
+            resourceMap.put("device_state", new AggregatedDeviceStateResource(
+                    deviceConfiguration.getAggregatedTelemetryMsgSec(),
+                    initialDelayMs,
+                    new ArrayList<>(resourceMap.values())));
 
-                        logger.info("MQTT Client Connected ! Client Id: {}", deviceId);
+        return resourceMap;
+    }
 
-                        MqttDeviceSmartObject mqttDeviceSmartObject = new MqttDeviceSmartObject();
-                        mqttDeviceSmartObject.init(deviceId,
-                                mqttClient, new HashMap<String, SmartObjectResource<?>>(){
-                            {
-                                put("energy", new EnergyRawSensor());
-                                put("temperature", new TemperatureRawSensor());
-                            }
-                        }, true);
+    private static void startFleetHttpApi(){
+        try{
 
-                        mqttDeviceSmartObject.start();
+            Undertow server = Undertow.builder().addHttpListener(
+                    deviceConfiguration.getHttpApiPort(),
+                    "0.0.0.0",
+                    new RoutingHandler()
+                            .add(Methods.GET, "/scheduler", new HttpSchedulerStatsHandler())
+                            .add(Methods.GET, "/publisher", new HttpPublisherStatsHandler(deviceList))).build();
+
+            server.start();
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
 
-                    }catch (Exception e){
-                        e.printStackTrace();
-                    }
+    private static PublishBackpressurePolicy getPublishBackpressurePolicy(){
+        return PublishBackpressurePolicy.fromConfigValue(deviceConfiguration.getPublishBackpressurePolicy()).orElseGet(() -> {
+            logger.warn("Unknown Publish Backpressure Policy: {} ! Using: {}",
+                    deviceConfiguration.getPublishBackpressurePolicy(),
+                    PublishBackpressurePolicy.DROP_OLDEST.getConfigValue());
+            return PublishBackpressurePolicy.DROP_OLDEST;
+        });
+    }
 
-                }
-            }).start();
+    private static DeviceConfiguration readConfigurationFile() {
+        try{
+            File file = new File(DEVICE_CONFIGURATION_FILE_PATH);
+            ObjectMapper om = new ObjectMapper(new YAMLFactory());
+            return om.readValue(file, DeviceConfiguration.class);
+        }catch (Exception e){
+            e.printStackTrace();
+            return null;
+        }
     }
 
 }
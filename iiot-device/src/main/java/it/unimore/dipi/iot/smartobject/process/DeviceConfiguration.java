@@ -1,5 +1,11 @@
 package it.unimore.dipi.iot.smartobject.process;
 
+import it.unimore.dipi.iot.smartobject.device.PayloadPaddingEngine;
+import it.unimore.dipi.iot.smartobject.device.PublishBackpressurePolicy;
+import it.unimore.dipi.iot.smartobject.device.TelemetryPublishQueue;
+import it.unimore.dipi.iot.smartobject.device.TelemetryPublisherPool;
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
+
 import java.util.Map;
 
 /**
@@ -31,6 +37,25 @@ public class DeviceConfiguration {
 
     private int targetAggregatedTelemetryPayloadSizeByte;
 
+    private String payloadPaddingFiller = PayloadPaddingEngine.FILLER_DEFAULT;
+
+    private int schedulerThreadCount = ResourceScheduler.DEFAULT_THREAD_COUNT;
+
+    private long schedulerJitterReportPeriodSec = 0;
+
+    private int publishQueueCapacity = TelemetryPublishQueue.DEFAULT_CAPACITY;
+
+    private String publishBackpressurePolicy = PublishBackpressurePolicy.DROP_OLDEST.getConfigValue();
+
+    private int publisherThreadCount = TelemetryPublisherPool.DEFAULT_THREAD_COUNT;
+
+    private int fleetSize = 0;
+
+    private int fleetDevicesPerConnection = 100;
+
+    //Paho in-flight window of each fleet connection, it only bounds QoS 1 and 2 messages (telemetry is sent with QoS 0)
+    private int fleetMaxInflight = 1000;
+
     public DeviceConfiguration() {
     }
 
@@ -137,6 +162,78 @@ public class DeviceConfiguration {
         this.targetAggregatedTelemetryPayloadSizeByte = targetAggregatedTelemetryPayloadSizeByte;
     }
 
+    public String getPayloadPaddingFiller() {
+        return payloadPaddingFiller;
+    }
+
+    public void setPayloadPaddingFiller(String payloadPaddingFiller) {
+        this.payloadPaddingFiller = payloadPaddingFiller;
+    }
+
+    public int getSchedulerThreadCount() {
+        return schedulerThreadCount;
+    }
+
+    public void setSchedulerThreadCount(int schedulerThreadCount) {
+        this.schedulerThreadCount = schedulerThreadCount;
+    }
+
+    public long getSchedulerJitterReportPeriodSec() {
+        return schedulerJitterReportPeriodSec;
+    }
+
+    public void setSchedulerJitterReportPeriodSec(long schedulerJitterReportPeriodSec) {
+        this.schedulerJitterReportPeriodSec = schedulerJitterReportPeriodSec;
+    }
+
+    public int getPublishQueueCapacity() {
+        return publishQueueCapacity;
+    }
+
+    public void setPublishQueueCapacity(int publishQueueCapacity) {
+        this.publishQueueCapacity = publishQueueCapacity;
+    }
+
+    public String getPublishBackpressurePolicy() {
+        return publishBackpressurePolicy;
+    }
+
+    public void setPublishBackpressurePolicy(String publishBackpressurePolicy) {
+        this.publishBackpressurePolicy = publishBackpressurePolicy;
+    }
+
+    public int getPublisherThreadCount() {
+        return publisherThreadCount;
+    }
+
+    public void setPublisherThreadCount(int publisherThreadCount) {
+        this.publisherThreadCount = publisherThreadCount;
+    }
+
+    public int getFleetSize() {
+        return fleetSize;
+    }
+
+    public void setFleetSize(int fleetSize) {
+        this.fleetSize = fleetSize;
+    }
+
+    public int getFleetDevicesPerConnection() {
+        return fleetDevicesPerConnection;
+    }
+
+    public void setFleetDevicesPerConnection(int fleetDevicesPerConnection) {
+        this.fleetDevicesPerConnection = fleetDevicesPerConnection;
+    }
+
+    public int getFleetMaxInflight() {
+        return fleetMaxInflight;
+    }
+
+    public void setFleetMaxInflight(int fleetMaxInflight) {
+        this.fleetMaxInflight = fleetMaxInflight;
+    }
+
     @Override
     public String toString() {
         final StringBuffer sb = new StringBuffer("DeviceConfiguration{");
@@ -151,6 +248,15 @@ public class DeviceConfiguration {
         sb.append(", aggregatedTelemetryMsgSec=").append(aggregatedTelemetryMsgSec);
         sb.append(", singleResourceTelemetryEnabled=").append(singleResourceTelemetryEnabled);
         sb.append(", targetAggregatedTelemetryPayloadSizeByte=").append(targetAggregatedTelemetryPayloadSizeByte);
+        sb.append(", payloadPaddingFiller='").append(payloadPaddingFiller).append('\'');
+        sb.append(", schedulerThreadCount=").append(schedulerThreadCount);
+        sb.append(", schedulerJitterReportPeriodSec=").append(schedulerJitterReportPeriodSec);
+        sb.append(", publishQueueCapacity=").append(publishQueueCapacity);
+        sb.append(", publishBackpressurePolicy='").append(publishBackpressurePolicy).append('\'');
+        sb.append(", publisherThreadCount=").append(publisherThreadCount);
+        sb.append(", fleetSize=").append(fleetSize);
+        sb.append(", fleetDevicesPerConnection=").append(fleetDevicesPerConnection);
+        sb.append(", fleetMaxInflight=").append(fleetMaxInflight);
         sb.append('}');
         return sb.toString();
     }
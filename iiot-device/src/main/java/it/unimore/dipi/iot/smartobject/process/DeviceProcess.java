@@ -7,7 +7,11 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.RoutingHandler;
 import io.undertow.util.Methods;
 import it.unimore.dipi.iot.smartobject.device.MqttDeviceSmartObject;
+import it.unimore.dipi.iot.smartobject.device.PayloadPaddingEngine;
+import it.unimore.dipi.iot.smartobject.device.PublishBackpressurePolicy;
+import it.unimore.dipi.iot.smartobject.device.TelemetryPublisherPool;
 import it.unimore.dipi.iot.smartobject.resource.*;
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
 import org.eclipse.paho.client.mqttv3.*;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
@@ -18,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -36,11 +41,26 @@ public class DeviceProcess {
 
     private static HttpConfigurationHandler httpConfigurationHandler;
 
+    private static List<MqttDeviceSmartObject> deviceList = new CopyOnWriteArrayList<>();
+
     public static void main(String[] args) {
 
         try{
 
             deviceConfiguration = readConfigurationFile();
+
+            //Configure the shared scheduler executing the periodic resource updates
+            ResourceScheduler.getInstance().setThreadCount(deviceConfiguration.getSchedulerThreadCount());
+            ResourceScheduler.getInstance().setJitterReportPeriodSec(deviceConfiguration.getSchedulerJitterReportPeriodSec());
+
+            //Configure the shared pool publishing the queued telemetry messages
+            TelemetryPublisherPool.getInstance().setThreadCount(deviceConfiguration.getPublisherThreadCount());
+
+            if(!PayloadPaddingEngine.isSupported(deviceConfiguration.getPayloadPaddingFiller()))
+                logger.warn("Unknown Payload Padding Filler: {} ! Using: {}",
+                        deviceConfiguration.getPayloadPaddingFiller(),
+                        PayloadPaddingEngine.FILLER_DEFAULT);
+
             buildResourceMap(deviceConfiguration.getResourceMap());
 
             if(deviceConfiguration.getAggregatedTelemetry() == true)
@@ -80,8 +100,15 @@ public class DeviceProcess {
 
                 //Configure the target expected payload size
                 mqttDeviceSmartObject.setTargetAggregatedTelemetryPayloadSizeByte(deviceConfiguration.getTargetAggregatedTelemetryPayloadSizeByte());
+                mqttDeviceSmartObject.setPayloadPaddingFiller(deviceConfiguration.getPayloadPaddingFiller());
+
+                //Configure the outbound telemetry queue
+                mqttDeviceSmartObject.setPublishQueueCapacity(deviceConfiguration.getPublishQueueCapacity());
+                mqttDeviceSmartObject.setPublishBackpressurePolicy(getPublishBackpressurePolicy());
 
                 mqttDeviceSmartObject.start();
+
+                deviceList.add(mqttDeviceSmartObject);
             }
             else
                 logger.error("Error Loading DeviceConfiguration from file: {}", DEVICE_CONFIGURATION_FILE_PATH);
@@ -154,7 +181,18 @@ public class DeviceProcess {
     private static final HttpHandler getBasicRoutes() {
         return new RoutingHandler()
                 .add(Methods.GET, "/conf", httpConfigurationHandler)
-                .add(Methods.PUT, "/conf", httpConfigurationHandler);
+                .add(Methods.PUT, "/conf", httpConfigurationHandler)
+                .add(Methods.GET, "/scheduler", new HttpSchedulerStatsHandler())
+                .add(Methods.GET, "/publisher", new HttpPublisherStatsHandler(deviceList));
+    }
+
+    private static PublishBackpressurePolicy getPublishBackpressurePolicy(){
+        return PublishBackpressurePolicy.fromConfigValue(deviceConfiguration.getPublishBackpressurePolicy()).orElseGet(() -> {
+            logger.warn("Unknown Publish Backpressure Policy: {} ! Using: {}",
+                    deviceConfiguration.getPublishBackpressurePolicy(),
+                    PublishBackpressurePolicy.DROP_OLDEST.getConfigValue());
+            return PublishBackpressurePolicy.DROP_OLDEST;
+        });
     }
 
     private static DeviceConfiguration readConfigurationFile() {
@@ -0,0 +1,54 @@
+package it.unimore.dipi.iot.smartobject.process;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import it.unimore.dipi.iot.smartobject.device.MqttDeviceSmartObject;
+import it.unimore.dipi.iot.smartobject.device.TelemetryPublishQueueStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expose the queued, sent and dropped message counters of the outbound telemetry queue of each running device
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 22:55
+ */
+class HttpPublisherStatsHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpPublisherStatsHandler.class);
+
+    private ObjectMapper objectMapper;
+
+    private List<MqttDeviceSmartObject> deviceList;
+
+    public HttpPublisherStatsHandler(List<MqttDeviceSmartObject> deviceList) {
+        super();
+        objectMapper = new ObjectMapper();
+        this.deviceList = deviceList;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+
+        try {
+
+            List<TelemetryPublishQueueStats> statsList = new ArrayList<>();
+
+            for(MqttDeviceSmartObject mqttDeviceSmartObject : this.deviceList)
+                mqttDeviceSmartObject.getPublishStats().ifPresent(statsList::add);
+
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+            exchange.setStatusCode(StatusCodes.OK);
+            exchange.getResponseSender().send(objectMapper.writeValueAsString(statsList));
+        }catch (Exception e){
+            logger.error("HTTP PUBLISHER STATS HANDLER Exception ! Msg: {}", e.getLocalizedMessage());
+            exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package it.unimore.dipi.iot.smartobject.process;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Expose the rate and jitter statistics of the periodic resource updates executed by the {@link ResourceScheduler}
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 21:40
+ */
+class HttpSchedulerStatsHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpSchedulerStatsHandler.class);
+
+    private ObjectMapper objectMapper;
+
+    public HttpSchedulerStatsHandler() {
+        super();
+        objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+
+        try {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+            exchange.setStatusCode(StatusCodes.OK);
+            exchange.getResponseSender().send(objectMapper.writeValueAsString(ResourceScheduler.getInstance().getTaskStatsList()));
+        }catch (Exception e){
+            logger.error("HTTP SCHEDULER STATS HANDLER Exception ! Msg: {}", e.getLocalizedMessage());
+            exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
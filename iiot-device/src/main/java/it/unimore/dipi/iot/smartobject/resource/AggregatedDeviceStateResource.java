@@ -1,9 +1,12 @@
 package it.unimore.dipi.iot.smartobject.resource;
 
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
+import it.unimore.dipi.iot.smartobject.scheduler.ScheduledResourceTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -20,7 +23,7 @@ public class AggregatedDeviceStateResource extends SmartObjectResource<Aggregate
 
     private AggregatedResourcePayload aggregatedResourcePayload = null;
 
-    private Timer updateTimer = null;
+    private ScheduledResourceTask updateTask = null;
 
     private double targetMsgSec;
 
@@ -36,18 +39,12 @@ public class AggregatedDeviceStateResource extends SmartObjectResource<Aggregate
     private AggregatedDeviceStateResource() {}
 
     public AggregatedDeviceStateResource(SmartObjectResource<?>... resourceArray) {
-        super(UUID.randomUUID().toString(), RESOURCE_TYPE);
-        this.targetMsgSec = DEFAULT_MSG_RATE_SEC;
-        this.updateInitialDelayMs = DEFAULT_TASK_DELAY_TIME_MS;
-        this.resourceList = Arrays.asList(resourceArray);
-        init();
+        this(DEFAULT_MSG_RATE_SEC, DEFAULT_TASK_DELAY_TIME_MS, Arrays.asList(resourceArray));
     }
 
+    //Delegates to the List constructor: init() (listeners and update task) must be executed only once
     public AggregatedDeviceStateResource(double targetMsgSec, long updateInitialDelayMs, SmartObjectResource<?>... resourceArray) {
-        this(resourceArray);
-        this.targetMsgSec = targetMsgSec;
-        this.updateInitialDelayMs = updateInitialDelayMs;
-        init();
+        this(targetMsgSec, updateInitialDelayMs, Arrays.asList(resourceArray));
     }
 
     public AggregatedDeviceStateResource(double targetMsgSec, long updateInitialDelayMs, List<SmartObjectResource<?>> resourceList) {
@@ -83,20 +80,20 @@ public class AggregatedDeviceStateResource extends SmartObjectResource<Aggregate
 
         try{
 
-            this.updatePeriodMs = (long)(1000.0 * (1.0 / this.targetMsgSec));
+            //Nanosecond period to keep the target rate also when 1000/targetMsgSec is not an integer
+            long updatePeriodNs = Math.round(TimeUnit.SECONDS.toNanos(1) / this.targetMsgSec);
+            this.updatePeriodMs = TimeUnit.NANOSECONDS.toMillis(updatePeriodNs);
 
-            logger.info("Wait Initial Delay {} & Starting periodic Update Task with Target Msg/Rate: {} sec - Update Period: {} ms",
+            logger.info("Wait Initial Delay {} & Starting periodic Update Task with Target Msg/Rate: {} sec - Update Period: {} ns",
                     this.updateInitialDelayMs,
                     this.targetMsgSec,
-                    this.updatePeriodMs);
+                    updatePeriodNs);
 
-            this.updateTimer = new Timer();
-            this.updateTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    notifyUpdate(aggregatedResourcePayload);
-                }
-            }, this.updateInitialDelayMs, this.updatePeriodMs);
+            this.updateTask = ResourceScheduler.getInstance().scheduleAtFixedRate(
+                    String.format("AggregatedDeviceState-%s", getId()),
+                    () -> notifyUpdate(aggregatedResourcePayload),
+                    this.updateInitialDelayMs,
+                    updatePeriodNs);
 
         }catch (Exception e){
             logger.error("Error executing periodic resource value ! Msg: {}", e.getLocalizedMessage());
@@ -109,9 +106,10 @@ public class AggregatedDeviceStateResource extends SmartObjectResource<Aggregate
         try{
             logger.info("Stopping Sensor Update Task ...");
 
-            this.updateTimer.cancel();
-            this.updateTimer.purge();
-            this.updateTimer = null;
+            if(this.updateTask != null){
+                this.updateTask.cancel();
+                this.updateTask = null;
+            }
 
         }catch (Exception e){
             e.printStackTrace();
@@ -159,7 +157,7 @@ public class AggregatedDeviceStateResource extends SmartObjectResource<Aggregate
         final StringBuffer sb = new StringBuffer("AggregatedDeviceStateResource{");
         sb.append("resourceList=").append(resourceList);
         sb.append(", aggregatedResourcePayload=").append(aggregatedResourcePayload);
-        sb.append(", updateTimer=").append(updateTimer);
+        sb.append(", updateTask=").append(updateTask != null ? updateTask.getName() : null);
         sb.append(", targetMsgSec=").append(targetMsgSec);
         sb.append(", updatePeriodMs=").append(updatePeriodMs);
         sb.append(", updateInitialDelayMs=").append(updateInitialDelayMs);
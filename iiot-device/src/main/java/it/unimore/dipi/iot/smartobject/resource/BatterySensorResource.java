@@ -1,12 +1,13 @@
 package it.unimore.dipi.iot.smartobject.resource;
 
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
+import it.unimore.dipi.iot.smartobject.scheduler.ScheduledResourceTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -35,7 +36,7 @@ public class BatterySensorResource extends SmartObjectResource<Double> {
 
     private Random random = null;
 
-    private Timer updateTimer = null;
+    private ScheduledResourceTask updateTask = null;
 
     public BatterySensorResource() {
         super(UUID.randomUUID().toString(), BatterySensorResource.RESOURCE_TYPE);
@@ -71,18 +72,17 @@ public class BatterySensorResource extends SmartObjectResource<Double> {
 
             logger.info("Starting periodic Update Task with Period: {} ms", UPDATE_PERIOD);
 
-            this.updateTimer = new Timer();
-            this.updateTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    updatedBatteryLevel = updatedBatteryLevel - (MIN_BATTERY_LEVEL_CONSUMPTION + MAX_BATTERY_LEVEL_CONSUMPTION * random.nextDouble());
-                    //logger.info("Updated Battery Level: {}", updatedBatteryLevel);
-                    //TODO Check if battery level <= 0.0 !
-
-                    notifyUpdate(updatedBatteryLevel);
-
-                }
-            }, TASK_DELAY_TIME, UPDATE_PERIOD);
+            this.updateTask = ResourceScheduler.getInstance().scheduleAtFixedRate(
+                    String.format("BatterySensor-%s", getId()),
+                    () -> {
+                        updatedBatteryLevel = updatedBatteryLevel - (MIN_BATTERY_LEVEL_CONSUMPTION + MAX_BATTERY_LEVEL_CONSUMPTION * random.nextDouble());
+                        //logger.info("Updated Battery Level: {}", updatedBatteryLevel);
+                        //TODO Check if battery level <= 0.0 !
+
+                        notifyUpdate(updatedBatteryLevel);
+                    },
+                    TASK_DELAY_TIME,
+                    TimeUnit.MILLISECONDS.toNanos(UPDATE_PERIOD));
 
         }catch (Exception e){
             logger.error("Error executing periodic resource value ! Msg: {}", e.getLocalizedMessage());
@@ -1,12 +1,13 @@
 package it.unimore.dipi.iot.smartobject.resource;
 
+import it.unimore.dipi.iot.smartobject.scheduler.ResourceScheduler;
+import it.unimore.dipi.iot.smartobject.scheduler.ScheduledResourceTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -38,7 +39,7 @@ public class TemperatureRawSensor extends SmartObjectResource<Double>{
 
     private Random random;
 
-    private Timer updateTimer = null;
+    private ScheduledResourceTask updateTask = null;
 
     private long updatePeriodMs;
 
@@ -81,17 +82,16 @@ public class TemperatureRawSensor extends SmartObjectResource<Double>{
                     this.updateInitialDelayMs,
                     this.updatePeriodMs);
 
-            this.updateTimer = new Timer();
-            this.updateTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-
-                    double variation = (MIN_TEMPERATURE_VARIATION + MAX_TEMPERATURE_VARIATION*random.nextDouble()) * (random.nextDouble() > 0.5 ? 1.0 : -1.0);
-                    updatedValue = updatedValue + variation;
-                    notifyUpdate(updatedValue);
-
-                }
-            }, this.updateInitialDelayMs, this.updatePeriodMs);
+            //Fixed-rate execution on the shared scheduler
+            this.updateTask = ResourceScheduler.getInstance().scheduleAtFixedRate(
+                    String.format("%s-%s", LOG_DISPLAY_NAME, getId()),
+                    () -> {
+                        double variation = (MIN_TEMPERATURE_VARIATION + MAX_TEMPERATURE_VARIATION*random.nextDouble()) * (random.nextDouble() > 0.5 ? 1.0 : -1.0);
+                        updatedValue = updatedValue + variation;
+                        notifyUpdate(updatedValue);
+                    },
+                    this.updateInitialDelayMs,
+                    TimeUnit.MILLISECONDS.toNanos(this.updatePeriodMs));
 
         }catch (Exception e){
             logger.error("Error executing periodic resource value ! Msg: {}", e.getLocalizedMessage());
@@ -104,9 +104,10 @@ public class TemperatureRawSensor extends SmartObjectResource<Double>{
         try{
             logger.info("Stopping Sensor Update Task ...");
 
-            this.updateTimer.cancel();
-            this.updateTimer.purge();
-            this.updateTimer = null;
+            if(this.updateTask != null){
+                this.updateTask.cancel();
+                this.updateTask = null;
+            }
 
         }catch (Exception e){
             e.printStackTrace();
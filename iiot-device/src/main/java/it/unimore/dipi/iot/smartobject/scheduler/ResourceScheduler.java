@@ -0,0 +1,182 @@
+package it.unimore.dipi.iot.smartobject.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduling engine of the periodic resource updates, replacing the java.util.Timer (and its thread) created by
+ * each resource. Tasks are executed by a small ScheduledThreadPoolExecutor with fixed-rate semantics and nanosecond
+ * periods: each execution is scheduled with respect to the first one instead of the end of the previous run, so
+ * delays do not accumulate and the average rate matches the configured one (e.g. 1 kHz is a 1000000 ns period
+ * instead of a rounded ms value). Late executions are caught up as soon as a thread is available.
+ *
+ * The lateness of each execution with respect to its ideal fire time (jitter) is tracked for every task and can be
+ * periodically logged or read through {@link #getTaskStatsList()}.
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 21:10
+ */
+public class ResourceScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceScheduler.class);
+
+    public static final int DEFAULT_THREAD_COUNT = 2;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final List<ScheduledResourceTask> taskList;
+
+    private ScheduledFuture<?> jitterReportFuture = null;
+
+    private ResourceScheduler(){
+
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, String.format("resource-scheduler-%d", threadCounter.incrementAndGet()));
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        };
+
+        this.executor = new ScheduledThreadPoolExecutor(DEFAULT_THREAD_COUNT, threadFactory);
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.taskList = new CopyOnWriteArrayList<>();
+    }
+
+    private static class InstanceHolder {
+        private static final ResourceScheduler INSTANCE = new ResourceScheduler();
+    }
+
+    public static ResourceScheduler getInstance(){
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Update the number of threads executing the scheduled tasks
+     */
+    public void setThreadCount(int threadCount){
+        if(threadCount > 0)
+            this.executor.setCorePoolSize(threadCount);
+    }
+
+    public int getThreadCount(){
+        return this.executor.getCorePoolSize();
+    }
+
+    /**
+     * Schedule a periodic task with fixed-rate semantics
+     * @param name task name used in the jitter report
+     * @param initialDelayMs delay before the first execution
+     * @param periodNs period between two consecutive executions
+     * @return the handle of the scheduled task or null if the period is not valid
+     */
+    public ScheduledResourceTask scheduleAtFixedRate(String name, Runnable task, long initialDelayMs, long periodNs){
+
+        if(periodNs <= 0){
+            logger.error("ResourceScheduler -> Invalid period for task {}: {} ns !", name, periodNs);
+            return null;
+        }
+
+        long initialDelayNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialDelayMs));
+
+        ScheduledResourceTask scheduledResourceTask = new ScheduledResourceTask(name, task, periodNs,
+                System.nanoTime() + initialDelayNs, this);
+
+        scheduledResourceTask.setFuture(this.executor.scheduleAtFixedRate(scheduledResourceTask, initialDelayNs, periodNs, TimeUnit.NANOSECONDS));
+
+        this.taskList.add(scheduledResourceTask);
+
+        logger.debug("ResourceScheduler -> Task {} scheduled ! Initial Delay: {} ms - Period: {} ns", name, initialDelayMs, periodNs);
+
+        return scheduledResourceTask;
+    }
+
+    /**
+     * Schedule a periodic task executed msgSec times per second
+     */
+    public ScheduledResourceTask scheduleAtFixedRate(String name, Runnable task, long initialDelayMs, double msgSec){
+
+        if(msgSec <= 0.0){
+            logger.error("ResourceScheduler -> Invalid rate for task {}: {} msg/sec !", name, msgSec);
+            return null;
+        }
+
+        return scheduleAtFixedRate(name, task, initialDelayMs, Math.round(TimeUnit.SECONDS.toNanos(1) / msgSec));
+    }
+
+    void onTaskCancelled(ScheduledResourceTask scheduledResourceTask){
+        this.taskList.remove(scheduledResourceTask);
+    }
+
+    /**
+     * @return a snapshot of the jitter statistics of the active tasks
+     */
+    public List<ScheduledResourceTaskStats> getTaskStatsList(){
+
+        List<ScheduledResourceTaskStats> statsList = new ArrayList<>();
+
+        for(ScheduledResourceTask scheduledResourceTask : this.taskList)
+            statsList.add(scheduledResourceTask.getStats());
+
+        return statsList;
+    }
+
+    /**
+     * @return the statistics of all the active tasks merged in a single entry: rates and counters are summed while the
+     * mean lateness is weighted by the number of executions of each task
+     */
+    public ScheduledResourceTaskStats getAggregatedTaskStats(){
+
+        ScheduledResourceTaskStats aggregatedStats = new ScheduledResourceTaskStats();
+        aggregatedStats.setName(String.format("%d tasks", this.taskList.size()));
+
+        double totalLatenessUs = 0.0;
+
+        for(ScheduledResourceTaskStats taskStats : getTaskStatsList()){
+            aggregatedStats.setTargetMsgSec(aggregatedStats.getTargetMsgSec() + taskStats.getTargetMsgSec());
+            aggregatedStats.setMeasuredMsgSec(aggregatedStats.getMeasuredMsgSec() + taskStats.getMeasuredMsgSec());
+            aggregatedStats.setExecutionCount(aggregatedStats.getExecutionCount() + taskStats.getExecutionCount());
+            aggregatedStats.setLateExecutionCount(aggregatedStats.getLateExecutionCount() + taskStats.getLateExecutionCount());
+            aggregatedStats.setMaxLatenessUs(Math.max(aggregatedStats.getMaxLatenessUs(), taskStats.getMaxLatenessUs()));
+            totalLatenessUs += taskStats.getMeanLatenessUs() * taskStats.getExecutionCount();
+        }
+
+        if(aggregatedStats.getExecutionCount() > 0)
+            aggregatedStats.setMeanLatenessUs(totalLatenessUs / aggregatedStats.getExecutionCount());
+
+        return aggregatedStats;
+    }
+
+    /**
+     * Periodically log the jitter statistics of the active tasks: the aggregated entry at INFO level and the entry of
+     * each task at DEBUG level
+     * @param reportPeriodSec report period, 0 to disable the report
+     */
+    public synchronized void setJitterReportPeriodSec(long reportPeriodSec){
+
+        if(this.jitterReportFuture != null){
+            this.jitterReportFuture.cancel(false);
+            this.jitterReportFuture = null;
+        }
+
+        if(reportPeriodSec > 0)
+            this.jitterReportFuture = this.executor.scheduleAtFixedRate(() -> {
+
+                logger.info("ResourceScheduler -> Jitter Report: {}", getAggregatedTaskStats());
+
+                if(logger.isDebugEnabled())
+                    for(ScheduledResourceTaskStats taskStats : getTaskStatsList())
+                        logger.debug("ResourceScheduler -> Jitter Report: {}", taskStats);
+
+            }, reportPeriodSec, reportPeriodSec, TimeUnit.SECONDS);
+    }
+
+}
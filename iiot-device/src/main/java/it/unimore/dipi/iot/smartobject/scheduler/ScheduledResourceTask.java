@@ -0,0 +1,125 @@
+package it.unimore.dipi.iot.smartobject.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic task executed by the {@link ResourceScheduler}. Wraps the target Runnable to measure the lateness of each
+ * execution with respect to its ideal fire time and to keep the task scheduled when the Runnable throws an exception
+ * (a periodic task of a ScheduledThreadPoolExecutor is silently suppressed after the first exception).
+ *
+ * Executions of the same task never overlap, so the statistics have a single writer and are published through
+ * volatile fields.
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 21:15
+ */
+public class ScheduledResourceTask implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledResourceTask.class);
+
+    private final String name;
+
+    private final Runnable task;
+
+    private final long periodNs;
+
+    private volatile long firstFireTimeNs;
+
+    private final ResourceScheduler resourceScheduler;
+
+    private ScheduledFuture<?> future;
+
+    private volatile long executionCount = 0;
+
+    private volatile long totalLatenessNs = 0;
+
+    private volatile long maxLatenessNs = 0;
+
+    //Executions started later than one period after their ideal fire time
+    private volatile long lateExecutionCount = 0;
+
+    ScheduledResourceTask(String name, Runnable task, long periodNs, long firstFireTimeNs, ResourceScheduler resourceScheduler) {
+        this.name = name;
+        this.task = task;
+        this.periodNs = periodNs;
+        this.firstFireTimeNs = firstFireTimeNs;
+        this.resourceScheduler = resourceScheduler;
+    }
+
+    void setFuture(ScheduledFuture<?> future) {
+
+        this.future = future;
+
+        //Align the reference time to the trigger time computed by the executor, that may be later than the one
+        //estimated at creation (e.g. class loading on the first schedule). Skipped if the first execution is due
+        long delayNs = future.getDelay(TimeUnit.NANOSECONDS);
+        if(this.executionCount == 0 && delayNs > 0)
+            this.firstFireTimeNs = System.nanoTime() + delayNs;
+    }
+
+    @Override
+    public void run() {
+
+        long latenessNs = Math.max(0, System.nanoTime() - (this.firstFireTimeNs + this.executionCount * this.periodNs));
+
+        this.totalLatenessNs += latenessNs;
+
+        if(latenessNs > this.maxLatenessNs)
+            this.maxLatenessNs = latenessNs;
+
+        if(latenessNs > this.periodNs)
+            this.lateExecutionCount++;
+
+        this.executionCount++;
+
+        try{
+            this.task.run();
+        }catch (Exception e){
+            logger.error("ScheduledResourceTask -> Error executing task {} ! Msg: {}", this.name, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Stop the periodic executions. A running execution is completed
+     */
+    public void cancel(){
+
+        if(this.future != null)
+            this.future.cancel(false);
+
+        this.resourceScheduler.onTaskCancelled(this);
+    }
+
+    public boolean isCancelled(){
+        return this.future != null && this.future.isCancelled();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getPeriodNs() {
+        return periodNs;
+    }
+
+    public ScheduledResourceTaskStats getStats(){
+
+        long count = this.executionCount;
+        long elapsedNs = System.nanoTime() - this.firstFireTimeNs;
+
+        return new ScheduledResourceTaskStats(
+                this.name,
+                (double)TimeUnit.SECONDS.toNanos(1) / (double)this.periodNs,
+                //On average count executions cover elapsedNs plus half a period
+                elapsedNs > 0 && count > 0 ? (double)count * TimeUnit.SECONDS.toNanos(1) / (double)(elapsedNs + this.periodNs / 2) : 0.0,
+                count,
+                this.lateExecutionCount,
+                count > 0 ? (double)this.totalLatenessNs / (double)count / 1000.0 : 0.0,
+                (double)this.maxLatenessNs / 1000.0);
+    }
+
+}
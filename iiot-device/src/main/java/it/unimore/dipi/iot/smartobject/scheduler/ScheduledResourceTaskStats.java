@@ -0,0 +1,107 @@
+package it.unimore.dipi.iot.smartobject.scheduler;
+
+/**
+ * Snapshot of the rate and jitter statistics of a {@link ScheduledResourceTask}
+ *
+ * @project iiot-device
+ * @created 18/10/2026 - 21:20
+ */
+public class ScheduledResourceTaskStats {
+
+    private String name;
+
+    private double targetMsgSec;
+
+    private double measuredMsgSec;
+
+    private long executionCount;
+
+    private long lateExecutionCount;
+
+    private double meanLatenessUs;
+
+    private double maxLatenessUs;
+
+    public ScheduledResourceTaskStats() {
+    }
+
+    public ScheduledResourceTaskStats(String name, double targetMsgSec, double measuredMsgSec, long executionCount, long lateExecutionCount, double meanLatenessUs, double maxLatenessUs) {
+        this.name = name;
+        this.targetMsgSec = targetMsgSec;
+        this.measuredMsgSec = measuredMsgSec;
+        this.executionCount = executionCount;
+        this.lateExecutionCount = lateExecutionCount;
+        this.meanLatenessUs = meanLatenessUs;
+        this.maxLatenessUs = maxLatenessUs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getTargetMsgSec() {
+        return targetMsgSec;
+    }
+
+    public void setTargetMsgSec(double targetMsgSec) {
+        this.targetMsgSec = targetMsgSec;
+    }
+
+    public double getMeasuredMsgSec() {
+        return measuredMsgSec;
+    }
+
+    public void setMeasuredMsgSec(double measuredMsgSec) {
+        this.measuredMsgSec = measuredMsgSec;
+    }
+
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    public void setExecutionCount(long executionCount) {
+        this.executionCount = executionCount;
+    }
+
+    public long getLateExecutionCount() {
+        return lateExecutionCount;
+    }
+
+    public void setLateExecutionCount(long lateExecutionCount) {
+        this.lateExecutionCount = lateExecutionCount;
+    }
+
+    public double getMeanLatenessUs() {
+        return meanLatenessUs;
+    }
+
+    public void setMeanLatenessUs(double meanLatenessUs) {
+        this.meanLatenessUs = meanLatenessUs;
+    }
+
+    public double getMaxLatenessUs() {
+        return maxLatenessUs;
+    }
+
+    public void setMaxLatenessUs(double maxLatenessUs) {
+        this.maxLatenessUs = maxLatenessUs;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("ScheduledResourceTaskStats{");
+        sb.append("name='").append(name).append('\'');
+        sb.append(", targetMsgSec=").append(targetMsgSec);
+        sb.append(", measuredMsgSec=").append(measuredMsgSec);
+        sb.append(", executionCount=").append(executionCount);
+        sb.append(", lateExecutionCount=").append(lateExecutionCount);
+        sb.append(", meanLatenessUs=").append(meanLatenessUs);
+        sb.append(", maxLatenessUs=").append(maxLatenessUs);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package it.unimore.dipi.iot.smartobject.device;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project iiot-device
+ * @created 19/10/2026 - 13:20
+ */
+public class PayloadPaddingEngineTest {
+
+    private static final long TIMESTAMP_MS = 1760000000123L;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static TelemetryMessage<AggregatedResourcePayload> createMessage(){
+
+        AggregatedResourcePayload payload = new AggregatedResourcePayload();
+        payload.put("energy", 42.5);
+        payload.put("unit", "kW");
+
+        return new TelemetryMessage<>(TIMESTAMP_MS, "iot.sensor.energy", payload);
+    }
+
+    private String readFiller(byte[] payload) throws Exception {
+
+        JsonNode dataNode = this.mapper.readTree(payload).get("data");
+
+        assertTrue(dataNode.has(PayloadPaddingEngine.PAYLOAD_OVERHEAD_FIELD));
+
+        return dataNode.get(PayloadPaddingEngine.PAYLOAD_OVERHEAD_FIELD).asText();
+    }
+
+    @Test
+    public void testFillerSizeIsTheTargetMinusTheDataSize() throws Exception {
+
+        TelemetryMessage<AggregatedResourcePayload> message = createMessage();
+        int dataSize = this.mapper.writeValueAsBytes(message.getDataValue()).length;
+
+        for(int targetSizeByte : new int[]{dataSize + 1, 1024, 64 * 1024}){
+
+            byte[] payload = PayloadPaddingEngine.getInstance().writePayload(this.mapper, message, targetSizeByte);
+
+            assertEquals(targetSizeByte - dataSize, readFiller(payload).length());
+
+            //The message is unchanged apart from the padding field
+            JsonNode messageNode = this.mapper.readTree(payload);
+            ((ObjectNode) messageNode.get("data")).remove(PayloadPaddingEngine.PAYLOAD_OVERHEAD_FIELD);
+
+            assertEquals(this.mapper.readTree(this.mapper.writeValueAsBytes(message)), messageNode);
+            assertFalse(message.getDataValue().containsKey(PayloadPaddingEngine.PAYLOAD_OVERHEAD_FIELD));
+        }
+    }
+
+    @Test
+    public void testNoPaddingIfTheDataIsNotSmallerThanTheTarget() throws Exception {
+
+        TelemetryMessage<AggregatedResourcePayload> message = createMessage();
+        byte[] unpaddedPayload = this.mapper.writeValueAsBytes(message);
+        int dataSize = this.mapper.writeValueAsBytes(message.getDataValue()).length;
+
+        assertArrayEquals(unpaddedPayload, PayloadPaddingEngine.getInstance().writePayload(this.mapper, message, 0));
+        assertArrayEquals(unpaddedPayload, PayloadPaddingEngine.getInstance().writePayload(this.mapper, message, dataSize));
+        assertArrayEquals(unpaddedPayload, PayloadPaddingEngine.getInstance().writePayload(this.mapper, message, dataSize / 2));
+    }
+
+    @Test
+    public void testEmptyData() throws Exception {
+
+        TelemetryMessage<AggregatedResourcePayload> message = new TelemetryMessage<>(TIMESTAMP_MS, "iot.sensor.energy", new AggregatedResourcePayload());
+
+        //Target minus the size of {}
+        assertEquals(8, readFiller(PayloadPaddingEngine.getInstance().writePayload(this.mapper, message, 10)).length());
+    }
+
+    @Test
+    public void testEscapedDataKeyInStringValues() throws Exception {
+
+        AggregatedResourcePayload payload = new AggregatedResourcePayload();
+        payload.put("note", "\"data\":{\"a\":1}");
+
+        TelemetryMessage<AggregatedResourcePayload> message = new TelemetryMessage<>(TIMESTAMP_MS, "\"data\":{", payload);
+        int dataSize = this.mapper.writeValueAsBytes(payload).length;
+
+        byte[] paddedPayload = PayloadPaddingEngine.getInstance().writePayload(this.mapper, message, 256);
+
+        assertEquals(256 - dataSize, readFiller(paddedPayload).length());
+        assertEquals("\"data\":{\"a\":1}", this.mapper.readTree(paddedPayload).get("data").get("note").asText());
+    }
+
+    @Test
+    public void testFillers() throws Exception {
+
+        TelemetryMessage<AggregatedResourcePayload> message = createMessage();
+
+        String compressibleFiller = readFiller(PayloadPaddingEngine.getInstance(PayloadPaddingEngine.FILLER_COMPRESSIBLE).writePayload(this.mapper, message, 10000));
+        assertTrue(compressibleFiller.matches("x+"));
+
+        String incompressibleFiller = readFiller(PayloadPaddingEngine.getInstance(PayloadPaddingEngine.FILLER_INCOMPRESSIBLE).writePayload(this.mapper, message, 10000));
+        assertTrue(incompressibleFiller.matches("[A-Za-z]+"));
+
+        assertTrue(PayloadPaddingEngine.isSupported(PayloadPaddingEngine.FILLER_COMPRESSIBLE));
+        assertFalse(PayloadPaddingEngine.isSupported("zeros"));
+    }
+
+}
@@ -0,0 +1,121 @@
+package it.unimore.dipi.iot.smartobject.scheduler;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project iiot-device
+ * @created 19/10/2026 - 13:40
+ */
+public class ResourceSchedulerTest {
+
+    private static final long TIMEOUT_SEC = 10;
+
+    private static boolean isScheduled(String name){
+
+        for(ScheduledResourceTaskStats taskStats : ResourceScheduler.getInstance().getTaskStatsList())
+            if(name.equals(taskStats.getName()))
+                return true;
+
+        return false;
+    }
+
+    @Test
+    public void testInvalidPeriod(){
+
+        assertNull(ResourceScheduler.getInstance().scheduleAtFixedRate("invalid-period", () -> {}, 0, 0L));
+        assertNull(ResourceScheduler.getInstance().scheduleAtFixedRate("invalid-rate", () -> {}, 0, 0.0));
+        assertFalse(isScheduled("invalid-period"));
+    }
+
+    @Test
+    public void testFixedRateExecutions() throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch(20);
+
+        ScheduledResourceTask scheduledResourceTask = ResourceScheduler.getInstance().scheduleAtFixedRate("fixed-rate", latch::countDown, 0, 100.0);
+
+        assertNotNull(scheduledResourceTask);
+
+        try{
+
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(10), scheduledResourceTask.getPeriodNs());
+            assertTrue(latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+            assertTrue(isScheduled("fixed-rate"));
+
+            ScheduledResourceTaskStats taskStats = scheduledResourceTask.getStats();
+
+            assertEquals(100.0, taskStats.getTargetMsgSec(), 1e-9);
+            assertTrue(taskStats.getExecutionCount() >= 20);
+            assertTrue(taskStats.getMeasuredMsgSec() > 0.0);
+            assertTrue(taskStats.getMaxLatenessUs() >= taskStats.getMeanLatenessUs());
+
+        }finally {
+            scheduledResourceTask.cancel();
+        }
+
+        assertTrue(scheduledResourceTask.isCancelled());
+        assertFalse(isScheduled("fixed-rate"));
+
+        //A running execution is completed, no execution is started after it
+        Thread.sleep(50);
+        long executionCount = scheduledResourceTask.getStats().getExecutionCount();
+        Thread.sleep(100);
+
+        assertEquals(executionCount, scheduledResourceTask.getStats().getExecutionCount());
+    }
+
+    @Test
+    public void testFailingTaskIsStillExecuted() throws InterruptedException {
+
+        CountDownLatch latch = new CountDownLatch(3);
+
+        ScheduledResourceTask scheduledResourceTask = ResourceScheduler.getInstance().scheduleAtFixedRate("failing", () -> {
+            latch.countDown();
+            throw new IllegalStateException("Task failure");
+        }, 0, TimeUnit.MILLISECONDS.toNanos(10));
+
+        try{
+            assertTrue(latch.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        }finally {
+            scheduledResourceTask.cancel();
+        }
+    }
+
+    @Test
+    public void testAggregatedStats(){
+
+        AtomicLong executionCount = new AtomicLong(0);
+
+        //Not executed during the test
+        ScheduledResourceTask firstTask = ResourceScheduler.getInstance().scheduleAtFixedRate("aggregated-1", executionCount::incrementAndGet, 60000, 10.0);
+        ScheduledResourceTask secondTask = ResourceScheduler.getInstance().scheduleAtFixedRate("aggregated-2", executionCount::incrementAndGet, 60000, 20.0);
+
+        try{
+
+            ScheduledResourceTaskStats aggregatedStats = ResourceScheduler.getInstance().getAggregatedTaskStats();
+
+            assertEquals("2 tasks", aggregatedStats.getName());
+            assertEquals(30.0, aggregatedStats.getTargetMsgSec(), 1e-9);
+            assertEquals(0, aggregatedStats.getExecutionCount());
+            assertEquals(0.0, aggregatedStats.getMeanLatenessUs(), 1e-9);
+
+        }finally {
+            firstTask.cancel();
+            secondTask.cancel();
+        }
+
+        assertEquals(0, executionCount.get());
+        assertEquals("0 tasks", ResourceScheduler.getInstance().getAggregatedTaskStats().getName());
+    }
+
+}
@@ -6,17 +6,25 @@ import io.undertow.Undertow;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.RoutingHandler;
 import io.undertow.util.Methods;
+import it.unimore.dipi.iot.digitaltwin.behaviour.AggregatedStatePublisher;
+import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedAggregationEngine;
 import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedStateProcessingStep;
 import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedValuesProcessingStep;
+import it.unimore.dipi.iot.digitaltwin.behaviour.DigitalTwinLifeCycle;
 import it.unimore.dipi.iot.digitaltwin.behaviour.DigitalTwinLifeCycleState;
 import it.unimore.dipi.iot.digitaltwin.conf.ComposedDigitalTwinConfiguration;
 import it.unimore.dipi.iot.digitaltwin.conf.HttpConfigurationHandler;
 import it.unimore.dipi.iot.digitaltwin.metrics.HttpMetricsFolderHandler;
 import it.unimore.dipi.iot.digitaltwin.metrics.HttpMetricsHandler;
+import it.unimore.dipi.iot.digitaltwin.metrics.HttpMetricsSeriesHandler;
 import it.unimore.dipi.iot.digitaltwin.metrics.HttpMetricsSingleFileHandler;
+import it.unimore.dipi.iot.digitaltwin.metrics.MetricsExporterUtils;
 import it.unimore.dipi.iot.digitaltwin.metrics.MetricsManager;
-import it.unimore.dipi.iot.digitaltwin.odte.OdteManager;
+import it.unimore.dipi.iot.digitaltwin.odte.MqttConnectionAvailabilityMonitor;
 import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import it.unimore.dipi.iot.digitaltwin.store.MetricsStoreIngester;
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLWriter;
 import it.unimore.dipi.iot.wldt.engine.WldtConfiguration;
 import it.unimore.dipi.iot.wldt.engine.WldtEngine;
 import it.unimore.dipi.iot.wldt.processing.ProcessingPipeline;
@@ -27,12 +35,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -65,6 +71,14 @@ public class ComposedMqttDigitalTwinProcess {
 
     private static HttpConfigurationHandler httpConfigurationHandler = null;
 
+    private static final long ODTE_CHECK_PERIOD_MS = 1000;
+
+    private static ScheduledExecutorService scheduler;
+
+    private static DigitalTwinLifeCycle lifeCycle;
+
+    private static MetricsStoreIngester metricsStoreIngester = null;
+
     public static void main(String[] args)  {
 
         try{
@@ -89,6 +103,23 @@ public class ComposedMqttDigitalTwinProcess {
                 //Set Digital Twin Life Cycle State Value
                 MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.STARTED);
 
+                //Scheduler of the ODTE checks and of the life cycle deadlines
+                scheduler = Executors.newSingleThreadScheduledExecutor();
+
+                lifeCycle = new DigitalTwinLifeCycle(dtConfiguration.getDigitalTwinId(),
+                        dtConfiguration.getOdteTargetPercentile(),
+                        dtConfiguration.getUnBoundThresholdMs(),
+                        scheduler);
+
+                //Publish the life cycle state of the Digital Twin
+                lifeCycle.addListener(transition -> MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(transition.getState()));
+
+                //Check the ODTE target on each observation instead of waiting for the periodic update
+                lifeCycle.setOdteEvaluator(MetricsManager.getInstance(), DigitalTwinLifeCycle.computeOdteSilenceMs(MetricsManager.getInstance().getOdteExpectedMsgSec(),
+                        MetricsManager.getInstance().getOdteAvailabilityGapToleranceFactor(),
+                        MetricsManager.getInstance().getOdteSlidingWindowSec()));
+                MetricsManager.getInstance().setObservationListener(lifeCycle::onOdteObservation);
+
                 Thread.sleep(5000);
 
                 //Create HTTP Configuration Handler
@@ -110,36 +141,52 @@ public class ComposedMqttDigitalTwinProcess {
                         getMqttProtocolConfiguration(dtConfiguration)
                 );
 
-                ComposedStateProcessingStep composedStateProcessingStep = new ComposedStateProcessingStep(wldtEngine.getWldtId(), dtConfiguration);
+                //Aggregation shared by the state processing steps of the target devices
+                ComposedAggregationEngine aggregationEngine = ComposedAggregationEngine.create(dtConfiguration);
 
                 //Setup Processing Pipeline for each topic of each target device
                 for(String deviceId : dtConfiguration.getDeviceIdentifierList()){
                     if(dtConfiguration.isAggregateWithStateMessages()){
                         mqtt2MqttWorker.addTopicProcessingPipeline(String.format("%s-%s", deviceId, DEVICE_STATE_TOPIC_ID),
-                                new ProcessingPipeline(composedStateProcessingStep)
+                                new ProcessingPipeline(new ComposedStateProcessingStep(wldtEngine.getWldtId(), deviceId, aggregationEngine, dtConfiguration, lifeCycle))
                         );
                     }else {
                         mqtt2MqttWorker.addTopicProcessingPipeline(String.format("%s-%s", deviceId, ENERGY_TOPIC_ID),
-                                new ProcessingPipeline(new ComposedValuesProcessingStep(wldtEngine.getWldtId()))
+                                new ProcessingPipeline(new ComposedValuesProcessingStep(wldtEngine.getWldtId(), dtConfiguration.getSenmlPayloadEncoding()))
                         );
                         mqtt2MqttWorker.addTopicProcessingPipeline(String.format("%s-%s", deviceId, TEMPERATURE_TOPIC_ID),
-                                new ProcessingPipeline(new ComposedValuesProcessingStep(wldtEngine.getWldtId()))
+                                new ProcessingPipeline(new ComposedValuesProcessingStep(wldtEngine.getWldtId(), dtConfiguration.getSenmlPayloadEncoding()))
                         );
                     }
                 }
 
                 wldtEngine.addNewWorker(mqtt2MqttWorker);
 
+                //Track the connection to the broker delivering the observations for the ODTE availability
+                MqttConnectionAvailabilityMonitor connectionMonitor = new MqttConnectionAvailabilityMonitor(
+                        dtConfiguration.getTargetMqttBrokerAddress(),
+                        dtConfiguration.getTargetMqttBrokerPort(),
+                        String.format("%s-ConnectionMonitorClientId", dtConfiguration.getDigitalTwinId()),
+                        TimeUnit.SECONDS.toMillis(dtConfiguration.getOdteSlidingWindowSec()));
+
+                MetricsManager.getInstance().setConnectionIntervalLog(connectionMonitor.getConnectionIntervalLog());
+
                 //Set Digital Twin Life Cycle State Value
-                MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.UN_BOUND);
+                lifeCycle.unBind(System.currentTimeMillis());
 
                 Thread.sleep(5000);
 
+                connectionMonitor.start();
+
                 wldtEngine.startWorkers();
 
                 startHttpMetricsApi(dtConfiguration.getHttpApiPort());
 
-                startPeriodicUnSyncStateMonitoring(dtConfiguration.getShadowedThresholdMs(), dtConfiguration.getUnBoundThresholdMs());
+                startPeriodicOdteMonitoring();
+
+                //Time windows and join ticks expired while the devices are silent are flushed periodically
+                if(dtConfiguration.isAggregateWithStateMessages() && !ComposedAggregationEngine.WINDOW_TYPE_COUNT.equals(aggregationEngine.getWindowType()))
+                    startPeriodicAggregationFlush(aggregationEngine);
             }
 
         }catch (Exception e){
@@ -147,112 +194,80 @@ public class ComposedMqttDigitalTwinProcess {
         }
     }
 
-    private static void startPeriodicUnSyncStateMonitoring(long shadowedThresholdMs, long unBoundThresholdMs){
+    /**
+     * Periodically compute the ODTE of the Digital Twin and notify it to the life cycle
+     */
+    private static void startPeriodicOdteMonitoring(){
 
         try{
-            TimerTask task = new TimerTask() {
-                public void run() {
-
-                    long diff = System.currentTimeMillis() - MetricsManager.getInstance().getLastObservationTimestampMs();
-
-                    Optional<HashMap<Long, Double>> timelinessMapOptional = loadTimelinessValuesInRange(dtConfiguration.getOdteSlidingWindowSec());
-
-                    if(timelinessMapOptional.isPresent() && timelinessMapOptional.get().size() > 0){
-
-                        HashMap<Long, Double> timelinessMap = timelinessMapOptional.get();
-                        logger.info("ODTE -> Correctly Loaded Timeliness Map of {} elements !", timelinessMap.size());
 
-                        //Computing ODTE Value with the target array of timeliness values and the target timeliness in Sec
-                        Optional<OdteResultDescription> computedOdteOptional = OdteManager.getInstance().computeOdte(
-                                new ArrayList<>(timelinessMap.values()),
-                                dtConfiguration.getOdteDesiredTimelinessSec(),
-                                dtConfiguration.getOdteExpectedMsgSec(),
-                                dtConfiguration.getOdteSlidingWindowSec());
+            scheduler.scheduleAtFixedRate(() -> {
 
-                        if(computedOdteOptional.isPresent()) {
-                            logger.info("ODTE -> New Value: {}", computedOdteOptional.get());
+                try{
 
-                            //Publish ODTE Metrics
-                            MetricsManager.getInstance().setDigitalTwinOdteValue(computedOdteOptional.get());
+                    long currentTimestampMs = System.currentTimeMillis();
 
-                            double odteValue = computedOdteOptional.get().getOdte();
+                    //Computing ODTE Value on the incrementally updated sliding window of each observation stream
+                    Optional<OdteResultDescription> computedOdteOptional = MetricsManager.getInstance().updateOdte(currentTimestampMs);
 
-                            //Check DT State according to the computed ODTE
+                    logger.debug("ODTE -> Observation Streams: {}", MetricsManager.getInstance().getResourceMetricsContextCount());
 
-                            if(odteValue >= dtConfiguration.getOdteTargetPercentile() && (
-                                    MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.BOUND.getValue() ||
-                                            MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.UN_SYNC.getValue())
-                            )
-                                MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.SHADOWED);
-
-                            if(MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.SHADOWED.getValue() &&  odteValue < dtConfiguration.getOdteTargetPercentile())
-                                MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.UN_SYNC);
-
-
-                            if(MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.UN_SYNC.getValue() && diff > unBoundThresholdMs)
-                                MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.UN_BOUND);
-                        }
-                        else
-                            logger.error("ODTE -> Error computing ! EMPTY Result");
+                    if(computedOdteOptional.isPresent()) {
+                        logger.info("ODTE -> New Value: {}", computedOdteOptional.get());
 
+                        //Check DT State according to the computed ODTE
+                        lifeCycle.onOdteUpdate(computedOdteOptional.get(), currentTimestampMs);
                     }
-                    else{
-                        logger.error("ODTE -> Error loading Timeliness values in range ({} sec) Data Map is Null or EMPTY !", dtConfiguration.getOdteSlidingWindowSec());
-                    }
+                    else
+                        logger.error("ODTE -> Error computing ! EMPTY Result or no Timeliness values in range ({} sec)", dtConfiguration.getOdteSlidingWindowSec());
+
+                }catch (Exception e){
+                    e.printStackTrace();
                 }
-            };
 
-            Timer timer = new Timer("UnSync State Timer");
-            long delay = 1000L;
-            timer.schedule(task, delay, delay);
+            }, ODTE_CHECK_PERIOD_MS, ODTE_CHECK_PERIOD_MS, TimeUnit.MILLISECONDS);
 
         }catch (Exception e){
             e.printStackTrace();
         }
     }
 
-    private static long startTimestampMs = Long.MAX_VALUE;
-    private static long endTimestampMs = Long.MIN_VALUE;
-
-    private static Optional<HashMap<Long, Double>> loadTimelinessValuesInRange(long slidingWindowSizeSec){
+    /**
+     * Periodically flush the expired aggregation time windows and publish their aggregated state through a dedicated
+     * client, since the processing pipelines publish only when a message is received
+     */
+    private static void startPeriodicAggregationFlush(ComposedAggregationEngine aggregationEngine){
 
         try{
 
-            startTimestampMs = Long.MAX_VALUE;
-            endTimestampMs = Long.MIN_VALUE;
-
-            long currentTimestamp = System.currentTimeMillis();
+            AggregatedStatePublisher aggregatedStatePublisher = new AggregatedStatePublisher(dtConfiguration.getTargetMqttBrokerAddress(),
+                    dtConfiguration.getTargetMqttBrokerPort(),
+                    String.format("%s-AggregatedStateClientId", dtConfiguration.getDigitalTwinId()));
 
-            ConcurrentMap<Long, Double> cacheMap = MetricsManager.getInstance().getTimelinessCache().asMap();
-            //logger.info("CACHE MAP SIZE: {}", cacheMap.size());
+            aggregatedStatePublisher.start();
 
-            HashMap<Long, Double> timelinessValuesMap = new HashMap<>();
+            long flushPeriodMs = dtConfiguration.getAggregationFlushPeriodMs() > 0 ? dtConfiguration.getAggregationFlushPeriodMs() : ComposedDigitalTwinConfiguration.DEFAULT_AGGREGATION_FLUSH_PERIOD_MS;
 
-            cacheMap.forEach((observationTimestamp, observationSec) -> {
-                if(observationTimestamp <= currentTimestamp && observationTimestamp >= (currentTimestamp - TimeUnit.SECONDS.toMillis(slidingWindowSizeSec))) {
-                    timelinessValuesMap.put(observationTimestamp, observationSec);
+            scheduler.scheduleAtFixedRate(() -> {
 
-                    if(observationTimestamp < startTimestampMs)
-                        startTimestampMs = observationTimestamp;
+                try{
 
-                    if(observationTimestamp > endTimestampMs)
-                        endTimestampMs = observationTimestamp;
-                }
-            });
+                    Optional<SenMLPack> aggregatedSenmlPackOptional = aggregationEngine.flush(System.currentTimeMillis());
 
-            LocalDateTime startDate = Instant.ofEpochMilli(startTimestampMs).atZone(ZoneId.of("UTC")).toLocalDateTime();
-            LocalDateTime endDate = Instant.ofEpochMilli(endTimestampMs).atZone(ZoneId.of("UTC")).toLocalDateTime();
+                    if(aggregatedSenmlPackOptional.isPresent()){
+                        logger.debug("Aggregation windows flushed ! Aggregated State: {}", aggregatedSenmlPackOptional.get());
+                        aggregatedStatePublisher.publish(ComposedStateProcessingStep.AGGREGATED_STATE_TOPIC,
+                                SenMLWriter.getInstance(dtConfiguration.getSenmlPayloadEncoding()).writePack(aggregatedSenmlPackOptional.get()).toByteArray());
+                    }
 
-            logger.debug("CACHE Size: {} RANGE: From: {} To: {}", timelinessValuesMap.size(),
-                    startDate.format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss")),
-                    endDate.format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss")));
+                }catch (Exception e){
+                    e.printStackTrace();
+                }
 
-            return Optional.of(timelinessValuesMap);
+            }, flushPeriodMs, flushPeriodMs, TimeUnit.MILLISECONDS);
 
-        } catch (Exception e){
-            logger.error("Error checking ODTE Values: {}", e.getLocalizedMessage());
+        }catch (Exception e){
             e.printStackTrace();
-            return Optional.empty();
         }
     }
 
@@ -263,6 +278,15 @@ public class ComposedMqttDigitalTwinProcess {
         MetricsManager.getInstance().setObservationBucketWidth(dtConfiguration.getObservationBucketWidth());
         MetricsManager.getInstance().setObservationBucketCount(dtConfiguration.getObservationBucketCount());
         MetricsManager.getInstance().setObservationBucketType(dtConfiguration.getObservationBucketType());
+        MetricsManager.getInstance().setOdteSlidingWindowSec(dtConfiguration.getOdteSlidingWindowSec());
+        MetricsManager.getInstance().setOdteDesiredTimelinessSec(dtConfiguration.getOdteDesiredTimelinessSec());
+        MetricsManager.getInstance().setOdteExpectedMsgSec(dtConfiguration.getOdteExpectedMsgSec());
+        MetricsManager.getInstance().setOdteTimelinessEstimator(dtConfiguration.getOdteTimelinessEstimator());
+        MetricsManager.getInstance().setOdteTimelinessErrorBound(dtConfiguration.getOdteTimelinessErrorBound());
+        MetricsManager.getInstance().setOdteResourceExpectedMsgSecMap(dtConfiguration.getOdteResourceExpectedMsgSecMap());
+        MetricsManager.getInstance().setOdteMaxResourceWindowCount(dtConfiguration.getOdteMaxResourceWindowCount());
+        MetricsManager.getInstance().setOdteAvailabilityGapToleranceFactor(dtConfiguration.getOdteAvailabilityGapToleranceFactor());
+        MetricsManager.getInstance().setOdteSourceDeviceCount(dtConfiguration.getDeviceIdentifierList() != null ? dtConfiguration.getDeviceIdentifierList().size() : 1);
         MetricsManager.getInstance().init(digitalTwinId);
 
         //Expose Prometheus Metrics through dedicated HTTP Server
@@ -327,6 +351,14 @@ public class ComposedMqttDigitalTwinProcess {
 
         try{
 
+            //Columnar history of the CSV metrics files for the range queries of the HTTP API
+            if(dtConfiguration.isMetricsEnabled()){
+                metricsStoreIngester = new MetricsStoreIngester(Paths.get(MetricsExporterUtils.METRICS_FOLDER),
+                        Paths.get(MetricsStoreIngester.DEFAULT_STORE_FOLDER),
+                        MetricsStoreIngester.DEFAULT_SCAN_PERIOD_SEC);
+                metricsStoreIngester.start();
+            }
+
             Undertow server = Undertow.builder().addHttpListener(targetHttpPort, "0.0.0.0", getBasicRoutes()).build();
             server.start();
 
@@ -336,12 +368,18 @@ public class ComposedMqttDigitalTwinProcess {
     }
 
     private static final HttpHandler getBasicRoutes() {
-        return new RoutingHandler()
+
+        RoutingHandler routingHandler = new RoutingHandler()
                 .add(Methods.GET, "/metrics", new HttpMetricsHandler())
                 .add(Methods.GET, "/metrics/{folderId}", new HttpMetricsFolderHandler())
                 .add(Methods.GET,"/metrics/{folderId}/{fileId}", new HttpMetricsSingleFileHandler())
                 .add(Methods.GET, "/conf", httpConfigurationHandler)
                 .add(Methods.PUT, "/conf", httpConfigurationHandler);
+
+        if(metricsStoreIngester != null)
+            routingHandler.add(Methods.GET,"/metrics/{folderId}/{fileId}/series", new HttpMetricsSeriesHandler(metricsStoreIngester));
+
+        return routingHandler;
     }
 
     private static ComposedDigitalTwinConfiguration readConfigurationFile() {
@@ -0,0 +1,48 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+/**
+ * Streaming aggregation operator of the values of a resource received by the composed DT in an aggregation window.
+ * Implementations use a constant amount of memory, independent of the number of values and of the window size, and
+ * can be merged with operators created by the same factory (e.g. to combine the values of different devices).
+ *
+ * Operators are not thread safe: the aggregation engine confines each instance to its source device shard and
+ * merges them when the window is completed.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public interface AggregationOperator {
+
+    /**
+     * @param timestampMs timestamp of the value (SenML record time or reception time)
+     */
+    public void add(double value, long timestampMs);
+
+    /**
+     * Merge the values of the other operator into this one
+     * @throws IllegalArgumentException if the other operator has a different type or configuration
+     */
+    public void merge(AggregationOperator other);
+
+    public long getCount();
+
+    /**
+     * @return the aggregated value of the window or NaN if there are no values, without side effects
+     */
+    public double getValue();
+
+    /**
+     * Called by the aggregation engine once for each window operator of a closed window (after its value has been
+     * emitted), to advance the state of the operators carrying a value across the windows
+     */
+    public default void onWindowClosed(){
+    }
+
+    /**
+     * @return the unit of the aggregated value given the unit of the aggregated values
+     */
+    public default String getUnit(String valueUnit){
+        return valueUnit;
+    }
+
+}
@@ -0,0 +1,121 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Build the aggregation operators of the aggregation actions of the composed DT configuration. Supported actions:
+ *
+ * avg, sum, min, max, count, stddev: {@link SummaryAggregationOperator}
+ * last: {@link LastValueAggregationOperator}
+ * ewma or ewma:{alpha}: {@link EwmaAggregationOperator} (default alpha {@link #DEFAULT_EWMA_ALPHA}), not for sliding windows
+ * p{percentile} (e.g. p50, p95, p99.9): {@link PercentileAggregationOperator}
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public class AggregationOperatorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregationOperatorFactory.class);
+
+    public static final String AGGREGATION_ACTION_AVG = "avg";
+
+    public static final String AGGREGATION_ACTION_SUM = "sum";
+
+    public static final String AGGREGATION_ACTION_MIN = "min";
+
+    public static final String AGGREGATION_ACTION_MAX = "max";
+
+    public static final String AGGREGATION_ACTION_COUNT = "count";
+
+    public static final String AGGREGATION_ACTION_STDDEV = "stddev";
+
+    public static final String AGGREGATION_ACTION_LAST = "last";
+
+    public static final String AGGREGATION_ACTION_EWMA = "ewma";
+
+    public static final String AGGREGATION_ACTION_PERCENTILE_PREFIX = "p";
+
+    public static final String AGGREGATION_ACTION_PARAMETER_SEPARATOR = ":";
+
+    public static final double DEFAULT_EWMA_ALPHA = 0.3;
+
+    private AggregationOperatorFactory() {
+    }
+
+    /**
+     * @param aggregationAction aggregation action of the configuration
+     * @return the supplier of the (empty) operators of the action, used to create an operator for each window and
+     * source device of a resource, or the supplier of the avg operator if the action is unknown or invalid
+     */
+    public static Supplier<AggregationOperator> createOperatorSupplier(String aggregationAction){
+
+        try{
+
+            if(aggregationAction == null)
+                return () -> new SummaryAggregationOperator(AGGREGATION_ACTION_AVG);
+
+            String action = aggregationAction.trim().toLowerCase();
+
+            switch (action){
+                case AGGREGATION_ACTION_AVG:
+                case AGGREGATION_ACTION_SUM:
+                case AGGREGATION_ACTION_MIN:
+                case AGGREGATION_ACTION_MAX:
+                case AGGREGATION_ACTION_COUNT:
+                case AGGREGATION_ACTION_STDDEV:
+                    return () -> new SummaryAggregationOperator(action);
+                case AGGREGATION_ACTION_LAST:
+                    return LastValueAggregationOperator::new;
+                default:
+                    break;
+            }
+
+            if(action.equals(AGGREGATION_ACTION_EWMA) || action.startsWith(AGGREGATION_ACTION_EWMA + AGGREGATION_ACTION_PARAMETER_SEPARATOR)){
+
+                double alpha = action.equals(AGGREGATION_ACTION_EWMA) ? DEFAULT_EWMA_ALPHA :
+                        Double.parseDouble(action.substring(AGGREGATION_ACTION_EWMA.length() + AGGREGATION_ACTION_PARAMETER_SEPARATOR.length()));
+
+                //The smoothed value is shared by all the operators of the resource
+                AtomicLong smoothedValueBits = new AtomicLong(Double.doubleToRawLongBits(Double.NaN));
+
+                //Validate the alpha before returning the supplier
+                new EwmaAggregationOperator(alpha, smoothedValueBits);
+
+                return () -> new EwmaAggregationOperator(alpha, smoothedValueBits);
+            }
+
+            if(action.startsWith(AGGREGATION_ACTION_PERCENTILE_PREFIX)){
+
+                double percentile = Double.parseDouble(action.substring(AGGREGATION_ACTION_PERCENTILE_PREFIX.length()));
+
+                new PercentileAggregationOperator(percentile, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+
+                return () -> new PercentileAggregationOperator(percentile, QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+            }
+
+            logger.error("Unknown Aggregation Action: {} ! Using: {}", aggregationAction, AGGREGATION_ACTION_AVG);
+
+        }catch (Exception e){
+            logger.error("Error creating Aggregation Operator ({}): {} ! Using: {}", aggregationAction, e.getLocalizedMessage(), AGGREGATION_ACTION_AVG);
+        }
+
+        return () -> new SummaryAggregationOperator(AGGREGATION_ACTION_AVG);
+    }
+
+    /**
+     * @return true if the operators of the action carry a state across the windows (advanced for each closed window)
+     */
+    public static boolean hasCrossWindowState(String aggregationAction){
+
+        if(aggregationAction == null)
+            return false;
+
+        String action = aggregationAction.trim().toLowerCase();
+
+        return action.equals(AGGREGATION_ACTION_EWMA) || action.startsWith(AGGREGATION_ACTION_EWMA + AGGREGATION_ACTION_PARAMETER_SEPARATOR);
+    }
+}
@@ -0,0 +1,109 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving average of the window means: ewma = alpha * mean + (1 - alpha) * previous ewma, where
+ * the first window is emitted as its mean. The window mean is mergeable, while the smoothed value is carried across
+ * the windows in a state shared by all the operators created for the same resource, advanced once for each closed
+ * window by {@link #onWindowClosed()}: {@link #getValue()} only reads it, so the emitted value does not depend on the
+ * number of reads. The windows are expected to close in order and not to overlap in their emissions, the sliding
+ * windows emitted at every pack are not supported (see {@link AggregationOperatorFactory#hasCrossWindowState(String)}).
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public class EwmaAggregationOperator implements AggregationOperator {
+
+    private final double alpha;
+
+    //Double bits of the smoothed value of the previous windows (NaN before the first window)
+    private final AtomicLong smoothedValueBits;
+
+    private long count = 0;
+
+    private double sum = 0.0;
+
+    /**
+     * @param smoothedValueBits smoothed value shared by the operators of the resource
+     */
+    EwmaAggregationOperator(double alpha, AtomicLong smoothedValueBits) {
+
+        if(alpha <= 0.0 || alpha > 1.0)
+            throw new IllegalArgumentException(String.format("Invalid EWMA alpha (%f) ! It must be in (0.0, 1.0]", alpha));
+
+        this.alpha = alpha;
+        this.smoothedValueBits = smoothedValueBits;
+    }
+
+    @Override
+    public void add(double value, long timestampMs) {
+        this.count++;
+        this.sum += value;
+    }
+
+    @Override
+    public void merge(AggregationOperator other) {
+
+        if(!(other instanceof EwmaAggregationOperator) || ((EwmaAggregationOperator) other).smoothedValueBits != this.smoothedValueBits)
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s", other, this));
+
+        EwmaAggregationOperator otherOperator = (EwmaAggregationOperator) other;
+
+        this.count += otherOperator.count;
+        this.sum += otherOperator.sum;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return the mean of the window smoothed with the previous closed windows
+     */
+    @Override
+    public double getValue() {
+
+        if(this.count == 0)
+            return Double.NaN;
+
+        return smooth(Double.longBitsToDouble(this.smoothedValueBits.get()));
+    }
+
+    /**
+     * Store the smoothed value of the window for the next window
+     */
+    @Override
+    public void onWindowClosed() {
+
+        if(this.count == 0)
+            return;
+
+        long previousBits;
+
+        do{
+            previousBits = this.smoothedValueBits.get();
+        }while(!this.smoothedValueBits.compareAndSet(previousBits, Double.doubleToRawLongBits(smooth(Double.longBitsToDouble(previousBits)))));
+    }
+
+    private double smooth(double previousValue){
+        double mean = this.sum / this.count;
+        return Double.isNaN(previousValue) ? mean : this.alpha * mean + (1.0 - this.alpha) * previousValue;
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("EwmaAggregationOperator{");
+        sb.append("alpha=").append(alpha);
+        sb.append(", count=").append(count);
+        sb.append(", sum=").append(sum);
+        sb.append(", smoothedValue=").append(Double.longBitsToDouble(smoothedValueBits.get()));
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+/**
+ * Most recent value of the window, i.e. the value with the highest timestamp (the first one received among the values
+ * with the same timestamp).
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public class LastValueAggregationOperator implements AggregationOperator {
+
+    private long count = 0;
+
+    private double lastValue = Double.NaN;
+
+    private long lastTimestampMs = Long.MIN_VALUE;
+
+    @Override
+    public void add(double value, long timestampMs) {
+
+        this.count++;
+
+        if(timestampMs > this.lastTimestampMs){
+            this.lastValue = value;
+            this.lastTimestampMs = timestampMs;
+        }
+    }
+
+    @Override
+    public void merge(AggregationOperator other) {
+
+        if(!(other instanceof LastValueAggregationOperator))
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s", other, this));
+
+        LastValueAggregationOperator otherOperator = (LastValueAggregationOperator) other;
+
+        this.count += otherOperator.count;
+
+        if(otherOperator.count > 0 && otherOperator.lastTimestampMs > this.lastTimestampMs){
+            this.lastValue = otherOperator.lastValue;
+            this.lastTimestampMs = otherOperator.lastTimestampMs;
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public double getValue() {
+        return this.lastValue;
+    }
+
+    public long getLastTimestampMs() {
+        return lastTimestampMs;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("LastValueAggregationOperator{");
+        sb.append("count=").append(count);
+        sb.append(", lastValue=").append(lastValue);
+        sb.append(", lastTimestampMs=").append(lastTimestampMs);
+        sb.append('}');
+        return sb.toString();
+    }
+}
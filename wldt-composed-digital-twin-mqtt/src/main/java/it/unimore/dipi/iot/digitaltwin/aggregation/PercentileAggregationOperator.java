@@ -0,0 +1,84 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+/**
+ * Approximate percentile of the values of the window computed on a mergeable {@link QuantileSketch}. The estimate is
+ * clamped to the exact min and max values of the window.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public class PercentileAggregationOperator implements AggregationOperator {
+
+    private final double percentile;
+
+    private final QuantileSketch quantileSketch;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param percentile percentile in [0.0, 100.0]
+     */
+    public PercentileAggregationOperator(double percentile, double relativeAccuracy) {
+
+        if(percentile < 0.0 || percentile > 100.0)
+            throw new IllegalArgumentException(String.format("Invalid percentile (%f) ! It must be in [0.0, 100.0]", percentile));
+
+        this.percentile = percentile;
+        this.quantileSketch = new QuantileSketch(relativeAccuracy, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+    }
+
+    @Override
+    public void add(double value, long timestampMs) {
+
+        if(Double.isNaN(value))
+            return;
+
+        this.quantileSketch.add(value);
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    @Override
+    public void merge(AggregationOperator other) {
+
+        if(!(other instanceof PercentileAggregationOperator) || ((PercentileAggregationOperator) other).percentile != this.percentile)
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s", other, this));
+
+        PercentileAggregationOperator otherOperator = (PercentileAggregationOperator) other;
+
+        this.quantileSketch.merge(otherOperator.quantileSketch);
+        this.min = Math.min(this.min, otherOperator.min);
+        this.max = Math.max(this.max, otherOperator.max);
+    }
+
+    @Override
+    public long getCount() {
+        return this.quantileSketch.getCount();
+    }
+
+    @Override
+    public double getValue() {
+
+        double value = this.quantileSketch.getQuantile(this.percentile / 100.0);
+
+        if(Double.isNaN(value))
+            return value;
+
+        return Math.max(this.min, Math.min(this.max, value));
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("PercentileAggregationOperator{");
+        sb.append("percentile=").append(percentile);
+        sb.append(", quantileSketch=").append(quantileSketch);
+        sb.append('}');
+        return sb.toString();
+    }
+}
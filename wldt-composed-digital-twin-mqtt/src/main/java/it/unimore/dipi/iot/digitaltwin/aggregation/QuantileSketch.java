@@ -0,0 +1,248 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+/**
+ * Mergeable quantile sketch with logarithmic buckets (DDSketch style) for values of any sign. Bucket i counts the
+ * absolute values in (gamma^(i-1), gamma^i] with gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy), so that the
+ * relative error of the estimated quantiles is bounded by the relative accuracy. Positive and negative values have
+ * their own buckets, values with an absolute value lower than {@link #MIN_INDEXABLE_VALUE} are counted as zero.
+ *
+ * The buckets only cover the range of the values received so far and are limited to maxBucketCount for each sign:
+ * when the range is wider, the buckets of the lowest absolute values are collapsed, so the memory is bounded
+ * independently of the number of values.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    public static final int DEFAULT_MAX_BUCKET_COUNT = 2048;
+
+    public static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private final double relativeAccuracy;
+
+    private final int maxBucketCount;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final BucketStore positiveStore;
+
+    private final BucketStore negativeStore;
+
+    private long zeroCount = 0;
+
+    public QuantileSketch(double relativeAccuracy, int maxBucketCount) {
+
+        if(relativeAccuracy <= 0.0 || relativeAccuracy >= 1.0)
+            throw new IllegalArgumentException(String.format("Invalid relative accuracy (%f) ! It must be in (0.0, 1.0)", relativeAccuracy));
+
+        if(maxBucketCount <= 0)
+            throw new IllegalArgumentException(String.format("Invalid max bucket count (%d) !", maxBucketCount));
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBucketCount = maxBucketCount;
+        this.gamma = (1.0 + relativeAccuracy) / (1.0 - relativeAccuracy);
+        this.logGamma = Math.log(this.gamma);
+        this.positiveStore = new BucketStore(maxBucketCount);
+        this.negativeStore = new BucketStore(maxBucketCount);
+    }
+
+    public void add(double value){
+
+        if(Double.isNaN(value))
+            return;
+
+        if(value > MIN_INDEXABLE_VALUE)
+            this.positiveStore.add(getIndex(value), 1);
+        else if(value < -MIN_INDEXABLE_VALUE)
+            this.negativeStore.add(getIndex(-value), 1);
+        else
+            this.zeroCount++;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the other sketch has a different configuration
+     */
+    public void merge(QuantileSketch other){
+
+        if(other.relativeAccuracy != this.relativeAccuracy || other.maxBucketCount != this.maxBucketCount)
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s: different sketch configuration", other, this));
+
+        this.positiveStore.merge(other.positiveStore);
+        this.negativeStore.merge(other.negativeStore);
+        this.zeroCount += other.zeroCount;
+    }
+
+    public long getCount(){
+        return this.positiveStore.totalCount + this.negativeStore.totalCount + this.zeroCount;
+    }
+
+    /**
+     * @param quantile quantile in [0.0, 1.0]
+     * @return the estimated quantile or NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile){
+
+        long count = getCount();
+
+        if(count == 0 || quantile < 0.0 || quantile > 1.0)
+            return Double.NaN;
+
+        //Zero-based rank of the quantile among the sorted values
+        long rank = (long) (quantile * (count - 1));
+
+        //Negative values from the highest absolute value
+        if(rank < this.negativeStore.totalCount){
+
+            long cumulativeCount = 0;
+
+            for(int i = this.negativeStore.counts.length - 1; i >= 0; i--){
+                cumulativeCount += this.negativeStore.counts[i];
+                if(cumulativeCount > rank)
+                    return -getValue(this.negativeStore.offset + i);
+            }
+        }
+
+        rank -= this.negativeStore.totalCount;
+
+        if(rank < this.zeroCount)
+            return 0.0;
+
+        rank -= this.zeroCount;
+
+        long cumulativeCount = 0;
+
+        for(int i = 0; i < this.positiveStore.counts.length; i++){
+            cumulativeCount += this.positiveStore.counts[i];
+            if(cumulativeCount > rank)
+                return getValue(this.positiveStore.offset + i);
+        }
+
+        return Double.NaN;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public int getMaxBucketCount() {
+        return maxBucketCount;
+    }
+
+    public int getBucketCount(){
+        return this.positiveStore.counts.length + this.negativeStore.counts.length;
+    }
+
+    private int getIndex(double absoluteValue){
+        return (int) Math.ceil(Math.log(absoluteValue) / this.logGamma);
+    }
+
+    /**
+     * @return the value of the bucket with the lowest relative error on the values of the bucket
+     */
+    private double getValue(int index){
+        return 2.0 * Math.pow(this.gamma, index) / (1.0 + this.gamma);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("QuantileSketch{");
+        sb.append("relativeAccuracy=").append(relativeAccuracy);
+        sb.append(", maxBucketCount=").append(maxBucketCount);
+        sb.append(", count=").append(getCount());
+        sb.append(", bucketCount=").append(getBucketCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Contiguous bucket counters covering the indexes [offset, offset + counts.length), grown on demand up to
+     * maxBucketCount buckets. Indexes lower than the covered range once the limit is reached are counted in the first
+     * bucket.
+     */
+    private static class BucketStore {
+
+        //Buckets added beyond the requested index when the range is extended
+        private static final int GROWTH_BUCKET_COUNT = 64;
+
+        private final int maxBucketCount;
+
+        private long[] counts = new long[0];
+
+        private int offset = 0;
+
+        private long totalCount = 0;
+
+        private BucketStore(int maxBucketCount) {
+            this.maxBucketCount = maxBucketCount;
+        }
+
+        private void add(int index, long count){
+
+            if(count == 0)
+                return;
+
+            //Lower indexes of a full store are collapsed in the first bucket without extending the range
+            if(this.counts.length == 0 || (index < this.offset && this.counts.length < this.maxBucketCount) || index >= this.offset + this.counts.length)
+                extendRange(index);
+
+            this.counts[Math.max(index, this.offset) - this.offset] += count;
+            this.totalCount += count;
+        }
+
+        private void merge(BucketStore other){
+            for(int i = 0; i < other.counts.length; i++)
+                add(other.offset + i, other.counts[i]);
+        }
+
+        private void extendRange(int index){
+
+            int newMinIndex;
+            int newMaxIndex;
+
+            if(this.counts.length == 0){
+                newMinIndex = index - GROWTH_BUCKET_COUNT / 2;
+                newMaxIndex = index + GROWTH_BUCKET_COUNT / 2 - 1;
+            }
+            else if(index < this.offset){
+                newMinIndex = index - GROWTH_BUCKET_COUNT;
+                newMaxIndex = this.offset + this.counts.length - 1;
+            }
+            else{
+                newMinIndex = this.offset;
+                newMaxIndex = index + GROWTH_BUCKET_COUNT;
+            }
+
+            //Collapse the lowest buckets: the range must include the index (or the buckets above it), the growth margin is kept only if it fits
+            if((long) newMaxIndex - newMinIndex + 1 > this.maxBucketCount){
+                int requiredMaxIndex = this.counts.length == 0 ? index : Math.max(index, this.offset + this.counts.length - 1);
+                int collapsedMinIndex = Math.max(newMinIndex, requiredMaxIndex - this.maxBucketCount + 1);
+                newMaxIndex = Math.min(newMaxIndex, collapsedMinIndex + this.maxBucketCount - 1);
+                newMinIndex = collapsedMinIndex;
+            }
+
+            long[] newCounts = new long[newMaxIndex - newMinIndex + 1];
+
+            for(int i = 0; i < this.counts.length; i++)
+                if(this.counts[i] != 0)
+                    newCounts[Math.max(this.offset + i, newMinIndex) - newMinIndex] += this.counts[i];
+
+            this.counts = newCounts;
+            this.offset = newMinIndex;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuffer sb = new StringBuffer("BucketStore{");
+            sb.append("offset=").append(offset);
+            sb.append(", bucketCount=").append(counts.length);
+            sb.append(", totalCount=").append(totalCount);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
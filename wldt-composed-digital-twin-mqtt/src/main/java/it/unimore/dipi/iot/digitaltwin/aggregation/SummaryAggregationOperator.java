@@ -0,0 +1,105 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+/**
+ * Running summary statistics (count, sum, min, max and sum of squares) of the values of the window. The aggregated
+ * value is the one of the configured action: avg, sum, min, max, count or stddev (population standard deviation
+ * computed from the sum of squares).
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 01:10
+ */
+public class SummaryAggregationOperator implements AggregationOperator {
+
+    //SenML unit of the count action
+    public static final String COUNT_UNIT = "count";
+
+    private final String aggregationAction;
+
+    private long count = 0;
+
+    private double sum = 0.0;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double sumOfSquares = 0.0;
+
+    public SummaryAggregationOperator(String aggregationAction) {
+        this.aggregationAction = aggregationAction;
+    }
+
+    @Override
+    public void add(double value, long timestampMs) {
+        this.count++;
+        this.sum += value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+        this.sumOfSquares += value * value;
+    }
+
+    @Override
+    public void merge(AggregationOperator other) {
+
+        if(!(other instanceof SummaryAggregationOperator) || !((SummaryAggregationOperator) other).aggregationAction.equals(this.aggregationAction))
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s", other, this));
+
+        SummaryAggregationOperator otherOperator = (SummaryAggregationOperator) other;
+
+        this.count += otherOperator.count;
+        this.sum += otherOperator.sum;
+        this.min = Math.min(this.min, otherOperator.min);
+        this.max = Math.max(this.max, otherOperator.max);
+        this.sumOfSquares += otherOperator.sumOfSquares;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public double getValue() {
+
+        if(this.count == 0)
+            return Double.NaN;
+
+        switch (this.aggregationAction){
+            case AggregationOperatorFactory.AGGREGATION_ACTION_SUM:
+                return this.sum;
+            case AggregationOperatorFactory.AGGREGATION_ACTION_MIN:
+                return this.min;
+            case AggregationOperatorFactory.AGGREGATION_ACTION_MAX:
+                return this.max;
+            case AggregationOperatorFactory.AGGREGATION_ACTION_COUNT:
+                return this.count;
+            case AggregationOperatorFactory.AGGREGATION_ACTION_STDDEV:
+                double mean = this.sum / this.count;
+                //Rounding errors can make the variance slightly negative for constant values
+                return Math.sqrt(Math.max(0.0, this.sumOfSquares / this.count - mean * mean));
+            default:
+                return this.sum / this.count;
+        }
+    }
+
+    @Override
+    public String getUnit(String valueUnit) {
+        return AggregationOperatorFactory.AGGREGATION_ACTION_COUNT.equals(this.aggregationAction) ? COUNT_UNIT : valueUnit;
+    }
+
+    public String getAggregationAction() {
+        return aggregationAction;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("SummaryAggregationOperator{");
+        sb.append("aggregationAction='").append(aggregationAction).append('\'');
+        sb.append(", count=").append(count);
+        sb.append(", sum=").append(sum);
+        sb.append(", min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append('}');
+        return sb.toString();
+    }
+}
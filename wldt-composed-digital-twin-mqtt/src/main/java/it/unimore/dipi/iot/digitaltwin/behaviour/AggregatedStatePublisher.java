@@ -0,0 +1,168 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish the aggregated states of the time windows flushed on a timer. The processing pipelines of the WLDT library
+ * only run (and publish their result) when a message is received, so the windows expired while the devices are
+ * silent are published by a dedicated client on the same destination broker and topic of the pipelines.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 03:30
+ */
+public class AggregatedStatePublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregatedStatePublisher.class);
+
+    public static final long DEFAULT_CONNECT_RETRY_MS = 2000;
+
+    private static final int PUBLISH_QOS = 0;
+
+    private final String brokerAddress;
+
+    private final int brokerPort;
+
+    private final String clientId;
+
+    private IMqttAsyncClient mqttClient;
+
+    private MqttConnectOptions connectOptions;
+
+    private ScheduledExecutorService retryScheduler;
+
+    public AggregatedStatePublisher(String brokerAddress, int brokerPort, String clientId) {
+        this.brokerAddress = brokerAddress;
+        this.brokerPort = brokerPort;
+        this.clientId = clientId;
+    }
+
+    public void start(){
+
+        try{
+
+            this.connectOptions = new MqttConnectOptions();
+            this.connectOptions.setAutomaticReconnect(true);
+            this.connectOptions.setCleanSession(true);
+            this.connectOptions.setConnectionTimeout(10);
+
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, String.format("%s-retry", this.clientId));
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            this.mqttClient = new MqttAsyncClient(String.format("tcp://%s:%d", this.brokerAddress, this.brokerPort),
+                    this.clientId,
+                    new MemoryPersistence());
+
+            connect();
+
+        }catch (Exception e){
+            logger.error("AggregatedStatePublisher -> Error starting publisher {} ! Msg: {}", this.clientId, e.getLocalizedMessage());
+        }
+    }
+
+    public void stop(){
+
+        try{
+
+            if(this.retryScheduler != null)
+                this.retryScheduler.shutdownNow();
+
+            if(this.mqttClient != null && this.mqttClient.isConnected())
+                this.mqttClient.disconnect();
+
+        }catch (Exception e){
+            logger.error("AggregatedStatePublisher -> Error stopping publisher {} ! Msg: {}", this.clientId, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return false if the client is not connected, the aggregated state is not buffered
+     */
+    public boolean publish(String topic, byte[] payload){
+
+        try{
+
+            if(this.mqttClient == null || !this.mqttClient.isConnected()){
+                logger.warn("AggregatedStatePublisher -> {} Not connected ! Skipping aggregated state on topic: {}", this.clientId, topic);
+                return false;
+            }
+
+            MqttMessage mqttMessage = new MqttMessage(payload);
+            mqttMessage.setQos(PUBLISH_QOS);
+
+            this.mqttClient.publish(topic, mqttMessage);
+
+            return true;
+
+        }catch (Exception e){
+            logger.error("AggregatedStatePublisher -> {} Error publishing on topic {} ! Msg: {}", this.clientId, topic, e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Automatic reconnection is handled by the client only after the first successful connection, so the first
+     * connection is retried until it succeeds
+     */
+    private void connect(){
+
+        try{
+
+            this.mqttClient.connect(this.connectOptions, null, new IMqttActionListener() {
+
+                @Override
+                public void onSuccess(IMqttToken asyncActionToken) {
+                    logger.info("AggregatedStatePublisher -> {} Connected to {}:{}", clientId, brokerAddress, brokerPort);
+                }
+
+                @Override
+                public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                    logger.warn("AggregatedStatePublisher -> {} Connection to {}:{} failed ! Retrying in {} ms ...",
+                            clientId, brokerAddress, brokerPort, DEFAULT_CONNECT_RETRY_MS);
+                    scheduleConnect();
+                }
+            });
+
+        }catch (Exception e){
+            logger.error("AggregatedStatePublisher -> {} Error connecting ! Msg: {}", this.clientId, e.getLocalizedMessage());
+            scheduleConnect();
+        }
+    }
+
+    private void scheduleConnect(){
+        if(this.retryScheduler != null && !this.retryScheduler.isShutdown())
+            this.retryScheduler.schedule(this::connect, DEFAULT_CONNECT_RETRY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public String getBrokerAddress() {
+        return brokerAddress;
+    }
+
+    public int getBrokerPort() {
+        return brokerPort;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("AggregatedStatePublisher{");
+        sb.append("brokerAddress='").append(brokerAddress).append('\'');
+        sb.append(", brokerPort=").append(brokerPort);
+        sb.append(", clientId='").append(clientId).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
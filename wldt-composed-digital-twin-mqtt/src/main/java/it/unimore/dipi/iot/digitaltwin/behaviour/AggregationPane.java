@@ -0,0 +1,152 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperator;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Values of the target resources received in a slice of an aggregation (the whole current window for count windows,
+ * a time slice shared by the overlapping windows for time windows), sharded per source device. Each (device,
+ * resource) cell holds the streaming operator of the resource guarded by the monitor of the cell, so devices delivered
+ * by different threads never contend and the messages of the same device contend on their cells only.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 02:00
+ */
+class AggregationPane {
+
+    //Resource Id -> Index of the target resource
+    private final Map<String, Integer> resourceIndexMap;
+
+    //Operator suppliers in the order of the target resources
+    private final List<Supplier<AggregationOperator>> operatorSupplierList;
+
+    //Device Id -> Cells in the order of the target resources
+    private final Map<String, ResourceAggregationCell[]> deviceCellMap;
+
+    //Set before the last merge of the pane, checked by the cells under their monitor so no value is added after it
+    private volatile boolean sealed = false;
+
+    AggregationPane(Map<String, Integer> resourceIndexMap, List<Supplier<AggregationOperator>> operatorSupplierList) {
+        this.resourceIndexMap = resourceIndexMap;
+        this.operatorSupplierList = operatorSupplierList;
+        this.deviceCellMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return false if the record is not a target resource or the pane is sealed
+     */
+    boolean add(String deviceId, SenMLRecord senMLRecord, long timestampMs){
+
+        Integer resourceIndex = senMLRecord.getN() != null ? this.resourceIndexMap.get(senMLRecord.getN()) : null;
+
+        if(resourceIndex == null || senMLRecord.getV() == null)
+            return false;
+
+        ResourceAggregationCell[] cells = this.deviceCellMap.get(deviceId);
+
+        if(cells == null)
+            cells = this.deviceCellMap.computeIfAbsent(deviceId, id -> createCells());
+
+        return cells[resourceIndex].add(this, senMLRecord.getV().doubleValue(), timestampMs, senMLRecord.getU());
+    }
+
+    /**
+     * Reject the values added from now on: a value is either merged by the following merge of the pane or rejected
+     */
+    void seal(){
+        this.sealed = true;
+    }
+
+    boolean isSealed(){
+        return this.sealed;
+    }
+
+    /**
+     * Merge the operators of all the devices into the window operators and replace them with empty ones
+     */
+    void drainInto(AggregationOperator[] windowOperators, String[] units){
+        for(ResourceAggregationCell[] cells : this.deviceCellMap.values())
+            for(int i = 0; i < cells.length; i++)
+                cells[i].drainInto(windowOperators[i], units, i, this.operatorSupplierList.get(i));
+    }
+
+    /**
+     * Merge the operators of all the devices into the window operators, leaving the pane unchanged (the pane is
+     * shared by overlapping windows)
+     */
+    void mergeInto(AggregationOperator[] windowOperators, String[] units){
+        for(ResourceAggregationCell[] cells : this.deviceCellMap.values())
+            for(int i = 0; i < cells.length; i++)
+                cells[i].mergeInto(windowOperators[i], units, i);
+    }
+
+    int getDeviceCount(){
+        return this.deviceCellMap.size();
+    }
+
+    private ResourceAggregationCell[] createCells(){
+
+        ResourceAggregationCell[] cells = new ResourceAggregationCell[this.operatorSupplierList.size()];
+
+        for(int i = 0; i < cells.length; i++)
+            cells[i] = new ResourceAggregationCell(this.operatorSupplierList.get(i).get());
+
+        return cells;
+    }
+
+    /**
+     * Operator of a (device, resource) pair
+     */
+    private static class ResourceAggregationCell {
+
+        private AggregationOperator operator;
+
+        //Unit of the last value
+        private String unit;
+
+        private ResourceAggregationCell(AggregationOperator operator) {
+            this.operator = operator;
+        }
+
+        private synchronized boolean add(AggregationPane pane, double value, long timestampMs, String unit){
+
+            if(pane.sealed)
+                return false;
+
+            this.operator.add(value, timestampMs);
+            if(unit != null)
+                this.unit = unit;
+
+            return true;
+        }
+
+        private synchronized void drainInto(AggregationOperator windowOperator, String[] units, int resourceIndex, Supplier<AggregationOperator> operatorSupplier){
+
+            if(this.operator.getCount() == 0)
+                return;
+
+            windowOperator.merge(this.operator);
+
+            if(units[resourceIndex] == null)
+                units[resourceIndex] = this.unit;
+
+            this.operator = operatorSupplier.get();
+        }
+
+        private synchronized void mergeInto(AggregationOperator windowOperator, String[] units, int resourceIndex){
+
+            if(this.operator.getCount() == 0)
+                return;
+
+            windowOperator.merge(this.operator);
+
+            if(units[resourceIndex] == null)
+                units[resourceIndex] = this.unit;
+        }
+    }
+}
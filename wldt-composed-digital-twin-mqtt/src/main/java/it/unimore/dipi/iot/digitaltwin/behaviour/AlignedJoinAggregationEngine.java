@@ -0,0 +1,301 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperator;
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event time join of the states of the configured source devices on a common time grid: at every tick (multiple of
+ * tickMs) the value of each target resource of each device is aligned to the tick from the samples of its
+ * {@link DeviceStateRingBuffer} (nearest sample or linear interpolation, samples farther than maxGapMs are ignored)
+ * and the aligned values are aggregated across devices with the aggregation action of the resource.
+ *
+ * The composed state of a tick contains the aligned value of each device (named {device id}/{resource id}) and the
+ * aggregated value of each resource ({resource id}.aggregated), all with the tick as timestamp, so each tick is a
+ * consistent snapshot of the devices regardless of their sampling rates.
+ *
+ * A tick is emitted when the watermark (oldest latest timestamp of the devices - allowed lateness) passes it, i.e.
+ * when every device has reported after it, and by {@link #flush(long)} when the processing time - allowed lateness
+ * passes it, so a silent device does not stop the composed state (its values are missing once older than maxGapMs).
+ * Ticks without aligned values are skipped. Records of devices that are not configured are ignored. Records with a
+ * timestamp ahead of the reception time by more than the allowed lateness are dropped (see
+ * {@link #getFutureRecordCount()}), so a skewed device clock cannot advance the watermark past the other devices.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 04:10
+ */
+public class AlignedJoinAggregationEngine extends ComposedAggregationEngine {
+
+    public static final String INTERPOLATION_NEAREST = "nearest";
+
+    public static final String INTERPOLATION_LINEAR = "linear";
+
+    private final long tickMs;
+
+    private final boolean linearInterpolation;
+
+    private final long maxGapMs;
+
+    private final long allowedLatenessMs;
+
+    //Device Id -> Samples of the device, in the order of the configured devices
+    private final Map<String, DeviceStateRingBuffer> deviceBufferMap;
+
+    //Next tick to emit, guarded by the emitting flag
+    private long nextTickMs = DeviceStateRingBuffer.UNDEFINED_TIMESTAMP;
+
+    private final AtomicBoolean emittingTicks;
+
+    //Records ahead of the reception time by more than the allowed lateness
+    private final AtomicLong futureRecordCount;
+
+    /**
+     * @param maxGapMs max distance of the samples used to align a value to a tick, tickMs if not positive
+     * @throws IllegalArgumentException if the tick, the buffer size or the interpolation are not valid
+     */
+    public AlignedJoinAggregationEngine(List<String> targetResourceIdList,
+                                        String defaultAggregationAction,
+                                        Map<String, String> resourceAggregationActionMap,
+                                        List<String> deviceIdList,
+                                        long tickMs,
+                                        String interpolation,
+                                        long maxGapMs,
+                                        long allowedLatenessMs,
+                                        int bufferSize) {
+
+        super(targetResourceIdList, defaultAggregationAction, resourceAggregationActionMap);
+
+        if(tickMs <= 0)
+            throw new IllegalArgumentException(String.format("Invalid join tick (%d ms) !", tickMs));
+
+        if(allowedLatenessMs < 0)
+            throw new IllegalArgumentException(String.format("Invalid allowed lateness (%d ms) !", allowedLatenessMs));
+
+        if(interpolation != null && !INTERPOLATION_NEAREST.equals(interpolation) && !INTERPOLATION_LINEAR.equals(interpolation))
+            throw new IllegalArgumentException(String.format("Invalid join interpolation: %s", interpolation));
+
+        if(deviceIdList == null || deviceIdList.isEmpty())
+            throw new IllegalArgumentException("Empty join device list !");
+
+        this.tickMs = tickMs;
+        this.linearInterpolation = INTERPOLATION_LINEAR.equals(interpolation);
+        this.maxGapMs = maxGapMs > 0 ? maxGapMs : tickMs;
+        this.allowedLatenessMs = allowedLatenessMs;
+
+        Map<String, DeviceStateRingBuffer> bufferMap = new LinkedHashMap<>();
+
+        for(String deviceId : deviceIdList)
+            bufferMap.put(deviceId, new DeviceStateRingBuffer(this.targetResourceIdList.size(), bufferSize));
+
+        this.deviceBufferMap = Collections.unmodifiableMap(bufferMap);
+        this.emittingTicks = new AtomicBoolean(false);
+        this.futureRecordCount = new AtomicLong(0);
+    }
+
+    @Override
+    public Optional<SenMLPack> add(String deviceId, SenMLPack senMLPack) {
+
+        DeviceStateRingBuffer deviceBuffer = this.deviceBufferMap.get(deviceId);
+
+        if(deviceBuffer == null)
+            return Optional.empty();
+
+        boolean added = false;
+        long receptionTimestampMs = System.currentTimeMillis();
+
+        for(SenMLRecord senMLRecord : senMLPack){
+
+            if(senMLRecord == null || senMLRecord.getN() == null || senMLRecord.getV() == null)
+                continue;
+
+            Integer resourceIndex = this.resourceIndexMap.get(senMLRecord.getN());
+
+            if(resourceIndex == null)
+                continue;
+
+            long timestampMs = getRecordTimestampMs(senMLRecord, receptionTimestampMs);
+
+            if(isAheadOfReception(timestampMs, receptionTimestampMs, this.allowedLatenessMs)){
+                this.futureRecordCount.incrementAndGet();
+                continue;
+            }
+
+            added |= deviceBuffer.add(resourceIndex, timestampMs, senMLRecord.getV().doubleValue(), senMLRecord.getU());
+        }
+
+        if(!added)
+            return Optional.empty();
+
+        long watermarkMs = getWatermarkMs();
+
+        return watermarkMs == DeviceStateRingBuffer.UNDEFINED_TIMESTAMP ? Optional.empty() : emitTicks(watermarkMs);
+    }
+
+    @Override
+    public Optional<SenMLPack> flush(long currentTimestampMs) {
+        return emitTicks(currentTimestampMs - this.allowedLatenessMs);
+    }
+
+    /**
+     * @return the oldest latest timestamp of the devices - allowed lateness, undefined until every device has reported
+     */
+    private long getWatermarkMs(){
+
+        long watermarkMs = Long.MAX_VALUE;
+
+        for(DeviceStateRingBuffer deviceBuffer : this.deviceBufferMap.values()){
+
+            long latestTimestampMs = deviceBuffer.getLatestTimestampMs();
+
+            if(latestTimestampMs == DeviceStateRingBuffer.UNDEFINED_TIMESTAMP)
+                return DeviceStateRingBuffer.UNDEFINED_TIMESTAMP;
+
+            watermarkMs = Math.min(watermarkMs, latestTimestampMs);
+        }
+
+        return watermarkMs - this.allowedLatenessMs;
+    }
+
+    /**
+     * Emit the composed state of the ticks up to the watermark, a single thread at a time (the others skip, their ticks
+     * are emitted by the emitting thread or by the following call)
+     */
+    private Optional<SenMLPack> emitTicks(long watermarkMs){
+
+        if(!this.emittingTicks.compareAndSet(false, true))
+            return Optional.empty();
+
+        try{
+
+            //Skip the ticks before the buffered samples (start and long silences of all the devices)
+            long earliestTimestampMs = getEarliestTimestampMs();
+
+            if(earliestTimestampMs == DeviceStateRingBuffer.UNDEFINED_TIMESTAMP)
+                return Optional.empty();
+
+            long firstUsefulTickMs = ceilTick(earliestTimestampMs - this.maxGapMs);
+
+            if(this.nextTickMs == DeviceStateRingBuffer.UNDEFINED_TIMESTAMP || this.nextTickMs < firstUsefulTickMs)
+                this.nextTickMs = firstUsefulTickMs;
+
+            SenMLPack composedSenmlPack = new SenMLPack();
+
+            for(; this.nextTickMs <= watermarkMs; this.nextTickMs += this.tickMs)
+                addTickRecords(composedSenmlPack, this.nextTickMs);
+
+            return composedSenmlPack.isEmpty() ? Optional.empty() : Optional.of(composedSenmlPack);
+
+        }finally {
+            this.emittingTicks.set(false);
+        }
+    }
+
+    /**
+     * Add the aligned value of each device and the aggregated value of each resource at the tick
+     */
+    private void addTickRecords(SenMLPack composedSenmlPack, long tickTimestampMs){
+
+        AggregationOperator[] tickOperators = createWindowOperators();
+        String[] units = new String[tickOperators.length];
+
+        for(Map.Entry<String, DeviceStateRingBuffer> deviceEntry : this.deviceBufferMap.entrySet()){
+            for(int i = 0; i < tickOperators.length; i++){
+
+                double alignedValue = deviceEntry.getValue().getAlignedValue(i, tickTimestampMs, this.linearInterpolation, this.maxGapMs);
+
+                if(Double.isNaN(alignedValue))
+                    continue;
+
+                String unit = deviceEntry.getValue().getUnit(i);
+
+                if(units[i] == null)
+                    units[i] = unit;
+
+                tickOperators[i].add(alignedValue, tickTimestampMs);
+
+                SenMLRecord alignedSenMLRecord = new SenMLRecord();
+                alignedSenMLRecord.setN(String.format("%s/%s", deviceEntry.getKey(), this.targetResourceIdList.get(i)));
+                alignedSenMLRecord.setU(unit);
+                alignedSenMLRecord.setT(tickTimestampMs);
+                alignedSenMLRecord.setV(alignedValue);
+                composedSenmlPack.add(alignedSenMLRecord);
+            }
+        }
+
+        addAggregatedRecords(composedSenmlPack, tickOperators, units, tickTimestampMs);
+        closeWindowOperators(tickOperators);
+    }
+
+    private long getEarliestTimestampMs(){
+
+        long earliestTimestampMs = DeviceStateRingBuffer.UNDEFINED_TIMESTAMP;
+
+        for(DeviceStateRingBuffer deviceBuffer : this.deviceBufferMap.values()){
+
+            long deviceEarliestTimestampMs = deviceBuffer.getEarliestTimestampMs();
+
+            if(deviceEarliestTimestampMs != DeviceStateRingBuffer.UNDEFINED_TIMESTAMP
+                    && (earliestTimestampMs == DeviceStateRingBuffer.UNDEFINED_TIMESTAMP || deviceEarliestTimestampMs < earliestTimestampMs))
+                earliestTimestampMs = deviceEarliestTimestampMs;
+        }
+
+        return earliestTimestampMs;
+    }
+
+    private long ceilTick(long timestampMs){
+        return -Math.floorDiv(-timestampMs, this.tickMs) * this.tickMs;
+    }
+
+    @Override
+    public String getWindowType() {
+        return WINDOW_TYPE_JOIN;
+    }
+
+    public List<String> getDeviceIdList(){
+        return new ArrayList<>(this.deviceBufferMap.keySet());
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public String getInterpolation() {
+        return linearInterpolation ? INTERPOLATION_LINEAR : INTERPOLATION_NEAREST;
+    }
+
+    public long getMaxGapMs() {
+        return maxGapMs;
+    }
+
+    public long getAllowedLatenessMs() {
+        return allowedLatenessMs;
+    }
+
+    public long getFutureRecordCount(){
+        return this.futureRecordCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("AlignedJoinAggregationEngine{");
+        sb.append("targetResourceIdList=").append(targetResourceIdList);
+        sb.append(", resourceAggregationActionMap=").append(resourceAggregationActionMap);
+        sb.append(", deviceIdList=").append(deviceBufferMap.keySet());
+        sb.append(", tickMs=").append(tickMs);
+        sb.append(", interpolation='").append(getInterpolation()).append('\'');
+        sb.append(", maxGapMs=").append(maxGapMs);
+        sb.append(", allowedLatenessMs=").append(allowedLatenessMs);
+        sb.append(", futureRecordCount=").append(futureRecordCount.get());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,269 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperator;
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperatorFactory;
+import it.unimore.dipi.iot.digitaltwin.conf.ComposedDigitalTwinConfiguration;
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Thread safe aggregation of the target resources received by the composed DT from its source devices. The aggregated
+ * value of each resource is computed by the {@link AggregationOperator} of its aggregation action (see
+ * {@link AggregationOperatorFactory}) over the values received in an aggregation window. Windows are count based
+ * ({@link CountWindowAggregationEngine}) or time based on the SenML timestamps ({@link TimeWindowAggregationEngine}),
+ * or the devices are joined on a time grid ({@link AlignedJoinAggregationEngine}).
+ *
+ * Values are not buffered: operators are streaming operators updated on arrival in {@link AggregationPane}s sharded
+ * per source device, so the memory does not depend on the number of values in a window and no global lock is taken
+ * on the message path.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 00:20
+ */
+public abstract class ComposedAggregationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComposedAggregationEngine.class);
+
+    public static final String WINDOW_TYPE_COUNT = "count";
+
+    public static final String WINDOW_TYPE_TUMBLING = "tumbling";
+
+    public static final String WINDOW_TYPE_HOPPING = "hopping";
+
+    public static final String WINDOW_TYPE_SLIDING = "sliding";
+
+    public static final String WINDOW_TYPE_JOIN = "join";
+
+    protected final List<String> targetResourceIdList;
+
+    //Resource Id -> Aggregation Action
+    protected final Map<String, String> resourceAggregationActionMap;
+
+    //Resource Id -> Index of the target resource
+    protected final Map<String, Integer> resourceIndexMap;
+
+    //Operator suppliers in the order of the target resources
+    protected final List<Supplier<AggregationOperator>> operatorSupplierList;
+
+    /**
+     * @param resourceAggregationActionMap aggregation action of each resource id, the default action is used for the
+     *                                     resources without an action
+     */
+    protected ComposedAggregationEngine(List<String> targetResourceIdList, String defaultAggregationAction, Map<String, String> resourceAggregationActionMap) {
+
+        this.targetResourceIdList = Collections.unmodifiableList(new ArrayList<>(targetResourceIdList));
+
+        Map<String, String> actionMap = new HashMap<>();
+        Map<String, Integer> indexMap = new HashMap<>();
+        List<Supplier<AggregationOperator>> supplierList = new ArrayList<>();
+
+        for(String resourceId : this.targetResourceIdList){
+
+            String aggregationAction = resourceAggregationActionMap != null && resourceAggregationActionMap.get(resourceId) != null ?
+                    resourceAggregationActionMap.get(resourceId) : defaultAggregationAction;
+
+            actionMap.put(resourceId, aggregationAction);
+            indexMap.put(resourceId, supplierList.size());
+            supplierList.add(AggregationOperatorFactory.createOperatorSupplier(aggregationAction));
+        }
+
+        this.resourceAggregationActionMap = Collections.unmodifiableMap(actionMap);
+        this.resourceIndexMap = Collections.unmodifiableMap(indexMap);
+        this.operatorSupplierList = Collections.unmodifiableList(supplierList);
+    }
+
+    /**
+     * Build the engine aggregating the resources of the resource map of the configuration, shared by the processing
+     * steps of all the source devices of the composed DT
+     */
+    public static ComposedAggregationEngine create(ComposedDigitalTwinConfiguration configuration){
+
+        List<String> targetResourceIdList = new ArrayList<>(configuration.getResourceMap().values());
+
+        logger.info("Composition Target Resource List: {}", targetResourceIdList);
+
+        //Aggregation actions are configured by resource map key, the engine receives the resource ids (resource map values)
+        Map<String, String> resourceAggregationActionMap = new HashMap<>();
+
+        if(configuration.getResourceAggregationActionMap() != null)
+            for(Map.Entry<String, String> resourceEntry : configuration.getResourceMap().entrySet())
+                if(configuration.getResourceAggregationActionMap().containsKey(resourceEntry.getKey()))
+                    resourceAggregationActionMap.put(resourceEntry.getValue(), configuration.getResourceAggregationActionMap().get(resourceEntry.getKey()));
+
+        ComposedAggregationEngine aggregationEngine = create(configuration, targetResourceIdList, resourceAggregationActionMap);
+
+        logger.info("Aggregation Engine: {}", aggregationEngine);
+
+        return aggregationEngine;
+    }
+
+    /**
+     * Build the engine of the window type of the configuration, a count engine if the time window configuration is
+     * not valid
+     *
+     * @param resourceAggregationActionMap aggregation action of each resource id
+     */
+    public static ComposedAggregationEngine create(ComposedDigitalTwinConfiguration configuration,
+                                                   List<String> targetResourceIdList,
+                                                   Map<String, String> resourceAggregationActionMap){
+
+        String windowType = configuration.getAggregationWindowType() != null ? configuration.getAggregationWindowType() : WINDOW_TYPE_COUNT;
+
+        try{
+
+            if(WINDOW_TYPE_SLIDING.equals(windowType)){
+
+                //Sliding windows are emitted at every pack and never closed, the actions with a state across the windows are replaced
+                Map<String, String> slidingAggregationActionMap = new HashMap<>();
+
+                if(resourceAggregationActionMap != null)
+                    for(Map.Entry<String, String> actionEntry : resourceAggregationActionMap.entrySet())
+                        slidingAggregationActionMap.put(actionEntry.getKey(), getSlidingAggregationAction(actionEntry.getValue()));
+
+                return new TimeWindowAggregationEngine(targetResourceIdList,
+                        getSlidingAggregationAction(configuration.getAggregationAction()),
+                        slidingAggregationActionMap,
+                        windowType,
+                        configuration.getAggregationWindowSizeMs(),
+                        configuration.getAggregationWindowSlideMs(),
+                        configuration.getAggregationAllowedLatenessMs());
+            }
+            else if(WINDOW_TYPE_TUMBLING.equals(windowType) || WINDOW_TYPE_HOPPING.equals(windowType))
+                return new TimeWindowAggregationEngine(targetResourceIdList,
+                        configuration.getAggregationAction(),
+                        resourceAggregationActionMap,
+                        windowType,
+                        configuration.getAggregationWindowSizeMs(),
+                        configuration.getAggregationWindowSlideMs(),
+                        configuration.getAggregationAllowedLatenessMs());
+            else if(WINDOW_TYPE_JOIN.equals(windowType))
+                return new AlignedJoinAggregationEngine(targetResourceIdList,
+                        configuration.getAggregationAction(),
+                        resourceAggregationActionMap,
+                        configuration.getDeviceIdentifierList(),
+                        configuration.getAggregationJoinTickMs(),
+                        configuration.getAggregationJoinInterpolation(),
+                        configuration.getAggregationJoinMaxGapMs(),
+                        configuration.getAggregationAllowedLatenessMs(),
+                        configuration.getAggregationJoinBufferSize());
+            else if(!WINDOW_TYPE_COUNT.equals(windowType))
+                logger.error("Unknown Aggregation Window Type: {} ! Using: {}", windowType, WINDOW_TYPE_COUNT);
+
+        }catch (Exception e){
+            logger.error("Error creating Aggregation Engine ({}): {} ! Using: {}", windowType, e.getLocalizedMessage(), WINDOW_TYPE_COUNT);
+        }
+
+        return new CountWindowAggregationEngine(targetResourceIdList,
+                configuration.getAggregationWindow(),
+                configuration.getAggregationAction(),
+                resourceAggregationActionMap);
+    }
+
+    private static String getSlidingAggregationAction(String aggregationAction){
+
+        if(!AggregationOperatorFactory.hasCrossWindowState(aggregationAction))
+            return aggregationAction;
+
+        logger.error("Aggregation Action {} not supported by {} windows ! Using: {}", aggregationAction, WINDOW_TYPE_SLIDING, AggregationOperatorFactory.AGGREGATION_ACTION_AVG);
+
+        return AggregationOperatorFactory.AGGREGATION_ACTION_AVG;
+    }
+
+    /**
+     * @return true if the timestamp is ahead of the reception time by more than the tolerance: the record of a skewed
+     * device clock would advance the event time of the windows and make the records of the other devices late
+     */
+    protected static boolean isAheadOfReception(long timestampMs, long receptionTimestampMs, long toleranceMs){
+        return timestampMs > receptionTimestampMs + toleranceMs;
+    }
+
+    /**
+     * Add the target resources of the pack received from the device
+     *
+     * @return the aggregated pack of the windows completed by the pack, empty otherwise
+     */
+    public abstract Optional<SenMLPack> add(String deviceId, SenMLPack senMLPack);
+
+    /**
+     * Emit the windows that are expired at the (processing) time, so that windows are emitted even if no more packs
+     * are received
+     *
+     * @return the aggregated pack of the expired windows, empty otherwise
+     */
+    public abstract Optional<SenMLPack> flush(long currentTimestampMs);
+
+    public abstract String getWindowType();
+
+    protected AggregationPane createPane(){
+        return new AggregationPane(this.resourceIndexMap, this.operatorSupplierList);
+    }
+
+    protected AggregationOperator[] createWindowOperators(){
+
+        AggregationOperator[] windowOperators = new AggregationOperator[this.operatorSupplierList.size()];
+
+        for(int i = 0; i < windowOperators.length; i++)
+            windowOperators[i] = this.operatorSupplierList.get(i).get();
+
+        return windowOperators;
+    }
+
+    /**
+     * Add a record with the aggregated value of each target resource with values in the window
+     */
+    protected void addAggregatedRecords(SenMLPack aggregatedSenmlPack, AggregationOperator[] windowOperators, String[] units, long timestampMs){
+
+        for(int i = 0; i < windowOperators.length; i++)
+            if(windowOperators[i].getCount() > 0){
+
+                double value = windowOperators[i].getValue();
+
+                if(Double.isNaN(value))
+                    continue;
+
+                SenMLRecord aggregatedSenMLRecord = new SenMLRecord();
+                aggregatedSenMLRecord.setN(String.format("%s.aggregated", this.targetResourceIdList.get(i)));
+                aggregatedSenMLRecord.setU(windowOperators[i].getUnit(units[i]));
+                aggregatedSenMLRecord.setT(timestampMs);
+                aggregatedSenMLRecord.setV(value);
+                aggregatedSenmlPack.add(aggregatedSenMLRecord);
+            }
+    }
+
+    /**
+     * Advance the state carried across the windows by the operators of a closed window, once its aggregated records
+     * have been added
+     */
+    protected static void closeWindowOperators(AggregationOperator[] windowOperators){
+
+        for(AggregationOperator windowOperator : windowOperators)
+            if(windowOperator.getCount() > 0)
+                windowOperator.onWindowClosed();
+    }
+
+    /**
+     * @return the timestamp of the record or the reception timestamp if the record has no timestamp
+     */
+    protected static long getRecordTimestampMs(SenMLRecord senMLRecord, long receptionTimestampMs){
+        return senMLRecord.getT() != null && senMLRecord.getT().longValue() > 0 ? senMLRecord.getT().longValue() : receptionTimestampMs;
+    }
+
+    public List<String> getTargetResourceIdList() {
+        return targetResourceIdList;
+    }
+
+    public Map<String, String> getResourceAggregationActionMap() {
+        return resourceAggregationActionMap;
+    }
+
+}
@@ -1,13 +1,13 @@
 package it.unimore.dipi.iot.digitaltwin.behaviour;
 
 import com.codahale.metrics.Timer;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unimore.dipi.iot.digitaltwin.conf.ComposedDigitalTwinConfiguration;
 import it.unimore.dipi.iot.digitaltwin.metrics.MetricsManager;
+import it.unimore.dipi.iot.digitaltwin.metrics.ResourceMetricsContext;
 import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLReader;
 import it.unimore.dipi.iot.utils.SenMLRecord;
+import it.unimore.dipi.iot.utils.SenMLWriter;
 import it.unimore.dipi.iot.wldt.metrics.WldtMetricsManager;
 import it.unimore.dipi.iot.wldt.processing.PipelineData;
 import it.unimore.dipi.iot.wldt.processing.ProcessingStep;
@@ -30,42 +30,54 @@ public class ComposedStateProcessingStep implements ProcessingStep {
 
     private String deviceId;
 
-    private ObjectMapper objectMapper;
-
     private static final String METRIC_BASE_IDENTIFIER = "mqtt_pp_compose_state";
 
     private static final String PROCESSING_PIPELINE_EXECUTION_TIME_METRICS_FIELD = "execution_time";
 
-    private final static String STATE_CACHE_VALUE_LIST = "state_value_list";
+    //device/{{device_id}}/telemetry/{{resource_id}}
+    private static final int TOPIC_RESOURCE_ID_LEVEL = 3;
 
-    private ComposedDigitalTwinConfiguration composedDigitalTwinConfiguration;
+    private static final String UNKNOWN_TOPIC_LEVEL = "unknown";
 
-    private List<String> targetResourceIdList;
+    public static final String AGGREGATED_STATE_TOPIC = String.format("%s/%s", "device", "average");
 
-    private List<SenMLPack> aggregationStateHistoryList;
+    private ComposedDigitalTwinConfiguration composedDigitalTwinConfiguration;
 
-    public ComposedStateProcessingStep(String deviceId, ComposedDigitalTwinConfiguration composedDigitalTwinConfiguration) {
+    //Source device of the pipeline executing the step, shard key of the aggregation
+    private final String sourceDeviceId;
 
-        this.deviceId = deviceId;
-        this.composedDigitalTwinConfiguration = composedDigitalTwinConfiguration;
-        this.targetResourceIdList = new ArrayList<>(this.composedDigitalTwinConfiguration.getResourceMap().values());
+    //Aggregation shared by the steps of all the source devices
+    private final ComposedAggregationEngine aggregationEngine;
 
-        logger.info("ComposeStatesProcessingStep -> Composition Target Resource List: {}", this.targetResourceIdList);
+    private DigitalTwinLifeCycle lifeCycle;
 
-        this.aggregationStateHistoryList = new ArrayList<>();
+    //Stream of the last received topic, resolved again only when the topic changes or the stream is removed as idle
+    private ResourceMetricsContext resourceMetricsContext;
 
-        //Jackson Object Mapper + Ignore Null Fields in order to properly generate the SenML Payload
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private String resourceMetricsContextTopic;
 
+    /**
+     * @param sourceDeviceId device delivering the states to the pipeline of the step (one step for each device)
+     * @param aggregationEngine aggregation engine shared by the steps of all the devices of the composed DT
+     */
+    public ComposedStateProcessingStep(String deviceId,
+                                       String sourceDeviceId,
+                                       ComposedAggregationEngine aggregationEngine,
+                                       ComposedDigitalTwinConfiguration composedDigitalTwinConfiguration,
+                                       DigitalTwinLifeCycle lifeCycle) {
+
+        this.deviceId = deviceId;
+        this.sourceDeviceId = sourceDeviceId;
+        this.aggregationEngine = aggregationEngine;
+        this.composedDigitalTwinConfiguration = composedDigitalTwinConfiguration;
+        this.lifeCycle = lifeCycle;
     }
 
     @Override
     public void execute(PipelineCache pipelineCache, PipelineData pipelineData, ProcessingStepListener processingStepListener) {
 
-        //Check & Set Digital Twin Life Cycle State Value
-        if(MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.UN_BOUND.getValue())
-            MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.BOUND);
+        //Notify the observation to the Digital Twin Life Cycle (UN_BOUND -> BOUND)
+        lifeCycle.onObservation(System.currentTimeMillis());
 
         Timer.Context metricsContext = WldtMetricsManager.getInstance().getTimer(String.format("%s.%s", METRIC_BASE_IDENTIFIER, this.deviceId), PROCESSING_PIPELINE_EXECUTION_TIME_METRICS_FIELD);
 
@@ -75,36 +87,41 @@ public class ComposedStateProcessingStep implements ProcessingStep {
 
                 MqttPipelineData mqttPipelineData = (MqttPipelineData)pipelineData;
 
-                logger.debug("Executing ComposeStatesProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
+                if(logger.isDebugEnabled())
+                    logger.debug("Executing ComposeStatesProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
 
                 Optional<SenMLPack> optionalSenMlMessage = parseSenMlMessage(mqttPipelineData.getPayload());
 
                 if(optionalSenMlMessage.isPresent()){
-                    Optional<SenMLPack> resultAggregatedSenmlPackOptional = processNewSenmlMessage(optionalSenMlMessage.get());
+                    Optional<SenMLPack> resultAggregatedSenmlPackOptional = processNewSenmlMessage(mqttPipelineData.getTopic(), optionalSenMlMessage.get());
 
                     if(resultAggregatedSenmlPackOptional.isPresent()){
 
-                        SenMLPack aggregatedSenmlPack = resultAggregatedSenmlPackOptional.get();
+                        Optional<byte[]> aggregatedPayloadOptional = buildSenmlPayload(resultAggregatedSenmlPackOptional.get());
 
-                        if(processingStepListener != null) {
+                        if(processingStepListener == null)
+                            logger.error("Processing Step Listener = Null ! Skipping processing step");
+                        else if(!aggregatedPayloadOptional.isPresent()) {
+                            //The windows of the aggregated state have already been emitted, report the lost state
+                            String errorMessage = "Error serializing the Aggregated State !";
+                            logger.error(errorMessage);
+                            processingStepListener.onStepError(this, pipelineData, errorMessage);
+                        }
+                        else {
 
                             processingStepListener.onStepDone(this, Optional.of(
-                                    new MqttPipelineData(String.format("%s/%s", "device", "average"),
+                                    new MqttPipelineData(AGGREGATED_STATE_TOPIC,
                                             mqttPipelineData.getMqttTopicDescriptor(),
-                                            buildSenmlPayload(aggregatedSenmlPack).get().getBytes(),
+                                            aggregatedPayloadOptional.get(),
                                             mqttPipelineData.isRetained())));
 
                             logger.info("ComposedStateProcessingStep -> Aggregated State Computed !");
                         }
-                        else
-                            logger.error("Processing Step Listener = Null ! Skipping processing step");
                     }
                     else {
 
                         if(processingStepListener != null) {
-                            logger.debug("Skipping Step ! Aggregation list size: {} target: {}",
-                                    this.aggregationStateHistoryList.size(),
-                                    this.composedDigitalTwinConfiguration.getAggregationWindow());
+                            logger.debug("Skipping Step ! Aggregation window not completed: {}", this.aggregationEngine);
                             processingStepListener.onStepSkip(this, pipelineData);
                         }
                         else
@@ -112,66 +129,6 @@ public class ComposedStateProcessingStep implements ProcessingStep {
                     }
                 }
 
-                if(optionalSenMlMessage.isPresent() && optionalSenMlMessage.get().size() > 0){
-
-                    SenMLPack receivedSenmlPack = optionalSenMlMessage.get();
-                    SenMLPack tempStateSenmlPack = new SenMLPack();
-
-                    for(SenMLRecord senMLRecord : receivedSenmlPack)
-                        if(senMLRecord != null && this.targetResourceIdList.contains(senMLRecord.getN()))
-                            tempStateSenmlPack.add(senMLRecord);
-
-                    if(tempStateSenmlPack.size() > 0) {
-                        this.aggregationStateHistoryList.add(tempStateSenmlPack);
-                        logger.debug("New SenMLPack added to the history ! New Size: {}", this.aggregationStateHistoryList.size());
-                    }
-
-                    //Check availability to handle aggregation and average of values
-                    if(this.aggregationStateHistoryList.size() == this.composedDigitalTwinConfiguration.getAggregationWindow()){
-
-                        logger.debug("Aggregation History Size: {} ! Starting aggregation ...", this.aggregationStateHistoryList.size());
-
-                        // Aggregate Historical State Data
-                        Optional<SenMLPack> aggregatedSenmlPackOptional = aggregateReceivedDigitalTwinStates(this.composedDigitalTwinConfiguration.getAggregationType());
-
-                        //Clear Historical Data
-                        this.aggregationStateHistoryList.clear();
-
-                        if(aggregatedSenmlPackOptional.isPresent()){
-
-                            SenMLPack aggregatedSenmlPack = aggregatedSenmlPackOptional.get();
-
-                            processingStepListener.onStepDone(this, Optional.of(
-                                    new MqttPipelineData(String.format("%s/%s", "device", "average"),
-                                            mqttPipelineData.getMqttTopicDescriptor(),
-                                            buildSenmlPayload(aggregatedSenmlPack).get().getBytes(),
-                                            mqttPipelineData.isRetained())));
-                        }
-                        else{
-
-                            if(processingStepListener != null) {
-                                String errorMessage = "PipelineData Error ! Missing Aggregated SenML Pack";
-                                logger.error(errorMessage);
-                                processingStepListener.onStepError(this, pipelineData, errorMessage);
-                            }
-                            else
-                                logger.error("Processing Step Listener = Null ! Skipping processing step");
-                        }
-
-                    }
-                    else {
-                        if(processingStepListener != null) {
-                            logger.debug("Skipping Step ! Aggregation list size: {} target: {}",
-                                    this.aggregationStateHistoryList.size(),
-                                    this.composedDigitalTwinConfiguration.getAggregationWindow());
-                            processingStepListener.onStepSkip(this, pipelineData);
-                        }
-                        else
-                            logger.error("Processing Step Listener = Null ! Skipping processing step");
-                    }
-
-                }
-
             }
             else {
 
@@ -193,7 +150,15 @@ public class ComposedStateProcessingStep implements ProcessingStep {
         }
     }
 
-    private Optional<SenMLPack> processNewSenmlMessage(SenMLPack receivedSenmlPack){
+    public ComposedAggregationEngine getAggregationEngine() {
+        return aggregationEngine;
+    }
+
+    /**
+     * @param topic source topic of the message (device/{{device_id}}/telemetry/{{resource_id}}) used to track the
+     *              timeliness of each observation stream
+     */
+    private Optional<SenMLPack> processNewSenmlMessage(String topic, SenMLPack receivedSenmlPack){
 
         try{
 
@@ -202,36 +167,19 @@ public class ComposedStateProcessingStep implements ProcessingStep {
 
             if(receivedSenmlPack.size() > 0){
 
-                SenMLPack tempStateSenmlPack = new SenMLPack();
-
                 for(SenMLRecord senMLRecord : receivedSenmlPack)
-                    if(senMLRecord != null) {
-                        if(senMLRecord.getT().longValue() > 0 && senMLRecord.getT().longValue() != physicalTimestamp)
-                            physicalTimestamp = senMLRecord.getT().longValue();
+                    if(senMLRecord != null && senMLRecord.getT() != null
+                            && senMLRecord.getT().longValue() > 0 && senMLRecord.getT().longValue() != physicalTimestamp)
+                        physicalTimestamp = senMLRecord.getT().longValue();
 
-                        if(this.targetResourceIdList.contains(senMLRecord.getN()))
-                            tempStateSenmlPack.add(senMLRecord);
-                    }
-
-                //Emulate State Computation
+                //Emulate State Computation (no shared state, executed in parallel by the delivery threads)
                 primeNumbersBruteForce(composedDigitalTwinConfiguration.getPrimeNumbersComputationCount());
 
-                if(tempStateSenmlPack.size() > 0) {
-                    this.aggregationStateHistoryList.add(tempStateSenmlPack);
-                    logger.debug("New SenMLPack added to the history ! New Size: {}", this.aggregationStateHistoryList.size());
-                }
-
-                //Check availability to handle aggregation and average of values
-                if(this.aggregationStateHistoryList.size() == this.composedDigitalTwinConfiguration.getAggregationWindow()){
-
-                    logger.debug("Aggregation History Size: {} ! Starting aggregation ...", this.aggregationStateHistoryList.size());
+                //Add the target resources to the shard of the source device, the pack completing windows returns the aggregated state
+                resultAggregatedSenmlPackOptional = this.aggregationEngine.add(this.sourceDeviceId, receivedSenmlPack);
 
-                    // Aggregate Historical State Data
-                    resultAggregatedSenmlPackOptional = aggregateReceivedDigitalTwinStates(this.composedDigitalTwinConfiguration.getAggregationType());
-
-                    //Clear Historical Data
-                    this.aggregationStateHistoryList.clear();
-                }
+                resultAggregatedSenmlPackOptional.ifPresent(aggregatedSenmlPack ->
+                        logger.debug("Aggregation window completed ! Aggregated State: {}", aggregatedSenmlPack));
             }
 
             // Compute Timeliness and save metric value
@@ -239,7 +187,9 @@ public class ComposedStateProcessingStep implements ProcessingStep {
                 long entanglementObservation = System.currentTimeMillis() - physicalTimestamp;
                 double secDelay = (double)entanglementObservation/1000.0;
                 logger.info("Aggregated Physical State - Entanglement Observations Sec: {}", secDelay);
-                MetricsManager.getInstance().addObservationDelaySec(physicalTimestamp, secDelay);
+                MetricsManager.getInstance().addObservationDelaySec(getResourceMetricsContext(topic),
+                        physicalTimestamp,
+                        secDelay);
             }
             else
                 logger.error("Error computing Timeliness ! physicalTimestamp value is not correct: {}", physicalTimestamp);
@@ -253,67 +203,34 @@ public class ComposedStateProcessingStep implements ProcessingStep {
     }
 
     /**
-     * TODO At the moment the aggregation is only the average value
-     * @param aggregationType
+     * @return the metrics of the stream of the topic, resolved through the MetricsManager only when the topic changes or
+     * after the stream has been removed as idle
      */
-    private Optional<SenMLPack> aggregateReceivedDigitalTwinStates(String aggregationType){
-        try{
-
-            Map<String, List<SenMLRecord>> resultMap = new HashMap<>();
+    private ResourceMetricsContext getResourceMetricsContext(String topic){
 
-            // Init target ArrayList with reference resource type
-            for(String resourceType : this.targetResourceIdList)
-                resultMap.put(resourceType, new ArrayList<SenMLRecord>());
-
-            //Save all the target values in the reference Result Map
-            for(SenMLPack senMLPack : this.aggregationStateHistoryList){
-                for(SenMLRecord senMLRecord : senMLPack){
-                    //The SenML Record match target resource type/name
-                    if(senMLRecord != null && this.targetResourceIdList.contains(senMLRecord.getN()))
-                        resultMap.get(senMLRecord.getN()).add(senMLRecord);
-                }
-            }
-
-            SenMLPack finalStatusSenmlPack = new SenMLPack();
-
-            //Compute Averages Values
-            for(String resourceType : this.targetResourceIdList){
-
-                SenMLRecord targetSenMLRecord = null;
-                double targetSum = 0;
-
-                for(SenMLRecord senMLRecord : resultMap.get(resourceType)){
+        if(this.resourceMetricsContext == null || this.resourceMetricsContext.isRemoved() || !topic.equals(this.resourceMetricsContextTopic)){
+            this.resourceMetricsContext = MetricsManager.getInstance().getResourceMetricsContext(getTopicLevel(topic, TOPIC_RESOURCE_ID_LEVEL), this.sourceDeviceId);
+            this.resourceMetricsContextTopic = topic;
+        }
 
-                    // Create the new aggregated SenML Record based on the original values
-                    if(targetSenMLRecord == null){
-                        targetSenMLRecord = new SenMLRecord();
-                        targetSenMLRecord.setN(String.format("%s.aggregated", senMLRecord.getN()));
-                        targetSenMLRecord.setU(senMLRecord.getU());
-                        targetSenMLRecord.setT(System.currentTimeMillis());
-                    }
+        return this.resourceMetricsContext;
+    }
 
-                    targetSum += senMLRecord.getV().doubleValue();
-                }
+    private static String getTopicLevel(String topic, int level){
 
-                if(targetSenMLRecord != null){
-                    targetSenMLRecord.setV((targetSum)/(resultMap.get(resourceType).size()));
-                    finalStatusSenmlPack.add(targetSenMLRecord);
-                }
-            }
+        if(topic == null)
+            return UNKNOWN_TOPIC_LEVEL;
 
-            return Optional.of(finalStatusSenmlPack);
+        String[] topicLevels = topic.split("/");
 
-        }catch (Exception e){
-            e.printStackTrace();
-            return Optional.empty();
-        }
+        return level < topicLevels.length ? topicLevels[level] : UNKNOWN_TOPIC_LEVEL;
     }
 
-    private Optional<String> buildSenmlPayload(SenMLPack targetSenmlPack) {
+    private Optional<byte[]> buildSenmlPayload(SenMLPack targetSenmlPack) {
 
         try {
 
-            return Optional.of(this.objectMapper.writeValueAsString(targetSenmlPack));
+            return Optional.of(SenMLWriter.getInstance(this.composedDigitalTwinConfiguration.getSenmlPayloadEncoding()).writePack(targetSenmlPack).toByteArray());
 
         }catch (Exception e){
             logger.error("Error serializing Senml Packet ! Msg: {}", e.getLocalizedMessage());
@@ -326,10 +243,8 @@ public class ComposedStateProcessingStep implements ProcessingStep {
 
         try{
 
-            if(payload == null || payload.length == 0)
-                return Optional.empty();
-
-            return Optional.ofNullable(this.objectMapper.readValue(new String(payload), new TypeReference<SenMLPack>() {}));
+            //JSON, CBOR and binary SenML payloads are detected by the reader
+            return SenMLReader.getInstance().read(payload);
 
         }catch (Exception e){
             return Optional.empty();
@@ -1,11 +1,10 @@
 package it.unimore.dipi.iot.digitaltwin.behaviour;
 
 import com.codahale.metrics.Timer;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.utils.SenMLEncoding;
 import it.unimore.dipi.iot.utils.SenMLPack;
-import it.unimore.dipi.iot.utils.SenMLRecord;
+import it.unimore.dipi.iot.utils.SenMLReader;
+import it.unimore.dipi.iot.utils.SenMLWriter;
 import it.unimore.dipi.iot.wldt.metrics.WldtMetricsManager;
 import it.unimore.dipi.iot.wldt.processing.PipelineData;
 import it.unimore.dipi.iot.wldt.processing.ProcessingStep;
@@ -29,7 +28,7 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
 
     private String deviceId;
 
-    private ObjectMapper objectMapper;
+    private String senmlPayloadEncoding;
 
     private static final String METRIC_BASE_IDENTIFIER = "mqtt_pp_compose";
 
@@ -40,13 +39,15 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
     private final static String PIPELINE_ENERGY_CACHE_VALUE_LIST = "energy_value_list";
 
     public ComposedValuesProcessingStep(String deviceId) {
+        this(deviceId, SenMLEncoding.ENCODING_DEFAULT);
+    }
 
+    /**
+     * @param senmlPayloadEncoding encoding of the generated SenML payload: json, cbor or binary
+     */
+    public ComposedValuesProcessingStep(String deviceId, String senmlPayloadEncoding) {
         this.deviceId = deviceId;
-
-        //Jackson Object Mapper + Ignore Null Fields in order to properly generate the SenML Payload
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
+        this.senmlPayloadEncoding = senmlPayloadEncoding;
     }
 
     @Override
@@ -60,7 +61,8 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
 
                 MqttPipelineData mqttPipelineData = (MqttPipelineData)pipelineData;
 
-                logger.debug("Executing SenmlMqttProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
+                if(logger.isDebugEnabled())
+                    logger.debug("Executing SenmlMqttProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
 
                 Optional<SenMLPack> optionalSenMlMessage = parseSenMlMessage(mqttPipelineData.getPayload());
 
@@ -90,7 +92,7 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
                             processingStepListener.onStepDone(this, Optional.of(
                                     new MqttPipelineData(String.format("%s/%s", "device", "average"),
                                             mqttPipelineData.getMqttTopicDescriptor(),
-                                            buildSenmlPayload("iot.temperature.composed", value, "Cel").get().getBytes(),
+                                            buildSenmlPayload("iot.temperature.composed", value, "Cel").get(),
                                             mqttPipelineData.isRetained())));
                         }
                         else{
@@ -119,7 +121,7 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
                             processingStepListener.onStepDone(this, Optional.of(
                                     new MqttPipelineData(String.format("%s/%s", "device", "average"),
                                             mqttPipelineData.getMqttTopicDescriptor(),
-                                            buildSenmlPayload("iot.energy.composed", value, "kW").get().getBytes(),
+                                            buildSenmlPayload("iot.energy.composed", value, "kW").get(),
                                             mqttPipelineData.isRetained())));
                         }
                         else{
@@ -151,21 +153,13 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
     }
 
 
-    private Optional<String> buildSenmlPayload(String type, double value, String unit) {
+    private Optional<byte[]> buildSenmlPayload(String type, double value, String unit) {
 
         try {
 
-            long originalTimestamp = System.currentTimeMillis();
-
-            SenMLRecord senmlRecord = new SenMLRecord();
-            senmlRecord.setT(originalTimestamp);
-            senmlRecord.setN(type);
-            senmlRecord.setV(value);
-            senmlRecord.setU(unit);
-
-            SenMLPack senMLPack = new SenMLPack(){{ add(senmlRecord);}};
-
-            return Optional.of(this.objectMapper.writeValueAsString(senMLPack));
+            return Optional.of(SenMLWriter.getInstance(this.senmlPayloadEncoding)
+                    .writeRecord(type, System.currentTimeMillis(), value, unit)
+                    .toByteArray());
 
         }catch (Exception e){
             logger.error("Error serializing Senml Packet ! Msg: {}", e.getLocalizedMessage());
@@ -178,10 +172,8 @@ public class ComposedValuesProcessingStep implements ProcessingStep {
 
         try{
 
-            if(payload == null || payload.length == 0)
-                return Optional.empty();
-
-            return Optional.ofNullable(this.objectMapper.readValue(new String(payload), new TypeReference<SenMLPack>() {}));
+            //JSON, CBOR and binary SenML payloads are detected by the reader
+            return SenMLReader.getInstance().read(payload);
 
         }catch (Exception e){
             return Optional.empty();
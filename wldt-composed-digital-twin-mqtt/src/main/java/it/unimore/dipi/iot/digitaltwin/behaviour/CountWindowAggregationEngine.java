@@ -0,0 +1,109 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperator;
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Count windows: a window is emitted every aggregationWindow received packs (with at least one target resource),
+ * whatever the device sending them.
+ *
+ * The received packs are counted by a global counter and the thread adding the last pack of an aggregation window
+ * drains the pane (replacing the operators of the devices with empty ones) and merges it in the aggregated pack.
+ * Values are added to the pane before the pack is counted, so each value is merged exactly once. Under concurrent
+ * delivery a window can include the values of packs of the following window that are being added while the pane is
+ * drained (the following window is merged with fewer values): the window size is exact with a single delivery
+ * thread, as the original history list.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 02:00
+ */
+public class CountWindowAggregationEngine extends ComposedAggregationEngine {
+
+    private final int aggregationWindow;
+
+    private final AggregationPane pane;
+
+    //Packs with at least one target resource added to the pane
+    private final AtomicLong packCount;
+
+    public CountWindowAggregationEngine(List<String> targetResourceIdList, int aggregationWindow, String defaultAggregationAction, Map<String, String> resourceAggregationActionMap) {
+        super(targetResourceIdList, defaultAggregationAction, resourceAggregationActionMap);
+        this.aggregationWindow = aggregationWindow;
+        this.pane = createPane();
+        this.packCount = new AtomicLong(0);
+    }
+
+    @Override
+    public Optional<SenMLPack> add(String deviceId, SenMLPack senMLPack){
+
+        boolean added = false;
+        long receptionTimestampMs = System.currentTimeMillis();
+
+        for(SenMLRecord senMLRecord : senMLPack)
+            if(senMLRecord != null)
+                added |= this.pane.add(deviceId, senMLRecord, getRecordTimestampMs(senMLRecord, receptionTimestampMs));
+
+        if(!added || this.aggregationWindow <= 0)
+            return Optional.empty();
+
+        if(this.packCount.incrementAndGet() % this.aggregationWindow != 0)
+            return Optional.empty();
+
+        AggregationOperator[] windowOperators = createWindowOperators();
+        String[] units = new String[windowOperators.length];
+
+        this.pane.drainInto(windowOperators, units);
+
+        SenMLPack aggregatedSenmlPack = new SenMLPack();
+        addAggregatedRecords(aggregatedSenmlPack, windowOperators, units, System.currentTimeMillis());
+        closeWindowOperators(windowOperators);
+
+        return Optional.of(aggregatedSenmlPack);
+    }
+
+    /**
+     * Count windows are only completed by the received packs
+     */
+    @Override
+    public Optional<SenMLPack> flush(long currentTimestampMs) {
+        return Optional.empty();
+    }
+
+    @Override
+    public String getWindowType() {
+        return WINDOW_TYPE_COUNT;
+    }
+
+    /**
+     * @return the number of packs added to the current aggregation window
+     */
+    public long getPendingPackCount(){
+        return this.aggregationWindow > 0 ? this.packCount.get() % this.aggregationWindow : this.packCount.get();
+    }
+
+    public int getShardCount(){
+        return this.pane.getDeviceCount();
+    }
+
+    public int getAggregationWindow() {
+        return aggregationWindow;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("CountWindowAggregationEngine{");
+        sb.append("targetResourceIdList=").append(targetResourceIdList);
+        sb.append(", aggregationWindow=").append(aggregationWindow);
+        sb.append(", resourceAggregationActionMap=").append(resourceAggregationActionMap);
+        sb.append(", shardCount=").append(pane.getDeviceCount());
+        sb.append(", pendingPackCount=").append(getPendingPackCount());
+        sb.append('}');
+        return sb.toString();
+    }
+}
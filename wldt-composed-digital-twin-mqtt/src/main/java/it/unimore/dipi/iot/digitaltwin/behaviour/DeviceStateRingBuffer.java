@@ -0,0 +1,184 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+/**
+ * Latest samples of the target resources of a source device, kept for each resource in a ring buffer sorted by
+ * timestamp (out of order samples are inserted in place, the oldest sample is overwritten when the buffer is full).
+ * The buffer is guarded by its monitor: each device is written by its delivery thread and read by the join.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 04:10
+ */
+class DeviceStateRingBuffer {
+
+    static final long UNDEFINED_TIMESTAMP = Long.MIN_VALUE;
+
+    private final int capacity;
+
+    //Resource Index -> Ring of the samples
+    private final long[][] timestamps;
+
+    private final double[][] values;
+
+    private final int[] startIndexes;
+
+    private final int[] sizes;
+
+    //Resource Index -> Unit of the last sample
+    private final String[] units;
+
+    private volatile long latestTimestampMs = UNDEFINED_TIMESTAMP;
+
+    private volatile long earliestTimestampMs = UNDEFINED_TIMESTAMP;
+
+    DeviceStateRingBuffer(int resourceCount, int capacity) {
+
+        if(capacity <= 0)
+            throw new IllegalArgumentException(String.format("Invalid ring buffer capacity (%d) !", capacity));
+
+        this.capacity = capacity;
+        this.timestamps = new long[resourceCount][capacity];
+        this.values = new double[resourceCount][capacity];
+        this.startIndexes = new int[resourceCount];
+        this.sizes = new int[resourceCount];
+        this.units = new String[resourceCount];
+    }
+
+    /**
+     * @return false if the buffer is full and the sample is older than all the buffered samples
+     */
+    synchronized boolean add(int resourceIndex, long timestampMs, double value, String unit){
+
+        int size = this.sizes[resourceIndex];
+
+        if(size == this.capacity){
+
+            if(timestampMs < getTimestamp(resourceIndex, 0))
+                return false;
+
+            this.startIndexes[resourceIndex] = (this.startIndexes[resourceIndex] + 1) % this.capacity;
+            size--;
+        }
+
+        //Shift the newer samples, in order samples are appended without shifting
+        int position = size;
+
+        while(position > 0 && getTimestamp(resourceIndex, position - 1) > timestampMs){
+            int from = physicalIndex(resourceIndex, position - 1);
+            int to = physicalIndex(resourceIndex, position);
+            this.timestamps[resourceIndex][to] = this.timestamps[resourceIndex][from];
+            this.values[resourceIndex][to] = this.values[resourceIndex][from];
+            position--;
+        }
+
+        int index = physicalIndex(resourceIndex, position);
+        this.timestamps[resourceIndex][index] = timestampMs;
+        this.values[resourceIndex][index] = value;
+        this.sizes[resourceIndex] = size + 1;
+
+        if(unit != null)
+            this.units[resourceIndex] = unit;
+
+        if(this.latestTimestampMs == UNDEFINED_TIMESTAMP || timestampMs > this.latestTimestampMs)
+            this.latestTimestampMs = timestampMs;
+
+        updateEarliestTimestamp();
+
+        return true;
+    }
+
+    /**
+     * Value of the resource aligned to the timestamp from the samples at most maxGapMs away from it
+     *
+     * @param linear linear interpolation between the samples around the timestamp, the nearest sample is used if
+     *               there is no sample on one of the two sides
+     * @return the aligned value or NaN if there are no samples close enough
+     */
+    synchronized double getAlignedValue(int resourceIndex, long timestampMs, boolean linear, long maxGapMs){
+
+        int size = this.sizes[resourceIndex];
+
+        //First sample at or after the timestamp
+        int low = 0;
+        int high = size;
+
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(getTimestamp(resourceIndex, middle) < timestampMs)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        boolean hasNext = low < size && getTimestamp(resourceIndex, low) - timestampMs <= maxGapMs;
+        boolean hasPrevious = low > 0 && timestampMs - getTimestamp(resourceIndex, low - 1) <= maxGapMs;
+
+        if(hasNext && getTimestamp(resourceIndex, low) == timestampMs)
+            return getValue(resourceIndex, low);
+
+        if(hasPrevious && hasNext){
+
+            long previousTimestampMs = getTimestamp(resourceIndex, low - 1);
+            long nextTimestampMs = getTimestamp(resourceIndex, low);
+
+            if(linear){
+                double ratio = (double)(timestampMs - previousTimestampMs) / (double)(nextTimestampMs - previousTimestampMs);
+                return getValue(resourceIndex, low - 1) + ratio * (getValue(resourceIndex, low) - getValue(resourceIndex, low - 1));
+            }
+
+            return timestampMs - previousTimestampMs <= nextTimestampMs - timestampMs ? getValue(resourceIndex, low - 1) : getValue(resourceIndex, low);
+        }
+
+        if(hasPrevious)
+            return getValue(resourceIndex, low - 1);
+
+        if(hasNext)
+            return getValue(resourceIndex, low);
+
+        return Double.NaN;
+    }
+
+    synchronized String getUnit(int resourceIndex){
+        return this.units[resourceIndex];
+    }
+
+    /**
+     * @return the timestamp of the newest sample of any resource or {@link #UNDEFINED_TIMESTAMP}
+     */
+    long getLatestTimestampMs() {
+        return latestTimestampMs;
+    }
+
+    /**
+     * @return the timestamp of the oldest buffered sample of any resource or {@link #UNDEFINED_TIMESTAMP}
+     */
+    long getEarliestTimestampMs() {
+        return earliestTimestampMs;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private void updateEarliestTimestamp(){
+
+        long earliest = UNDEFINED_TIMESTAMP;
+
+        for(int i = 0; i < this.sizes.length; i++)
+            if(this.sizes[i] > 0 && (earliest == UNDEFINED_TIMESTAMP || getTimestamp(i, 0) < earliest))
+                earliest = getTimestamp(i, 0);
+
+        this.earliestTimestampMs = earliest;
+    }
+
+    private long getTimestamp(int resourceIndex, int position){
+        return this.timestamps[resourceIndex][physicalIndex(resourceIndex, position)];
+    }
+
+    private double getValue(int resourceIndex, int position){
+        return this.values[resourceIndex][physicalIndex(resourceIndex, position)];
+    }
+
+    private int physicalIndex(int resourceIndex, int position){
+        return (this.startIndexes[resourceIndex] + position) % this.capacity;
+    }
+}
@@ -0,0 +1,14 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+/**
+ * Listener of the transitions of a {@link DigitalTwinLifeCycle}. Transitions are notified in order by the thread
+ * triggering them while holding the life cycle lock, so implementations must be short and must not block.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 18/10/2026 - 21:30
+ */
+public interface DigitalTwinLifeCycleListener {
+
+    void onLifeCycleTransition(DigitalTwinLifeCycleTransition transition);
+
+}
@@ -0,0 +1,381 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperator;
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event time windows on the SenML timestamps (t) of the received records, the reception time is used for the records
+ * without a timestamp. Timestamps are expected in ms and synchronized with the clock of the composed DT, as for the
+ * physical timestamp metrics.
+ *
+ * tumbling: windows [k * size, (k + 1) * size)
+ * hopping: windows [k * slide, k * slide + size), a record is aggregated in each overlapping window
+ * sliding: window ending at the latest timestamp t, made of the panes from floor((t - size) / pane) + 1 to floor(t / pane),
+ * i.e. (t - size, t] aligned to the panes, emitted at every received pack and never closed (the operators with a state
+ * across the windows, as ewma, are not advanced)
+ *
+ * Values are aggregated on arrival in panes of gcd(size, slide) ms (size for tumbling, slide for sliding), so a window
+ * is the merge of its panes and overlapping windows share them without buffering values.
+ *
+ * A tumbling or hopping window is emitted when the watermark (latest timestamp - allowed lateness) passes its end, and
+ * by {@link #flush(long)} when the processing time - allowed lateness passes it, so that a silent device does not
+ * delay the composed output. The aggregated records of a window have the end of the window as timestamp. Records of
+ * windows already emitted are dropped as late (see {@link #getLateRecordCount()}). Records with a timestamp ahead of the
+ * reception time by more than the allowed lateness are dropped (see {@link #getFutureRecordCount()}), so a skewed
+ * device clock cannot advance the watermark and the windows past the records of the other devices. For sliding
+ * windows the allowed lateness delays the flush of the window ending at the processing time when no more packs are
+ * received, records of the panes before the current window are dropped as late since they cannot be in a later window
+ * (the check is pane aligned as the eviction, so a record is never accepted in a pane that is about to be evicted).
+ *
+ * Windows are closed by a single thread at a time (the others skip closing, the closer emits their windows too), the
+ * message path takes no global lock. A pane is sealed before its last merge (and when evicted), so a record racing the
+ * close of its window is either aggregated or counted as late. For hopping windows a record racing the close of one of
+ * its windows can be aggregated in the following overlapping windows only.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 02:40
+ */
+public class TimeWindowAggregationEngine extends ComposedAggregationEngine {
+
+    private static final long UNDEFINED_TIMESTAMP = Long.MIN_VALUE;
+
+    private final String windowType;
+
+    private final long windowSizeMs;
+
+    private final long windowSlideMs;
+
+    private final long allowedLatenessMs;
+
+    private final long paneSizeMs;
+
+    //Pane Index (timestamp / paneSizeMs) -> Pane
+    private final ConcurrentSkipListMap<Long, AggregationPane> paneMap;
+
+    private final AtomicLong maxEventTimestampMs;
+
+    //Start of the first tumbling/hopping window not emitted yet, records before it are late
+    private final AtomicLong nextWindowStartMs;
+
+    //First pane of the last emitted sliding window, the panes before it have been evicted
+    private final AtomicLong firstSlidingPaneIndex;
+
+    private final AtomicBoolean closingWindows;
+
+    private final AtomicLong lateRecordCount;
+
+    //Records ahead of the reception time by more than the allowed lateness
+    private final AtomicLong futureRecordCount;
+
+    /**
+     * @param windowSlideMs slide of the hopping windows and pane size of the sliding windows (ignored for tumbling)
+     * @throws IllegalArgumentException if the size or the slide are not valid for the window type
+     */
+    public TimeWindowAggregationEngine(List<String> targetResourceIdList,
+                                       String defaultAggregationAction,
+                                       Map<String, String> resourceAggregationActionMap,
+                                       String windowType,
+                                       long windowSizeMs,
+                                       long windowSlideMs,
+                                       long allowedLatenessMs) {
+
+        super(targetResourceIdList, defaultAggregationAction, resourceAggregationActionMap);
+
+        if(windowSizeMs <= 0)
+            throw new IllegalArgumentException(String.format("Invalid window size (%d ms) !", windowSizeMs));
+
+        if(allowedLatenessMs < 0)
+            throw new IllegalArgumentException(String.format("Invalid allowed lateness (%d ms) !", allowedLatenessMs));
+
+        switch (windowType){
+            case WINDOW_TYPE_TUMBLING:
+                this.windowSlideMs = windowSizeMs;
+                this.paneSizeMs = windowSizeMs;
+                break;
+            case WINDOW_TYPE_HOPPING:
+                if(windowSlideMs <= 0 || windowSlideMs > windowSizeMs)
+                    throw new IllegalArgumentException(String.format("Invalid hopping window slide (%d ms) ! It must be in (0, %d]", windowSlideMs, windowSizeMs));
+                this.windowSlideMs = windowSlideMs;
+                this.paneSizeMs = gcd(windowSizeMs, windowSlideMs);
+                break;
+            case WINDOW_TYPE_SLIDING:
+                if(windowSlideMs <= 0 || windowSlideMs > windowSizeMs)
+                    throw new IllegalArgumentException(String.format("Invalid sliding window pane size (%d ms) ! It must be in (0, %d]", windowSlideMs, windowSizeMs));
+                this.windowSlideMs = windowSlideMs;
+                this.paneSizeMs = windowSlideMs;
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Invalid time window type: %s", windowType));
+        }
+
+        this.windowType = windowType;
+        this.windowSizeMs = windowSizeMs;
+        this.allowedLatenessMs = allowedLatenessMs;
+        this.paneMap = new ConcurrentSkipListMap<>();
+        this.maxEventTimestampMs = new AtomicLong(UNDEFINED_TIMESTAMP);
+        this.nextWindowStartMs = new AtomicLong(UNDEFINED_TIMESTAMP);
+        this.firstSlidingPaneIndex = new AtomicLong(Long.MIN_VALUE);
+        this.closingWindows = new AtomicBoolean(false);
+        this.lateRecordCount = new AtomicLong(0);
+        this.futureRecordCount = new AtomicLong(0);
+    }
+
+    @Override
+    public Optional<SenMLPack> add(String deviceId, SenMLPack senMLPack) {
+
+        boolean added = false;
+        long receptionTimestampMs = System.currentTimeMillis();
+
+        for(SenMLRecord senMLRecord : senMLPack){
+
+            if(senMLRecord == null || senMLRecord.getN() == null || senMLRecord.getV() == null || !this.resourceIndexMap.containsKey(senMLRecord.getN()))
+                continue;
+
+            long timestampMs = getRecordTimestampMs(senMLRecord, receptionTimestampMs);
+
+            if(isAheadOfReception(timestampMs, receptionTimestampMs, this.allowedLatenessMs)){
+                this.futureRecordCount.incrementAndGet();
+                continue;
+            }
+
+            if(isLate(timestampMs)){
+                this.lateRecordCount.incrementAndGet();
+                continue;
+            }
+
+            AggregationPane pane = this.paneMap.computeIfAbsent(Math.floorDiv(timestampMs, this.paneSizeMs), paneIndex -> createPane());
+
+            //The pane has been sealed by the close of its last window or evicted (and created again) after the lateness check
+            if(isLate(timestampMs) || !pane.add(deviceId, senMLRecord, timestampMs)){
+                this.lateRecordCount.incrementAndGet();
+                continue;
+            }
+
+            added = true;
+
+            this.maxEventTimestampMs.accumulateAndGet(timestampMs, Math::max);
+        }
+
+        if(!added)
+            return Optional.empty();
+
+        if(WINDOW_TYPE_SLIDING.equals(this.windowType))
+            return emitSlidingWindow(this.maxEventTimestampMs.get());
+
+        return closeWindows(this.maxEventTimestampMs.get() - this.allowedLatenessMs);
+    }
+
+    @Override
+    public Optional<SenMLPack> flush(long currentTimestampMs) {
+
+        long watermarkMs = currentTimestampMs - this.allowedLatenessMs;
+
+        if(WINDOW_TYPE_SLIDING.equals(this.windowType)){
+
+            //The window ending at the latest timestamp has already been emitted with the last pack
+            if(this.maxEventTimestampMs.get() == UNDEFINED_TIMESTAMP || watermarkMs <= this.maxEventTimestampMs.get())
+                return Optional.empty();
+
+            return emitSlidingWindow(watermarkMs);
+        }
+
+        return closeWindows(watermarkMs);
+    }
+
+    /**
+     * Emit the tumbling/hopping windows ending before the watermark and evict the panes that are not used by the open
+     * windows
+     */
+    private Optional<SenMLPack> closeWindows(long watermarkMs){
+
+        if(this.nextWindowStartMs.get() == UNDEFINED_TIMESTAMP || !this.closingWindows.compareAndSet(false, true))
+            return Optional.empty();
+
+        try{
+
+            SenMLPack aggregatedSenmlPack = new SenMLPack();
+
+            long windowStartMs = this.nextWindowStartMs.get();
+
+            while(windowStartMs + this.windowSizeMs <= watermarkMs){
+
+                long windowEndMs = windowStartMs + this.windowSizeMs;
+
+                ConcurrentNavigableMap<Long, AggregationPane> windowPaneMap = this.paneMap.subMap(Math.floorDiv(windowStartMs, this.paneSizeMs), true, Math.floorDiv(windowEndMs, this.paneSizeMs), false);
+
+                if(!windowPaneMap.isEmpty()){
+
+                    AggregationOperator[] windowOperators = createWindowOperators();
+                    String[] units = new String[windowOperators.length];
+
+                    //Panes before the start of the next window are merged for the last time
+                    long lastMergePaneIndex = Math.floorDiv(windowStartMs + this.windowSlideMs, this.paneSizeMs);
+
+                    for(Map.Entry<Long, AggregationPane> paneEntry : windowPaneMap.entrySet()){
+
+                        if(paneEntry.getKey() < lastMergePaneIndex)
+                            paneEntry.getValue().seal();
+
+                        paneEntry.getValue().mergeInto(windowOperators, units);
+                    }
+
+                    addAggregatedRecords(aggregatedSenmlPack, windowOperators, units, windowEndMs);
+                    closeWindowOperators(windowOperators);
+
+                    windowStartMs += this.windowSlideMs;
+                }
+                else {
+
+                    //Skip the empty windows up to the first window with values or the first open window
+                    Long firstPaneIndex = this.paneMap.ceilingKey(Math.floorDiv(windowStartMs, this.paneSizeMs));
+                    long skipTimestampMs = firstPaneIndex != null ? firstPaneIndex * this.paneSizeMs : watermarkMs;
+
+                    windowStartMs = Math.max(windowStartMs + this.windowSlideMs, getFirstWindowStartMs(skipTimestampMs));
+                }
+            }
+
+            if(windowStartMs != this.nextWindowStartMs.get()){
+                this.nextWindowStartMs.set(windowStartMs);
+                evictPanes(Math.floorDiv(windowStartMs, this.paneSizeMs));
+            }
+
+            return aggregatedSenmlPack.isEmpty() ? Optional.empty() : Optional.of(aggregatedSenmlPack);
+
+        }finally {
+            this.closingWindows.set(false);
+        }
+    }
+
+    /**
+     * Emit the sliding window ending at the timestamp and evict the panes before it
+     */
+    private Optional<SenMLPack> emitSlidingWindow(long windowEndMs){
+
+        long firstPaneIndex = getFirstSlidingPaneIndex(windowEndMs);
+
+        this.firstSlidingPaneIndex.accumulateAndGet(firstPaneIndex, Math::max);
+        evictPanes(firstPaneIndex);
+
+        AggregationOperator[] windowOperators = createWindowOperators();
+        String[] units = new String[windowOperators.length];
+
+        for(AggregationPane pane : this.paneMap.subMap(firstPaneIndex, true, Math.floorDiv(windowEndMs, this.paneSizeMs), true).values())
+            pane.mergeInto(windowOperators, units);
+
+        SenMLPack aggregatedSenmlPack = new SenMLPack();
+        addAggregatedRecords(aggregatedSenmlPack, windowOperators, units, windowEndMs);
+
+        return aggregatedSenmlPack.isEmpty() ? Optional.empty() : Optional.of(aggregatedSenmlPack);
+    }
+
+    /**
+     * Remove the panes before the index, sealing them for the adds that obtained them before the removal
+     */
+    private void evictPanes(long firstPaneIndex){
+
+        Map.Entry<Long, AggregationPane> paneEntry;
+
+        while((paneEntry = this.paneMap.firstEntry()) != null && paneEntry.getKey() < firstPaneIndex){
+            paneEntry.getValue().seal();
+            this.paneMap.remove(paneEntry.getKey(), paneEntry.getValue());
+        }
+    }
+
+    private boolean isLate(long timestampMs){
+
+        if(WINDOW_TYPE_SLIDING.equals(this.windowType)){
+
+            long paneIndex = Math.floorDiv(timestampMs, this.paneSizeMs);
+            long maxTimestampMs = this.maxEventTimestampMs.get();
+
+            //Pane evicted by the last emitted window (flushes included) or before the window of the latest timestamp
+            return paneIndex < this.firstSlidingPaneIndex.get()
+                    || (maxTimestampMs != UNDEFINED_TIMESTAMP && paneIndex < getFirstSlidingPaneIndex(maxTimestampMs));
+        }
+
+        long windowStartMs = this.nextWindowStartMs.get();
+
+        //The first record opens the first window including the allowed lateness
+        if(windowStartMs == UNDEFINED_TIMESTAMP && this.nextWindowStartMs.compareAndSet(UNDEFINED_TIMESTAMP, getFirstWindowStartMs(timestampMs - this.allowedLatenessMs)))
+            return false;
+
+        return timestampMs < this.nextWindowStartMs.get();
+    }
+
+    /**
+     * @return the index of the first pane of the sliding window ending at the timestamp
+     */
+    private long getFirstSlidingPaneIndex(long windowEndMs){
+        return Math.floorDiv(windowEndMs - this.windowSizeMs, this.paneSizeMs) + 1;
+    }
+
+    /**
+     * @return the start of the first window including the timestamp
+     */
+    private long getFirstWindowStartMs(long timestampMs){
+        return (Math.floorDiv(timestampMs - this.windowSizeMs, this.windowSlideMs) + 1) * this.windowSlideMs;
+    }
+
+    private static long gcd(long a, long b){
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    @Override
+    public String getWindowType() {
+        return windowType;
+    }
+
+    public long getWindowSizeMs() {
+        return windowSizeMs;
+    }
+
+    public long getWindowSlideMs() {
+        return windowSlideMs;
+    }
+
+    public long getAllowedLatenessMs() {
+        return allowedLatenessMs;
+    }
+
+    public long getPaneSizeMs() {
+        return paneSizeMs;
+    }
+
+    public int getPaneCount(){
+        return this.paneMap.size();
+    }
+
+    public long getLateRecordCount(){
+        return this.lateRecordCount.get();
+    }
+
+    public long getFutureRecordCount(){
+        return this.futureRecordCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("TimeWindowAggregationEngine{");
+        sb.append("targetResourceIdList=").append(targetResourceIdList);
+        sb.append(", resourceAggregationActionMap=").append(resourceAggregationActionMap);
+        sb.append(", windowType='").append(windowType).append('\'');
+        sb.append(", windowSizeMs=").append(windowSizeMs);
+        sb.append(", windowSlideMs=").append(windowSlideMs);
+        sb.append(", allowedLatenessMs=").append(allowedLatenessMs);
+        sb.append(", paneSizeMs=").append(paneSizeMs);
+        sb.append(", paneCount=").append(paneMap.size());
+        sb.append(", lateRecordCount=").append(lateRecordCount.get());
+        sb.append(", futureRecordCount=").append(futureRecordCount.get());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -1,5 +1,12 @@
 package it.unimore.dipi.iot.digitaltwin.conf;
 
+import it.unimore.dipi.iot.digitaltwin.aggregation.AggregationOperatorFactory;
+import it.unimore.dipi.iot.digitaltwin.behaviour.AlignedJoinAggregationEngine;
+import it.unimore.dipi.iot.digitaltwin.behaviour.ComposedAggregationEngine;
+import it.unimore.dipi.iot.digitaltwin.odte.AvailabilityTracker;
+import it.unimore.dipi.iot.digitaltwin.odte.TimelinessEstimatorFactory;
+import it.unimore.dipi.iot.utils.SenMLEncoding;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -17,6 +24,12 @@ public class ComposedDigitalTwinConfiguration {
 
     public static final String OBSERVATION_BUCKET_TYPE_LINEAR = "linear";
 
+    public static final int DEFAULT_ODTE_MAX_RESOURCE_WINDOW_COUNT = 1024;
+
+    public static final long DEFAULT_AGGREGATION_FLUSH_PERIOD_MS = 1000;
+
+    public static final int DEFAULT_AGGREGATION_JOIN_BUFFER_SIZE = 64;
+
     private String digitalTwinId;
 
     private String deviceIdList;
@@ -35,13 +48,41 @@ public class ComposedDigitalTwinConfiguration {
 
     private Map<String, String> resourceMap;
 
-    private String aggregationAction;
+    //Resource Map Key -> Aggregation Action of the resource (aggregationAction if not configured)
+    private Map<String, String> resourceAggregationActionMap;
+
+    private String aggregationAction = AggregationOperatorFactory.AGGREGATION_ACTION_AVG;
     private String aggregationType;
 
     private String aggregationUnit;
 
     private int aggregationWindow;
 
+    //count (aggregationWindow packs), tumbling, hopping or sliding (time windows on the SenML timestamps), join (time grid)
+    private String aggregationWindowType = ComposedAggregationEngine.WINDOW_TYPE_COUNT;
+
+    private long aggregationWindowSizeMs;
+
+    //Slide of the hopping windows, pane size of the sliding windows
+    private long aggregationWindowSlideMs;
+
+    private long aggregationAllowedLatenessMs;
+
+    //Period of the flush of the expired time windows, bounding the output latency if no more messages are received
+    private long aggregationFlushPeriodMs = DEFAULT_AGGREGATION_FLUSH_PERIOD_MS;
+
+    //Period of the time grid of the join of the device states
+    private long aggregationJoinTickMs;
+
+    //nearest or linear
+    private String aggregationJoinInterpolation = AlignedJoinAggregationEngine.INTERPOLATION_NEAREST;
+
+    //Max distance of the samples aligned to a tick, aggregationJoinTickMs if not set
+    private long aggregationJoinMaxGapMs;
+
+    //Samples buffered for each resource of each device
+    private int aggregationJoinBufferSize = DEFAULT_AGGREGATION_JOIN_BUFFER_SIZE;
+
     private String aggregationStateTopic;
 
     private double expectedMsgSec;
@@ -68,6 +109,20 @@ public class ComposedDigitalTwinConfiguration {
 
     private double odteTargetPercentile;
 
+    private String odteTimelinessEstimator = TimelinessEstimatorFactory.ESTIMATOR_TYPE_EXACT;
+
+    private double odteTimelinessErrorBound;
+
+    //Expected msg/sec of each observed resource of a single device, odteExpectedMsgSec / number of devices if missing
+    private Map<String, Double> odteResourceExpectedMsgSecMap;
+
+    private int odteMaxResourceWindowCount = DEFAULT_ODTE_MAX_RESOURCE_WINDOW_COUNT;
+
+    //Gaps longer than odteAvailabilityGapToleranceFactor expected inter-arrival times are unavailability periods
+    private double odteAvailabilityGapToleranceFactor = AvailabilityTracker.DEFAULT_GAP_TOLERANCE_FACTOR;
+
+    private String senmlPayloadEncoding = SenMLEncoding.ENCODING_DEFAULT;
+
     public ComposedDigitalTwinConfiguration() {
     }
 
@@ -161,6 +216,14 @@ public class ComposedDigitalTwinConfiguration {
         this.aggregationAction = aggregationAction;
     }
 
+    public Map<String, String> getResourceAggregationActionMap() {
+        return resourceAggregationActionMap;
+    }
+
+    public void setResourceAggregationActionMap(Map<String, String> resourceAggregationActionMap) {
+        this.resourceAggregationActionMap = resourceAggregationActionMap;
+    }
+
     public String getAggregationType() {
         return aggregationType;
     }
@@ -185,6 +248,78 @@ public class ComposedDigitalTwinConfiguration {
         this.aggregationWindow = aggregationWindow;
     }
 
+    public String getAggregationWindowType() {
+        return aggregationWindowType;
+    }
+
+    public void setAggregationWindowType(String aggregationWindowType) {
+        this.aggregationWindowType = aggregationWindowType;
+    }
+
+    public long getAggregationWindowSizeMs() {
+        return aggregationWindowSizeMs;
+    }
+
+    public void setAggregationWindowSizeMs(long aggregationWindowSizeMs) {
+        this.aggregationWindowSizeMs = aggregationWindowSizeMs;
+    }
+
+    public long getAggregationWindowSlideMs() {
+        return aggregationWindowSlideMs;
+    }
+
+    public void setAggregationWindowSlideMs(long aggregationWindowSlideMs) {
+        this.aggregationWindowSlideMs = aggregationWindowSlideMs;
+    }
+
+    public long getAggregationAllowedLatenessMs() {
+        return aggregationAllowedLatenessMs;
+    }
+
+    public void setAggregationAllowedLatenessMs(long aggregationAllowedLatenessMs) {
+        this.aggregationAllowedLatenessMs = aggregationAllowedLatenessMs;
+    }
+
+    public long getAggregationFlushPeriodMs() {
+        return aggregationFlushPeriodMs;
+    }
+
+    public void setAggregationFlushPeriodMs(long aggregationFlushPeriodMs) {
+        this.aggregationFlushPeriodMs = aggregationFlushPeriodMs;
+    }
+
+    public long getAggregationJoinTickMs() {
+        return aggregationJoinTickMs;
+    }
+
+    public void setAggregationJoinTickMs(long aggregationJoinTickMs) {
+        this.aggregationJoinTickMs = aggregationJoinTickMs;
+    }
+
+    public String getAggregationJoinInterpolation() {
+        return aggregationJoinInterpolation;
+    }
+
+    public void setAggregationJoinInterpolation(String aggregationJoinInterpolation) {
+        this.aggregationJoinInterpolation = aggregationJoinInterpolation;
+    }
+
+    public long getAggregationJoinMaxGapMs() {
+        return aggregationJoinMaxGapMs;
+    }
+
+    public void setAggregationJoinMaxGapMs(long aggregationJoinMaxGapMs) {
+        this.aggregationJoinMaxGapMs = aggregationJoinMaxGapMs;
+    }
+
+    public int getAggregationJoinBufferSize() {
+        return aggregationJoinBufferSize;
+    }
+
+    public void setAggregationJoinBufferSize(int aggregationJoinBufferSize) {
+        this.aggregationJoinBufferSize = aggregationJoinBufferSize;
+    }
+
     public String getAggregationStateTopic() {
         return aggregationStateTopic;
     }
@@ -289,6 +424,54 @@ public class ComposedDigitalTwinConfiguration {
         this.observationBucketCount = observationBucketCount;
     }
 
+    public String getOdteTimelinessEstimator() {
+        return odteTimelinessEstimator;
+    }
+
+    public void setOdteTimelinessEstimator(String odteTimelinessEstimator) {
+        this.odteTimelinessEstimator = odteTimelinessEstimator;
+    }
+
+    public double getOdteTimelinessErrorBound() {
+        return odteTimelinessErrorBound;
+    }
+
+    public void setOdteTimelinessErrorBound(double odteTimelinessErrorBound) {
+        this.odteTimelinessErrorBound = odteTimelinessErrorBound;
+    }
+
+    public Map<String, Double> getOdteResourceExpectedMsgSecMap() {
+        return odteResourceExpectedMsgSecMap;
+    }
+
+    public void setOdteResourceExpectedMsgSecMap(Map<String, Double> odteResourceExpectedMsgSecMap) {
+        this.odteResourceExpectedMsgSecMap = odteResourceExpectedMsgSecMap;
+    }
+
+    public int getOdteMaxResourceWindowCount() {
+        return odteMaxResourceWindowCount;
+    }
+
+    public void setOdteMaxResourceWindowCount(int odteMaxResourceWindowCount) {
+        this.odteMaxResourceWindowCount = odteMaxResourceWindowCount;
+    }
+
+    public double getOdteAvailabilityGapToleranceFactor() {
+        return odteAvailabilityGapToleranceFactor;
+    }
+
+    public void setOdteAvailabilityGapToleranceFactor(double odteAvailabilityGapToleranceFactor) {
+        this.odteAvailabilityGapToleranceFactor = odteAvailabilityGapToleranceFactor;
+    }
+
+    public String getSenmlPayloadEncoding() {
+        return senmlPayloadEncoding;
+    }
+
+    public void setSenmlPayloadEncoding(String senmlPayloadEncoding) {
+        this.senmlPayloadEncoding = senmlPayloadEncoding;
+    }
+
     @Override
     public String toString() {
         final StringBuffer sb = new StringBuffer("ComposedDigitalTwinConfiguration{");
@@ -301,10 +484,20 @@ public class ComposedDigitalTwinConfiguration {
         sb.append(", httpApiPort=").append(httpApiPort);
         sb.append(", prometheusHttpApiPort=").append(prometheusHttpApiPort);
         sb.append(", resourceMap=").append(resourceMap);
+        sb.append(", resourceAggregationActionMap=").append(resourceAggregationActionMap);
         sb.append(", aggregationAction='").append(aggregationAction).append('\'');
         sb.append(", aggregationType='").append(aggregationType).append('\'');
         sb.append(", aggregationUnit='").append(aggregationUnit).append('\'');
         sb.append(", aggregationWindow=").append(aggregationWindow);
+        sb.append(", aggregationWindowType='").append(aggregationWindowType).append('\'');
+        sb.append(", aggregationWindowSizeMs=").append(aggregationWindowSizeMs);
+        sb.append(", aggregationWindowSlideMs=").append(aggregationWindowSlideMs);
+        sb.append(", aggregationAllowedLatenessMs=").append(aggregationAllowedLatenessMs);
+        sb.append(", aggregationFlushPeriodMs=").append(aggregationFlushPeriodMs);
+        sb.append(", aggregationJoinTickMs=").append(aggregationJoinTickMs);
+        sb.append(", aggregationJoinInterpolation='").append(aggregationJoinInterpolation).append('\'');
+        sb.append(", aggregationJoinMaxGapMs=").append(aggregationJoinMaxGapMs);
+        sb.append(", aggregationJoinBufferSize=").append(aggregationJoinBufferSize);
         sb.append(", aggregationStateTopic='").append(aggregationStateTopic).append('\'');
         sb.append(", expectedMsgSec=").append(expectedMsgSec);
         sb.append(", observationBucketType='").append(observationBucketType).append('\'');
@@ -318,6 +511,12 @@ public class ComposedDigitalTwinConfiguration {
         sb.append(", odteDesiredTimelinessSec=").append(odteDesiredTimelinessSec);
         sb.append(", odteExpectedMsgSec=").append(odteExpectedMsgSec);
         sb.append(", odteTargetPercentile=").append(odteTargetPercentile);
+        sb.append(", odteTimelinessEstimator='").append(odteTimelinessEstimator).append('\'');
+        sb.append(", odteTimelinessErrorBound=").append(odteTimelinessErrorBound);
+        sb.append(", odteResourceExpectedMsgSecMap=").append(odteResourceExpectedMsgSecMap);
+        sb.append(", odteMaxResourceWindowCount=").append(odteMaxResourceWindowCount);
+        sb.append(", odteAvailabilityGapToleranceFactor=").append(odteAvailabilityGapToleranceFactor);
+        sb.append(", senmlPayloadEncoding='").append(senmlPayloadEncoding).append('\'');
         sb.append('}');
         return sb.toString();
     }
@@ -1,28 +1,62 @@
 package it.unimore.dipi.iot.digitaltwin.metrics;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import io.prometheus.client.Gauge;
 import io.prometheus.client.Histogram;
 import io.prometheus.client.exporter.HTTPServer;
 import it.unimore.dipi.iot.digitaltwin.conf.ComposedDigitalTwinConfiguration;
 import it.unimore.dipi.iot.digitaltwin.behaviour.DigitalTwinLifeCycleState;
+import it.unimore.dipi.iot.digitaltwin.odte.AvailabilityIntervalLog;
+import it.unimore.dipi.iot.digitaltwin.odte.AvailabilityTracker;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteEvaluator;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteManager;
 import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import it.unimore.dipi.iot.digitaltwin.odte.ResourceOdteWindow;
+import it.unimore.dipi.iot.digitaltwin.odte.TimelinessEstimatorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 /**
+ * Memory model: the configuration setters and {@link #init(String)} are called by the main thread before the
+ * Digital Twin starts, so the collectors and the cached children are published to the MQTT callback and scheduler
+ * threads by the start of those threads and are never reassigned. On the per-message path
+ * ({@link #addObservationDelaySec(ResourceMetricsContext, long, double)}) the observation is recorded on the cached
+ * children and on the ODTE window of the stream (single writer per stream) and the last observation timestamp is
+ * published with an ordered store: no map lookups and no locks are involved. The life cycle state is kept in a
+ * volatile field, so it is read without querying the gauge. Locks are taken only to create and remove the streams.
+ *
+ * The manager is also the {@link OdteEvaluator} of the Digital Twin: the ODTE can be evaluated on the windows of the
+ * streams (without publishing it) after each observation, which is notified to the observation listener
+ * (see {@link #setObservationListener(LongConsumer)}), so the life cycle reacts to the target percentile without
+ * waiting for the periodic {@link #updateOdte(long)}. The windows combined into the ODTE of the Digital Twin are kept
+ * in an immutable list replaced when a stream is created or removed.
+ *
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
  * @project wldt-digital-twin-mqtt
  * @created 23/09/2022 - 16:03
  */
-public class MetricsManager {
+public class MetricsManager implements OdteEvaluator {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricsManager.class);
 
-    private static MetricsManager instance;
+    public static final String DIGITAL_TWIN_ID_LABEL = "digital_twin_id";
+
+    public static final String RESOURCE_ID_LABEL = "resource_id";
+
+    public static final String DEVICE_ID_LABEL = "device_id";
+
+    public static final String OVERFLOW_LABEL_VALUE = "other";
+
+    public static final int RESOURCE_IDLE_EVICTION_WINDOWS = 4;
 
     private Histogram obervationDelayHistogram;
 
@@ -40,6 +74,24 @@ public class MetricsManager {
 
     private Gauge odteGauge;
 
+    private Gauge.Child digitalTwinLifeCycleStateChild;
+
+    private Gauge.Child odteTimelinessChild;
+
+    private Gauge.Child odteReliabilityChild;
+
+    private Gauge.Child odteAvailabilityChild;
+
+    private Gauge.Child odteChild;
+
+    private Gauge resourceOdteTimelinessGauge;
+
+    private Gauge resourceOdteReliabilityGauge;
+
+    private Gauge resourceOdteAvailabilityGauge;
+
+    private Gauge resourceOdteGauge;
+
     private HTTPServer httpServer;
 
     private String observationBucketType = ComposedDigitalTwinConfiguration.OBSERVATION_BUCKET_TYPE_DEFAULT;
@@ -50,21 +102,53 @@ public class MetricsManager {
 
     private int observationBucketCount = 20;
 
-    private long lastObservationTimestampMs = System.currentTimeMillis();
+    private int odteSlidingWindowSec = 30;
+
+    private double odteDesiredTimelinessSec = 1.0;
+
+    private double odteExpectedMsgSec = 1.0;
+
+    private String odteTimelinessEstimator = TimelinessEstimatorFactory.ESTIMATOR_TYPE_EXACT;
+
+    private double odteTimelinessErrorBound = 0.0;
+
+    private Map<String, Double> odteResourceExpectedMsgSecMap;
+
+    private int odteSourceDeviceCount = 1;
+
+    private int odteMaxResourceWindowCount = ComposedDigitalTwinConfiguration.DEFAULT_ODTE_MAX_RESOURCE_WINDOW_COUNT;
+
+    private double odteAvailabilityGapToleranceFactor = AvailabilityTracker.DEFAULT_GAP_TOLERANCE_FACTOR;
+
+    private volatile AvailabilityIntervalLog connectionIntervalLog;
+
+    private final AtomicLong lastObservationTimestampMs = new AtomicLong(System.currentTimeMillis());
+
+    //Windows of the streams combined into the ODTE of the Digital Twin (overflow stream excluded)
+    private volatile List<ResourceOdteWindow> combinedOdteWindowList = Collections.emptyList();
+
+    private volatile LongConsumer observationListener;
+
+    private volatile int digitalTwinLifeCycleStateValue = DigitalTwinLifeCycleState.STARTED.getValue();
 
     private String digitalTwinId;
 
-    private Cache<Long, Double> timelinessCache;
+    //Resource Id -> Source Device Id -> Stream Metrics
+    private final Map<String, Map<String, ResourceMetricsContext>> resourceMetricsContextMap = new ConcurrentHashMap<>();
+
+    private int resourceMetricsContextCount = 0;
+
+    private boolean resourceOverflowLogged = false;
 
     private MetricsManager(){
     }
 
-    public static MetricsManager getInstance(){
-
-        if(instance == null)
-            instance = new MetricsManager();
+    private static class InstanceHolder {
+        private static final MetricsManager INSTANCE = new MetricsManager();
+    }
 
-        return instance;
+    public static MetricsManager getInstance(){
+        return InstanceHolder.INSTANCE;
     }
 
     public void init(String digitalTwinId){
@@ -80,6 +164,7 @@ public class MetricsManager {
             obervationDelayHistogram = Histogram.build()
                     .name("dt_entanglement_observation_sec")
                     .help("Digital Twin Entanglement Observation [sec]")
+                    .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
                     .linearBuckets(
                             this.observationBucketStart,
                             this.observationBucketWidth,
@@ -93,6 +178,7 @@ public class MetricsManager {
             obervationDelayHistogram = Histogram.build()
                     .name("dt_entanglement_observation_sec")
                     .help("Digital Twin Entanglement Observation [sec]")
+                    .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
                     .register();
         }
 
@@ -118,11 +204,7 @@ public class MetricsManager {
                 .labelNames("digital_twin_id")
                 .register();
 
-        //Initializing internal cache for ODTE Measurements
-        timelinessCache = Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
-
+        //ODTE sliding windows are created for each observation stream (resource and source device)
         odteTimelinessGauge = Gauge.build()
                 .name("dt_odte_timeliness")
                 .help("Digital Twin ODTE Timeliness")
@@ -146,20 +228,255 @@ public class MetricsManager {
                 .help("Digital Twin ODTE Value")
                 .labelNames("digital_twin_id")
                 .register();
+
+        resourceOdteTimelinessGauge = Gauge.build()
+                .name("dt_resource_odte_timeliness")
+                .help("Digital Twin ODTE Timeliness of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
+
+        resourceOdteReliabilityGauge = Gauge.build()
+                .name("dt_resource_odte_reliability")
+                .help("Digital Twin ODTE Reliability of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
+
+        resourceOdteAvailabilityGauge = Gauge.build()
+                .name("dt_resource_odte_availability")
+                .help("Digital Twin ODTE Availability of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
+
+        resourceOdteGauge = Gauge.build()
+                .name("dt_resource_odte_value")
+                .help("Digital Twin ODTE Value of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
+
+        //Children of the Digital Twin, resolved once instead of for each update
+        digitalTwinLifeCycleStateChild = digitalTwinLifeCycleStateGauge.labels(digitalTwinId);
+        odteTimelinessChild = odteTimelinessGauge.labels(digitalTwinId);
+        odteReliabilityChild = odteReliabilityGauge.labels(digitalTwinId);
+        odteAvailabilityChild = odteAvailabilityGauge.labels(digitalTwinId);
+        odteChild = odteGauge.labels(digitalTwinId);
     }
 
-    public void addObservationDelaySec(long packetTimestamp, double newObservationDelaySec){
+    /**
+     * Add a new observation of a stream. Each stream must be updated by a single writer thread.
+     * @param resourceId observed resource (e.g. device_state)
+     * @param deviceId source device of the observation
+     */
+    public void addObservationDelaySec(String resourceId, String deviceId, long packetTimestamp, double newObservationDelaySec){
+        if(obervationDelayHistogram != null)
+            addObservationDelaySec(getResourceMetricsContext(resourceId, deviceId), packetTimestamp, newObservationDelaySec);
+    }
 
-        //long currentTimestampMs = System.currentTimeMillis();
+    /**
+     * Add a new observation of a stream resolved through {@link #getResourceMetricsContext(String, String)}.
+     * Processing steps can keep the resolved stream until it is removed (see {@link ResourceMetricsContext#isRemoved()}).
+     */
+    public void addObservationDelaySec(ResourceMetricsContext resourceMetricsContext, long packetTimestamp, double newObservationDelaySec){
 
         //TODO Remove this last observation ?
-        lastObservationTimestampMs = System.currentTimeMillis();;
+        lastObservationTimestampMs.lazySet(System.currentTimeMillis());
 
-        if(obervationDelayHistogram != null)
-            obervationDelayHistogram.observe(newObservationDelaySec);
+        resourceMetricsContext.addObservationDelaySec(packetTimestamp, newObservationDelaySec);
+
+        LongConsumer observationListener = this.observationListener;
+
+        //Read after the append, so the observation is not ahead of the evaluation (see OdteSlidingWindow)
+        if(observationListener != null)
+            observationListener.accept(System.currentTimeMillis());
+    }
+
+    /**
+     * Set the listener notified with the local time of each observation, after it has been added to the window of
+     * its stream. It is invoked by the thread adding the observation, so it must be short and must not block.
+     */
+    public void setObservationListener(LongConsumer observationListener) {
+        this.observationListener = observationListener;
+    }
+
+    @Override
+    public Optional<OdteResultDescription> evaluateOdte(long currentTimestampMs){
+        return OdteManager.getInstance().computeCombinedOdte(combinedOdteWindowList, currentTimestampMs);
+    }
+
+    @Override
+    public long getNextOdteChangeTimestampMs(long currentTimestampMs){
+        return OdteManager.getInstance().computeNextOdteChangeTimestampMs(combinedOdteWindowList, currentTimestampMs);
+    }
+
+    /**
+     * @return the metrics of the target stream, created if it has never been observed (or the overflow stream if the
+     * maximum number of streams has been reached). Metrics must be initialized.
+     */
+    public ResourceMetricsContext getResourceMetricsContext(String resourceId, String deviceId){
+
+        ResourceMetricsContext resourceMetricsContext = lookupResourceMetricsContext(resourceId, deviceId);
+
+        if(resourceMetricsContext != null)
+            return resourceMetricsContext;
+
+        return createResourceMetricsContext(resourceId, deviceId);
+    }
+
+    /**
+     * Compute the ODTE of each stream on its sliding window, publish it on the stream gauges and combine the
+     * windows into the ODTE of the Digital Twin (see {@link OdteManager#computeCombinedOdte(java.util.Collection, long)}),
+     * which is published on the Digital Twin gauges together with the physical asset uptime (combined availability).
+     * The overflow stream is excluded from the combined ODTE, since it folds an unknown number of streams with the
+     * expected message rate of a single stream. Streams without observations for
+     * {@link #RESOURCE_IDLE_EVICTION_WINDOWS} sliding windows are removed together with their labelled series.
+     * @return the combined ODTE or an empty Optional if there are no observations in the windows
+     */
+    public Optional<OdteResultDescription> updateOdte(long currentTimestampMs){
+
+        long idleEvictionMs = RESOURCE_IDLE_EVICTION_WINDOWS * TimeUnit.SECONDS.toMillis(this.odteSlidingWindowSec);
+
+        List<ResourceOdteWindow> odteWindowList = new ArrayList<>();
+
+        for(Map<String, ResourceMetricsContext> deviceMetricsContextMap : resourceMetricsContextMap.values())
+            for(ResourceMetricsContext resourceMetricsContext : deviceMetricsContextMap.values()){
+
+                ResourceOdteWindow odteWindow = resourceMetricsContext.getOdteWindow();
+
+                if(currentTimestampMs - odteWindow.getLastObservationTimestampMs() > idleEvictionMs){
+                    logger.info("PrometheusManager -> Removing idle stream: {} - {}", odteWindow.getResourceId(), odteWindow.getDeviceId());
+                    removeResourceMetricsContext(resourceMetricsContext);
+                    continue;
+                }
+
+                OdteManager.getInstance().computeResourceOdte(odteWindow, currentTimestampMs).ifPresent(resourceMetricsContext::setOdteValue);
+
+                //The overflow stream folds an unknown number of streams, its reliability is not comparable with the expected rate
+                if(!isOverflowStream(resourceMetricsContext))
+                    odteWindowList.add(odteWindow);
+            }
+
+        Optional<OdteResultDescription> combinedOdteOptional = OdteManager.getInstance().computeCombinedOdte(odteWindowList, currentTimestampMs);
+
+        if(combinedOdteOptional.isPresent()){
+            setDigitalTwinOdteValue(combinedOdteOptional.get());
+            setPhysicalAssetUptimeValue(combinedOdteOptional.get().getAvailability());
+        }
+        else
+            OdteManager.getInstance().computeCombinedAvailability(odteWindowList, currentTimestampMs).ifPresent(this::setPhysicalAssetUptimeValue);
+
+        return combinedOdteOptional;
+    }
+
+    public synchronized int getResourceMetricsContextCount() {
+        return resourceMetricsContextCount;
+    }
+
+    private ResourceMetricsContext lookupResourceMetricsContext(String resourceId, String deviceId){
+        Map<String, ResourceMetricsContext> deviceMetricsContextMap = resourceMetricsContextMap.get(resourceId);
+        return deviceMetricsContextMap != null ? deviceMetricsContextMap.get(deviceId) : null;
+    }
+
+    private void updateCombinedOdteWindowList(){
+
+        List<ResourceOdteWindow> odteWindowList = new ArrayList<>();
+
+        for(Map<String, ResourceMetricsContext> deviceMetricsContextMap : resourceMetricsContextMap.values())
+            for(ResourceMetricsContext resourceMetricsContext : deviceMetricsContextMap.values())
+                if(!isOverflowStream(resourceMetricsContext))
+                    odteWindowList.add(resourceMetricsContext.getOdteWindow());
+
+        this.combinedOdteWindowList = Collections.unmodifiableList(odteWindowList);
+    }
+
+    private static boolean isOverflowStream(ResourceMetricsContext resourceMetricsContext){
+        return OVERFLOW_LABEL_VALUE.equals(resourceMetricsContext.getResourceId()) && OVERFLOW_LABEL_VALUE.equals(resourceMetricsContext.getDeviceId());
+    }
+
+    private synchronized ResourceMetricsContext createResourceMetricsContext(String resourceId, String deviceId){
+
+        ResourceMetricsContext resourceMetricsContext = lookupResourceMetricsContext(resourceId, deviceId);
+
+        if(resourceMetricsContext != null)
+            return resourceMetricsContext;
+
+        if(resourceMetricsContextCount >= this.odteMaxResourceWindowCount){
+
+            if(!resourceOverflowLogged){
+                logger.warn("PrometheusManager -> Max stream count reached ({}) ! Tracking new streams as: {}", resourceMetricsContextCount, OVERFLOW_LABEL_VALUE);
+                resourceOverflowLogged = true;
+            }
+
+            resourceId = OVERFLOW_LABEL_VALUE;
+            deviceId = OVERFLOW_LABEL_VALUE;
+
+            resourceMetricsContext = lookupResourceMetricsContext(resourceId, deviceId);
+
+            if(resourceMetricsContext != null)
+                return resourceMetricsContext;
+        }
+
+        ResourceOdteWindow odteWindow = ResourceOdteWindow.create(resourceId,
+                deviceId,
+                this.odteSlidingWindowSec,
+                this.odteDesiredTimelinessSec,
+                getResourceExpectedMsgSec(resourceId),
+                this.odteTimelinessEstimator,
+                this.odteTimelinessErrorBound,
+                this.odteAvailabilityGapToleranceFactor,
+                this.connectionIntervalLog);
+
+        resourceMetricsContext = new ResourceMetricsContext(odteWindow,
+                obervationDelayHistogram.labels(this.digitalTwinId, resourceId, deviceId),
+                resourceOdteTimelinessGauge.labels(this.digitalTwinId, resourceId, deviceId),
+                resourceOdteReliabilityGauge.labels(this.digitalTwinId, resourceId, deviceId),
+                resourceOdteAvailabilityGauge.labels(this.digitalTwinId, resourceId, deviceId),
+                resourceOdteGauge.labels(this.digitalTwinId, resourceId, deviceId));
+
+        resourceMetricsContextMap.computeIfAbsent(resourceId, key -> new ConcurrentHashMap<>()).put(deviceId, resourceMetricsContext);
+        resourceMetricsContextCount++;
+        updateCombinedOdteWindowList();
+
+        logger.info("PrometheusManager -> New stream: {}", odteWindow);
+
+        return resourceMetricsContext;
+    }
+
+    private synchronized void removeResourceMetricsContext(ResourceMetricsContext resourceMetricsContext){
+
+        String resourceId = resourceMetricsContext.getResourceId();
+        String deviceId = resourceMetricsContext.getDeviceId();
+
+        Map<String, ResourceMetricsContext> deviceMetricsContextMap = resourceMetricsContextMap.get(resourceId);
+
+        if(deviceMetricsContextMap == null || !deviceMetricsContextMap.remove(deviceId, resourceMetricsContext))
+            return;
 
-        if(timelinessCache != null)
-            timelinessCache.put(packetTimestamp, newObservationDelaySec);
+        resourceMetricsContext.markRemoved();
+
+        if(deviceMetricsContextMap.isEmpty())
+            resourceMetricsContextMap.remove(resourceId);
+
+        resourceMetricsContextCount--;
+        updateCombinedOdteWindowList();
+
+        obervationDelayHistogram.remove(this.digitalTwinId, resourceId, deviceId);
+        resourceOdteTimelinessGauge.remove(this.digitalTwinId, resourceId, deviceId);
+        resourceOdteReliabilityGauge.remove(this.digitalTwinId, resourceId, deviceId);
+        resourceOdteAvailabilityGauge.remove(this.digitalTwinId, resourceId, deviceId);
+        resourceOdteGauge.remove(this.digitalTwinId, resourceId, deviceId);
+    }
+
+    /**
+     * @return the configured rate of the resource or the expected rate of the Digital Twin split among the source devices
+     */
+    private double getResourceExpectedMsgSec(String resourceId){
+
+        if(this.odteResourceExpectedMsgSecMap != null){
+            Double resourceExpectedMsgSec = this.odteResourceExpectedMsgSecMap.get(resourceId);
+            if(resourceExpectedMsgSec != null && resourceExpectedMsgSec > 0.0)
+                return resourceExpectedMsgSec;
+        }
+
+        return this.odteExpectedMsgSec / Math.max(1, this.odteSourceDeviceCount);
     }
 
     public void setExpectedMessageRateValue(double newExpectedMessageRateValue){
@@ -173,16 +490,19 @@ public class MetricsManager {
     }
 
     public void setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState digitalTwinLifeCycleState){
-        if(digitalTwinLifeCycleStateGauge != null)
-            digitalTwinLifeCycleStateGauge.labels(this.digitalTwinId).set(digitalTwinLifeCycleState.getValue());
+
+        digitalTwinLifeCycleStateValue = digitalTwinLifeCycleState.getValue();
+
+        if(digitalTwinLifeCycleStateChild != null)
+            digitalTwinLifeCycleStateChild.set(digitalTwinLifeCycleState.getValue());
     }
 
     public void setDigitalTwinOdteValue(OdteResultDescription odteResultDescription){
-        if(odteResultDescription != null) {
-            odteTimelinessGauge.labels(this.digitalTwinId).set(odteResultDescription.getTimeliness());
-            odteReliabilityGauge.labels(this.digitalTwinId).set(odteResultDescription.getReliability());
-            odteAvailabilityGauge.labels(this.digitalTwinId).set(odteResultDescription.getAvailability());
-            odteGauge.labels(this.digitalTwinId).set(odteResultDescription.getOdte());
+        if(odteResultDescription != null && odteChild != null) {
+            odteTimelinessChild.set(odteResultDescription.getTimeliness());
+            odteReliabilityChild.set(odteResultDescription.getReliability());
+            odteAvailabilityChild.set(odteResultDescription.getAvailability());
+            odteChild.set(odteResultDescription.getOdte());
         }
     }
 
@@ -199,7 +519,7 @@ public class MetricsManager {
     }
 
     public int getDigitalTwinLifeCycleStateGaugeValue() {
-        return (int)digitalTwinLifeCycleStateGauge.labels(this.digitalTwinId).get();
+        return digitalTwinLifeCycleStateValue;
     }
 
     public void exposeHttpServer(int targetPort){
@@ -232,10 +552,6 @@ public class MetricsManager {
         }
     }
 
-    public Cache<Long, Double> getTimelinessCache() {
-        return timelinessCache;
-    }
-
     public double getObservationBucketStart() {
         return observationBucketStart;
     }
@@ -268,7 +584,91 @@ public class MetricsManager {
         this.observationBucketType = observationBucketType;
     }
 
+    public int getOdteSlidingWindowSec() {
+        return odteSlidingWindowSec;
+    }
+
+    public void setOdteSlidingWindowSec(int odteSlidingWindowSec) {
+        this.odteSlidingWindowSec = odteSlidingWindowSec;
+    }
+
+    public double getOdteDesiredTimelinessSec() {
+        return odteDesiredTimelinessSec;
+    }
+
+    public void setOdteDesiredTimelinessSec(double odteDesiredTimelinessSec) {
+        this.odteDesiredTimelinessSec = odteDesiredTimelinessSec;
+    }
+
+    public double getOdteExpectedMsgSec() {
+        return odteExpectedMsgSec;
+    }
+
+    public void setOdteExpectedMsgSec(double odteExpectedMsgSec) {
+        this.odteExpectedMsgSec = odteExpectedMsgSec;
+    }
+
+    public String getOdteTimelinessEstimator() {
+        return odteTimelinessEstimator;
+    }
+
+    public void setOdteTimelinessEstimator(String odteTimelinessEstimator) {
+        this.odteTimelinessEstimator = odteTimelinessEstimator;
+    }
+
+    public double getOdteTimelinessErrorBound() {
+        return odteTimelinessErrorBound;
+    }
+
+    public void setOdteTimelinessErrorBound(double odteTimelinessErrorBound) {
+        this.odteTimelinessErrorBound = odteTimelinessErrorBound;
+    }
+
+    public Map<String, Double> getOdteResourceExpectedMsgSecMap() {
+        return odteResourceExpectedMsgSecMap;
+    }
+
+    public void setOdteResourceExpectedMsgSecMap(Map<String, Double> odteResourceExpectedMsgSecMap) {
+        this.odteResourceExpectedMsgSecMap = odteResourceExpectedMsgSecMap;
+    }
+
+    public int getOdteSourceDeviceCount() {
+        return odteSourceDeviceCount;
+    }
+
+    public void setOdteSourceDeviceCount(int odteSourceDeviceCount) {
+        this.odteSourceDeviceCount = odteSourceDeviceCount;
+    }
+
+    public double getOdteAvailabilityGapToleranceFactor() {
+        return odteAvailabilityGapToleranceFactor;
+    }
+
+    public void setOdteAvailabilityGapToleranceFactor(double odteAvailabilityGapToleranceFactor) {
+        this.odteAvailabilityGapToleranceFactor = odteAvailabilityGapToleranceFactor;
+    }
+
+    public AvailabilityIntervalLog getConnectionIntervalLog() {
+        return connectionIntervalLog;
+    }
+
+    /**
+     * Set the log of the disconnections of the broker delivering the observations. It is applied to the streams
+     * created after the call, so it should be set before the Digital Twin starts receiving observations.
+     */
+    public void setConnectionIntervalLog(AvailabilityIntervalLog connectionIntervalLog) {
+        this.connectionIntervalLog = connectionIntervalLog;
+    }
+
+    public int getOdteMaxResourceWindowCount() {
+        return odteMaxResourceWindowCount;
+    }
+
+    public void setOdteMaxResourceWindowCount(int odteMaxResourceWindowCount) {
+        this.odteMaxResourceWindowCount = odteMaxResourceWindowCount;
+    }
+
     public long getLastObservationTimestampMs() {
-        return lastObservationTimestampMs;
+        return lastObservationTimestampMs.get();
     }
 }
@@ -0,0 +1,95 @@
+package it.unimore.dipi.iot.digitaltwin.metrics;
+
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import it.unimore.dipi.iot.digitaltwin.odte.ResourceOdteWindow;
+
+/**
+ * Metrics of a single observation stream of a Digital Twin, identified by the resource and the source device: the
+ * ODTE sliding window of the stream and the children of the shared collectors labelled with digital_twin_id,
+ * resource_id and device_id. Instances are created on the first observation of the stream through
+ * {@link MetricsManager#getResourceMetricsContext(String, String)} and removed when the stream is idle: processing
+ * steps can keep the resolved instance to skip the lookup for each message, resolving it again once it is removed.
+ *
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 18/10/2026 - 18:40
+ */
+public class ResourceMetricsContext {
+
+    private final ResourceOdteWindow odteWindow;
+
+    private final Histogram.Child observationDelayHistogram;
+
+    private final Gauge.Child odteTimelinessGauge;
+
+    private final Gauge.Child odteReliabilityGauge;
+
+    private final Gauge.Child odteAvailabilityGauge;
+
+    private final Gauge.Child odteGauge;
+
+    private volatile boolean removed = false;
+
+    ResourceMetricsContext(ResourceOdteWindow odteWindow,
+                           Histogram.Child observationDelayHistogram,
+                           Gauge.Child odteTimelinessGauge,
+                           Gauge.Child odteReliabilityGauge,
+                           Gauge.Child odteAvailabilityGauge,
+                           Gauge.Child odteGauge) {
+        this.odteWindow = odteWindow;
+        this.observationDelayHistogram = observationDelayHistogram;
+        this.odteTimelinessGauge = odteTimelinessGauge;
+        this.odteReliabilityGauge = odteReliabilityGauge;
+        this.odteAvailabilityGauge = odteAvailabilityGauge;
+        this.odteGauge = odteGauge;
+    }
+
+    /**
+     * Add a new observation of the stream. Must be called by a single writer thread (the MQTT callback thread).
+     */
+    public void addObservationDelaySec(long packetTimestamp, double newObservationDelaySec){
+        observationDelayHistogram.observe(newObservationDelaySec);
+        odteWindow.addObservation(packetTimestamp, newObservationDelaySec);
+    }
+
+    public void setOdteValue(OdteResultDescription odteResultDescription){
+        if(odteResultDescription != null) {
+            odteTimelinessGauge.set(odteResultDescription.getTimeliness());
+            odteReliabilityGauge.set(odteResultDescription.getReliability());
+            odteAvailabilityGauge.set(odteResultDescription.getAvailability());
+            odteGauge.set(odteResultDescription.getOdte());
+        }
+    }
+
+    /**
+     * @return true if the stream has been removed by the MetricsManager (its observations are no longer tracked)
+     */
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    void markRemoved() {
+        this.removed = true;
+    }
+
+    public String getResourceId() {
+        return odteWindow.getResourceId();
+    }
+
+    public String getDeviceId() {
+        return odteWindow.getDeviceId();
+    }
+
+    public ResourceOdteWindow getOdteWindow() {
+        return odteWindow;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("ResourceMetricsContext{");
+        sb.append("odteWindow=").append(odteWindow);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,310 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+/**
+ * Compact log of the intervals in which an observation source was unavailable (gaps in the received observations
+ * or broker disconnections).
+ *
+ * Intervals are stored in fixed size arrays of start timestamps, end timestamps and unavailable times used as a ring
+ * buffer ordered by start time, so the memory of the log is constant and evaluating the unavailable time of a window
+ * costs at most capacity steps. Overlapping intervals are merged when added and intervals ended before the retention period are dropped.
+ *
+ * When the log is full, the two adjacent intervals (the new one included) with the shortest merged span are
+ * coalesced. Each interval keeps its exact unavailable time, so a coalesced interval does not account the gaps
+ * between the merged intervals as unavailable: it is reported as its unavailable time (pro-rated when clipped to the
+ * evaluated range) placed at the end of its span. The merged span is at most about 2 * retention / capacity (the log
+ * only holds the intervals of the retention period), so coalesced intervals expire as the others and the error is
+ * limited to the position of the unavailable time within a short span, instead of growing with the time.
+ *
+ * An interval can be left open (e.g. while the broker connection is down) and it is accounted until the end of the
+ * evaluated range. Writers and readers can be different threads: the log is synchronized, since it is updated only
+ * when an unavailability is detected.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 20:10
+ */
+public class AvailabilityIntervalLog {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final long NO_OPEN_INTERVAL = -1;
+
+    private final long[] intervalStartMs;
+
+    private final long[] intervalEndMs;
+
+    //Unavailable time within [start, end), shorter than the span for coalesced intervals
+    private final long[] intervalUnavailableMs;
+
+    private final long retentionMs;
+
+    //Index of the oldest interval
+    private int head = 0;
+
+    private int size = 0;
+
+    private long openIntervalStartMs = NO_OPEN_INTERVAL;
+
+    private long coalescedIntervalCount = 0;
+
+    public AvailabilityIntervalLog(long retentionMs) {
+        this(DEFAULT_CAPACITY, retentionMs);
+    }
+
+    public AvailabilityIntervalLog(int capacity, long retentionMs) {
+
+        if(capacity <= 0)
+            throw new IllegalArgumentException(String.format("Invalid Interval Log Capacity: %d", capacity));
+
+        this.intervalStartMs = new long[capacity];
+        this.intervalEndMs = new long[capacity];
+        this.intervalUnavailableMs = new long[capacity];
+        this.retentionMs = retentionMs;
+    }
+
+    /**
+     * Add a closed unavailability interval [startMs, endMs)
+     */
+    public synchronized void addInterval(long startMs, long endMs){
+
+        if(endMs <= startMs)
+            return;
+
+        //Drop the intervals that can no longer be part of an evaluated window
+        while(this.size > 0 && this.intervalEndMs[this.head] < startMs - this.retentionMs){
+            this.head = (this.head + 1) % this.intervalStartMs.length;
+            this.size--;
+        }
+
+        if(this.size > 0){
+
+            int newest = (this.head + this.size - 1) % this.intervalStartMs.length;
+
+            //Overlapping (or out of order) interval: merge with the newest one, adding the time not already covered
+            if(startMs <= this.intervalEndMs[newest]){
+
+                long addedMs = Math.max(0, endMs - this.intervalEndMs[newest]) + Math.max(0, this.intervalStartMs[newest] - startMs);
+
+                this.intervalStartMs[newest] = Math.min(this.intervalStartMs[newest], startMs);
+                this.intervalEndMs[newest] = Math.max(this.intervalEndMs[newest], endMs);
+                this.intervalUnavailableMs[newest] = Math.min(this.intervalEndMs[newest] - this.intervalStartMs[newest], this.intervalUnavailableMs[newest] + addedMs);
+                return;
+            }
+
+            //Full log: coalesce the two adjacent intervals with the shortest merged span
+            if(this.size == this.intervalStartMs.length){
+
+                this.coalescedIntervalCount++;
+
+                if(!coalesceShortestSpanIntervals(endMs - this.intervalStartMs[newest])){
+                    this.intervalEndMs[newest] = endMs;
+                    this.intervalUnavailableMs[newest] += endMs - startMs;
+                    return;
+                }
+            }
+        }
+
+        int tail = (this.head + this.size) % this.intervalStartMs.length;
+        this.intervalStartMs[tail] = startMs;
+        this.intervalEndMs[tail] = endMs;
+        this.intervalUnavailableMs[tail] = endMs - startMs;
+        this.size++;
+    }
+
+    /**
+     * Merge the two adjacent intervals of the log with the shortest merged span, making room for a new interval
+     * @param newIntervalSpanMs span of the newest interval merged with the new one
+     * @return false (log unchanged) if the newest interval merged with the new one has the shortest span
+     */
+    private boolean coalesceShortestSpanIntervals(long newIntervalSpanMs){
+
+        int capacity = this.intervalStartMs.length;
+
+        //Position (from the head) of the first interval of the pair
+        int shortestPosition = -1;
+        long shortestSpanMs = newIntervalSpanMs;
+
+        for(int i = 0; i < this.size - 1; i++){
+
+            long spanMs = this.intervalEndMs[(this.head + i + 1) % capacity] - this.intervalStartMs[(this.head + i) % capacity];
+
+            if(spanMs < shortestSpanMs){
+                shortestSpanMs = spanMs;
+                shortestPosition = i;
+            }
+        }
+
+        if(shortestPosition < 0)
+            return false;
+
+        int first = (this.head + shortestPosition) % capacity;
+        int second = (this.head + shortestPosition + 1) % capacity;
+
+        this.intervalEndMs[first] = this.intervalEndMs[second];
+        this.intervalUnavailableMs[first] += this.intervalUnavailableMs[second];
+
+        //Shift the newer intervals to close the hole
+        for(int i = shortestPosition + 1; i < this.size - 1; i++){
+            int to = (this.head + i) % capacity;
+            int from = (this.head + i + 1) % capacity;
+            this.intervalStartMs[to] = this.intervalStartMs[from];
+            this.intervalEndMs[to] = this.intervalEndMs[from];
+            this.intervalUnavailableMs[to] = this.intervalUnavailableMs[from];
+        }
+
+        this.size--;
+
+        return true;
+    }
+
+    /**
+     * Open an unavailability interval (e.g. connection lost). No effect if an interval is already open.
+     */
+    public synchronized void openInterval(long startMs){
+        if(this.openIntervalStartMs == NO_OPEN_INTERVAL)
+            this.openIntervalStartMs = startMs;
+    }
+
+    /**
+     * Close the open unavailability interval (e.g. connection restored). No effect if no interval is open.
+     */
+    public synchronized void closeInterval(long endMs){
+        if(this.openIntervalStartMs != NO_OPEN_INTERVAL){
+            long startMs = this.openIntervalStartMs;
+            this.openIntervalStartMs = NO_OPEN_INTERVAL;
+            addInterval(startMs, endMs);
+        }
+    }
+
+    public synchronized boolean isIntervalOpen(){
+        return this.openIntervalStartMs != NO_OPEN_INTERVAL;
+    }
+
+    /**
+     * Copy the intervals overlapping [fromMs, toMs), clipped to the range, into the target arrays
+     * @param offset first free position of the target arrays (which must have room for {@link #getCapacity()} + 1 intervals)
+     * @return the new first free position of the target arrays
+     */
+    public synchronized int collectIntervals(long fromMs, long toMs, long[] targetStartMs, long[] targetEndMs, int offset){
+
+        for(int i = 0; i < this.size; i++){
+
+            int index = (this.head + i) % this.intervalStartMs.length;
+
+            long startMs = Math.max(fromMs, this.intervalStartMs[index]);
+            long endMs = Math.min(toMs, this.intervalEndMs[index]);
+
+            if(startMs < endMs){
+
+                long spanMs = this.intervalEndMs[index] - this.intervalStartMs[index];
+
+                //Coalesced interval: pro-rated unavailable time at the end of the clipped span
+                if(this.intervalUnavailableMs[index] < spanMs)
+                    startMs = endMs - Math.round((double) this.intervalUnavailableMs[index] * (double) (endMs - startMs) / (double) spanMs);
+
+                if(startMs < endMs){
+                    targetStartMs[offset] = startMs;
+                    targetEndMs[offset] = endMs;
+                    offset++;
+                }
+            }
+        }
+
+        if(this.openIntervalStartMs != NO_OPEN_INTERVAL && this.openIntervalStartMs < toMs){
+            targetStartMs[offset] = Math.max(fromMs, this.openIntervalStartMs);
+            targetEndMs[offset] = toMs;
+            offset++;
+        }
+
+        return offset;
+    }
+
+    /**
+     * @return the fraction of [fromMs, toMs) not covered by the intervals of the log
+     */
+    public double computeAvailability(long fromMs, long toMs){
+
+        if(toMs <= fromMs)
+            return 1.0;
+
+        long[] startMs = new long[getCapacity() + 1];
+        long[] endMs = new long[getCapacity() + 1];
+
+        int count = collectIntervals(fromMs, toMs, startMs, endMs, 0);
+
+        return 1.0 - (double) unionLengthMs(startMs, endMs, count) / (double) (toMs - fromMs);
+    }
+
+    /**
+     * Total length of the union of the target intervals. The arrays are sorted in place by start time.
+     */
+    public static long unionLengthMs(long[] startMs, long[] endMs, int count){
+
+        //Insertion sort: few intervals, already sorted within each log
+        for(int i = 1; i < count; i++){
+
+            long start = startMs[i];
+            long end = endMs[i];
+
+            int j = i - 1;
+            while(j >= 0 && startMs[j] > start){
+                startMs[j + 1] = startMs[j];
+                endMs[j + 1] = endMs[j];
+                j--;
+            }
+
+            startMs[j + 1] = start;
+            endMs[j + 1] = end;
+        }
+
+        long unionLengthMs = 0;
+        long currentStartMs = 0;
+        long currentEndMs = Long.MIN_VALUE;
+
+        for(int i = 0; i < count; i++){
+
+            if(startMs[i] > currentEndMs){
+
+                if(currentEndMs != Long.MIN_VALUE)
+                    unionLengthMs += currentEndMs - currentStartMs;
+
+                currentStartMs = startMs[i];
+                currentEndMs = endMs[i];
+            }
+            else
+                currentEndMs = Math.max(currentEndMs, endMs[i]);
+        }
+
+        if(currentEndMs != Long.MIN_VALUE)
+            unionLengthMs += currentEndMs - currentStartMs;
+
+        return unionLengthMs;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return intervalStartMs.length;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    public synchronized long getCoalescedIntervalCount() {
+        return coalescedIntervalCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuffer sb = new StringBuffer("AvailabilityIntervalLog{");
+        sb.append("capacity=").append(intervalStartMs.length);
+        sb.append(", retentionMs=").append(retentionMs);
+        sb.append(", size=").append(size);
+        sb.append(", openIntervalStartMs=").append(openIntervalStartMs);
+        sb.append(", coalescedIntervalCount=").append(coalescedIntervalCount);
+        sb.append('}');
+        return sb.toString();
+    }
+}
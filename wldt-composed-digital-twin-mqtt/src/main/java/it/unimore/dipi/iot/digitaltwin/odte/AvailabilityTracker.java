@@ -0,0 +1,139 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+/**
+ * Availability of an observation stream computed from the observed data. The stream is considered unavailable:
+ *
+ * - during the gaps between consecutive observations longer than the gap tolerance (a multiple of the expected
+ *   inter-arrival time 1/expectedMsgSec), starting from the expected arrival of the first missing observation;
+ * - during the gap still open after the last observation, once it is longer than the gap tolerance;
+ * - during the disconnections of the broker delivering the observations, tracked by a connection log shared by the
+ *   streams received through the same connection (see {@link MqttConnectionAvailabilityMonitor}).
+ *
+ * The availability is the fraction of the sliding window (or of the tracking time if shorter) not covered by the
+ * union of the intervals. Observation gaps are detected by the writer thread with a single comparison for each
+ * observation and stored only when found, so the cost of each evaluation is bounded by the capacity of the logs.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 20:30
+ */
+public class AvailabilityTracker {
+
+    public static final double DEFAULT_GAP_TOLERANCE_FACTOR = 3.0;
+
+    private final long expectedInterArrivalMs;
+
+    private final long gapToleranceMs;
+
+    private final long slidingWindowMs;
+
+    private final AvailabilityIntervalLog gapIntervalLog;
+
+    private final AvailabilityIntervalLog connectionIntervalLog;
+
+    private final long trackingStartTimestampMs;
+
+    private volatile long lastArrivalTimestampMs;
+
+    //Evaluation buffers (reader side only)
+    private final long[] intervalStartMs;
+
+    private final long[] intervalEndMs;
+
+    /**
+     * @param expectedMsgSec expected rate of the stream (gaps are not tracked if <= 0.0)
+     * @param gapToleranceFactor gaps longer than gapToleranceFactor expected inter-arrival times are unavailability periods
+     * @param connectionIntervalLog log of the disconnections of the source broker (nullable)
+     */
+    public AvailabilityTracker(long slidingWindowMs,
+                               double expectedMsgSec,
+                               double gapToleranceFactor,
+                               AvailabilityIntervalLog connectionIntervalLog,
+                               long trackingStartTimestampMs) {
+
+        this.expectedInterArrivalMs = expectedMsgSec > 0.0 ? Math.max(1, Math.round(1000.0 / expectedMsgSec)) : Long.MAX_VALUE;
+        this.gapToleranceMs = expectedMsgSec > 0.0 ? Math.max(this.expectedInterArrivalMs, Math.round(this.expectedInterArrivalMs * gapToleranceFactor)) : Long.MAX_VALUE;
+        this.slidingWindowMs = slidingWindowMs;
+        this.gapIntervalLog = new AvailabilityIntervalLog(slidingWindowMs);
+        this.connectionIntervalLog = connectionIntervalLog;
+        this.trackingStartTimestampMs = trackingStartTimestampMs;
+        this.lastArrivalTimestampMs = trackingStartTimestampMs;
+
+        int capacity = this.gapIntervalLog.getCapacity() + 2 + (connectionIntervalLog != null ? connectionIntervalLog.getCapacity() + 1 : 0);
+        this.intervalStartMs = new long[capacity];
+        this.intervalEndMs = new long[capacity];
+    }
+
+    /**
+     * Track a new observation received at the local time arrivalTimestampMs. Must be called by a single writer thread.
+     */
+    public void addArrival(long arrivalTimestampMs){
+
+        long lastArrivalTimestampMs = this.lastArrivalTimestampMs;
+
+        if(arrivalTimestampMs - lastArrivalTimestampMs > this.gapToleranceMs)
+            this.gapIntervalLog.addInterval(lastArrivalTimestampMs + this.expectedInterArrivalMs, arrivalTimestampMs);
+
+        this.lastArrivalTimestampMs = arrivalTimestampMs;
+    }
+
+    /**
+     * @return the availability of the stream in the sliding window ending at currentTimestampMs
+     */
+    public synchronized double computeAvailability(long currentTimestampMs){
+
+        long fromMs = Math.max(currentTimestampMs - this.slidingWindowMs, this.trackingStartTimestampMs);
+
+        if(currentTimestampMs <= fromMs)
+            return 1.0;
+
+        int count = this.gapIntervalLog.collectIntervals(fromMs, currentTimestampMs, this.intervalStartMs, this.intervalEndMs, 0);
+
+        //Gap still open after the last observation
+        long lastArrivalTimestampMs = this.lastArrivalTimestampMs;
+
+        if(currentTimestampMs - lastArrivalTimestampMs > this.gapToleranceMs){
+            this.intervalStartMs[count] = Math.max(fromMs, lastArrivalTimestampMs + this.expectedInterArrivalMs);
+            this.intervalEndMs[count] = currentTimestampMs;
+            count++;
+        }
+
+        if(this.connectionIntervalLog != null)
+            count = this.connectionIntervalLog.collectIntervals(fromMs, currentTimestampMs, this.intervalStartMs, this.intervalEndMs, count);
+
+        long unavailableMs = AvailabilityIntervalLog.unionLengthMs(this.intervalStartMs, this.intervalEndMs, count);
+
+        return Math.max(0.0, 1.0 - (double) unavailableMs / (double) (currentTimestampMs - fromMs));
+    }
+
+    public long getExpectedInterArrivalMs() {
+        return expectedInterArrivalMs;
+    }
+
+    public long getGapToleranceMs() {
+        return gapToleranceMs;
+    }
+
+    public long getLastArrivalTimestampMs() {
+        return lastArrivalTimestampMs;
+    }
+
+    public AvailabilityIntervalLog getGapIntervalLog() {
+        return gapIntervalLog;
+    }
+
+    public AvailabilityIntervalLog getConnectionIntervalLog() {
+        return connectionIntervalLog;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("AvailabilityTracker{");
+        sb.append("expectedInterArrivalMs=").append(expectedInterArrivalMs);
+        sb.append(", gapToleranceMs=").append(gapToleranceMs);
+        sb.append(", slidingWindowMs=").append(slidingWindowMs);
+        sb.append(", gapIntervalLog=").append(gapIntervalLog);
+        sb.append(", lastArrivalTimestampMs=").append(lastArrivalTimestampMs);
+        sb.append('}');
+        return sb.toString();
+    }
+}
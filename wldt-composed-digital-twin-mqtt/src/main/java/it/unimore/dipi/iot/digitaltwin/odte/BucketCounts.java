@@ -0,0 +1,72 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import java.util.Arrays;
+
+/**
+ * Fixed number of bucket counters backed by a Fenwick (binary indexed) tree in order to update a bucket and to
+ * compute the cumulative count of the first buckets in O(log(bucketCount)), independently of the number of
+ * observations.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 14:20
+ */
+class BucketCounts {
+
+    private final long[] counts;
+
+    //1-based Fenwick tree
+    private final long[] tree;
+
+    private long totalCount = 0;
+
+    BucketCounts(int bucketCount) {
+        this.counts = new long[bucketCount];
+        this.tree = new long[bucketCount + 1];
+    }
+
+    void add(int bucketIndex, long delta){
+
+        this.counts[bucketIndex] += delta;
+        this.totalCount += delta;
+
+        for(int i = bucketIndex + 1; i < this.tree.length; i += i & (-i))
+            this.tree[i] += delta;
+    }
+
+    long getCount(int bucketIndex){
+        return this.counts[bucketIndex];
+    }
+
+    /**
+     * @return the sum of the counts of the buckets in [0, bucketIndex)
+     */
+    long cumulativeCount(int bucketIndex){
+
+        long sum = 0;
+
+        for(int i = Math.min(bucketIndex, this.counts.length); i > 0; i -= i & (-i))
+            sum += this.tree[i];
+
+        return sum;
+    }
+
+    void merge(BucketCounts other){
+        for(int i = 0; i < other.counts.length; i++)
+            if(other.counts[i] != 0)
+                add(i, other.counts[i]);
+    }
+
+    void clear(){
+        Arrays.fill(this.counts, 0);
+        Arrays.fill(this.tree, 0);
+        this.totalCount = 0;
+    }
+
+    int getBucketCount(){
+        return this.counts.length;
+    }
+
+    long getTotalCount(){
+        return this.totalCount;
+    }
+}
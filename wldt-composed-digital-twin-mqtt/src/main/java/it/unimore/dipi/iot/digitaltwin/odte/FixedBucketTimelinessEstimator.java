@@ -0,0 +1,126 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+/**
+ * Timeliness estimator counting the observations in fixed width buckets starting from 0.0 sec, with a final
+ * overflow bucket for the observations greater than the maximum tracked value. Negative delays (e.g. due to
+ * clock skew) are counted in the first bucket.
+ *
+ * The absolute error on the evaluated threshold is bounded by the bucket width: only the observations falling in
+ * the same bucket of the desired timeliness are not counted. The estimation is exact when the desired timeliness
+ * is a multiple of the bucket width.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 14:30
+ */
+public class FixedBucketTimelinessEstimator implements TimelinessEstimator {
+
+    public static final double DEFAULT_BUCKET_WIDTH_SEC = 0.001;
+
+    public static final double DEFAULT_MAX_TRACKED_VALUE_SEC = 60.0;
+
+    private static final int MAX_BUCKET_COUNT = 1 << 24;
+
+    private final double bucketWidthSec;
+
+    private final double maxTrackedValueSec;
+
+    private final BucketCounts bucketCounts;
+
+    public FixedBucketTimelinessEstimator(double bucketWidthSec) {
+        this(bucketWidthSec, DEFAULT_MAX_TRACKED_VALUE_SEC);
+    }
+
+    public FixedBucketTimelinessEstimator(double bucketWidthSec, double maxTrackedValueSec) {
+
+        if(bucketWidthSec <= 0.0 || maxTrackedValueSec <= 0.0)
+            throw new IllegalArgumentException(String.format("Invalid bucket width (%f) or max tracked value (%f) !", bucketWidthSec, maxTrackedValueSec));
+
+        double trackedBucketCount = Math.ceil(maxTrackedValueSec / bucketWidthSec);
+
+        if(trackedBucketCount >= MAX_BUCKET_COUNT)
+            throw new IllegalArgumentException(String.format("Too many buckets (%.0f) for width %f and max tracked value %f !", trackedBucketCount, bucketWidthSec, maxTrackedValueSec));
+
+        this.bucketWidthSec = bucketWidthSec;
+        this.maxTrackedValueSec = maxTrackedValueSec;
+
+        //Tracked buckets + overflow bucket
+        this.bucketCounts = new BucketCounts((int)trackedBucketCount + 1);
+    }
+
+    @Override
+    public void add(double observationSec) {
+        this.bucketCounts.add(getBucketIndex(observationSec), 1);
+    }
+
+    @Override
+    public void remove(double observationSec) {
+
+        int bucketIndex = getBucketIndex(observationSec);
+
+        if(this.bucketCounts.getCount(bucketIndex) > 0)
+            this.bucketCounts.add(bucketIndex, -1);
+    }
+
+    @Override
+    public long getCount() {
+        return this.bucketCounts.getTotalCount();
+    }
+
+    @Override
+    public long countBelow(double thresholdSec) {
+
+        if(thresholdSec <= 0.0)
+            return 0;
+
+        //The overflow bucket is never counted: its values can be greater than the threshold
+        return this.bucketCounts.cumulativeCount(Math.min(getBucketIndex(thresholdSec), this.bucketCounts.getBucketCount() - 1));
+    }
+
+    @Override
+    public void merge(TimelinessEstimator other) {
+
+        if(!(other instanceof FixedBucketTimelinessEstimator))
+            throw new IllegalArgumentException(String.format("Cannot merge %s into FixedBucketTimelinessEstimator", other));
+
+        FixedBucketTimelinessEstimator otherEstimator = (FixedBucketTimelinessEstimator) other;
+
+        if(otherEstimator.bucketWidthSec != this.bucketWidthSec || otherEstimator.maxTrackedValueSec != this.maxTrackedValueSec)
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s: different bucket configuration", other, this));
+
+        this.bucketCounts.merge(otherEstimator.bucketCounts);
+    }
+
+    @Override
+    public void clear() {
+        this.bucketCounts.clear();
+    }
+
+    @Override
+    public double getErrorBound() {
+        return this.bucketWidthSec;
+    }
+
+    public double getMaxTrackedValueSec() {
+        return maxTrackedValueSec;
+    }
+
+    private int getBucketIndex(double observationSec){
+
+        if(observationSec <= 0.0)
+            return 0;
+
+        double bucketIndex = Math.floor(observationSec / this.bucketWidthSec);
+
+        return (int) Math.min(bucketIndex, this.bucketCounts.getBucketCount() - 1);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("FixedBucketTimelinessEstimator{");
+        sb.append("bucketWidthSec=").append(bucketWidthSec);
+        sb.append(", maxTrackedValueSec=").append(maxTrackedValueSec);
+        sb.append(", count=").append(getCount());
+        sb.append('}');
+        return sb.toString();
+    }
+}
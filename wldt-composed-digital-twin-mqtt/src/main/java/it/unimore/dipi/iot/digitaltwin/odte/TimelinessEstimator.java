@@ -0,0 +1,69 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+/**
+ * Estimator of the timeliness of a set of observation delays, i.e. the fraction of observations received within the
+ * desired timeliness. Implementations support the removal of observations in order to be maintained incrementally
+ * on a sliding window and can be merged with estimators built with the same configuration.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 14:05
+ */
+public interface TimelinessEstimator {
+
+    public void add(double observationSec);
+
+    public void remove(double observationSec);
+
+    public long getCount();
+
+    /**
+     * @return the (estimated) number of observations strictly lower than the threshold
+     */
+    public long countBelow(double thresholdSec);
+
+    /**
+     * Merge the observations of the other estimator into this one
+     * @throws IllegalArgumentException if the other estimator has a different type or configuration
+     */
+    public void merge(TimelinessEstimator other);
+
+    public void clear();
+
+    /**
+     * @return the error bound of the estimator (0.0 for exact estimators)
+     */
+    public double getErrorBound();
+
+    /**
+     * Timeliness with the same semantic of the original sort & scan approach: (index of the first value >= desired
+     * timeliness + 1) / count or 1.0 if all the values are below the desired timeliness.
+     * @return the timeliness or 0.0 if there are no observations
+     */
+    public default double computeTimeliness(double desiredTimelinessSec){
+
+        long count = getCount();
+
+        if(count == 0)
+            return 0.0;
+
+        return timelinessOf(countBelow(desiredTimelinessSec), count);
+    }
+
+    /**
+     * Timeliness of a set of observations from the number of observations below the desired timeliness, with the
+     * same semantic of {@link #computeTimeliness(double)}. Used to combine the counts of different estimators
+     * without merging them.
+     * @return the timeliness or 0.0 if there are no observations
+     */
+    public static double timelinessOf(long belowCount, long count){
+
+        if(count == 0)
+            return 0.0;
+
+        if(belowCount >= count)
+            return 1.0;
+        else
+            return (double) (belowCount + 1) / (double) count;
+    }
+
+}
@@ -0,0 +1,51 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Build the timeliness estimator selected in the Digital Twin configuration.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 15:00
+ */
+public class TimelinessEstimatorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelinessEstimatorFactory.class);
+
+    public static final String ESTIMATOR_TYPE_EXACT = "exact";
+
+    public static final String ESTIMATOR_TYPE_FIXED_BUCKET = "fixed_bucket";
+
+    public static final String ESTIMATOR_TYPE_LOG_SKETCH = "log_sketch";
+
+    private TimelinessEstimatorFactory() {
+    }
+
+    /**
+     * @param estimatorType one of exact, fixed_bucket or log_sketch
+     * @param errorBound bucket width in seconds for fixed_bucket, relative accuracy for log_sketch (the relative error of
+     *                   the evaluated threshold is up to about twice it), ignored for exact.
+     *                   A value <= 0.0 selects the default error bound of the estimator.
+     * @return the configured estimator or an exact estimator if the type is unknown or the configuration is invalid
+     */
+    public static TimelinessEstimator createEstimator(String estimatorType, double errorBound){
+
+        try{
+
+            if(estimatorType == null || ESTIMATOR_TYPE_EXACT.equals(estimatorType))
+                return new ExactTimelinessEstimator();
+            else if(ESTIMATOR_TYPE_FIXED_BUCKET.equals(estimatorType))
+                return new FixedBucketTimelinessEstimator(errorBound > 0.0 ? errorBound : FixedBucketTimelinessEstimator.DEFAULT_BUCKET_WIDTH_SEC);
+            else if(ESTIMATOR_TYPE_LOG_SKETCH.equals(estimatorType))
+                return new LogBucketSketchTimelinessEstimator(errorBound > 0.0 ? errorBound : LogBucketSketchTimelinessEstimator.DEFAULT_RELATIVE_ACCURACY);
+            else
+                logger.error("Unknown Timeliness Estimator Type: {} ! Using: {}", estimatorType, ESTIMATOR_TYPE_EXACT);
+
+        }catch (Exception e){
+            logger.error("Error creating Timeliness Estimator ({} - {}): {} ! Using: {}", estimatorType, errorBound, e.getLocalizedMessage(), ESTIMATOR_TYPE_EXACT);
+        }
+
+        return new ExactTimelinessEstimator();
+    }
+}
@@ -0,0 +1,188 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed capacity, time-ordered store of timeliness observations backed by arrays of primitive longs.
+ *
+ * The buffer has a single writer (the thread receiving the physical packets) that appends without locks and
+ * publishes each sample through an ordered write of the write sequence. Readers access samples by sequence number
+ * or by timestamp range: a sample is readable while it has not been overwritten, i.e. its sequence is within the
+ * last (capacity - 1) appended samples. Values read concurrently with the writer are validated after the read
+ * and discarded if the writer lapped them. The slots are {@link AtomicLongArray}s (values are stored as raw double
+ * bits) written with ordered stores and read with volatile loads: a plain load of a slot could be reordered after
+ * the read of the write sequence that validates it, letting a sample overwritten during the copy pass validation.
+ *
+ * The store is kept ordered by time, as required by the binary search of the timestamp ranges and by the expiration
+ * of the sliding windows: a sample older than the last appended one (e.g. an out of order packet) is stored with the
+ * last timestamp. Its value is kept, but the sample is returned by the ranges of the last timestamp and expires with
+ * the sample appended before it, i.e. later than its own timestamp (see {@link #getClampedSamplesCount()}).
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 11:40
+ */
+public class TimelinessRingBuffer {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicLongArray timestamps;
+
+    //Raw bits of the double values
+    private final AtomicLongArray values;
+
+    private final int capacity;
+
+    private final int mask;
+
+    //Sequence of the next sample to be written (= number of appended samples)
+    private final AtomicLong writeSequence = new AtomicLong(0);
+
+    //Only accessed by the writer thread
+    private long lastTimestampMs = Long.MIN_VALUE;
+
+    //Samples stored with the last timestamp instead of their older timestamp
+    private volatile long clampedSamplesCount = 0;
+
+    public TimelinessRingBuffer(int requestedCapacity) {
+        this.capacity = roundToPowerOfTwo(Math.max(requestedCapacity, MIN_CAPACITY));
+        this.mask = this.capacity - 1;
+        this.timestamps = new AtomicLongArray(this.capacity);
+        this.values = new AtomicLongArray(this.capacity);
+    }
+
+    /**
+     * Build a buffer able to hold the expected number of samples of a sliding window
+     * @param slidingWindowSec size of the sliding window in seconds
+     * @param expectedMsgSec expected message rate
+     * @param headroomFactor multiplier applied to the expected number of samples to absorb bursts
+     */
+    public static TimelinessRingBuffer forSlidingWindow(long slidingWindowSec, double expectedMsgSec, double headroomFactor){
+        double expectedSamples = Math.max(1.0, slidingWindowSec * expectedMsgSec * headroomFactor);
+        return new TimelinessRingBuffer((int)Math.min(expectedSamples, 1 << 30));
+    }
+
+    /**
+     * Append a new sample. Must be called by a single writer thread.
+     * A timestamp older than the last appended one is replaced with the last timestamp.
+     */
+    public void append(long timestampMs, double value){
+
+        if(timestampMs < this.lastTimestampMs){
+            timestampMs = this.lastTimestampMs;
+            this.clampedSamplesCount++;
+        }
+
+        this.lastTimestampMs = timestampMs;
+
+        long sequence = this.writeSequence.get();
+        int index = (int)(sequence & this.mask);
+
+        this.timestamps.lazySet(index, timestampMs);
+        this.values.lazySet(index, Double.doubleToRawLongBits(value));
+
+        //Ordered write: the sample is visible to readers before the new sequence
+        this.writeSequence.lazySet(sequence + 1);
+    }
+
+    public long getWriteSequence(){
+        return this.writeSequence.get();
+    }
+
+    /**
+     * @return the oldest sequence that can still be read safely
+     */
+    public long getOldestReadableSequence(){
+        return Math.max(0, this.writeSequence.get() - this.capacity + 1);
+    }
+
+    public boolean isReadable(long sequence){
+        long currentWriteSequence = this.writeSequence.get();
+        return sequence < currentWriteSequence && sequence >= currentWriteSequence - this.capacity + 1;
+    }
+
+    public long getTimestampMs(long sequence){
+        return this.timestamps.get((int)(sequence & this.mask));
+    }
+
+    public double getValue(long sequence){
+        return Double.longBitsToDouble(this.values.get((int)(sequence & this.mask)));
+    }
+
+    /**
+     * Copy all the readable samples with a timestamp in [fromTimestampMs, toTimestampMs] into the target arrays
+     * @return number of copied samples (limited by the size of the target arrays)
+     */
+    public int readRange(long fromTimestampMs, long toTimestampMs, long[] targetTimestamps, double[] targetValues){
+
+        long endSequence = this.writeSequence.get();
+        long startSequence = lowerBound(Math.max(0, endSequence - this.capacity + 1), endSequence, fromTimestampMs);
+
+        int count = 0;
+        int maxCount = Math.min(targetTimestamps.length, targetValues.length);
+
+        for(long sequence = startSequence; sequence < endSequence && count < maxCount; sequence++){
+
+            long timestampMs = getTimestampMs(sequence);
+
+            if(timestampMs > toTimestampMs)
+                break;
+
+            targetTimestamps[count] = timestampMs;
+            targetValues[count] = getValue(sequence);
+            count++;
+        }
+
+        //Discard the samples overwritten by the writer while copying
+        long lostCount = this.writeSequence.get() - this.capacity + 1 - startSequence;
+
+        if(lostCount > 0){
+            int validCount = (int)Math.max(0, count - lostCount);
+            System.arraycopy(targetTimestamps, count - validCount, targetTimestamps, 0, validCount);
+            System.arraycopy(targetValues, count - validCount, targetValues, 0, validCount);
+            count = validCount;
+        }
+
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of out of order samples stored with the timestamp of the previous sample
+     */
+    public long getClampedSamplesCount() {
+        return clampedSamplesCount;
+    }
+
+    //First sequence in [low, high) with timestamp >= target
+    private long lowerBound(long low, long high, long targetTimestampMs){
+
+        while(low < high){
+            long mid = (low + high) >>> 1;
+            if(getTimestampMs(mid) < targetTimestampMs)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private static int roundToPowerOfTwo(int value){
+        int highestOneBit = Integer.highestOneBit(value);
+        return highestOneBit == value ? value : highestOneBit << 1;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("TimelinessRingBuffer{");
+        sb.append("capacity=").append(capacity);
+        sb.append(", writeSequence=").append(writeSequence.get());
+        sb.append(", clampedSamplesCount=").append(clampedSamplesCount);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package it.unimore.dipi.iot.utils;
+
+/**
+ * Supported SenML payload encodings and the constants shared by {@link SenMLWriter} and {@link SenMLReader}.
+ *
+ * - json: RFC 8428 JSON representation (default)
+ * - cbor: RFC 8428 CBOR representation, an array of maps with the integer labels of RFC 8428 Table 6
+ * - binary: fixed schema format limited to the n, u, v, vs, vb and t fields produced by the DT processing steps.
+ *   Layout: 0xFF magic, version byte, varint record count and, for each record, a field flags byte followed by the
+ *   present fields in the flags order. Strings are encoded as varint length + UTF-8 bytes, v as a big-endian IEEE 754
+ *   double and t as a big-endian 64 bit integer.
+ *
+ * The first byte of the payload identifies the encoding: '[' (JSON), CBOR array major type (0x80 - 0x9F) or 0xFF
+ * (binary), that is never a valid first byte of a CBOR item.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 20:05
+ */
+public class SenMLEncoding {
+
+    public static final String ENCODING_JSON = "json";
+
+    public static final String ENCODING_CBOR = "cbor";
+
+    public static final String ENCODING_BINARY = "binary";
+
+    public static final String ENCODING_DEFAULT = ENCODING_JSON;
+
+    //RFC 8428 CBOR labels
+    static final int CBOR_LABEL_BVER = -1;
+    static final int CBOR_LABEL_BN = -2;
+    static final int CBOR_LABEL_BT = -3;
+    static final int CBOR_LABEL_BU = -4;
+    static final int CBOR_LABEL_BV = -5;
+    static final int CBOR_LABEL_N = 0;
+    static final int CBOR_LABEL_U = 1;
+    static final int CBOR_LABEL_V = 2;
+    static final int CBOR_LABEL_VS = 3;
+    static final int CBOR_LABEL_VB = 4;
+    static final int CBOR_LABEL_S = 5;
+    static final int CBOR_LABEL_T = 6;
+    static final int CBOR_LABEL_UT = 7;
+    static final int CBOR_LABEL_VD = 8;
+
+    static final int CBOR_MAJOR_TYPE_UNSIGNED_INT = 0;
+    static final int CBOR_MAJOR_TYPE_NEGATIVE_INT = 1;
+    static final int CBOR_MAJOR_TYPE_BYTE_STRING = 2;
+    static final int CBOR_MAJOR_TYPE_TEXT_STRING = 3;
+    static final int CBOR_MAJOR_TYPE_ARRAY = 4;
+    static final int CBOR_MAJOR_TYPE_MAP = 5;
+    static final int CBOR_MAJOR_TYPE_TAG = 6;
+    static final int CBOR_MAJOR_TYPE_SIMPLE = 7;
+
+    static final int CBOR_FALSE = 0xF4;
+    static final int CBOR_TRUE = 0xF5;
+    static final int CBOR_NULL = 0xF6;
+    static final int CBOR_FLOAT_16 = 0xF9;
+    static final int CBOR_FLOAT_32 = 0xFA;
+    static final int CBOR_FLOAT_64 = 0xFB;
+    static final int CBOR_BREAK = 0xFF;
+
+    static final int BINARY_MAGIC = 0xFF;
+    static final int BINARY_VERSION = 1;
+
+    static final int BINARY_FLAG_N = 0x01;
+    static final int BINARY_FLAG_U = 0x02;
+    static final int BINARY_FLAG_V = 0x04;
+    static final int BINARY_FLAG_VS = 0x08;
+    static final int BINARY_FLAG_VB = 0x10;
+    static final int BINARY_FLAG_VB_VALUE = 0x20;
+    static final int BINARY_FLAG_T = 0x40;
+
+    private SenMLEncoding() {
+    }
+
+    /**
+     * @return true if the encoding is one of the supported values (json, cbor or binary)
+     */
+    public static boolean isSupported(String encoding){
+        return ENCODING_JSON.equals(encoding) || ENCODING_CBOR.equals(encoding) || ENCODING_BINARY.equals(encoding);
+    }
+
+    /**
+     * Detect the encoding of a received SenML payload from its first byte
+     * @return the detected encoding or null if the payload is empty or not recognized
+     */
+    public static String detectEncoding(byte[] payload){
+
+        if(payload == null || payload.length == 0)
+            return null;
+
+        int firstByte = payload[0] & 0xFF;
+
+        if(firstByte == BINARY_MAGIC)
+            return ENCODING_BINARY;
+
+        if((firstByte >> 5) == CBOR_MAJOR_TYPE_ARRAY)
+            return ENCODING_CBOR;
+
+        //JSON payloads may start with white spaces
+        for(byte b : payload){
+            if(b == '[')
+                return ENCODING_JSON;
+            if(b != ' ' && b != '\t' && b != '\n' && b != '\r')
+                return null;
+        }
+
+        return null;
+    }
+
+}
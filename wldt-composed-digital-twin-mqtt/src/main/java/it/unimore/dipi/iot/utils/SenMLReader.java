@@ -0,0 +1,477 @@
+package it.unimore.dipi.iot.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+import static it.unimore.dipi.iot.utils.SenMLEncoding.*;
+
+/**
+ * SenML payload reader detecting the encoding (JSON, CBOR or binary) from the first byte of the payload.
+ * See {@link SenMLEncoding} for the supported formats.
+ *
+ * JSON payloads are decoded by a pre-built ObjectReader directly from the byte[], while CBOR and binary payloads are
+ * decoded by hand without intermediate objects. CBOR maps using the JSON field names as keys are accepted as well.
+ * Unknown CBOR items are skipped recursively up to {@link #MAX_CBOR_NESTING_DEPTH} nested levels, deeper payloads are
+ * rejected as malformed so that a crafted payload cannot exhaust the stack of the delivery thread.
+ * The reader is thread-safe.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 20:30
+ */
+public class SenMLReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SenMLReader.class);
+
+    public static final int MAX_CBOR_NESTING_DEPTH = 16;
+
+    private final ObjectReader jsonReader;
+
+    private SenMLReader(){
+        this.jsonReader = new ObjectMapper().readerFor(SenMLPack.class);
+    }
+
+    private static class InstanceHolder {
+        private static final SenMLReader INSTANCE = new SenMLReader();
+    }
+
+    public static SenMLReader getInstance(){
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Decode a SenML Pack in any of the supported encodings
+     * @return the decoded pack or an empty Optional if the payload is empty, malformed or in an unknown encoding
+     */
+    public Optional<SenMLPack> read(byte[] payload){
+
+        String encoding = SenMLEncoding.detectEncoding(payload);
+
+        if(encoding == null)
+            return Optional.empty();
+
+        try{
+
+            if(ENCODING_CBOR.equals(encoding))
+                return Optional.of(new CborInput(payload).readPack());
+            else if(ENCODING_BINARY.equals(encoding))
+                return Optional.of(new BinaryInput(payload).readPack());
+            else
+                return Optional.ofNullable(this.jsonReader.readValue(payload));
+
+        }catch (Exception e){
+            logger.debug("Error decoding {} SenML Pack ! Msg: {}", encoding, e.getLocalizedMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static class CborInput {
+
+        private final byte[] data;
+
+        private int position;
+
+        private CborInput(byte[] data) {
+            this.data = data;
+        }
+
+        private SenMLPack readPack() throws IOException {
+
+            int initialByte = readUnsignedByte();
+
+            if((initialByte >> 5) != CBOR_MAJOR_TYPE_ARRAY)
+                throw new IOException("SenML Pack is not a CBOR array");
+
+            SenMLPack senMLPack = new SenMLPack();
+            long recordCount = readLength(initialByte);
+
+            for(long i = 0; recordCount < 0 ? !readBreak() : i < recordCount; i++)
+                senMLPack.add(readRecord());
+
+            return senMLPack;
+        }
+
+        private SenMLRecord readRecord() throws IOException {
+
+            int initialByte = readUnsignedByte();
+
+            if((initialByte >> 5) != CBOR_MAJOR_TYPE_MAP)
+                throw new IOException("SenML Record is not a CBOR map");
+
+            SenMLRecord senMLRecord = new SenMLRecord();
+            long fieldCount = readLength(initialByte);
+
+            for(long i = 0; fieldCount < 0 ? !readBreak() : i < fieldCount; i++){
+
+                int label = readLabel();
+
+                switch (label){
+                    case CBOR_LABEL_BVER: senMLRecord.setBver(readNumber()); break;
+                    case CBOR_LABEL_BN: senMLRecord.setBn(readText()); break;
+                    case CBOR_LABEL_BT: senMLRecord.setBt(readNumber()); break;
+                    case CBOR_LABEL_BU: senMLRecord.setBu(readText()); break;
+                    case CBOR_LABEL_BV: senMLRecord.setBv(readNumber()); break;
+                    case CBOR_LABEL_N: senMLRecord.setN(readText()); break;
+                    case CBOR_LABEL_U: senMLRecord.setU(readText()); break;
+                    case CBOR_LABEL_V: senMLRecord.setV(readNumber()); break;
+                    case CBOR_LABEL_VS: senMLRecord.setVs(readText()); break;
+                    case CBOR_LABEL_VB: senMLRecord.setVb(readBoolean()); break;
+                    case CBOR_LABEL_S: senMLRecord.setS(readNumber()); break;
+                    case CBOR_LABEL_T: senMLRecord.setT(readNumber()); break;
+                    case CBOR_LABEL_UT: senMLRecord.setUt(readNumber()); break;
+                    case CBOR_LABEL_VD: senMLRecord.setVd(Base64.getUrlEncoder().withoutPadding().encodeToString(readByteString())); break;
+                    default: skipItem();
+                }
+            }
+
+            return senMLRecord;
+        }
+
+        //Integer labels or JSON field names. Unknown keys are mapped to Integer.MIN_VALUE and their value skipped
+        private int readLabel() throws IOException {
+
+            int initialByte = peekUnsignedByte();
+            int majorType = initialByte >> 5;
+
+            if(majorType == CBOR_MAJOR_TYPE_UNSIGNED_INT || majorType == CBOR_MAJOR_TYPE_NEGATIVE_INT){
+                long label = readInteger();
+                return label >= Integer.MIN_VALUE && label <= Integer.MAX_VALUE ? (int)label : Integer.MIN_VALUE;
+            }
+
+            if(majorType == CBOR_MAJOR_TYPE_TEXT_STRING){
+                switch (readText()){
+                    case "bver": return CBOR_LABEL_BVER;
+                    case "bn": return CBOR_LABEL_BN;
+                    case "bt": return CBOR_LABEL_BT;
+                    case "bu": return CBOR_LABEL_BU;
+                    case "bv": return CBOR_LABEL_BV;
+                    case "n": return CBOR_LABEL_N;
+                    case "u": return CBOR_LABEL_U;
+                    case "v": return CBOR_LABEL_V;
+                    case "vs": return CBOR_LABEL_VS;
+                    case "vb": return CBOR_LABEL_VB;
+                    case "s": return CBOR_LABEL_S;
+                    case "t": return CBOR_LABEL_T;
+                    case "ut": return CBOR_LABEL_UT;
+                    case "vd": return CBOR_LABEL_VD;
+                    default: return Integer.MIN_VALUE;
+                }
+            }
+
+            skipItem();
+            return Integer.MIN_VALUE;
+        }
+
+        //Same mapping of the ObjectMapper: Integer when possible, then Long and Double
+        private Number readNumber() throws IOException {
+
+            int initialByte = peekUnsignedByte();
+            int majorType = initialByte >> 5;
+
+            if(majorType == CBOR_MAJOR_TYPE_UNSIGNED_INT || majorType == CBOR_MAJOR_TYPE_NEGATIVE_INT){
+                long value = readInteger();
+                if(value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+                    return (int)value;
+                return value;
+            }
+
+            this.position++;
+
+            switch (initialByte){
+                case CBOR_FLOAT_16: return (double)halfToFloat((int)readArgumentBytes(2));
+                case CBOR_FLOAT_32: return (double)Float.intBitsToFloat((int)readArgumentBytes(4));
+                case CBOR_FLOAT_64: return Double.longBitsToDouble(readArgumentBytes(8));
+                case CBOR_NULL: return null;
+                default: throw new IOException(String.format("Unexpected CBOR number: 0x%02X", initialByte));
+            }
+        }
+
+        private Boolean readBoolean() throws IOException {
+
+            int initialByte = readUnsignedByte();
+
+            if(initialByte == CBOR_TRUE)
+                return Boolean.TRUE;
+            if(initialByte == CBOR_FALSE)
+                return Boolean.FALSE;
+            if(initialByte == CBOR_NULL)
+                return null;
+
+            throw new IOException(String.format("Unexpected CBOR boolean: 0x%02X", initialByte));
+        }
+
+        private String readText() throws IOException {
+
+            int initialByte = readUnsignedByte();
+
+            if(initialByte == CBOR_NULL)
+                return null;
+
+            if((initialByte >> 5) != CBOR_MAJOR_TYPE_TEXT_STRING)
+                throw new IOException(String.format("Unexpected CBOR text string: 0x%02X", initialByte));
+
+            int length = checkLength(readLength(initialByte));
+            String text = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+
+            return text;
+        }
+
+        private byte[] readByteString() throws IOException {
+
+            int initialByte = readUnsignedByte();
+
+            if((initialByte >> 5) != CBOR_MAJOR_TYPE_BYTE_STRING)
+                throw new IOException(String.format("Unexpected CBOR byte string: 0x%02X", initialByte));
+
+            int length = checkLength(readLength(initialByte));
+            byte[] bytes = new byte[length];
+            System.arraycopy(this.data, this.position, bytes, 0, length);
+            this.position += length;
+
+            return bytes;
+        }
+
+        private long readInteger() throws IOException {
+
+            int initialByte = readUnsignedByte();
+            long argument = readArgument(initialByte);
+
+            if(argument < 0)
+                throw new IOException("CBOR integer out of range");
+
+            return (initialByte >> 5) == CBOR_MAJOR_TYPE_NEGATIVE_INT ? -1 - argument : argument;
+        }
+
+        private void skipItem() throws IOException {
+            skipItem(0);
+        }
+
+        private void skipItem(int depth) throws IOException {
+
+            if(depth > MAX_CBOR_NESTING_DEPTH)
+                throw new IOException(String.format("CBOR item nested deeper than %d levels", MAX_CBOR_NESTING_DEPTH));
+
+            int initialByte = readUnsignedByte();
+            int majorType = initialByte >> 5;
+
+            switch (majorType){
+                case CBOR_MAJOR_TYPE_UNSIGNED_INT:
+                case CBOR_MAJOR_TYPE_NEGATIVE_INT:
+                    readArgument(initialByte);
+                    break;
+                case CBOR_MAJOR_TYPE_BYTE_STRING:
+                case CBOR_MAJOR_TYPE_TEXT_STRING:
+                    long length = readLength(initialByte);
+                    if(length < 0)
+                        while(!readBreak())
+                            skipItem(depth + 1);
+                    else
+                        this.position += checkLength(length);
+                    break;
+                case CBOR_MAJOR_TYPE_ARRAY:
+                case CBOR_MAJOR_TYPE_MAP:
+                    long itemCount = readLength(initialByte);
+                    int itemsPerEntry = majorType == CBOR_MAJOR_TYPE_MAP ? 2 : 1;
+                    for(long i = 0; itemCount < 0 ? !readBreak() : i < itemCount; i++)
+                        for(int j = 0; j < itemsPerEntry; j++)
+                            skipItem(depth + 1);
+                    break;
+                case CBOR_MAJOR_TYPE_TAG:
+                    readArgument(initialByte);
+                    skipItem(depth + 1);
+                    break;
+                default:
+                    int additionalInfo = initialByte & 0x1F;
+                    if(additionalInfo >= 24 && additionalInfo <= 27)
+                        this.position += 1 << (additionalInfo - 24);
+            }
+        }
+
+        private boolean readBreak() throws IOException {
+
+            if(peekUnsignedByte() == CBOR_BREAK){
+                this.position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        //-1 for indefinite length items
+        private long readLength(int initialByte) throws IOException {
+
+            if((initialByte & 0x1F) == 31)
+                return -1;
+
+            long length = readArgument(initialByte);
+
+            if(length < 0)
+                throw new IOException("CBOR length out of range");
+
+            return length;
+        }
+
+        private long readArgument(int initialByte) throws IOException {
+
+            int additionalInfo = initialByte & 0x1F;
+
+            if(additionalInfo < 24)
+                return additionalInfo;
+
+            switch (additionalInfo){
+                case 24: return readArgumentBytes(1);
+                case 25: return readArgumentBytes(2);
+                case 26: return readArgumentBytes(4);
+                case 27: return readArgumentBytes(8);
+                default: throw new IOException(String.format("Unsupported CBOR additional info: %d", additionalInfo));
+            }
+        }
+
+        private long readArgumentBytes(int byteCount) throws IOException {
+
+            checkLength(byteCount);
+
+            long value = 0;
+            for(int i = 0; i < byteCount; i++)
+                value = (value << 8) | (this.data[this.position++] & 0xFF);
+
+            return value;
+        }
+
+        private int checkLength(long length) throws IOException {
+
+            if(length > this.data.length - this.position)
+                throw new IOException("Truncated CBOR payload");
+
+            return (int)length;
+        }
+
+        private int readUnsignedByte() throws IOException {
+            checkLength(1);
+            return this.data[this.position++] & 0xFF;
+        }
+
+        private int peekUnsignedByte() throws IOException {
+            checkLength(1);
+            return this.data[this.position] & 0xFF;
+        }
+
+        private static float halfToFloat(int half){
+
+            int exponent = (half >> 10) & 0x1F;
+            int mantissa = half & 0x3FF;
+            float value;
+
+            if(exponent == 0)
+                value = mantissa * (float)Math.pow(2, -24);
+            else if(exponent == 31)
+                value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+            else
+                value = (mantissa + 1024) * (float)Math.pow(2, exponent - 25);
+
+            return (half & 0x8000) != 0 ? -value : value;
+        }
+    }
+
+    private static class BinaryInput {
+
+        private final byte[] data;
+
+        private int position;
+
+        private BinaryInput(byte[] data) {
+            this.data = data;
+        }
+
+        private SenMLPack readPack() throws IOException {
+
+            if(readUnsignedByte() != BINARY_MAGIC)
+                throw new IOException("Missing binary SenML magic byte");
+
+            int version = readUnsignedByte();
+            if(version != BINARY_VERSION)
+                throw new IOException(String.format("Unsupported binary SenML version: %d", version));
+
+            long recordCount = readVarint();
+            SenMLPack senMLPack = new SenMLPack();
+
+            for(long i = 0; i < recordCount; i++){
+
+                int flags = readUnsignedByte();
+                SenMLRecord senMLRecord = new SenMLRecord();
+
+                if((flags & BINARY_FLAG_N) != 0)
+                    senMLRecord.setN(readString());
+                if((flags & BINARY_FLAG_U) != 0)
+                    senMLRecord.setU(readString());
+                if((flags & BINARY_FLAG_V) != 0)
+                    senMLRecord.setV(Double.longBitsToDouble(readFixedLong()));
+                if((flags & BINARY_FLAG_VS) != 0)
+                    senMLRecord.setVs(readString());
+                if((flags & BINARY_FLAG_VB) != 0)
+                    senMLRecord.setVb((flags & BINARY_FLAG_VB_VALUE) != 0);
+                if((flags & BINARY_FLAG_T) != 0)
+                    senMLRecord.setT(readFixedLong());
+
+                senMLPack.add(senMLRecord);
+            }
+
+            return senMLPack;
+        }
+
+        private String readString() throws IOException {
+
+            int length = checkLength(readVarint());
+            String value = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+
+            return value;
+        }
+
+        private long readVarint() throws IOException {
+
+            long value = 0;
+
+            for(int shift = 0; shift < 64; shift += 7){
+                int b = readUnsignedByte();
+                value |= (long)(b & 0x7F) << shift;
+                if((b & 0x80) == 0)
+                    return value;
+            }
+
+            throw new IOException("Malformed varint");
+        }
+
+        private long readFixedLong() throws IOException {
+
+            checkLength(8);
+
+            long value = 0;
+            for(int i = 0; i < 8; i++)
+                value = (value << 8) | (this.data[this.position++] & 0xFF);
+
+            return value;
+        }
+
+        private int checkLength(long length) throws IOException {
+
+            if(length < 0 || length > this.data.length - this.position)
+                throw new IOException("Truncated binary SenML payload");
+
+            return (int)length;
+        }
+
+        private int readUnsignedByte() throws IOException {
+            checkLength(1);
+            return this.data[this.position++] & 0xFF;
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package it.unimore.dipi.iot.digitaltwin.aggregation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 12:20
+ */
+public class QuantileSketchTest {
+
+    private static final int VALUE_COUNT = 10000;
+
+    private static final double[] QUANTILES = {0.0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1.0};
+
+    private static void assertQuantilesWithinAccuracy(QuantileSketch quantileSketch, double[] values){
+
+        double[] sortedValues = values.clone();
+        Arrays.sort(sortedValues);
+
+        for(double quantile : QUANTILES){
+
+            double exactValue = sortedValues[(int) (quantile * (sortedValues.length - 1))];
+            double estimatedValue = quantileSketch.getQuantile(quantile);
+
+            assertEquals(String.format("Quantile %f", quantile), exactValue, estimatedValue,
+                    Math.abs(exactValue) * quantileSketch.getRelativeAccuracy() * (1.0 + 1e-9));
+        }
+    }
+
+    @Test
+    public void testRelativeAccuracy(){
+
+        Random random = new Random(1);
+        QuantileSketch quantileSketch = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+        double[] values = new double[VALUE_COUNT];
+
+        //Values over six orders of magnitude
+        for(int i = 0; i < VALUE_COUNT; i++){
+            values[i] = Math.pow(10.0, -3.0 + 6.0 * random.nextDouble());
+            quantileSketch.add(values[i]);
+        }
+
+        assertEquals(VALUE_COUNT, quantileSketch.getCount());
+        assertQuantilesWithinAccuracy(quantileSketch, values);
+    }
+
+    @Test
+    public void testNegativeAndZeroValues(){
+
+        Random random = new Random(2);
+        QuantileSketch quantileSketch = new QuantileSketch(0.02, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+        double[] values = new double[VALUE_COUNT];
+
+        for(int i = 0; i < VALUE_COUNT; i++){
+            values[i] = i % 10 == 0 ? 0.0 : -100.0 + 200.0 * random.nextDouble();
+            quantileSketch.add(values[i]);
+        }
+
+        //NaN values are ignored
+        quantileSketch.add(Double.NaN);
+
+        assertEquals(VALUE_COUNT, quantileSketch.getCount());
+        assertQuantilesWithinAccuracy(quantileSketch, values);
+    }
+
+    @Test
+    public void testMerge(){
+
+        Random random = new Random(3);
+        QuantileSketch quantileSketch = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+        QuantileSketch otherQuantileSketch = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+        double[] values = new double[VALUE_COUNT];
+
+        //Disjoint ranges, as the sketches of two devices
+        for(int i = 0; i < VALUE_COUNT; i++){
+            if(i % 2 == 0){
+                values[i] = 1.0 + random.nextDouble();
+                quantileSketch.add(values[i]);
+            }
+            else {
+                values[i] = 1000.0 + 1000.0 * random.nextDouble();
+                otherQuantileSketch.add(values[i]);
+            }
+        }
+
+        quantileSketch.merge(otherQuantileSketch);
+
+        assertEquals(VALUE_COUNT, quantileSketch.getCount());
+        assertQuantilesWithinAccuracy(quantileSketch, values);
+    }
+
+    @Test
+    public void testBucketCountIsBounded(){
+
+        int maxBucketCount = 32;
+        QuantileSketch quantileSketch = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, maxBucketCount);
+
+        for(int i = 0; i < VALUE_COUNT; i++)
+            quantileSketch.add(Math.pow(10.0, -6.0 + 12.0 * i / VALUE_COUNT));
+
+        //The lowest buckets are collapsed, the highest quantiles keep the relative accuracy
+        assertEquals(VALUE_COUNT, quantileSketch.getCount());
+        assertTrue(quantileSketch.getBucketCount() <= maxBucketCount);
+
+        double maxValue = Math.pow(10.0, -6.0 + 12.0 * (VALUE_COUNT - 1) / VALUE_COUNT);
+        assertEquals(maxValue, quantileSketch.getQuantile(1.0), maxValue * quantileSketch.getRelativeAccuracy());
+    }
+
+    @Test
+    public void testEmptySketch(){
+
+        QuantileSketch quantileSketch = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+
+        assertEquals(0, quantileSketch.getCount());
+        assertTrue(Double.isNaN(quantileSketch.getQuantile(0.5)));
+
+        quantileSketch.add(1.0);
+
+        assertTrue(Double.isNaN(quantileSketch.getQuantile(1.5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRelativeAccuracy(){
+        new QuantileSketch(1.0, QuantileSketch.DEFAULT_MAX_BUCKET_COUNT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeOfDifferentConfigurationsIsRejected(){
+        new QuantileSketch(0.01, 64).merge(new QuantileSketch(0.02, 64));
+    }
+
+}
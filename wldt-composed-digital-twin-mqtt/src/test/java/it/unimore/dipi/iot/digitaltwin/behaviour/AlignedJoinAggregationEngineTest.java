@@ -0,0 +1,137 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 13:00
+ */
+public class AlignedJoinAggregationEngineTest {
+
+    private static final String RESOURCE_ID = "iot.sensor.energy";
+
+    private static final long TICK_MS = 1000;
+
+    private static SenMLPack createPack(long timestampMs, double value){
+
+        SenMLRecord senMLRecord = new SenMLRecord();
+        senMLRecord.setN(RESOURCE_ID);
+        senMLRecord.setU("W");
+        senMLRecord.setV(value);
+        senMLRecord.setT(timestampMs);
+
+        SenMLPack senMLPack = new SenMLPack();
+        senMLPack.add(senMLRecord);
+
+        return senMLPack;
+    }
+
+    private static AlignedJoinAggregationEngine createEngine(String interpolation){
+        return new AlignedJoinAggregationEngine(Collections.singletonList(RESOURCE_ID), "avg", null,
+                Arrays.asList("device-1", "device-2"), TICK_MS, interpolation, 0, 0, 8);
+    }
+
+    private static void assertTickRecords(SenMLPack composedPack, long tickMs, double device1Value, double device2Value){
+
+        assertEquals(3, composedPack.size());
+
+        assertEquals("device-1/" + RESOURCE_ID, composedPack.get(0).getN());
+        assertEquals(device1Value, composedPack.get(0).getV().doubleValue(), 1e-9);
+
+        assertEquals("device-2/" + RESOURCE_ID, composedPack.get(1).getN());
+        assertEquals(device2Value, composedPack.get(1).getV().doubleValue(), 1e-9);
+
+        assertEquals(RESOURCE_ID + ".aggregated", composedPack.get(2).getN());
+        assertEquals((device1Value + device2Value) / 2.0, composedPack.get(2).getV().doubleValue(), 1e-9);
+
+        for(SenMLRecord senMLRecord : composedPack){
+            assertEquals(tickMs, senMLRecord.getT().longValue());
+            assertEquals("W", senMLRecord.getU());
+        }
+    }
+
+    /**
+     * device-1 and device-2 report at different rates and phases, the values of both are aligned to the ticks
+     */
+    private static void assertAlignment(AlignedJoinAggregationEngine aggregationEngine, double device1Tick11Value, double device2Tick11Value){
+
+        //The watermark waits for every device
+        assertFalse(aggregationEngine.add("device-1", createPack(10100, 101.0)).isPresent());
+
+        Optional<SenMLPack> composedPack = aggregationEngine.add("device-2", createPack(10300, 10.3));
+
+        //Tick 10000: only the following samples, within the max gap
+        assertTrue(composedPack.isPresent());
+        assertTickRecords(composedPack.get(), 10000, 101.0, 10.3);
+
+        assertFalse(aggregationEngine.add("device-1", createPack(10900, 109.0)).isPresent());
+        assertFalse(aggregationEngine.add("device-2", createPack(11200, 11.2)).isPresent());
+
+        //The watermark (11200) passes the tick 11000, aligned between the samples around it
+        composedPack = aggregationEngine.add("device-1", createPack(11300, 113.0));
+
+        assertTrue(composedPack.isPresent());
+        assertTickRecords(composedPack.get(), 11000, device1Tick11Value, device2Tick11Value);
+
+        //Tick 12000 by the processing time: the previous samples, tick 13000 is beyond the max gap of both devices
+        composedPack = aggregationEngine.flush(13500);
+
+        assertTrue(composedPack.isPresent());
+        assertTickRecords(composedPack.get(), 12000, 113.0, 11.2);
+    }
+
+    @Test
+    public void testNearestAlignment(){
+        assertAlignment(createEngine(AlignedJoinAggregationEngine.INTERPOLATION_NEAREST), 109.0, 11.2);
+    }
+
+    @Test
+    public void testLinearAlignment(){
+        assertAlignment(createEngine(AlignedJoinAggregationEngine.INTERPOLATION_LINEAR), 110.0, 11.0);
+    }
+
+    @Test
+    public void testSkewedDeviceDoesNotAdvanceTheWatermark(){
+
+        AlignedJoinAggregationEngine aggregationEngine = createEngine(AlignedJoinAggregationEngine.INTERPOLATION_NEAREST);
+
+        aggregationEngine.add("device-1", createPack(10100, 101.0));
+
+        //Device clock one minute ahead of the composed DT
+        assertFalse(aggregationEngine.add("device-2", createPack(System.currentTimeMillis() + 60000, 1.0)).isPresent());
+        assertEquals(1, aggregationEngine.getFutureRecordCount());
+
+        //device-2 has not reported a valid sample yet
+        assertFalse(aggregationEngine.add("device-1", createPack(12100, 121.0)).isPresent());
+
+        Optional<SenMLPack> composedPack = aggregationEngine.add("device-2", createPack(12000, 12.0));
+
+        assertTrue(composedPack.isPresent());
+        assertEquals(10000, composedPack.get().get(0).getT().longValue());
+    }
+
+    @Test
+    public void testUnknownDevicesAreIgnored(){
+
+        AlignedJoinAggregationEngine aggregationEngine = createEngine(AlignedJoinAggregationEngine.INTERPOLATION_NEAREST);
+
+        assertFalse(aggregationEngine.add("device-3", createPack(10000, 1.0)).isPresent());
+        assertFalse(aggregationEngine.flush(20000).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterpolation(){
+        createEngine("cubic");
+    }
+
+}
@@ -0,0 +1,236 @@
+package it.unimore.dipi.iot.digitaltwin.behaviour;
+
+import it.unimore.dipi.iot.utils.SenMLPack;
+import it.unimore.dipi.iot.utils.SenMLRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 12:40
+ */
+public class TimeWindowAggregationEngineTest {
+
+    private static final String RESOURCE_ID = "iot.sensor.energy";
+
+    private static final String AGGREGATED_RESOURCE_ID = RESOURCE_ID + ".aggregated";
+
+    private static final long WINDOW_SIZE_MS = 1000;
+
+    private static final long ALLOWED_LATENESS_MS = 200;
+
+    private static SenMLPack createPack(long timestampMs, double value){
+
+        SenMLRecord senMLRecord = new SenMLRecord();
+        senMLRecord.setN(RESOURCE_ID);
+        senMLRecord.setU("kW");
+        senMLRecord.setV(value);
+        senMLRecord.setT(timestampMs);
+
+        SenMLPack senMLPack = new SenMLPack();
+        senMLPack.add(senMLRecord);
+
+        return senMLPack;
+    }
+
+    private static TimeWindowAggregationEngine createEngine(String windowType, long windowSlideMs, long allowedLatenessMs){
+        return new TimeWindowAggregationEngine(Collections.singletonList(RESOURCE_ID), "avg", null,
+                windowType, WINDOW_SIZE_MS, windowSlideMs, allowedLatenessMs);
+    }
+
+    private static void assertAggregatedRecord(SenMLRecord senMLRecord, long windowEndMs, double value){
+        assertEquals(AGGREGATED_RESOURCE_ID, senMLRecord.getN());
+        assertEquals(windowEndMs, senMLRecord.getT().longValue());
+        assertEquals(value, senMLRecord.getV().doubleValue(), 1e-9);
+    }
+
+    @Test
+    public void testTumblingWindows(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_TUMBLING, 0, ALLOWED_LATENESS_MS);
+
+        assertFalse(aggregationEngine.add("device-1", createPack(10100, 1.0)).isPresent());
+        assertFalse(aggregationEngine.add("device-1", createPack(10500, 3.0)).isPresent());
+        assertFalse(aggregationEngine.add("device-2", createPack(10900, 5.0)).isPresent());
+
+        //Within the allowed lateness: the watermark (11100 - 200) has not passed the end of [10000, 11000)
+        assertFalse(aggregationEngine.add("device-2", createPack(11100, 100.0)).isPresent());
+
+        //The watermark passes 11000
+        Optional<SenMLPack> aggregatedPack = aggregationEngine.add("device-1", createPack(11250, 200.0));
+
+        assertTrue(aggregatedPack.isPresent());
+        assertEquals(1, aggregatedPack.get().size());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 11000, 3.0);
+        assertEquals("kW", aggregatedPack.get().get(0).getU());
+
+        //The following window is emitted by the processing time
+        assertFalse(aggregationEngine.flush(12100).isPresent());
+
+        aggregatedPack = aggregationEngine.flush(12200);
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 12000, 150.0);
+
+        assertEquals(0, aggregationEngine.getLateRecordCount());
+    }
+
+    @Test
+    public void testLateRecordsAreDropped(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_TUMBLING, 0, ALLOWED_LATENESS_MS);
+
+        aggregationEngine.add("device-1", createPack(10500, 1.0));
+
+        Optional<SenMLPack> aggregatedPack = aggregationEngine.add("device-1", createPack(11300, 2.0));
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 11000, 1.0);
+
+        //Record of the window already emitted
+        assertFalse(aggregationEngine.add("device-2", createPack(10900, 50.0)).isPresent());
+        assertEquals(1, aggregationEngine.getLateRecordCount());
+
+        //Late but within the open window
+        aggregationEngine.add("device-2", createPack(11100, 4.0));
+
+        aggregatedPack = aggregationEngine.flush(13000);
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 12000, 3.0);
+        assertEquals(1, aggregationEngine.getLateRecordCount());
+    }
+
+    @Test
+    public void testSkewedRecordsDoNotAdvanceTheWatermark(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_TUMBLING, 0, ALLOWED_LATENESS_MS);
+
+        aggregationEngine.add("device-1", createPack(10100, 1.0));
+
+        //Device clock one minute ahead of the composed DT
+        assertFalse(aggregationEngine.add("device-2", createPack(System.currentTimeMillis() + 60000, 1000.0)).isPresent());
+        assertEquals(1, aggregationEngine.getFutureRecordCount());
+
+        //The window of the first record is still open
+        assertFalse(aggregationEngine.add("device-1", createPack(10500, 3.0)).isPresent());
+        assertEquals(0, aggregationEngine.getLateRecordCount());
+
+        Optional<SenMLPack> aggregatedPack = aggregationEngine.flush(11200);
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 11000, 2.0);
+    }
+
+    @Test
+    public void testHoppingWindows(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_HOPPING, 500, 0);
+
+        List<SenMLRecord> aggregatedRecords = new ArrayList<>();
+
+        aggregationEngine.add("device-1", createPack(10100, 1.0)).ifPresent(aggregatedRecords::addAll);
+        aggregationEngine.add("device-1", createPack(10600, 3.0)).ifPresent(aggregatedRecords::addAll);
+        aggregationEngine.add("device-1", createPack(11100, 5.0)).ifPresent(aggregatedRecords::addAll);
+        aggregationEngine.flush(12000).ifPresent(aggregatedRecords::addAll);
+
+        //Each record is aggregated in the two overlapping windows
+        assertEquals(4, aggregatedRecords.size());
+        assertAggregatedRecord(aggregatedRecords.get(0), 10500, 1.0);
+        assertAggregatedRecord(aggregatedRecords.get(1), 11000, 2.0);
+        assertAggregatedRecord(aggregatedRecords.get(2), 11500, 4.0);
+        assertAggregatedRecord(aggregatedRecords.get(3), 12000, 5.0);
+    }
+
+    @Test
+    public void testSlidingWindow(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_SLIDING, 100, 0);
+
+        Optional<SenMLPack> aggregatedPack = aggregationEngine.add("device-1", createPack(10000, 1.0));
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 10000, 1.0);
+
+        aggregatedPack = aggregationEngine.add("device-2", createPack(10500, 3.0));
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 10500, 2.0);
+
+        //Window of the panes [10300, 11300), ending at 11200
+        aggregatedPack = aggregationEngine.add("device-1", createPack(11200, 5.0));
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 11200, 4.0);
+
+        assertFalse(aggregationEngine.add("device-1", createPack(10100, 7.0)).isPresent());
+        assertEquals(1, aggregationEngine.getLateRecordCount());
+    }
+
+    @Test
+    public void testSlidingWindowUnalignedLateRecord(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_SLIDING, 100, 0);
+
+        assertTrue(aggregationEngine.add("device-1", createPack(10000, 1.0)).isPresent());
+        assertTrue(aggregationEngine.add("device-1", createPack(11200, 5.0)).isPresent());
+
+        //After 11200 - 1000 but in the pane [10200, 10300) evicted by the window ending at 11200
+        assertFalse(aggregationEngine.add("device-2", createPack(10250, 7.0)).isPresent());
+        assertEquals(1, aggregationEngine.getLateRecordCount());
+        assertEquals(1, aggregationEngine.getPaneCount());
+
+        //Pane [10300, 10400) of the current window
+        Optional<SenMLPack> aggregatedPack = aggregationEngine.add("device-2", createPack(10350, 3.0));
+
+        assertTrue(aggregatedPack.isPresent());
+        assertAggregatedRecord(aggregatedPack.get().get(0), 11200, 4.0);
+        assertEquals(1, aggregationEngine.getLateRecordCount());
+    }
+
+    @Test
+    public void testSlidingWindowFlushEvictsLateRecords(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_SLIDING, 100, 0);
+
+        assertTrue(aggregationEngine.add("device-1", createPack(10000, 1.0)).isPresent());
+
+        //The flushed window ending at 11500 evicts the panes before [10500, 10600)
+        assertFalse(aggregationEngine.flush(11500).isPresent());
+
+        assertFalse(aggregationEngine.add("device-1", createPack(10450, 2.0)).isPresent());
+        assertEquals(1, aggregationEngine.getLateRecordCount());
+    }
+
+    @Test
+    public void testRecordsOfOtherResourcesAreIgnored(){
+
+        TimeWindowAggregationEngine aggregationEngine = createEngine(ComposedAggregationEngine.WINDOW_TYPE_TUMBLING, 0, 0);
+
+        SenMLRecord senMLRecord = new SenMLRecord();
+        senMLRecord.setN("iot.sensor.temperature");
+        senMLRecord.setV(21.0);
+        senMLRecord.setT(10100);
+
+        SenMLPack senMLPack = new SenMLPack();
+        senMLPack.add(senMLRecord);
+
+        assertFalse(aggregationEngine.add("device-1", senMLPack).isPresent());
+        assertFalse(aggregationEngine.flush(20000).isPresent());
+        assertEquals(0, aggregationEngine.getPaneCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHoppingSlide(){
+        createEngine(ComposedAggregationEngine.WINDOW_TYPE_HOPPING, 2 * WINDOW_SIZE_MS, 0);
+    }
+
+}
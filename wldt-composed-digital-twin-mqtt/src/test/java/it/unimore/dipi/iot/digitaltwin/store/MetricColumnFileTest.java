@@ -0,0 +1,198 @@
+package it.unimore.dipi.iot.digitaltwin.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-composed-digital-twin-mqtt
+ * @created 19/10/2026 - 12:10
+ */
+public class MetricColumnFileTest {
+
+    private static final int BLOCK_ROW_COUNT = 4;
+
+    private Path storeFolder;
+
+    @Before
+    public void createStoreFolder() throws IOException {
+        this.storeFolder = Files.createTempDirectory("metric-column-file-test");
+    }
+
+    @After
+    public void deleteStoreFolder() throws IOException {
+        try(Stream<Path> pathStream = Files.walk(this.storeFolder)){
+            pathStream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Path getColumnFilePath(){
+        return this.storeFolder.resolve("dt-1").resolve("odte.csv.col");
+    }
+
+    @Test
+    public void testRowsAreVisibleAfterCommit() throws IOException {
+
+        try(MetricColumnFile columnFile = MetricColumnFile.create(getColumnFilePath(), Arrays.asList("odte", "timeliness"), BLOCK_ROW_COUNT)){
+
+            columnFile.append(1000, new double[]{0.9, 0.95});
+
+            assertEquals(0, columnFile.getRowCount());
+
+            columnFile.commit(42);
+
+            assertEquals(1, columnFile.getRowCount());
+            assertEquals(42, columnFile.getSourceOffset());
+            assertEquals(1000, columnFile.getTimestamp(0));
+            assertEquals(0.9, columnFile.getValue(0, 0), 1e-9);
+            assertEquals(0.95, columnFile.getValue(1, 0), 1e-9);
+
+            //Missing values are stored as NaN
+            columnFile.append(1001, new double[]{0.8});
+            columnFile.commit(84);
+
+            assertEquals(0.8, columnFile.getValue(0, 1), 1e-9);
+            assertTrue(Double.isNaN(columnFile.getValue(1, 1)));
+        }
+    }
+
+    @Test
+    public void testReopenRestoresHeaderAndBlocks() throws IOException {
+
+        try(MetricColumnFile columnFile = MetricColumnFile.create(getColumnFilePath(), Arrays.asList("odte", "timeliness"), BLOCK_ROW_COUNT)){
+
+            //Three blocks, the last one partially filled
+            for(int row = 0; row < 10; row++)
+                columnFile.append(1000 + row, new double[]{row, row * 10.0});
+
+            columnFile.commit(420);
+
+            //Not committed: discarded on restart
+            columnFile.append(2000, new double[]{99.0, 99.0});
+        }
+
+        Optional<MetricColumnFile> columnFileOptional = MetricColumnFile.open(getColumnFilePath());
+
+        assertTrue(columnFileOptional.isPresent());
+
+        try(MetricColumnFile columnFile = columnFileOptional.get()){
+
+            assertEquals(Arrays.asList("odte", "timeliness"), columnFile.getColumnNameList());
+            assertEquals(1, columnFile.getColumnIndex("timeliness"));
+            assertEquals(-1, columnFile.getColumnIndex("t"));
+            assertEquals(10, columnFile.getRowCount());
+            assertEquals(420, columnFile.getSourceOffset());
+
+            for(int row = 0; row < 10; row++){
+                assertEquals(1000 + row, columnFile.getTimestamp(row));
+                assertEquals(row, columnFile.getValue(0, row), 1e-9);
+                assertEquals(row * 10.0, columnFile.getValue(1, row), 1e-9);
+            }
+
+            //Appends continue in the last partially filled block
+            columnFile.append(1010, new double[]{10.0, 100.0});
+            columnFile.append(1011, new double[]{11.0, 110.0});
+            columnFile.append(1012, new double[]{12.0, 120.0});
+            columnFile.commit(460);
+
+            assertEquals(13, columnFile.getRowCount());
+            assertEquals(1009, columnFile.getTimestamp(9));
+            assertEquals(1012, columnFile.getTimestamp(12));
+            assertEquals(120.0, columnFile.getValue(1, 12), 1e-9);
+        }
+    }
+
+    @Test
+    public void testOpenInvalidFile() throws IOException {
+
+        assertFalse(MetricColumnFile.open(getColumnFilePath()).isPresent());
+
+        Files.createDirectories(getColumnFilePath().getParent());
+        Files.write(getColumnFilePath(), new byte[MetricColumnFile.HEADER_SIZE]);
+
+        //Wrong magic
+        assertFalse(MetricColumnFile.open(getColumnFilePath()).isPresent());
+    }
+
+    @Test
+    public void testLowerBound() throws IOException {
+
+        try(MetricColumnFile columnFile = MetricColumnFile.create(getColumnFilePath(), Arrays.asList("odte"), BLOCK_ROW_COUNT)){
+
+            assertEquals(0, columnFile.lowerBound(1000));
+
+            //Equal timestamps across the blocks
+            long[] timestamps = {100, 200, 200, 200, 200, 300, 500};
+
+            for(long timestamp : timestamps)
+                columnFile.append(timestamp, new double[]{1.0});
+
+            columnFile.commit(0);
+
+            assertEquals(0, columnFile.lowerBound(50));
+            assertEquals(0, columnFile.lowerBound(100));
+            assertEquals(1, columnFile.lowerBound(101));
+            assertEquals(1, columnFile.lowerBound(200));
+            assertEquals(5, columnFile.lowerBound(201));
+            assertEquals(6, columnFile.lowerBound(400));
+            assertEquals(6, columnFile.lowerBound(500));
+            assertEquals(7, columnFile.lowerBound(501));
+        }
+    }
+
+    @Test
+    public void testDownsampleBucketEdges() throws IOException {
+
+        try(MetricColumnFile columnFile = MetricColumnFile.create(getColumnFilePath(), Arrays.asList("odte", "timeliness"), BLOCK_ROW_COUNT)){
+
+            columnFile.append(59, new double[]{1.0, Double.NaN});
+            columnFile.append(60, new double[]{2.0, Double.NaN});
+            columnFile.append(90, new double[]{4.0, Double.NaN});
+            columnFile.append(119, new double[]{6.0, 0.5});
+            columnFile.append(120, new double[]{8.0, Double.NaN});
+            columnFile.append(185, new double[]{10.0, Double.NaN});
+            columnFile.commit(0);
+
+            List<String> bucketList = new ArrayList<>();
+
+            //Buckets aligned to the epoch: [0, 60) [60, 120) [120, 180), the range bounds are inclusive
+            columnFile.downsample(59, 120, 60, new int[]{0, 1}, (bucketTimestamp, rowCount, minValues, maxValues, avgValues) ->
+                    bucketList.add(bucketTimestamp + ":" + rowCount + ":" + minValues[0] + ":" + maxValues[0] + ":" + avgValues[0] + ":" + avgValues[1]));
+
+            assertEquals(Arrays.asList(
+                    "0:1:1.0:1.0:1.0:NaN",
+                    "60:3:2.0:6.0:4.0:0.5",
+                    "120:1:8.0:8.0:8.0:NaN"), bucketList);
+
+            //Each row is a bucket without a bucket size
+            bucketList.clear();
+
+            columnFile.downsample(60, 90, 0, new int[]{0}, (bucketTimestamp, rowCount, minValues, maxValues, avgValues) ->
+                    bucketList.add(bucketTimestamp + ":" + rowCount + ":" + avgValues[0]));
+
+            assertEquals(Arrays.asList("60:1:2.0", "90:1:4.0"), bucketList);
+
+            //Empty range
+            bucketList.clear();
+
+            columnFile.downsample(121, 184, 60, new int[]{0}, (bucketTimestamp, rowCount, minValues, maxValues, avgValues) ->
+                    bucketList.add(String.valueOf(bucketTimestamp)));
+
+            assertTrue(bucketList.isEmpty());
+        }
+    }
+}
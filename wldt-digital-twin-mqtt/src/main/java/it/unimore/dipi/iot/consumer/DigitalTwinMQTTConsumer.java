@@ -1,5 +1,7 @@
 package it.unimore.dipi.iot.consumer;
 
+import it.unimore.dipi.iot.utils.SenMLEncoding;
+import it.unimore.dipi.iot.utils.SenMLReader;
 import org.eclipse.paho.client.mqttv3.IMqttClient;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
@@ -69,7 +71,13 @@ public class DigitalTwinMQTTConsumer {
                 //messaged from multiple and different topic can be received with the same subscription
                 //The msg variable is a MqttMessage object containing all the information about the received message
             	byte[] payload = msg.getPayload();
-                logger.info("Message Received -> Topic: {} - Payload: {}", topic, new String(payload));
+
+                //CBOR and binary SenML payloads are decoded before being logged
+                String senmlPayloadEncoding = SenMLEncoding.detectEncoding(payload);
+                if(SenMLEncoding.ENCODING_CBOR.equals(senmlPayloadEncoding) || SenMLEncoding.ENCODING_BINARY.equals(senmlPayloadEncoding))
+                    logger.info("Message Received -> Topic: {} - Payload ({} - {} bytes): {}", topic, senmlPayloadEncoding, payload.length, SenMLReader.getInstance().read(payload).orElse(null));
+                else
+                    logger.info("Message Received -> Topic: {} - Payload: {}", topic, new String(payload));
             });
 
         }catch (Exception e){
@@ -1,8 +1,5 @@
 package it.unimore.dipi.iot.digitaltwin;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
 import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
 import it.unimore.dipi.iot.wldt.processing.PipelineData;
@@ -27,24 +24,26 @@ public class DigitalStateProcessingStep implements ProcessingStep {
 
     private DigitalTwinConfiguration digitalTwinConfiguration;
 
-    private ObjectMapper objectMapper;
+    private DigitalTwinMetricsContext metricsContext;
 
-    public DigitalStateProcessingStep(DigitalTwinConfiguration digitalTwinConfiguration) {
+    private DigitalTwinLifeCycle lifeCycle;
 
-        this.digitalTwinConfiguration = digitalTwinConfiguration;
+    //Stream of the device state, resolved again only when removed as idle
+    private ResourceMetricsContext resourceMetricsContext;
+
+    public DigitalStateProcessingStep(DigitalTwinConfiguration digitalTwinConfiguration, DigitalTwinMetricsContext metricsContext, DigitalTwinLifeCycle lifeCycle) {
 
-        //Jackson Object Mapper + Ignore Null Fields in order to properly generate the SenML Payload
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.digitalTwinConfiguration = digitalTwinConfiguration;
+        this.metricsContext = metricsContext;
+        this.lifeCycle = lifeCycle;
 
     }
 
     @Override
     public void execute(PipelineCache pipelineCache, PipelineData pipelineData, ProcessingStepListener processingStepListener) {
 
-        //Check & Set Digital Twin Life Cycle State Value
-        if(MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.UN_BOUND.getValue())
-            MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.BOUND);
+        //Notify the observation to the Digital Twin Life Cycle (UN_BOUND -> BOUND)
+        lifeCycle.onObservation(System.currentTimeMillis());
 
         try{
 
@@ -54,7 +53,8 @@ public class DigitalStateProcessingStep implements ProcessingStep {
 
                 MqttPipelineData mqttPipelineData = (MqttPipelineData)pipelineData;
 
-                logger.debug("Executing EntanglementMeasuringProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
+                if(logger.isDebugEnabled())
+                    logger.debug("Executing EntanglementMeasuringProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
 
                 //Handle GPS and Battery Telemetry Messages and generate the associated SenML Payload
                 if(mqttPipelineData.getTopic().contains("device_state")){
@@ -75,15 +75,18 @@ public class DigitalStateProcessingStep implements ProcessingStep {
                         double secDelay = (double)entanglementObservation/1000.0;
                         logger.info("Aggregated Physical State - Entanglement Observations Sec: {}", secDelay);
 
-                        MetricsManager.getInstance().addObservationDelaySec(physicalTimestamp, secDelay);
+                        if(resourceMetricsContext == null || resourceMetricsContext.isRemoved())
+                            resourceMetricsContext = metricsContext.getResourceMetricsContext(DigitalTwin.DEVICE_STATE_RESOURCE_ID,
+                                    digitalTwinConfiguration.getTargetDeviceId());
+
+                        metricsContext.addObservationDelaySec(resourceMetricsContext, physicalTimestamp, secDelay);
 
 //                        if(MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.BOUND.getValue()
 //                                || MetricsManager.getInstance().getDigitalTwinLifeCycleStateGaugeValue() == DigitalTwinLifeCycleState.UN_SYNC.getValue())
 //                            MetricsManager.getInstance().setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.SHADOWED);
 
-                        //Forward the original payload
-                        mqttPipelineData.setPayload(mqttPipelineData.getPayload());
-                        processingStepListener.onStepDone(this, Optional.of(mqttPipelineData));
+                        //Forward the original payload together with the decoded message for the following steps
+                        processingStepListener.onStepDone(this, Optional.of(new TelemetryMqttPipelineData<>(mqttPipelineData, telemetryMessage)));
                     }
                     else{
                         String errorMessage = "PipelineData Error ! Error parsing received AggregateStatePayload !";
@@ -139,10 +142,8 @@ public class DigitalStateProcessingStep implements ProcessingStep {
     private Optional<TelemetryMessage<AggregatedResourcePayload>> parseAggregatedStateTelemetryMessage(byte[] payload){
 
         try{
-            if(payload == null || payload.length == 0)
-                return Optional.empty();
-            return Optional.ofNullable(this.objectMapper.readValue(new String(payload),
-                    new TypeReference<TelemetryMessage<AggregatedResourcePayload>>() {}));
+            //The payload overhead is kept since the decoded message is forwarded to the SenML step
+            return TelemetryMessageDecoder.getInstance().decodeAggregatedStateTelemetryMessage(payload, false);
         }catch (Exception e){
             return Optional.empty();
         }
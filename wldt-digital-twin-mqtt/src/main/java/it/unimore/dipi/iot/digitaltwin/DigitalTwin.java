@@ -0,0 +1,194 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import it.unimore.dipi.iot.utils.SenMLEncoding;
+import it.unimore.dipi.iot.wldt.processing.ProcessingPipeline;
+import it.unimore.dipi.iot.wldt.worker.mqtt.Mqtt2MqttWorker;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Single Digital Twin instance running in a {@link DigitalTwinHost}. It owns the configuration, the metrics context,
+ * the life cycle and the processing pipelines of the twin while the MQTT connections, the scheduler and the HTTP
+ * endpoints are provided by the host. Topic identifiers are prefixed with the digital twin id and topic templates embed the
+ * target device id so that multiple twins can share the same Mqtt2MqttWorker.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 16:30
+ */
+public class DigitalTwin {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigitalTwin.class);
+
+    public static final String ENERGY_TOPIC_ID = "energy_topic";
+    public static final String ENERGY_RESOURCE_ID = "energy";
+
+    public static final String TEMPERATURE_TOPIC_ID = "temperature_topic";
+    public static final String TEMPERATURE_RESOURCE_ID = "temperature";
+
+    public static final String DEVICE_STATE_TOPIC_ID = "device_state_topic";
+    public static final String DEVICE_STATE_RESOURCE_ID = "device_state";
+
+    private static final String DEVICE_TELEMETRY_TOPIC_TEMPLATE = "device/%s/telemetry/{{resource_id}}";
+
+    private final DigitalTwinConfiguration dtConfiguration;
+
+    private final DigitalTwinMetricsContext metricsContext;
+
+    private final DigitalTwinLifeCycle lifeCycle;
+
+    private final HttpConfigurationHandler httpConfigurationHandler;
+
+    /**
+     * @param scheduler scheduler of the life cycle deadlines shared by the twins of the host
+     */
+    public DigitalTwin(DigitalTwinConfiguration dtConfiguration, DigitalTwinMetricsContext metricsContext, ScheduledExecutorService scheduler) {
+        this.dtConfiguration = dtConfiguration;
+        this.metricsContext = metricsContext;
+        this.httpConfigurationHandler = new HttpConfigurationHandler(dtConfiguration, metricsContext);
+        this.lifeCycle = new DigitalTwinLifeCycle(dtConfiguration.getDigitalTwinId(),
+                dtConfiguration.getOdteTargetPercentile(),
+                dtConfiguration.getUnBoundThresholdMs(),
+                scheduler);
+
+        //Publish the life cycle state of the twin
+        this.lifeCycle.addListener(transition -> metricsContext.setDigitalTwinLifeCycleStateValue(transition.getState()));
+
+        //Check the ODTE target on each observation instead of waiting for the periodic update
+        this.lifeCycle.setOdteEvaluator(metricsContext, DigitalTwinLifeCycle.computeOdteSilenceMs(dtConfiguration.getOdteExpectedMsgSec(),
+                dtConfiguration.getOdteAvailabilityGapToleranceFactor(),
+                dtConfiguration.getOdteSlidingWindowSec()));
+        this.metricsContext.setObservationListener(this.lifeCycle::onOdteObservation);
+    }
+
+    /**
+     * Initialize the metrics of the twin and move it to the STARTED state
+     */
+    public void start(){
+
+        //Update starting expected Msgrate
+        metricsContext.setExpectedMessageRateValue(dtConfiguration.getExpectedMsgSec());
+
+        //Update Physical Asset Uptime
+        metricsContext.setPhysicalAssetUptimeValue(1.0);
+
+        //Set Digital Twin Life Cycle State Value
+        metricsContext.setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState.STARTED);
+    }
+
+    public List<MqttTopicDescriptor> getTopicDescriptorList(){
+
+        String topicTemplate = String.format(DEVICE_TELEMETRY_TOPIC_TEMPLATE, dtConfiguration.getTargetDeviceId());
+
+        return Arrays.asList(
+                new MqttTopicDescriptor(getTopicId(DEVICE_STATE_TOPIC_ID),
+                        DEVICE_STATE_RESOURCE_ID,
+                        topicTemplate,
+                        MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING),
+                new MqttTopicDescriptor(getTopicId(ENERGY_TOPIC_ID),
+                        ENERGY_RESOURCE_ID,
+                        topicTemplate,
+                        MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING),
+                new MqttTopicDescriptor(getTopicId(TEMPERATURE_TOPIC_ID),
+                        TEMPERATURE_RESOURCE_ID,
+                        topicTemplate,
+                        MqttTopicDescriptor.MQTT_TOPIC_TYPE_DEVICE_OUTGOING)
+        );
+    }
+
+    /**
+     * Add the Processing Pipelines of the twin topics to the target worker
+     */
+    public void addTopicProcessingPipelines(Mqtt2MqttWorker mqtt2MqttWorker){
+
+        String digitalTwinId = dtConfiguration.getDigitalTwinId();
+
+        if(!SenMLEncoding.isSupported(dtConfiguration.getSenmlPayloadEncoding()))
+            logger.warn("DigitalTwin -> {} Unknown SenML payload encoding: {} ! Using: {}", digitalTwinId,
+                    dtConfiguration.getSenmlPayloadEncoding(), SenMLEncoding.ENCODING_DEFAULT);
+
+        mqtt2MqttWorker.addTopicProcessingPipeline(getTopicId(ENERGY_TOPIC_ID),
+                new ProcessingPipeline(
+                        new SenmlMqttProcessingStep(digitalTwinId, dtConfiguration.getSenmlPayloadEncoding(), dtConfiguration.getTargetDeviceId(), metricsContext)
+                )
+        );
+
+        mqtt2MqttWorker.addTopicProcessingPipeline(getTopicId(TEMPERATURE_TOPIC_ID),
+                new ProcessingPipeline(
+                        new SenmlMqttProcessingStep(digitalTwinId, dtConfiguration.getSenmlPayloadEncoding(), dtConfiguration.getTargetDeviceId(), metricsContext)
+                )
+        );
+
+        mqtt2MqttWorker.addTopicProcessingPipeline(getTopicId(DEVICE_STATE_TOPIC_ID),
+                new ProcessingPipeline(
+                        new DigitalStateProcessingStep(dtConfiguration, metricsContext, lifeCycle),
+                        new DigitalTwinStateSenmlMqttProcessingStep(digitalTwinId, dtConfiguration.getSenmlPayloadEncoding())
+                ));
+    }
+
+    /**
+     * Compute the ODTE of the twin on the sliding windows of its observation streams and notify it to the life cycle.
+     * Periodically invoked by the host scheduler.
+     */
+    public void checkEntanglement(long currentTimestampMs){
+
+        try{
+
+            //Computing ODTE Value of each observation stream and combining them into the ODTE of the twin
+            Optional<OdteResultDescription> computedOdteOptional = metricsContext.updateOdte(currentTimestampMs);
+
+            logger.debug("ODTE -> {} Observation Streams: {}", dtConfiguration.getDigitalTwinId(), metricsContext.getResourceMetricsContextCount());
+
+            if(computedOdteOptional.isPresent()) {
+                logger.info("ODTE -> {} New Value: {}", dtConfiguration.getDigitalTwinId(), computedOdteOptional.get());
+
+                //Check DT State according to the computed ODTE
+                lifeCycle.onOdteUpdate(computedOdteOptional.get(), currentTimestampMs);
+            }
+            else
+                logger.error("ODTE -> {} Error computing ! EMPTY Result or no Timeliness values in range ({} sec)", dtConfiguration.getDigitalTwinId(), dtConfiguration.getOdteSlidingWindowSec());
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    public String getDigitalTwinId(){
+        return dtConfiguration.getDigitalTwinId();
+    }
+
+    public DigitalTwinConfiguration getDtConfiguration() {
+        return dtConfiguration;
+    }
+
+    public DigitalTwinMetricsContext getMetricsContext() {
+        return metricsContext;
+    }
+
+    public DigitalTwinLifeCycle getLifeCycle() {
+        return lifeCycle;
+    }
+
+    public HttpConfigurationHandler getHttpConfigurationHandler() {
+        return httpConfigurationHandler;
+    }
+
+    private String getTopicId(String topicId){
+        return String.format("%s-%s", dtConfiguration.getDigitalTwinId(), topicId);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("DigitalTwin{");
+        sb.append("digitalTwinId='").append(dtConfiguration.getDigitalTwinId()).append('\'');
+        sb.append(", targetDeviceId='").append(dtConfiguration.getTargetDeviceId()).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
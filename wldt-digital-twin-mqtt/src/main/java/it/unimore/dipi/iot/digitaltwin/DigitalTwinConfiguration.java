@@ -1,5 +1,11 @@
 package it.unimore.dipi.iot.digitaltwin;
 
+import it.unimore.dipi.iot.digitaltwin.odte.AvailabilityTracker;
+import it.unimore.dipi.iot.digitaltwin.odte.TimelinessEstimatorFactory;
+import it.unimore.dipi.iot.utils.SenMLEncoding;
+
+import java.util.Map;
+
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
  * @project wldt-digital-twin-mqtt
@@ -11,6 +17,8 @@ public class DigitalTwinConfiguration {
 
     public static final String OBSERVATION_BUCKET_TYPE_LINEAR = "linear";
 
+    public static final int DEFAULT_ODTE_MAX_RESOURCE_WINDOW_COUNT = 1024;
+
     private String digitalTwinId;
 
     private String targetDeviceId;
@@ -53,6 +61,20 @@ public class DigitalTwinConfiguration {
 
     private double odteExpectedMsgSec;
 
+    private String odteTimelinessEstimator = TimelinessEstimatorFactory.ESTIMATOR_TYPE_EXACT;
+
+    private double odteTimelinessErrorBound;
+
+    //Expected msg/sec of each observed resource (e.g. energy, temperature, device_state), odteExpectedMsgSec if missing
+    private Map<String, Double> odteResourceExpectedMsgSecMap;
+
+    private int odteMaxResourceWindowCount = DEFAULT_ODTE_MAX_RESOURCE_WINDOW_COUNT;
+
+    //Gaps longer than odteAvailabilityGapToleranceFactor expected inter-arrival times are unavailability periods
+    private double odteAvailabilityGapToleranceFactor = AvailabilityTracker.DEFAULT_GAP_TOLERANCE_FACTOR;
+
+    private String senmlPayloadEncoding = SenMLEncoding.ENCODING_DEFAULT;
+
     public DigitalTwinConfiguration() {
     }
 
@@ -224,6 +246,54 @@ public class DigitalTwinConfiguration {
         this.odteExpectedMsgSec = odteExpectedMsgSec;
     }
 
+    public String getOdteTimelinessEstimator() {
+        return odteTimelinessEstimator;
+    }
+
+    public void setOdteTimelinessEstimator(String odteTimelinessEstimator) {
+        this.odteTimelinessEstimator = odteTimelinessEstimator;
+    }
+
+    public double getOdteTimelinessErrorBound() {
+        return odteTimelinessErrorBound;
+    }
+
+    public void setOdteTimelinessErrorBound(double odteTimelinessErrorBound) {
+        this.odteTimelinessErrorBound = odteTimelinessErrorBound;
+    }
+
+    public Map<String, Double> getOdteResourceExpectedMsgSecMap() {
+        return odteResourceExpectedMsgSecMap;
+    }
+
+    public void setOdteResourceExpectedMsgSecMap(Map<String, Double> odteResourceExpectedMsgSecMap) {
+        this.odteResourceExpectedMsgSecMap = odteResourceExpectedMsgSecMap;
+    }
+
+    public int getOdteMaxResourceWindowCount() {
+        return odteMaxResourceWindowCount;
+    }
+
+    public void setOdteMaxResourceWindowCount(int odteMaxResourceWindowCount) {
+        this.odteMaxResourceWindowCount = odteMaxResourceWindowCount;
+    }
+
+    public double getOdteAvailabilityGapToleranceFactor() {
+        return odteAvailabilityGapToleranceFactor;
+    }
+
+    public void setOdteAvailabilityGapToleranceFactor(double odteAvailabilityGapToleranceFactor) {
+        this.odteAvailabilityGapToleranceFactor = odteAvailabilityGapToleranceFactor;
+    }
+
+    public String getSenmlPayloadEncoding() {
+        return senmlPayloadEncoding;
+    }
+
+    public void setSenmlPayloadEncoding(String senmlPayloadEncoding) {
+        this.senmlPayloadEncoding = senmlPayloadEncoding;
+    }
+
     @Override
     public String toString() {
         final StringBuffer sb = new StringBuffer("DigitalTwinConfiguration{");
@@ -248,6 +318,12 @@ public class DigitalTwinConfiguration {
         sb.append(", odteDesiredTimelinessSec=").append(odteDesiredTimelinessSec);
         sb.append(", odteTargetPercentile=").append(odteTargetPercentile);
         sb.append(", odteExpectedMsgSec=").append(odteExpectedMsgSec);
+        sb.append(", odteTimelinessEstimator='").append(odteTimelinessEstimator).append('\'');
+        sb.append(", odteTimelinessErrorBound=").append(odteTimelinessErrorBound);
+        sb.append(", odteResourceExpectedMsgSecMap=").append(odteResourceExpectedMsgSecMap);
+        sb.append(", odteMaxResourceWindowCount=").append(odteMaxResourceWindowCount);
+        sb.append(", odteAvailabilityGapToleranceFactor=").append(odteAvailabilityGapToleranceFactor);
+        sb.append(", senmlPayloadEncoding='").append(senmlPayloadEncoding).append('\'');
         sb.append('}');
         return sb.toString();
     }
@@ -0,0 +1,351 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.RoutingHandler;
+import io.undertow.util.Methods;
+import it.unimore.dipi.iot.digitaltwin.odte.MqttConnectionAvailabilityMonitor;
+import it.unimore.dipi.iot.digitaltwin.store.MetricsStoreIngester;
+import it.unimore.dipi.iot.wldt.engine.WldtConfiguration;
+import it.unimore.dipi.iot.wldt.engine.WldtEngine;
+import it.unimore.dipi.iot.wldt.worker.mqtt.Mqtt2MqttConfiguration;
+import it.unimore.dipi.iot.wldt.worker.mqtt.Mqtt2MqttWorker;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttTopicDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runtime hosting multiple Digital Twins in the same JVM. The hosted twins share:
+ *
+ * - a single WLDT Engine and a pool of MQTT connections: twins targeting the same physical and digital brokers are
+ *   grouped into the same Mqtt2MqttWorker (i.e. the same pair of MQTT connections) up to maxTwinsPerConnection
+ *   twins for each worker;
+ * - a single Prometheus HTTP endpoint where each twin is identified by the digital_twin_id label;
+ * - a single scheduler periodically evaluating the ODTE of each twin and handling the deadlines of their life cycles;
+ * - a connection availability monitor for each MQTT connection towards the physical broker, whose disconnections
+ *   are accounted in the availability of the twins of the connection group;
+ * - a single HTTP API exposing the metrics folders and the configuration of each twin on /conf/{digitalTwinId}
+ *   (and on /conf when a single twin is hosted).
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 17:00
+ */
+public class DigitalTwinHost {
+
+    private static final String TAG = "[WLDT-DT-Host]";
+
+    private static final Logger logger = LoggerFactory.getLogger(DigitalTwinHost.class);
+
+    private static final long STARTUP_PHASE_DELAY_MS = 5000;
+
+    private final DigitalTwinHostConfiguration hostConfiguration;
+
+    private final Map<String, DigitalTwin> digitalTwinMap = new LinkedHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private WldtEngine wldtEngine;
+
+    private Undertow httpApiServer;
+
+    private MetricsStoreIngester metricsStoreIngester;
+
+    private final List<MqttConnectionAvailabilityMonitor> connectionMonitorList = new ArrayList<>();
+
+    public DigitalTwinHost(DigitalTwinHostConfiguration hostConfiguration) {
+        this.hostConfiguration = hostConfiguration;
+    }
+
+    public void start() throws Exception {
+
+        logger.info("{} Starting Digital Twin Host with {} Digital Twins ...", TAG, hostConfiguration.getDigitalTwinList().size());
+
+        //Initialize the Prometheus Metrics shared by all the Digital Twins
+        initPrometheusMetrics();
+
+        //Scheduler of the ODTE checks and of the life cycle deadlines of all the Digital Twins
+        scheduler = Executors.newScheduledThreadPool(Math.max(1, hostConfiguration.getSchedulerThreadCount()));
+
+        for(DigitalTwinConfiguration dtConfiguration : hostConfiguration.getDigitalTwinList()){
+
+            Optional<DigitalTwinMetricsContext> metricsContextOptional = MetricsManager.getInstance().createMetricsContext(dtConfiguration);
+
+            if(metricsContextOptional.isPresent()){
+                DigitalTwin digitalTwin = new DigitalTwin(dtConfiguration, metricsContextOptional.get(), scheduler);
+                digitalTwin.start();
+                digitalTwinMap.put(digitalTwin.getDigitalTwinId(), digitalTwin);
+            }
+            else
+                logger.error("{} Error creating Digital Twin {} ! Skipping ...", TAG, dtConfiguration.getDigitalTwinId());
+        }
+
+        Thread.sleep(STARTUP_PHASE_DELAY_MS);
+
+        //Manual creation of the WldtConfiguration
+        WldtConfiguration wldtConfiguration = new WldtConfiguration();
+        wldtConfiguration.setDeviceNameSpace("it.unimore.dipi.things");
+        wldtConfiguration.setWldtBaseIdentifier("wldt");
+        wldtConfiguration.setWldtStartupTimeSeconds(10);
+        wldtConfiguration.setApplicationMetricsEnabled(hostConfiguration.isMetricsEnabled());
+        wldtConfiguration.setApplicationMetricsReportingPeriodSeconds(10);
+        wldtConfiguration.setMetricsReporterList(Collections.singletonList("csv"));
+
+        wldtEngine = new WldtEngine(wldtConfiguration);
+
+        List<List<DigitalTwin>> connectionGroupList = groupByConnection(new ArrayList<>(digitalTwinMap.values()), hostConfiguration.getMaxTwinsPerConnection());
+
+        for(int groupIndex = 0; groupIndex < connectionGroupList.size(); groupIndex++){
+
+            List<DigitalTwin> connectionGroup = connectionGroupList.get(groupIndex);
+
+            Mqtt2MqttWorker mqtt2MqttWorker = new Mqtt2MqttWorker(
+                    wldtEngine.getWldtId(),
+                    getMqttProtocolConfiguration(connectionGroup, groupIndex)
+            );
+
+            MqttConnectionAvailabilityMonitor connectionMonitor = createConnectionMonitor(connectionGroup, groupIndex);
+            connectionMonitorList.add(connectionMonitor);
+
+            //Add Processing Pipeline for target topics
+            for(DigitalTwin digitalTwin : connectionGroup) {
+                digitalTwin.getMetricsContext().setConnectionIntervalLog(connectionMonitor.getConnectionIntervalLog());
+                digitalTwin.addTopicProcessingPipelines(mqtt2MqttWorker);
+            }
+
+            wldtEngine.addNewWorker(mqtt2MqttWorker);
+
+            logger.info("{} MQTT Connection {} -> Digital Twins: {}", TAG, groupIndex, connectionGroup);
+        }
+
+        //Set Digital Twin Life Cycle State Value
+        for(DigitalTwin digitalTwin : digitalTwinMap.values())
+            digitalTwin.getLifeCycle().unBind(System.currentTimeMillis());
+
+        Thread.sleep(STARTUP_PHASE_DELAY_MS);
+
+        for(MqttConnectionAvailabilityMonitor connectionMonitor : connectionMonitorList)
+            connectionMonitor.start();
+
+        wldtEngine.startWorkers();
+
+        startHttpApi();
+
+        startPeriodicOdteMonitoring();
+    }
+
+    public void stop(){
+
+        try{
+
+            if(scheduler != null)
+                scheduler.shutdownNow();
+
+            if(httpApiServer != null)
+                httpApiServer.stop();
+
+            if(metricsStoreIngester != null)
+                metricsStoreIngester.stop();
+
+            for(MqttConnectionAvailabilityMonitor connectionMonitor : connectionMonitorList)
+                connectionMonitor.stop();
+
+            MetricsManager.getInstance().stopHttpServer();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    public Optional<DigitalTwin> getDigitalTwin(String digitalTwinId){
+        return Optional.ofNullable(digitalTwinMap.get(digitalTwinId));
+    }
+
+    public Collection<DigitalTwin> getDigitalTwins(){
+        return Collections.unmodifiableCollection(digitalTwinMap.values());
+    }
+
+    public DigitalTwinHostConfiguration getHostConfiguration() {
+        return hostConfiguration;
+    }
+
+    private void initPrometheusMetrics(){
+
+        //Enable Prometheus HTTP Server Monitoring & Configure Metrics Type
+        MetricsManager.getInstance().setObservationBucketStart(hostConfiguration.getObservationBucketStart());
+        MetricsManager.getInstance().setObservationBucketWidth(hostConfiguration.getObservationBucketWidth());
+        MetricsManager.getInstance().setObservationBucketCount(hostConfiguration.getObservationBucketCount());
+        MetricsManager.getInstance().setObservationBucketType(hostConfiguration.getObservationBucketType());
+        MetricsManager.getInstance().init();
+
+        //Expose Prometheus Metrics through dedicated HTTP Server
+        MetricsManager.getInstance().exposeHttpServer(hostConfiguration.getPrometheusHttpApiPort());
+    }
+
+    private void startPeriodicOdteMonitoring(){
+
+        long periodMs = hostConfiguration.getOdteCheckPeriodMs();
+        int twinCount = digitalTwinMap.size();
+        int twinIndex = 0;
+
+        //Spread the twins checks over the period to avoid bursts on the scheduler threads
+        for(DigitalTwin digitalTwin : digitalTwinMap.values()){
+
+            long initialDelayMs = periodMs + (periodMs * twinIndex) / Math.max(1, twinCount);
+
+            scheduler.scheduleAtFixedRate(() -> digitalTwin.checkEntanglement(System.currentTimeMillis()),
+                    initialDelayMs,
+                    periodMs,
+                    TimeUnit.MILLISECONDS);
+
+            twinIndex++;
+        }
+    }
+
+    /**
+     * Group the twins sharing the same physical and digital brokers, splitting each group in chunks of at most
+     * maxTwinsPerConnection twins
+     */
+    private static List<List<DigitalTwin>> groupByConnection(List<DigitalTwin> digitalTwinList, int maxTwinsPerConnection){
+
+        Map<String, List<DigitalTwin>> brokerGroupMap = new LinkedHashMap<>();
+
+        for(DigitalTwin digitalTwin : digitalTwinList){
+
+            DigitalTwinConfiguration dtConfiguration = digitalTwin.getDtConfiguration();
+
+            String brokerKey = String.format("%s:%d-%s:%d",
+                    dtConfiguration.getPhysicalMqttBrokerAddress(),
+                    dtConfiguration.getPhysicalMqttBrokerPort(),
+                    dtConfiguration.getDigitalMqttBrokerAddress(),
+                    dtConfiguration.getDigitalMqttBrokerPort());
+
+            brokerGroupMap.computeIfAbsent(brokerKey, key -> new ArrayList<>()).add(digitalTwin);
+        }
+
+        int chunkSize = Math.max(1, maxTwinsPerConnection);
+
+        List<List<DigitalTwin>> connectionGroupList = new ArrayList<>();
+
+        for(List<DigitalTwin> brokerGroup : brokerGroupMap.values())
+            for(int i = 0; i < brokerGroup.size(); i += chunkSize)
+                connectionGroupList.add(new ArrayList<>(brokerGroup.subList(i, Math.min(i + chunkSize, brokerGroup.size()))));
+
+        return connectionGroupList;
+    }
+
+    /**
+     * MQTT-to-MQTT WLDT Worker configuration shared by a group of twins targeting the same brokers
+     */
+    private Mqtt2MqttConfiguration getMqttProtocolConfiguration(List<DigitalTwin> connectionGroup, int groupIndex){
+
+        DigitalTwinConfiguration referenceConfiguration = connectionGroup.get(0).getDtConfiguration();
+
+        Mqtt2MqttConfiguration mqtt2MqttConfiguration = new Mqtt2MqttConfiguration();
+
+        mqtt2MqttConfiguration.setBrokerAddress(referenceConfiguration.getPhysicalMqttBrokerAddress());
+        mqtt2MqttConfiguration.setBrokerPort(referenceConfiguration.getPhysicalMqttBrokerPort());
+        mqtt2MqttConfiguration.setDestinationBrokerAddress(referenceConfiguration.getDigitalMqttBrokerAddress());
+        mqtt2MqttConfiguration.setDestinationBrokerPort(referenceConfiguration.getDigitalMqttBrokerPort());
+
+        //Topic templates embed the target device id of each twin
+        mqtt2MqttConfiguration.setDeviceId(connectionGroup.size() == 1 ?
+                referenceConfiguration.getTargetDeviceId() :
+                String.format("%s-%d", hostConfiguration.getHostId(), groupIndex));
+
+        //Keep the original client ids when a single twin is hosted
+        String clientIdPrefix = hostConfiguration.getDigitalTwinList().size() == 1 ?
+                referenceConfiguration.getDigitalTwinId() :
+                String.format("%s-%d", hostConfiguration.getHostId(), groupIndex);
+
+        mqtt2MqttConfiguration.setBrokerClientId(String.format("%s-%s",
+                clientIdPrefix,
+                "PhysicalBrokerTestClientId"));
+        mqtt2MqttConfiguration.setDestinationBrokerClientId(String.format("%s-%s",
+                clientIdPrefix,
+                "DigitalBrokerTestClientId"));
+
+        List<MqttTopicDescriptor> topicDescriptorList = new ArrayList<>();
+
+        for(DigitalTwin digitalTwin : connectionGroup)
+            topicDescriptorList.addAll(digitalTwin.getTopicDescriptorList());
+
+        //Specify Topic List Configuration
+        mqtt2MqttConfiguration.setTopicList(topicDescriptorList);
+
+        return mqtt2MqttConfiguration;
+    }
+
+    /**
+     * Availability monitor of the connection of a group towards the physical broker, retaining the disconnections for
+     * the longest sliding window of the twins of the group
+     */
+    private MqttConnectionAvailabilityMonitor createConnectionMonitor(List<DigitalTwin> connectionGroup, int groupIndex){
+
+        DigitalTwinConfiguration referenceConfiguration = connectionGroup.get(0).getDtConfiguration();
+
+        int maxSlidingWindowSec = 0;
+        for(DigitalTwin digitalTwin : connectionGroup)
+            maxSlidingWindowSec = Math.max(maxSlidingWindowSec, digitalTwin.getDtConfiguration().getOdteSlidingWindowSec());
+
+        return new MqttConnectionAvailabilityMonitor(referenceConfiguration.getPhysicalMqttBrokerAddress(),
+                referenceConfiguration.getPhysicalMqttBrokerPort(),
+                String.format("%s-%d-ConnectionMonitorClientId", hostConfiguration.getHostId(), groupIndex),
+                TimeUnit.SECONDS.toMillis(maxSlidingWindowSec));
+    }
+
+    private void startHttpApi(){
+
+        try{
+
+            //Columnar history of the CSV metrics files for the range queries of the HTTP API
+            if(hostConfiguration.isMetricsEnabled()){
+                metricsStoreIngester = new MetricsStoreIngester(Paths.get(MetricsExporterUtils.METRICS_FOLDER),
+                        Paths.get(MetricsStoreIngester.DEFAULT_STORE_FOLDER),
+                        MetricsStoreIngester.DEFAULT_SCAN_PERIOD_SEC);
+                metricsStoreIngester.start();
+            }
+
+            httpApiServer = Undertow.builder().addHttpListener(hostConfiguration.getHttpApiPort(), "0.0.0.0", getBasicRoutes()).build();
+            httpApiServer.start();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    private HttpHandler getBasicRoutes() {
+
+        RoutingHandler routingHandler = new RoutingHandler()
+                .add(Methods.GET, "/metrics", new HttpMetricsHandler())
+                .add(Methods.GET, "/metrics/{folderId}", new HttpMetricsFolderHandler())
+                .add(Methods.GET,"/metrics/{folderId}/{fileId}", new HttpMetricsSingleFileHandler());
+
+        if(metricsStoreIngester != null)
+            routingHandler.add(Methods.GET,"/metrics/{folderId}/{fileId}/series", new HttpMetricsSeriesHandler(metricsStoreIngester));
+
+        for(DigitalTwin digitalTwin : digitalTwinMap.values()){
+
+            String confPath = String.format("/conf/%s", digitalTwin.getDigitalTwinId());
+
+            routingHandler
+                    .add(Methods.GET, confPath, digitalTwin.getHttpConfigurationHandler())
+                    .add(Methods.PUT, confPath, digitalTwin.getHttpConfigurationHandler());
+        }
+
+        if(digitalTwinMap.size() == 1){
+            DigitalTwin digitalTwin = digitalTwinMap.values().iterator().next();
+            routingHandler
+                    .add(Methods.GET, "/conf", digitalTwin.getHttpConfigurationHandler())
+                    .add(Methods.PUT, "/conf", digitalTwin.getHttpConfigurationHandler());
+        }
+
+        return routingHandler;
+    }
+
+}
@@ -0,0 +1,179 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration of a {@link DigitalTwinHost} running multiple Digital Twins in the same JVM.
+ * Ports, metrics and histogram settings are shared by all the hosted twins, while each twin keeps its own
+ * {@link DigitalTwinConfiguration}.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 16:45
+ */
+public class DigitalTwinHostConfiguration {
+
+    private String hostId = "dt-host";
+
+    private boolean metricsEnabled;
+
+    private int httpApiPort;
+
+    private int prometheusHttpApiPort;
+
+    private String observationBucketType = DigitalTwinConfiguration.OBSERVATION_BUCKET_TYPE_DEFAULT;
+
+    private double observationBucketStart;
+
+    private double observationBucketWidth;
+
+    private int observationBucketCount;
+
+    private int maxTwinsPerConnection = 100;
+
+    private int schedulerThreadCount = 2;
+
+    private long odteCheckPeriodMs = 1000;
+
+    private List<DigitalTwinConfiguration> digitalTwinList = new ArrayList<>();
+
+    public DigitalTwinHostConfiguration() {
+    }
+
+    /**
+     * Build the configuration of a host running only the target Digital Twin, using its ports and metrics settings
+     */
+    public static DigitalTwinHostConfiguration fromDigitalTwinConfiguration(DigitalTwinConfiguration dtConfiguration){
+
+        DigitalTwinHostConfiguration hostConfiguration = new DigitalTwinHostConfiguration();
+        hostConfiguration.setHostId(dtConfiguration.getDigitalTwinId());
+        hostConfiguration.setMetricsEnabled(dtConfiguration.isMetricsEnabled());
+        hostConfiguration.setHttpApiPort(dtConfiguration.getHttpApiPort());
+        hostConfiguration.setPrometheusHttpApiPort(dtConfiguration.getPrometheusHttpApiPort());
+        hostConfiguration.setObservationBucketType(dtConfiguration.getObservationBucketType());
+        hostConfiguration.setObservationBucketStart(dtConfiguration.getObservationBucketStart());
+        hostConfiguration.setObservationBucketWidth(dtConfiguration.getObservationBucketWidth());
+        hostConfiguration.setObservationBucketCount(dtConfiguration.getObservationBucketCount());
+        hostConfiguration.setMaxTwinsPerConnection(1);
+        hostConfiguration.setSchedulerThreadCount(1);
+        hostConfiguration.setDigitalTwinList(Collections.singletonList(dtConfiguration));
+
+        return hostConfiguration;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    public void setHostId(String hostId) {
+        this.hostId = hostId;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public int getHttpApiPort() {
+        return httpApiPort;
+    }
+
+    public void setHttpApiPort(int httpApiPort) {
+        this.httpApiPort = httpApiPort;
+    }
+
+    public int getPrometheusHttpApiPort() {
+        return prometheusHttpApiPort;
+    }
+
+    public void setPrometheusHttpApiPort(int prometheusHttpApiPort) {
+        this.prometheusHttpApiPort = prometheusHttpApiPort;
+    }
+
+    public String getObservationBucketType() {
+        return observationBucketType;
+    }
+
+    public void setObservationBucketType(String observationBucketType) {
+        this.observationBucketType = observationBucketType;
+    }
+
+    public double getObservationBucketStart() {
+        return observationBucketStart;
+    }
+
+    public void setObservationBucketStart(double observationBucketStart) {
+        this.observationBucketStart = observationBucketStart;
+    }
+
+    public double getObservationBucketWidth() {
+        return observationBucketWidth;
+    }
+
+    public void setObservationBucketWidth(double observationBucketWidth) {
+        this.observationBucketWidth = observationBucketWidth;
+    }
+
+    public int getObservationBucketCount() {
+        return observationBucketCount;
+    }
+
+    public void setObservationBucketCount(int observationBucketCount) {
+        this.observationBucketCount = observationBucketCount;
+    }
+
+    public int getMaxTwinsPerConnection() {
+        return maxTwinsPerConnection;
+    }
+
+    public void setMaxTwinsPerConnection(int maxTwinsPerConnection) {
+        this.maxTwinsPerConnection = maxTwinsPerConnection;
+    }
+
+    public int getSchedulerThreadCount() {
+        return schedulerThreadCount;
+    }
+
+    public void setSchedulerThreadCount(int schedulerThreadCount) {
+        this.schedulerThreadCount = schedulerThreadCount;
+    }
+
+    public long getOdteCheckPeriodMs() {
+        return odteCheckPeriodMs;
+    }
+
+    public void setOdteCheckPeriodMs(long odteCheckPeriodMs) {
+        this.odteCheckPeriodMs = odteCheckPeriodMs;
+    }
+
+    public List<DigitalTwinConfiguration> getDigitalTwinList() {
+        return digitalTwinList;
+    }
+
+    public void setDigitalTwinList(List<DigitalTwinConfiguration> digitalTwinList) {
+        this.digitalTwinList = digitalTwinList;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("DigitalTwinHostConfiguration{");
+        sb.append("hostId='").append(hostId).append('\'');
+        sb.append(", metricsEnabled=").append(metricsEnabled);
+        sb.append(", httpApiPort=").append(httpApiPort);
+        sb.append(", prometheusHttpApiPort=").append(prometheusHttpApiPort);
+        sb.append(", observationBucketType='").append(observationBucketType).append('\'');
+        sb.append(", observationBucketStart=").append(observationBucketStart);
+        sb.append(", observationBucketWidth=").append(observationBucketWidth);
+        sb.append(", observationBucketCount=").append(observationBucketCount);
+        sb.append(", maxTwinsPerConnection=").append(maxTwinsPerConnection);
+        sb.append(", schedulerThreadCount=").append(schedulerThreadCount);
+        sb.append(", odteCheckPeriodMs=").append(odteCheckPeriodMs);
+        sb.append(", digitalTwinList=").append(digitalTwinList);
+        sb.append('}');
+        return sb.toString();
+    }
+}
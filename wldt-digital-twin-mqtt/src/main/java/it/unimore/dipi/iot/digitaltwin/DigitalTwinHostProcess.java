@@ -0,0 +1,58 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Run multiple Digital Twins in the same JVM through a {@link DigitalTwinHost} configured with the list of
+ * Digital Twin configurations available in the host configuration file (default: dt_host_conf.yaml, or the path
+ * passed as first argument).
+ *
+ * Mvn Command: mvn exec:java -Dexec.mainClass="it.unimore.dipi.iot.digitaltwin.DigitalTwinHostProcess"
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 17:20
+ */
+public class DigitalTwinHostProcess {
+
+    private static final String TAG = "[WLDT-DT-Host-Process]";
+
+    private static final Logger logger = LoggerFactory.getLogger(DigitalTwinHostProcess.class);
+
+    private static final String DT_HOST_CONFIGURATION_FILE = "dt_host_conf.yaml";
+
+    public static void main(String[] args) {
+
+        try{
+
+            String configurationFile = args.length > 0 ? args[0] : DT_HOST_CONFIGURATION_FILE;
+
+            DigitalTwinHostConfiguration hostConfiguration = readConfigurationFile(configurationFile);
+            logger.info("{} DT Host Configuration: {}", TAG, hostConfiguration);
+
+            if(hostConfiguration != null){
+                DigitalTwinHost digitalTwinHost = new DigitalTwinHost(hostConfiguration);
+                Runtime.getRuntime().addShutdownHook(new Thread(digitalTwinHost::stop));
+                digitalTwinHost.start();
+            }
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+
+    private static DigitalTwinHostConfiguration readConfigurationFile(String configurationFile) {
+        try{
+            File file = new File(configurationFile);
+            ObjectMapper om = new ObjectMapper(new YAMLFactory());
+            return om.readValue(file, DigitalTwinHostConfiguration.class);
+        }catch (Exception e){
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
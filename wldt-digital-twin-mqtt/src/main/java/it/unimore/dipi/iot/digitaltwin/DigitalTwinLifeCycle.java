@@ -0,0 +1,323 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import it.unimore.dipi.iot.digitaltwin.odte.OdteEvaluator;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event driven state machine of the life cycle of a Digital Twin:
+ *
+ * STARTED -> UN_BOUND     when the twin is connected to the physical broker ({@link #unBind(long)})
+ * UN_BOUND -> BOUND       on the first observation of the physical asset ({@link #onObservation(long)})
+ * BOUND/UN_SYNC -> SHADOWED  when the ODTE reaches the target percentile ({@link #onOdteUpdate(OdteResultDescription, long)})
+ * SHADOWED -> UN_SYNC     when the ODTE drops below the target percentile
+ * UN_SYNC -> UN_BOUND     when no observation is received for unBoundThresholdMs
+ *
+ * Observations only update the timestamp of the last observation (and take the lock only for the UN_BOUND -> BOUND
+ * transition), so they can be notified by the MQTT callback thread for each message. The UN_BOUND deadline is
+ * handled by a single task on the shared scheduler, armed when the twin enters UN_SYNC and lazily re-armed at the
+ * deadline of the last observation when it fires, so the transition happens at the deadline without timers being
+ * created or cancelled for each observation. Transitions are notified to the registered listeners with their
+ * timestamp and cause.
+ *
+ * When an {@link OdteEvaluator} is set ({@link #setOdteEvaluator(OdteEvaluator, long)}) the ODTE is evaluated on each
+ * observation added to the windows of the twin ({@link #onOdteObservation(long)}), so the target percentile is
+ * checked as soon as it is crossed; the lock is taken only when a transition is due. Since a silent twin does not
+ * trigger evaluations, a single ODTE deadline task is armed while the twin is SHADOWED: it fires odteSilenceMs after
+ * the last observation and, if no newer observation arrived, it evaluates the ODTE and re-arms itself at the next
+ * change of the windows (an observation leaving a window or a stream exceeding its gap tolerance). ODTE updates
+ * older than the last transition are ignored, so a stale evaluation cannot revert a newer transition.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 21:40
+ */
+public class DigitalTwinLifeCycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigitalTwinLifeCycle.class);
+
+    public static final long MIN_ODTE_SILENCE_MS = 100;
+
+    private final String digitalTwinId;
+
+    private final double odteTargetPercentile;
+
+    private final long unBoundThresholdMs;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final List<DigitalTwinLifeCycleListener> listenerList = new CopyOnWriteArrayList<>();
+
+    private volatile DigitalTwinLifeCycleState state = DigitalTwinLifeCycleState.STARTED;
+
+    private volatile long lastObservationTimestampMs = System.currentTimeMillis();
+
+    private volatile DigitalTwinLifeCycleTransition lastTransition;
+
+    private boolean deadlineScheduled = false;
+
+    private volatile OdteEvaluator odteEvaluator;
+
+    private volatile long odteSilenceMs = MIN_ODTE_SILENCE_MS;
+
+    private volatile long lastOdteObservationTimestampMs = System.currentTimeMillis();
+
+    private boolean odteDeadlineScheduled = false;
+
+    /**
+     * @param scheduler scheduler of the deadline tasks, can be shared by multiple twins (deadlines are not handled if null)
+     */
+    public DigitalTwinLifeCycle(String digitalTwinId, double odteTargetPercentile, long unBoundThresholdMs, ScheduledExecutorService scheduler) {
+        this.digitalTwinId = digitalTwinId;
+        this.odteTargetPercentile = odteTargetPercentile;
+        this.unBoundThresholdMs = unBoundThresholdMs;
+        this.scheduler = scheduler;
+    }
+
+    public void addListener(DigitalTwinLifeCycleListener listener){
+        if(listener != null)
+            this.listenerList.add(listener);
+    }
+
+    public void removeListener(DigitalTwinLifeCycleListener listener){
+        this.listenerList.remove(listener);
+    }
+
+    /**
+     * Move a STARTED twin to UN_BOUND, waiting for the observations of the physical asset
+     */
+    public synchronized void unBind(long timestampMs){
+        if(this.state == DigitalTwinLifeCycleState.STARTED)
+            transition(DigitalTwinLifeCycleState.UN_BOUND, timestampMs, DigitalTwinLifeCycleTransition.CAUSE_STARTUP);
+    }
+
+    /**
+     * Notify a new observation of the physical asset received at the local time timestampMs
+     */
+    public void onObservation(long timestampMs){
+
+        this.lastObservationTimestampMs = timestampMs;
+
+        if(this.state == DigitalTwinLifeCycleState.UN_BOUND){
+            synchronized (this){
+                if(this.state == DigitalTwinLifeCycleState.UN_BOUND)
+                    transition(DigitalTwinLifeCycleState.BOUND, timestampMs, DigitalTwinLifeCycleTransition.CAUSE_OBSERVATION);
+            }
+        }
+    }
+
+    /**
+     * Set the source of the ODTE evaluated on the observations of the twin (see {@link #onOdteObservation(long)})
+     * @param odteSilenceMs time without observations after which a SHADOWED twin re-evaluates the ODTE on its own
+     *                      (e.g. the gap tolerance of the streams), at least {@link #MIN_ODTE_SILENCE_MS}
+     */
+    public void setOdteEvaluator(OdteEvaluator odteEvaluator, long odteSilenceMs){
+        this.odteSilenceMs = Math.max(MIN_ODTE_SILENCE_MS, odteSilenceMs);
+        this.odteEvaluator = odteEvaluator;
+    }
+
+    /**
+     * @return the time without observations after which the ODTE of a twin is re-evaluated on its own: the gap
+     * tolerance of a stream with the expected rate, bounded by the sliding window
+     */
+    public static long computeOdteSilenceMs(double expectedMsgSec, double gapToleranceFactor, int slidingWindowSec){
+
+        long slidingWindowMs = TimeUnit.SECONDS.toMillis(slidingWindowSec);
+
+        if(expectedMsgSec <= 0.0)
+            return slidingWindowMs;
+
+        return Math.min(slidingWindowMs, Math.round(1000.0 / expectedMsgSec * Math.max(1.0, gapToleranceFactor)));
+    }
+
+    /**
+     * Notify that an observation has been added to the ODTE windows of the twin at the local time timestampMs:
+     * the ODTE is evaluated on the updated windows if an evaluator is set
+     */
+    public void onOdteObservation(long timestampMs){
+
+        this.lastOdteObservationTimestampMs = timestampMs;
+
+        OdteEvaluator odteEvaluator = this.odteEvaluator;
+
+        if(odteEvaluator != null && isOdteTracked(this.state))
+            odteEvaluator.evaluateOdte(timestampMs).ifPresent(odteResultDescription -> onOdteUpdate(odteResultDescription, timestampMs));
+    }
+
+    /**
+     * Notify a new ODTE value of the twin
+     */
+    public void onOdteUpdate(OdteResultDescription odteResultDescription, long timestampMs){
+
+        if(odteResultDescription == null || getOdteTransitionState(odteResultDescription.getOdte()) == null)
+            return;
+
+        synchronized (this){
+
+            DigitalTwinLifeCycleState newState = getOdteTransitionState(odteResultDescription.getOdte());
+
+            //Evaluated before the last transition: the ODTE has been computed on older windows
+            if(newState == null || (this.lastTransition != null && timestampMs < this.lastTransition.getTimestampMs()))
+                return;
+
+            transition(newState, timestampMs, newState == DigitalTwinLifeCycleState.SHADOWED ?
+                    DigitalTwinLifeCycleTransition.CAUSE_ODTE_ABOVE_TARGET :
+                    DigitalTwinLifeCycleTransition.CAUSE_ODTE_BELOW_TARGET);
+        }
+    }
+
+    public DigitalTwinLifeCycleState getState() {
+        return state;
+    }
+
+    public long getLastObservationTimestampMs() {
+        return lastObservationTimestampMs;
+    }
+
+    /**
+     * @return the last transition or null if the twin is still in the STARTED state
+     */
+    public DigitalTwinLifeCycleTransition getLastTransition() {
+        return lastTransition;
+    }
+
+    public String getDigitalTwinId() {
+        return digitalTwinId;
+    }
+
+    /**
+     * @return the state reached by the twin with the target ODTE value or null if the value does not trigger a transition
+     */
+    private DigitalTwinLifeCycleState getOdteTransitionState(double odteValue){
+
+        DigitalTwinLifeCycleState state = this.state;
+
+        if(odteValue >= this.odteTargetPercentile && (state == DigitalTwinLifeCycleState.BOUND || state == DigitalTwinLifeCycleState.UN_SYNC))
+            return DigitalTwinLifeCycleState.SHADOWED;
+        else if(odteValue < this.odteTargetPercentile && state == DigitalTwinLifeCycleState.SHADOWED)
+            return DigitalTwinLifeCycleState.UN_SYNC;
+        else
+            return null;
+    }
+
+    private static boolean isOdteTracked(DigitalTwinLifeCycleState state){
+        return state == DigitalTwinLifeCycleState.BOUND || state == DigitalTwinLifeCycleState.SHADOWED || state == DigitalTwinLifeCycleState.UN_SYNC;
+    }
+
+    private void transition(DigitalTwinLifeCycleState newState, long timestampMs, String cause){
+
+        DigitalTwinLifeCycleTransition transition = new DigitalTwinLifeCycleTransition(this.digitalTwinId, this.state, newState, timestampMs, cause);
+
+        this.state = newState;
+        this.lastTransition = transition;
+
+        logger.info("DigitalTwinLifeCycle -> {}", transition);
+
+        for(DigitalTwinLifeCycleListener listener : this.listenerList){
+            try{
+                listener.onLifeCycleTransition(transition);
+            }catch (Exception e){
+                logger.error("DigitalTwinLifeCycle -> {} Error notifying transition ! Msg: {}", this.digitalTwinId, e.getLocalizedMessage());
+            }
+        }
+
+        if(newState == DigitalTwinLifeCycleState.UN_SYNC)
+            scheduleUnBoundDeadline(this.lastObservationTimestampMs + this.unBoundThresholdMs - timestampMs);
+        else if(newState == DigitalTwinLifeCycleState.SHADOWED && this.odteEvaluator != null)
+            scheduleOdteDeadline(this.lastOdteObservationTimestampMs + this.odteSilenceMs - timestampMs);
+    }
+
+    private void scheduleUnBoundDeadline(long delayMs){
+
+        if(this.deadlineScheduled || this.scheduler == null || this.scheduler.isShutdown())
+            return;
+
+        try{
+            this.scheduler.schedule(this::onUnBoundDeadline, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+            this.deadlineScheduled = true;
+        }catch (Exception e){
+            logger.error("DigitalTwinLifeCycle -> {} Error scheduling deadline ! Msg: {}", this.digitalTwinId, e.getLocalizedMessage());
+        }
+    }
+
+    private synchronized void onUnBoundDeadline(){
+
+        this.deadlineScheduled = false;
+
+        if(this.state != DigitalTwinLifeCycleState.UN_SYNC)
+            return;
+
+        long currentTimestampMs = System.currentTimeMillis();
+        long deadlineTimestampMs = this.lastObservationTimestampMs + this.unBoundThresholdMs;
+
+        //Observations received after the task was armed: move the deadline forward
+        if(currentTimestampMs < deadlineTimestampMs)
+            scheduleUnBoundDeadline(deadlineTimestampMs - currentTimestampMs);
+        else
+            transition(DigitalTwinLifeCycleState.UN_BOUND, currentTimestampMs, DigitalTwinLifeCycleTransition.CAUSE_UN_BOUND_TIMEOUT);
+    }
+
+    private synchronized void scheduleOdteDeadline(long delayMs){
+
+        if(this.odteDeadlineScheduled || this.scheduler == null || this.scheduler.isShutdown())
+            return;
+
+        try{
+            this.scheduler.schedule(this::onOdteDeadline, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+            this.odteDeadlineScheduled = true;
+        }catch (Exception e){
+            logger.error("DigitalTwinLifeCycle -> {} Error scheduling ODTE deadline ! Msg: {}", this.digitalTwinId, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * The ODTE is evaluated outside the lock, which is taken by {@link #onOdteUpdate(OdteResultDescription, long)}
+     * only if a transition is due
+     */
+    private void onOdteDeadline(){
+
+        synchronized (this){
+            this.odteDeadlineScheduled = false;
+        }
+
+        OdteEvaluator odteEvaluator = this.odteEvaluator;
+
+        if(this.state != DigitalTwinLifeCycleState.SHADOWED || odteEvaluator == null)
+            return;
+
+        long currentTimestampMs = System.currentTimeMillis();
+        long silenceTimestampMs = this.lastOdteObservationTimestampMs + this.odteSilenceMs;
+
+        //Observations received after the task was armed: they already evaluated the ODTE
+        if(currentTimestampMs < silenceTimestampMs){
+            scheduleOdteDeadline(silenceTimestampMs - currentTimestampMs);
+            return;
+        }
+
+        //Silent twin: the ODTE changes only when the windows do
+        odteEvaluator.evaluateOdte(currentTimestampMs).ifPresent(odteResultDescription -> onOdteUpdate(odteResultDescription, currentTimestampMs));
+
+        if(this.state == DigitalTwinLifeCycleState.SHADOWED){
+            long nextChangeTimestampMs = odteEvaluator.getNextOdteChangeTimestampMs(currentTimestampMs);
+            if(nextChangeTimestampMs != Long.MAX_VALUE)
+                scheduleOdteDeadline(nextChangeTimestampMs - currentTimestampMs);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("DigitalTwinLifeCycle{");
+        sb.append("digitalTwinId='").append(digitalTwinId).append('\'');
+        sb.append(", odteTargetPercentile=").append(odteTargetPercentile);
+        sb.append(", unBoundThresholdMs=").append(unBoundThresholdMs);
+        sb.append(", state=").append(state);
+        sb.append(", lastObservationTimestampMs=").append(lastObservationTimestampMs);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+/**
+ * Transition of the life cycle of a Digital Twin notified by {@link DigitalTwinLifeCycle}
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 21:30
+ */
+public class DigitalTwinLifeCycleTransition {
+
+    public static final String CAUSE_STARTUP = "startup";
+
+    public static final String CAUSE_OBSERVATION = "observation";
+
+    public static final String CAUSE_ODTE_ABOVE_TARGET = "odte_above_target";
+
+    public static final String CAUSE_ODTE_BELOW_TARGET = "odte_below_target";
+
+    public static final String CAUSE_UN_BOUND_TIMEOUT = "un_bound_timeout";
+
+    private final String digitalTwinId;
+
+    private final DigitalTwinLifeCycleState previousState;
+
+    private final DigitalTwinLifeCycleState state;
+
+    private final long timestampMs;
+
+    private final String cause;
+
+    public DigitalTwinLifeCycleTransition(String digitalTwinId, DigitalTwinLifeCycleState previousState, DigitalTwinLifeCycleState state, long timestampMs, String cause) {
+        this.digitalTwinId = digitalTwinId;
+        this.previousState = previousState;
+        this.state = state;
+        this.timestampMs = timestampMs;
+        this.cause = cause;
+    }
+
+    public String getDigitalTwinId() {
+        return digitalTwinId;
+    }
+
+    public DigitalTwinLifeCycleState getPreviousState() {
+        return previousState;
+    }
+
+    public DigitalTwinLifeCycleState getState() {
+        return state;
+    }
+
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    public String getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("DigitalTwinLifeCycleTransition{");
+        sb.append("digitalTwinId='").append(digitalTwinId).append('\'');
+        sb.append(", previousState=").append(previousState);
+        sb.append(", state=").append(state);
+        sb.append(", timestampMs=").append(timestampMs);
+        sb.append(", cause='").append(cause).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,415 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import it.unimore.dipi.iot.digitaltwin.odte.AvailabilityIntervalLog;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteEvaluator;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteManager;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import it.unimore.dipi.iot.digitaltwin.odte.ResourceOdteWindow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Metrics of a single Digital Twin hosted in the process. It keeps the children of the shared Prometheus collectors
+ * labelled with the digital_twin_id of the twin (resolved once at creation time) and a {@link ResourceMetricsContext}
+ * for each observation stream (resource and source device) of the twin, with its own ODTE sliding window, histogram
+ * and ODTE gauges. The ODTE of the twin is combined from the windows of the streams.
+ * Instances are created through {@link MetricsManager#createMetricsContext(DigitalTwinConfiguration)}.
+ *
+ * The number of streams is bounded by odteMaxResourceWindowCount: the observations of further streams are tracked
+ * by a shared overflow stream (resource_id and device_id = other). The overflow stream is published with its own
+ * gauges but it is excluded from the ODTE of the twin, since its expected message rate is the one of a single stream
+ * while it folds an unknown number of streams. Streams without observations for
+ * {@link #RESOURCE_IDLE_EVICTION_WINDOWS} sliding windows are removed together with their labelled series.
+ *
+ * The availability of the streams accounts for the observation gaps and for the disconnections of the broker
+ * delivering them (see {@link #setConnectionIntervalLog(AvailabilityIntervalLog)}); the combined availability is also
+ * published as the physical asset uptime.
+ *
+ * Memory model: the children of the collectors are resolved at creation time and never reassigned. On the per-message
+ * path ({@link #addObservationDelaySec(ResourceMetricsContext, long, double)}) the observation is recorded on the
+ * children and on the ODTE window of the stream (single writer per stream) and the last observation timestamp is
+ * published through a volatile field: no map lookups and no locks are involved. The life cycle state is kept in a
+ * volatile field, so it is read without querying the gauge. Locks are taken only to create and remove the streams.
+ *
+ * The context is also the {@link OdteEvaluator} of the twin: the ODTE can be evaluated on the windows of the streams
+ * (without publishing it) after each observation, which is notified to the observation listener
+ * (see {@link #setObservationListener(LongConsumer)}), so the life cycle reacts to the target percentile without
+ * waiting for the periodic {@link #updateOdte(long)}. The windows combined into the ODTE of the twin are kept in an
+ * immutable list replaced when a stream is created or removed.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 16:10
+ */
+public class DigitalTwinMetricsContext implements OdteEvaluator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigitalTwinMetricsContext.class);
+
+    public static final String OVERFLOW_LABEL_VALUE = "other";
+
+    public static final int RESOURCE_IDLE_EVICTION_WINDOWS = 4;
+
+    private final String digitalTwinId;
+
+    private final DigitalTwinConfiguration digitalTwinConfiguration;
+
+    private final Histogram observationDelayHistogram;
+
+    private final Gauge resourceOdteTimelinessGauge;
+
+    private final Gauge resourceOdteReliabilityGauge;
+
+    private final Gauge resourceOdteAvailabilityGauge;
+
+    private final Gauge resourceOdteGauge;
+
+    private final Gauge.Child expectedMessageRateGauge;
+
+    private final Gauge.Child physicalAssetUptimeGauge;
+
+    private final Gauge.Child digitalTwinLifeCycleStateGauge;
+
+    private final Gauge.Child odteTimelinessGauge;
+
+    private final Gauge.Child odteReliabilityGauge;
+
+    private final Gauge.Child odteAvailabilityGauge;
+
+    private final Gauge.Child odteGauge;
+
+    //Resource Id -> Source Device Id -> Stream Metrics
+    private final Map<String, Map<String, ResourceMetricsContext>> resourceMetricsContextMap = new ConcurrentHashMap<>();
+
+    private int resourceMetricsContextCount = 0;
+
+    private boolean resourceOverflowLogged = false;
+
+    private volatile long lastObservationTimestampMs = System.currentTimeMillis();
+
+    private volatile int digitalTwinLifeCycleStateValue = DigitalTwinLifeCycleState.STARTED.getValue();
+
+    private volatile AvailabilityIntervalLog connectionIntervalLog;
+
+    //Windows of the streams combined into the ODTE of the twin (overflow stream excluded)
+    private volatile List<ResourceOdteWindow> combinedOdteWindowList = Collections.emptyList();
+
+    private volatile LongConsumer observationListener;
+
+    DigitalTwinMetricsContext(DigitalTwinConfiguration digitalTwinConfiguration,
+                              Histogram observationDelayHistogram,
+                              Gauge resourceOdteTimelinessGauge,
+                              Gauge resourceOdteReliabilityGauge,
+                              Gauge resourceOdteAvailabilityGauge,
+                              Gauge resourceOdteGauge,
+                              Gauge.Child expectedMessageRateGauge,
+                              Gauge.Child physicalAssetUptimeGauge,
+                              Gauge.Child digitalTwinLifeCycleStateGauge,
+                              Gauge.Child odteTimelinessGauge,
+                              Gauge.Child odteReliabilityGauge,
+                              Gauge.Child odteAvailabilityGauge,
+                              Gauge.Child odteGauge) {
+        this.digitalTwinId = digitalTwinConfiguration.getDigitalTwinId();
+        this.digitalTwinConfiguration = digitalTwinConfiguration;
+        this.observationDelayHistogram = observationDelayHistogram;
+        this.resourceOdteTimelinessGauge = resourceOdteTimelinessGauge;
+        this.resourceOdteReliabilityGauge = resourceOdteReliabilityGauge;
+        this.resourceOdteAvailabilityGauge = resourceOdteAvailabilityGauge;
+        this.resourceOdteGauge = resourceOdteGauge;
+        this.expectedMessageRateGauge = expectedMessageRateGauge;
+        this.physicalAssetUptimeGauge = physicalAssetUptimeGauge;
+        this.digitalTwinLifeCycleStateGauge = digitalTwinLifeCycleStateGauge;
+        this.odteTimelinessGauge = odteTimelinessGauge;
+        this.odteReliabilityGauge = odteReliabilityGauge;
+        this.odteAvailabilityGauge = odteAvailabilityGauge;
+        this.odteGauge = odteGauge;
+    }
+
+    /**
+     * Add a new observation of a stream of the twin. Each stream must be updated by a single writer thread.
+     * @param resourceId observed resource (e.g. energy, temperature or device_state)
+     * @param deviceId source device of the observation
+     */
+    public void addObservationDelaySec(String resourceId, String deviceId, long packetTimestamp, double newObservationDelaySec){
+        addObservationDelaySec(getResourceMetricsContext(resourceId, deviceId), packetTimestamp, newObservationDelaySec);
+    }
+
+    /**
+     * Add a new observation of a stream resolved through {@link #getResourceMetricsContext(String, String)}.
+     * Processing steps can keep the resolved stream until it is removed (see {@link ResourceMetricsContext#isRemoved()}).
+     */
+    public void addObservationDelaySec(ResourceMetricsContext resourceMetricsContext, long packetTimestamp, double newObservationDelaySec){
+
+        //TODO Remove this last observation ?
+        lastObservationTimestampMs = System.currentTimeMillis();
+
+        resourceMetricsContext.addObservationDelaySec(packetTimestamp, newObservationDelaySec);
+
+        LongConsumer observationListener = this.observationListener;
+
+        //Read after the append, so the observation is not ahead of the evaluation (see OdteSlidingWindow)
+        if(observationListener != null)
+            observationListener.accept(System.currentTimeMillis());
+    }
+
+    /**
+     * Set the listener notified with the local time of each observation, after it has been added to the window of
+     * its stream. It is invoked by the thread adding the observation, so it must be short and must not block.
+     */
+    public void setObservationListener(LongConsumer observationListener) {
+        this.observationListener = observationListener;
+    }
+
+    @Override
+    public Optional<OdteResultDescription> evaluateOdte(long currentTimestampMs){
+        return OdteManager.getInstance().computeCombinedOdte(combinedOdteWindowList, currentTimestampMs);
+    }
+
+    @Override
+    public long getNextOdteChangeTimestampMs(long currentTimestampMs){
+        return OdteManager.getInstance().computeNextOdteChangeTimestampMs(combinedOdteWindowList, currentTimestampMs);
+    }
+
+    /**
+     * @return the metrics of the target stream, created if it has never been observed (or the overflow stream if the
+     * maximum number of streams has been reached)
+     */
+    public ResourceMetricsContext getResourceMetricsContext(String resourceId, String deviceId){
+
+        ResourceMetricsContext resourceMetricsContext = lookupResourceMetricsContext(resourceId, deviceId);
+
+        if(resourceMetricsContext != null)
+            return resourceMetricsContext;
+
+        return createResourceMetricsContext(resourceId, deviceId);
+    }
+
+    /**
+     * Compute the ODTE of each stream on its sliding window, publish it on the stream gauges and combine the
+     * windows into the ODTE of the twin (see {@link OdteManager#computeCombinedOdte(java.util.Collection, long)}),
+     * which is published on the twin gauges. Idle streams are removed.
+     * @return the combined ODTE or an empty Optional if there are no observations in the windows
+     */
+    public Optional<OdteResultDescription> updateOdte(long currentTimestampMs){
+
+        long idleEvictionMs = RESOURCE_IDLE_EVICTION_WINDOWS * TimeUnit.SECONDS.toMillis(digitalTwinConfiguration.getOdteSlidingWindowSec());
+
+        List<ResourceOdteWindow> odteWindowList = new ArrayList<>();
+
+        for(Map<String, ResourceMetricsContext> deviceMetricsContextMap : resourceMetricsContextMap.values())
+            for(ResourceMetricsContext resourceMetricsContext : deviceMetricsContextMap.values()){
+
+                ResourceOdteWindow odteWindow = resourceMetricsContext.getOdteWindow();
+
+                if(currentTimestampMs - odteWindow.getLastObservationTimestampMs() > idleEvictionMs){
+                    logger.info("DigitalTwinMetricsContext -> {} Removing idle stream: {} - {}", digitalTwinId, odteWindow.getResourceId(), odteWindow.getDeviceId());
+                    removeResourceMetricsContext(resourceMetricsContext);
+                    continue;
+                }
+
+                OdteManager.getInstance().computeResourceOdte(odteWindow, currentTimestampMs).ifPresent(resourceMetricsContext::setOdteValue);
+
+                //The overflow stream folds an unknown number of streams, its reliability is not comparable with the expected rate
+                if(!isOverflowStream(resourceMetricsContext))
+                    odteWindowList.add(odteWindow);
+            }
+
+        Optional<OdteResultDescription> combinedOdteOptional = OdteManager.getInstance().computeCombinedOdte(odteWindowList, currentTimestampMs);
+
+        if(combinedOdteOptional.isPresent()){
+            setDigitalTwinOdteValue(combinedOdteOptional.get());
+            setPhysicalAssetUptimeValue(combinedOdteOptional.get().getAvailability());
+        }
+        else
+            OdteManager.getInstance().computeCombinedAvailability(odteWindowList, currentTimestampMs).ifPresent(this::setPhysicalAssetUptimeValue);
+
+        return combinedOdteOptional;
+    }
+
+    /**
+     * Remove all the streams of the twin together with their labelled series
+     */
+    public synchronized void clearResourceMetricsContexts(){
+        for(Map<String, ResourceMetricsContext> deviceMetricsContextMap : resourceMetricsContextMap.values())
+            for(ResourceMetricsContext resourceMetricsContext : deviceMetricsContextMap.values())
+                removeResourceMetricsContext(resourceMetricsContext);
+    }
+
+    public void setExpectedMessageRateValue(double newExpectedMessageRateValue){
+        expectedMessageRateGauge.set(newExpectedMessageRateValue);
+    }
+
+    public void setPhysicalAssetUptimeValue(double newPhysicalAssetUptimeValue){
+        physicalAssetUptimeGauge.set(newPhysicalAssetUptimeValue);
+    }
+
+    public void setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState digitalTwinLifeCycleState){
+        digitalTwinLifeCycleStateValue = digitalTwinLifeCycleState.getValue();
+        digitalTwinLifeCycleStateGauge.set(digitalTwinLifeCycleState.getValue());
+    }
+
+    public int getDigitalTwinLifeCycleStateGaugeValue() {
+        return digitalTwinLifeCycleStateValue;
+    }
+
+    public void setDigitalTwinOdteValue(OdteResultDescription odteResultDescription){
+        if(odteResultDescription != null) {
+            odteTimelinessGauge.set(odteResultDescription.getTimeliness());
+            odteReliabilityGauge.set(odteResultDescription.getReliability());
+            odteAvailabilityGauge.set(odteResultDescription.getAvailability());
+            odteGauge.set(odteResultDescription.getOdte());
+        }
+    }
+
+    public String getDigitalTwinId() {
+        return digitalTwinId;
+    }
+
+    public synchronized int getResourceMetricsContextCount() {
+        return resourceMetricsContextCount;
+    }
+
+    public long getLastObservationTimestampMs() {
+        return lastObservationTimestampMs;
+    }
+
+    /**
+     * Set the log of the disconnections of the broker delivering the observations of the twin. It is applied to the
+     * streams created after the call, so it should be set before the twin starts receiving observations.
+     */
+    public void setConnectionIntervalLog(AvailabilityIntervalLog connectionIntervalLog) {
+        this.connectionIntervalLog = connectionIntervalLog;
+    }
+
+    public AvailabilityIntervalLog getConnectionIntervalLog() {
+        return connectionIntervalLog;
+    }
+
+    private ResourceMetricsContext lookupResourceMetricsContext(String resourceId, String deviceId){
+        Map<String, ResourceMetricsContext> deviceMetricsContextMap = resourceMetricsContextMap.get(resourceId);
+        return deviceMetricsContextMap != null ? deviceMetricsContextMap.get(deviceId) : null;
+    }
+
+    private synchronized ResourceMetricsContext createResourceMetricsContext(String resourceId, String deviceId){
+
+        ResourceMetricsContext resourceMetricsContext = lookupResourceMetricsContext(resourceId, deviceId);
+
+        if(resourceMetricsContext != null)
+            return resourceMetricsContext;
+
+        if(resourceMetricsContextCount >= digitalTwinConfiguration.getOdteMaxResourceWindowCount()){
+
+            if(!resourceOverflowLogged){
+                logger.warn("DigitalTwinMetricsContext -> {} Max stream count reached ({}) ! Tracking new streams as: {}",
+                        digitalTwinId, resourceMetricsContextCount, OVERFLOW_LABEL_VALUE);
+                resourceOverflowLogged = true;
+            }
+
+            resourceId = OVERFLOW_LABEL_VALUE;
+            deviceId = OVERFLOW_LABEL_VALUE;
+
+            resourceMetricsContext = lookupResourceMetricsContext(resourceId, deviceId);
+
+            if(resourceMetricsContext != null)
+                return resourceMetricsContext;
+        }
+
+        ResourceOdteWindow odteWindow = ResourceOdteWindow.create(resourceId,
+                deviceId,
+                digitalTwinConfiguration.getOdteSlidingWindowSec(),
+                digitalTwinConfiguration.getOdteDesiredTimelinessSec(),
+                getResourceExpectedMsgSec(resourceId),
+                digitalTwinConfiguration.getOdteTimelinessEstimator(),
+                digitalTwinConfiguration.getOdteTimelinessErrorBound(),
+                digitalTwinConfiguration.getOdteAvailabilityGapToleranceFactor(),
+                connectionIntervalLog);
+
+        resourceMetricsContext = new ResourceMetricsContext(odteWindow,
+                observationDelayHistogram.labels(digitalTwinId, resourceId, deviceId),
+                resourceOdteTimelinessGauge.labels(digitalTwinId, resourceId, deviceId),
+                resourceOdteReliabilityGauge.labels(digitalTwinId, resourceId, deviceId),
+                resourceOdteAvailabilityGauge.labels(digitalTwinId, resourceId, deviceId),
+                resourceOdteGauge.labels(digitalTwinId, resourceId, deviceId));
+
+        resourceMetricsContextMap.computeIfAbsent(resourceId, key -> new ConcurrentHashMap<>()).put(deviceId, resourceMetricsContext);
+        resourceMetricsContextCount++;
+        updateCombinedOdteWindowList();
+
+        logger.info("DigitalTwinMetricsContext -> {} New stream: {}", digitalTwinId, odteWindow);
+
+        return resourceMetricsContext;
+    }
+
+    private synchronized void removeResourceMetricsContext(ResourceMetricsContext resourceMetricsContext){
+
+        String resourceId = resourceMetricsContext.getResourceId();
+        String deviceId = resourceMetricsContext.getDeviceId();
+
+        Map<String, ResourceMetricsContext> deviceMetricsContextMap = resourceMetricsContextMap.get(resourceId);
+
+        if(deviceMetricsContextMap == null || !deviceMetricsContextMap.remove(deviceId, resourceMetricsContext))
+            return;
+
+        resourceMetricsContext.markRemoved();
+
+        if(deviceMetricsContextMap.isEmpty())
+            resourceMetricsContextMap.remove(resourceId);
+
+        resourceMetricsContextCount--;
+        updateCombinedOdteWindowList();
+
+        observationDelayHistogram.remove(digitalTwinId, resourceId, deviceId);
+        resourceOdteTimelinessGauge.remove(digitalTwinId, resourceId, deviceId);
+        resourceOdteReliabilityGauge.remove(digitalTwinId, resourceId, deviceId);
+        resourceOdteAvailabilityGauge.remove(digitalTwinId, resourceId, deviceId);
+        resourceOdteGauge.remove(digitalTwinId, resourceId, deviceId);
+    }
+
+    private void updateCombinedOdteWindowList(){
+
+        List<ResourceOdteWindow> odteWindowList = new ArrayList<>();
+
+        for(Map<String, ResourceMetricsContext> deviceMetricsContextMap : resourceMetricsContextMap.values())
+            for(ResourceMetricsContext resourceMetricsContext : deviceMetricsContextMap.values())
+                if(!isOverflowStream(resourceMetricsContext))
+                    odteWindowList.add(resourceMetricsContext.getOdteWindow());
+
+        this.combinedOdteWindowList = Collections.unmodifiableList(odteWindowList);
+    }
+
+    private static boolean isOverflowStream(ResourceMetricsContext resourceMetricsContext){
+        return OVERFLOW_LABEL_VALUE.equals(resourceMetricsContext.getResourceId()) && OVERFLOW_LABEL_VALUE.equals(resourceMetricsContext.getDeviceId());
+    }
+
+    private double getResourceExpectedMsgSec(String resourceId){
+
+        Map<String, Double> resourceExpectedMsgSecMap = digitalTwinConfiguration.getOdteResourceExpectedMsgSecMap();
+
+        if(resourceExpectedMsgSecMap != null){
+            Double resourceExpectedMsgSec = resourceExpectedMsgSecMap.get(resourceId);
+            if(resourceExpectedMsgSec != null && resourceExpectedMsgSec > 0.0)
+                return resourceExpectedMsgSec;
+        }
+
+        return digitalTwinConfiguration.getOdteExpectedMsgSec();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("DigitalTwinMetricsContext{");
+        sb.append("digitalTwinId='").append(digitalTwinId).append('\'');
+        sb.append(", resourceMetricsContextCount=").append(getResourceMetricsContextCount());
+        sb.append(", lastObservationTimestampMs=").append(lastObservationTimestampMs);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -1,15 +1,12 @@
 package it.unimore.dipi.iot.digitaltwin;
 
 import com.codahale.metrics.Timer;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
 import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
 import it.unimore.dipi.iot.smartobject.resource.EnergyRawSensor;
 import it.unimore.dipi.iot.smartobject.resource.TemperatureRawSensor;
-import it.unimore.dipi.iot.utils.SenMLPack;
-import it.unimore.dipi.iot.utils.SenMLRecord;
+import it.unimore.dipi.iot.utils.SenMLEncoding;
+import it.unimore.dipi.iot.utils.SenMLWriter;
 import it.unimore.dipi.iot.wldt.metrics.WldtMetricsManager;
 import it.unimore.dipi.iot.wldt.processing.PipelineData;
 import it.unimore.dipi.iot.wldt.processing.ProcessingStep;
@@ -19,6 +16,7 @@ import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -32,20 +30,22 @@ public class DigitalTwinStateSenmlMqttProcessingStep implements ProcessingStep {
 
     private String deviceId;
 
-    private ObjectMapper objectMapper;
+    private String senmlPayloadEncoding;
 
     private static final String METRIC_BASE_IDENTIFIER = "mqtt_pp_dt_state_senml";
 
     private static final String PROCESSING_PIPELINE_EXECUTION_TIME_METRICS_FIELD = "execution_time";
 
     public DigitalTwinStateSenmlMqttProcessingStep(String deviceId) {
+        this(deviceId, SenMLEncoding.ENCODING_DEFAULT);
+    }
 
+    /**
+     * @param senmlPayloadEncoding encoding of the generated SenML payload: json, cbor or binary
+     */
+    public DigitalTwinStateSenmlMqttProcessingStep(String deviceId, String senmlPayloadEncoding) {
         this.deviceId = deviceId;
-
-        //Jackson Object Mapper + Ignore Null Fields in order to properly generate the SenML Payload
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
+        this.senmlPayloadEncoding = senmlPayloadEncoding;
     }
 
     @Override
@@ -59,23 +59,28 @@ public class DigitalTwinStateSenmlMqttProcessingStep implements ProcessingStep {
 
                 MqttPipelineData mqttPipelineData = (MqttPipelineData)pipelineData;
 
-                logger.debug("Executing DigitalTwinStateSenmlMqttProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
+                if(logger.isDebugEnabled())
+                    logger.debug("Executing DigitalTwinStateSenmlMqttProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
 
                 //Update payload with Senml
-                Optional<String> newPayloadOptional = Optional.empty();
+                Optional<byte[]> newPayloadOptional = Optional.empty();
 
                 //Handle GPS and Battery Telemetry Messages and generate the associated SenML Payload
                 if(mqttPipelineData.getTopic().contains("device_state")){
 
+                    //Reuse the message decoded by the previous step if available
                     Optional<TelemetryMessage<AggregatedResourcePayload>> optionalPhysicalDeviceState =
-                            parseDeviceStateTelemetryMessage(mqttPipelineData.getPayload());
+                            getDecodedDeviceStateTelemetryMessage(mqttPipelineData);
+
+                    if(!optionalPhysicalDeviceState.isPresent())
+                        optionalPhysicalDeviceState = parseDeviceStateTelemetryMessage(mqttPipelineData.getPayload());
 
                     if(optionalPhysicalDeviceState.isPresent())
                         newPayloadOptional = buildSenmlPayload(optionalPhysicalDeviceState.get());
                 }
 
                 if(newPayloadOptional.isPresent()){
-                    mqttPipelineData.setPayload(newPayloadOptional.get().getBytes());
+                    mqttPipelineData.setPayload(newPayloadOptional.get());
                     processingStepListener.onStepDone(this, Optional.of(mqttPipelineData));
                 }
                 else{
@@ -104,38 +109,26 @@ public class DigitalTwinStateSenmlMqttProcessingStep implements ProcessingStep {
         }
     }
 
-    private Optional<String> buildSenmlPayload(TelemetryMessage<AggregatedResourcePayload> telemetryMessage) {
+    private Optional<byte[]> buildSenmlPayload(TelemetryMessage<AggregatedResourcePayload> telemetryMessage) {
 
         try {
 
-            SenMLPack senMLPack = new SenMLPack();
+            SenMLWriter senMLWriter = SenMLWriter.getInstance(this.senmlPayloadEncoding);
             long originalTimestamp = telemetryMessage.getTimestamp();
 
-            AggregatedResourcePayload aggregatedResourcePayload = telemetryMessage.getDataValue();
-            aggregatedResourcePayload.entrySet().forEach(resourceEntry -> {
+            for(Map.Entry<String, Object> resourceEntry : telemetryMessage.getDataValue().entrySet()){
                 if(resourceEntry != null && resourceEntry.getValue() != null){
 
-                    SenMLRecord senmlRecord = new SenMLRecord();
-                    senmlRecord.setT(originalTimestamp);
-                    senmlRecord.setN(resourceEntry.getKey());
-
-                    if(resourceEntry.getKey().equals(TemperatureRawSensor.RESOURCE_TYPE)){
-                        senmlRecord.setV((Double)resourceEntry.getValue());
-                        senmlRecord.setU("Cel");
-                    }
-                    else if(resourceEntry.getKey().equals(EnergyRawSensor.RESOURCE_TYPE)){
-                        senmlRecord.setV((Double)resourceEntry.getValue());
-                        senmlRecord.setU("kW");
-                    }
-                    else {
-                        senmlRecord.setVs(resourceEntry.getValue().toString());
-                    }
-
-                    senMLPack.add(senmlRecord);
+                    if(resourceEntry.getKey().equals(TemperatureRawSensor.RESOURCE_TYPE))
+                        senMLWriter.writeRecord(resourceEntry.getKey(), originalTimestamp, ((Number)resourceEntry.getValue()).doubleValue(), "Cel");
+                    else if(resourceEntry.getKey().equals(EnergyRawSensor.RESOURCE_TYPE))
+                        senMLWriter.writeRecord(resourceEntry.getKey(), originalTimestamp, ((Number)resourceEntry.getValue()).doubleValue(), "kW");
+                    else
+                        senMLWriter.writeStringRecord(resourceEntry.getKey(), originalTimestamp, resourceEntry.getValue().toString());
                 }
-            });
+            }
 
-            return Optional.of(this.objectMapper.writeValueAsString(senMLPack));
+            return Optional.of(senMLWriter.toByteArray());
 
         }catch (Exception e){
             logger.error("Error serializing Senml Packet ! Msg: {}", e.getLocalizedMessage());
@@ -143,14 +136,26 @@ public class DigitalTwinStateSenmlMqttProcessingStep implements ProcessingStep {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private Optional<TelemetryMessage<AggregatedResourcePayload>> getDecodedDeviceStateTelemetryMessage(MqttPipelineData mqttPipelineData){
+
+        if(mqttPipelineData instanceof TelemetryMqttPipelineData){
+
+            TelemetryMessage<?> telemetryMessage = ((TelemetryMqttPipelineData<?>) mqttPipelineData).getTelemetryMessage();
+
+            if(telemetryMessage != null && telemetryMessage.getDataValue() instanceof AggregatedResourcePayload)
+                return Optional.of((TelemetryMessage<AggregatedResourcePayload>) telemetryMessage);
+        }
+
+        return Optional.empty();
+    }
+
     private Optional<TelemetryMessage<AggregatedResourcePayload>> parseDeviceStateTelemetryMessage(byte[] payload){
 
         try{
 
-            if(payload == null || payload.length == 0)
-                return Optional.empty();
-
-            return Optional.ofNullable(this.objectMapper.readValue(new String(payload), new TypeReference<TelemetryMessage<AggregatedResourcePayload>>() {}));
+            //The payload overhead is kept and forwarded as a string record
+            return TelemetryMessageDecoder.getInstance().decodeAggregatedStateTelemetryMessage(payload, false);
 
         }catch (Exception e){
             return Optional.empty();
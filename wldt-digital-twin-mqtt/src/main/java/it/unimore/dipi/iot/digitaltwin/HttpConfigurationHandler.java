@@ -19,10 +19,13 @@ class HttpConfigurationHandler implements HttpHandler {
 
     private DigitalTwinConfiguration digitalTwinConfiguration;
 
-    public HttpConfigurationHandler(DigitalTwinConfiguration digitalTwinConfiguration) {
+    private DigitalTwinMetricsContext metricsContext;
+
+    public HttpConfigurationHandler(DigitalTwinConfiguration digitalTwinConfiguration, DigitalTwinMetricsContext metricsContext) {
         super();
         objectMapper = new ObjectMapper();
         this.digitalTwinConfiguration = digitalTwinConfiguration;
+        this.metricsContext = metricsContext;
     }
 
     @Override
@@ -59,7 +62,7 @@ class HttpConfigurationHandler implements HttpHandler {
                                 //Update Expected MsgSec Value
                                 if(newDigitalTwinConfiguration.getExpectedMsgSec() > 0){
                                     digitalTwinConfiguration.setExpectedMsgSec(newDigitalTwinConfiguration.getExpectedMsgSec());
-                                    MetricsManager.getInstance().setExpectedMessageRateValue(digitalTwinConfiguration.getExpectedMsgSec());
+                                    metricsContext.setExpectedMessageRateValue(digitalTwinConfiguration.getExpectedMsgSec());
                                 }
 
                                 //Update Emulated DT State Processing Load
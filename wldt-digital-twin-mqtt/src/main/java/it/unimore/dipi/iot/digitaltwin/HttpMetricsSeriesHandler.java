@@ -0,0 +1,154 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import it.unimore.dipi.iot.digitaltwin.store.MetricColumnFile;
+import it.unimore.dipi.iot.digitaltwin.store.MetricsStoreIngester;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Range queries and downsampling of the history of a metrics file, computed on the memory mapped column file of the
+ * {@link MetricsStoreIngester} without parsing the CSV file. Query parameters:
+ *
+ * from, to: time range [epoch sec, inclusive] (default the whole history)
+ * bucket: bucket size [sec] of the min/max/avg aggregation (default 0: raw rows)
+ * columns: comma separated list of value columns (default all the columns)
+ *
+ * Response: {"columns": [...], "bucketSec": n, "buckets": [{"t": start, "rows": n, "min": [...], "max": [...], "avg": [...]}]}
+ * where the values are in the order of the columns (null if the column has no values in the bucket).
+ */
+class HttpMetricsSeriesHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpMetricsSeriesHandler.class);
+
+    private final MetricsStoreIngester metricsStoreIngester;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public HttpMetricsSeriesHandler(MetricsStoreIngester metricsStoreIngester) {
+        this.metricsStoreIngester = metricsStoreIngester;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+
+        if(exchange.isInIoThread()){
+            exchange.dispatch(this);
+            return;
+        }
+
+        String folderId = getQueryParameter(exchange, "folderId");
+        String fileId = getQueryParameter(exchange, "fileId");
+
+        if(folderId == null || fileId == null) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            return;
+        }
+
+        Optional<MetricColumnFile> columnFileOptional = this.metricsStoreIngester.getMetricColumnFile(folderId, fileId);
+
+        if(!columnFileOptional.isPresent()) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            return;
+        }
+
+        MetricColumnFile columnFile = columnFileOptional.get();
+
+        long fromTimestamp;
+        long toTimestamp;
+        long bucketSec;
+
+        try{
+            fromTimestamp = parseLongParameter(exchange, "from", Long.MIN_VALUE);
+            toTimestamp = parseLongParameter(exchange, "to", Long.MAX_VALUE);
+            bucketSec = parseLongParameter(exchange, "bucket", 0L);
+        }catch (NumberFormatException e){
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            return;
+        }
+
+        List<String> columnNameList = columnFile.getColumnNameList();
+        String columns = getQueryParameter(exchange, "columns");
+        String[] requestedColumns = columns != null && !columns.isEmpty() ? columns.split(",") : columnNameList.toArray(new String[0]);
+        int[] columnIndexes = new int[requestedColumns.length];
+
+        for(int i = 0; i < requestedColumns.length; i++){
+
+            columnIndexes[i] = columnFile.getColumnIndex(requestedColumns[i].trim());
+
+            if(columnIndexes[i] < 0) {
+                exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+                return;
+            }
+        }
+
+        exchange.setStatusCode(StatusCodes.OK);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.startBlocking();
+
+        try(JsonGenerator jsonGenerator = jsonFactory.createGenerator(exchange.getOutputStream())){
+
+            jsonGenerator.writeStartObject();
+
+            jsonGenerator.writeArrayFieldStart("columns");
+            for(int columnIndex : columnIndexes)
+                jsonGenerator.writeString(columnNameList.get(columnIndex));
+            jsonGenerator.writeEndArray();
+
+            jsonGenerator.writeNumberField("bucketSec", Math.max(0, bucketSec));
+
+            jsonGenerator.writeArrayFieldStart("buckets");
+
+            columnFile.downsample(fromTimestamp, toTimestamp, bucketSec, columnIndexes, (bucketTimestamp, rowCount, minValues, maxValues, avgValues) -> {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeNumberField("t", bucketTimestamp);
+                jsonGenerator.writeNumberField("rows", rowCount);
+                writeValues(jsonGenerator, "min", minValues);
+                writeValues(jsonGenerator, "max", maxValues);
+                writeValues(jsonGenerator, "avg", avgValues);
+                jsonGenerator.writeEndObject();
+            });
+
+            jsonGenerator.writeEndArray();
+            jsonGenerator.writeEndObject();
+
+        }catch (Exception e){
+            //The response has already been started, the client receives a truncated body
+            logger.error("HttpMetricsSeriesHandler -> Error sending {}/{} ! Msg: {}", folderId, fileId, e.getLocalizedMessage());
+        }
+    }
+
+    private static void writeValues(JsonGenerator jsonGenerator, String fieldName, double[] values) throws IOException {
+
+        jsonGenerator.writeArrayFieldStart(fieldName);
+
+        for(double value : values){
+            if(Double.isNaN(value))
+                jsonGenerator.writeNull();
+            else
+                jsonGenerator.writeNumber(value);
+        }
+
+        jsonGenerator.writeEndArray();
+    }
+
+    private static String getQueryParameter(HttpServerExchange exchange, String name){
+        Deque<String> values = exchange.getQueryParameters().get(name);
+        return values != null ? values.peekFirst() : null;
+    }
+
+    private static Long parseLongParameter(HttpServerExchange exchange, String name, Long defaultValue){
+        String value = getQueryParameter(exchange, name);
+        return value != null && !value.isEmpty() ? Long.valueOf(value) : defaultValue;
+    }
+}
@@ -1,42 +1,98 @@
 package it.unimore.dipi.iot.digitaltwin;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import io.undertow.util.StatusCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Map;
+import java.util.Deque;
 
+/**
+ * Rows of a CSV metrics file as a JSON array, optionally paginated and filtered by time through the query parameters:
+ *
+ * offset: number of rows to skip (default 0)
+ * limit: maximum number of rows (default all the rows)
+ * from, to: time range of the rows on the timestamp column of the reporter [epoch sec, inclusive]
+ *
+ * The request is dispatched to a worker thread and the rows are converted and written while the file is read with
+ * a chunked response, so the memory used by the handler does not depend on the size of the file.
+ */
 class HttpMetricsSingleFileHandler implements HttpHandler {
 
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private static final Logger logger = LoggerFactory.getLogger(HttpMetricsSingleFileHandler.class);
 
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
-        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
 
-        String folderId = exchange.getQueryParameters().get("folderId").getFirst();
-        String fileId = exchange.getQueryParameters().get("fileId").getFirst();
+        if(exchange.isInIoThread()){
+            exchange.dispatch(this);
+            return;
+        }
+
+        String folderId = getQueryParameter(exchange, "folderId");
+        String fileId = getQueryParameter(exchange, "fileId");
+
+        if(folderId == null || fileId == null) {
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            return;
+        }
 
-        if(folderId != null && fileId != null) {
+        Path metricsFolderPath = Paths.get(MetricsExporterUtils.METRICS_FOLDER).toAbsolutePath().normalize();
+        Path filePath = metricsFolderPath.resolve(Paths.get(folderId, fileId)).normalize();
 
-            List<Map<?, ?>> fileContent = MetricsExporterUtils.readCsvFile(
-                    Paths.get(
-                            MetricsExporterUtils.METRICS_FOLDER,
-                            folderId,
-                            fileId).toString());
+        long offset;
+        long limit;
+        Long fromTimestamp;
+        Long toTimestamp;
 
-            if(fileContent != null) {
-                exchange.setStatusCode(StatusCodes.OK);
-                exchange.getResponseSender().send(objectMapper.writeValueAsString(fileContent));
-            }
-            else
-                exchange.setStatusCode(StatusCodes.NOT_FOUND);
+        try{
+            offset = parseLongParameter(exchange, "offset", 0L);
+            limit = parseLongParameter(exchange, "limit", Long.MAX_VALUE);
+            fromTimestamp = parseLongParameter(exchange, "from", null);
+            toTimestamp = parseLongParameter(exchange, "to", null);
+        }catch (NumberFormatException e){
+            exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            return;
         }
-        else
+
+        if(offset < 0 || limit < 0 || !filePath.startsWith(metricsFolderPath)) {
             exchange.setStatusCode(StatusCodes.BAD_REQUEST);
+            return;
+        }
+
+        File file = filePath.toFile();
+
+        if(!file.isFile()) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            return;
+        }
+
+        exchange.setStatusCode(StatusCodes.OK);
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.startBlocking();
+
+        try(OutputStream outputStream = exchange.getOutputStream()){
+            long rowCount = MetricsExporterUtils.writeCsvFileAsJson(file, outputStream, offset, limit, fromTimestamp, toTimestamp);
+            logger.debug("HttpMetricsSingleFileHandler -> {} rows sent from {}", rowCount, filePath);
+        }catch (Exception e){
+            //The response has already been started, the client receives a truncated body
+            logger.error("HttpMetricsSingleFileHandler -> Error sending {} ! Msg: {}", filePath, e.getLocalizedMessage());
+        }
+    }
+
+    private static String getQueryParameter(HttpServerExchange exchange, String name){
+        Deque<String> values = exchange.getQueryParameters().get(name);
+        return values != null ? values.peekFirst() : null;
+    }
+
+    private static Long parseLongParameter(HttpServerExchange exchange, String name, Long defaultValue){
+        String value = getQueryParameter(exchange, name);
+        return value != null && !value.isEmpty() ? Long.valueOf(value) : defaultValue;
     }
-}
\ No newline at end of file
+}
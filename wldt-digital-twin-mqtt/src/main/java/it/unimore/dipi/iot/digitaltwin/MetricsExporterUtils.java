@@ -1,11 +1,16 @@
 package it.unimore.dipi.iot.digitaltwin;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
@@ -20,6 +25,13 @@ public class MetricsExporterUtils {
 
     public static final String METRICS_FOLDER = "metrics";
 
+    //Timestamp column of the CSV reporter [epoch sec]
+    public static final String CSV_TIMESTAMP_COLUMN = "t";
+
+    private static final CsvMapper csvRowMapper = new CsvMapper().enable(CsvParser.Feature.WRAP_AS_ARRAY);
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
     public static void main(String[] args) {
 
         String[] metricsDirectories = loadAvailableMetricsFolder();
@@ -50,6 +62,75 @@ public class MetricsExporterUtils {
         }
     }
 
+    /**
+     * Convert the rows of a CSV metrics file into a JSON array of objects (header column -> value) written on the
+     * output stream while the file is read, so only the current row is kept in memory. Rows are filtered by the
+     * value of the {@link #CSV_TIMESTAMP_COLUMN} column (if a bound is set) and paginated by offset and limit on the
+     * filtered rows. Reporter files are ordered by time, so the file is read only up to the last requested row.
+     *
+     * @param fromTimestamp first timestamp of the rows to write (inclusive, no bound if null)
+     * @param toTimestamp last timestamp of the rows to write (inclusive, no bound if null)
+     * @return the number of written rows
+     */
+    public static long writeCsvFileAsJson(File input, OutputStream outputStream, long offset, long limit, Long fromTimestamp, Long toTimestamp) throws IOException {
+
+        boolean timeFiltered = fromTimestamp != null || toTimestamp != null;
+
+        try(MappingIterator<String[]> rowIterator = csvRowMapper.readerFor(String[].class).readValues(input);
+            JsonGenerator jsonGenerator = jsonFactory.createGenerator(outputStream)){
+
+            jsonGenerator.writeStartArray();
+
+            String[] header = rowIterator.hasNextValue() ? rowIterator.nextValue() : new String[0];
+            int timestampColumnIndex = Arrays.asList(header).indexOf(CSV_TIMESTAMP_COLUMN);
+
+            long skippedRowCount = 0;
+            long writtenRowCount = 0;
+
+            while(writtenRowCount < limit && rowIterator.hasNextValue()){
+
+                String[] row = rowIterator.nextValue();
+
+                if(timeFiltered){
+
+                    Long rowTimestamp = parseTimestamp(row, timestampColumnIndex);
+
+                    if(rowTimestamp == null || (fromTimestamp != null && rowTimestamp < fromTimestamp))
+                        continue;
+
+                    if(toTimestamp != null && rowTimestamp > toTimestamp)
+                        break;
+                }
+
+                if(skippedRowCount < offset){
+                    skippedRowCount++;
+                    continue;
+                }
+
+                jsonGenerator.writeStartObject();
+
+                for(int i = 0; i < header.length && i < row.length; i++)
+                    jsonGenerator.writeStringField(header[i], row[i]);
+
+                jsonGenerator.writeEndObject();
+
+                writtenRowCount++;
+            }
+
+            jsonGenerator.writeEndArray();
+
+            return writtenRowCount;
+        }
+    }
+
+    private static Long parseTimestamp(String[] row, int timestampColumnIndex){
+        try{
+            return timestampColumnIndex >= 0 && timestampColumnIndex < row.length ? Long.parseLong(row[timestampColumnIndex].trim()) : null;
+        }catch (NumberFormatException e){
+            return null;
+        }
+    }
+
     public static String[] listAvailableFiles(String metricsDirectory) {
 
         try{
@@ -1,15 +1,14 @@
 package it.unimore.dipi.iot.digitaltwin;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import io.prometheus.client.Gauge;
 import io.prometheus.client.Histogram;
 import io.prometheus.client.exporter.HTTPServer;
-import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -20,7 +19,11 @@ public class MetricsManager {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricsManager.class);
 
-    private static MetricsManager instance;
+    public static final String DIGITAL_TWIN_ID_LABEL = "digital_twin_id";
+
+    public static final String RESOURCE_ID_LABEL = "resource_id";
+
+    public static final String DEVICE_ID_LABEL = "device_id";
 
     private Histogram obervationDelayHistogram;
 
@@ -38,6 +41,14 @@ public class MetricsManager {
 
     private Gauge odteGauge;
 
+    private Gauge resourceOdteTimelinessGauge;
+
+    private Gauge resourceOdteReliabilityGauge;
+
+    private Gauge resourceOdteAvailabilityGauge;
+
+    private Gauge resourceOdteGauge;
+
     private HTTPServer httpServer;
 
     private String observationBucketType = DigitalTwinConfiguration.OBSERVATION_BUCKET_TYPE_DEFAULT;
@@ -48,26 +59,33 @@ public class MetricsManager {
 
     private int observationBucketCount = 20;
 
-    private long lastObservationTimestampMs = System.currentTimeMillis();
+    private boolean initialized = false;
 
-    private String digitalTwinId;
-
-    private Cache<Long, Double> timelinessCache;
+    private final Map<String, DigitalTwinMetricsContext> metricsContextMap = new ConcurrentHashMap<>();
 
     private MetricsManager(){
     }
 
-    public static MetricsManager getInstance(){
-
-        if(instance == null)
-            instance = new MetricsManager();
-
-        return instance;
+    private static class InstanceHolder {
+        private static final MetricsManager INSTANCE = new MetricsManager();
     }
 
-    public void init(String digitalTwinId){
+    public static MetricsManager getInstance(){
+        return InstanceHolder.INSTANCE;
+    }
 
-        this.digitalTwinId = digitalTwinId;
+    /**
+     * Build and register the Prometheus collectors shared by all the Digital Twins hosted by the process.
+     * Each Digital Twin uses its own children of the collectors labelled by its digital_twin_id
+     * (see {@link #createMetricsContext(DigitalTwinConfiguration)}). The observation histogram and the resource ODTE
+     * gauges are also labelled by resource_id and device_id of each observation stream. Further invocations are ignored.
+     */
+    public synchronized void init(){
+
+        if(this.initialized){
+            logger.warn("PrometheusManager -> Metrics already initialized !");
+            return;
+        }
 
         logger.info("PrometheusManager -> Building Entanglement Histogram ...");
 
@@ -78,6 +96,7 @@ public class MetricsManager {
             obervationDelayHistogram = Histogram.build()
                     .name("dt_entanglement_observation_sec")
                     .help("Digital Twin Entanglement Observation [sec]")
+                    .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
                     .linearBuckets(
                             this.observationBucketStart,
                             this.observationBucketWidth,
@@ -91,6 +110,7 @@ public class MetricsManager {
             obervationDelayHistogram = Histogram.build()
                     .name("dt_entanglement_observation_sec")
                     .help("Digital Twin Entanglement Observation [sec]")
+                    .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
                     .register();
         }
 
@@ -99,6 +119,7 @@ public class MetricsManager {
         expectedMessageRateGauge = Gauge.build()
                 .name("dt_entanglement_msg_rate_sec")
                 .help("Digital Twin Entanglement Message Rate [msg/sec]")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
 
         logger.info("PrometheusManager -> Configuring Physical Asset Uptime Gauge ...");
@@ -106,6 +127,7 @@ public class MetricsManager {
         physicalAssetUptimeGauge = Gauge.build()
                 .name("dt_entanglement_physical_asset_uptime")
                 .help("Digital Twin Entanglement Physical Asset Uptime %")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
 
         logger.info("PrometheusManager -> Configuring Digital Twin Life Cycle State Gauge ...");
@@ -113,92 +135,122 @@ public class MetricsManager {
         digitalTwinLifeCycleStateGauge = Gauge.build()
                 .name("dt_life_cycle_state")
                 .help("Digital Twin Life Cycle")
-                .labelNames("digital_twin_id")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
 
-        //Initializing internal cache for ODTE Measurements
-        timelinessCache = Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
-
         odteTimelinessGauge = Gauge.build()
                 .name("dt_odte_timeliness")
                 .help("Digital Twin ODTE Timeliness")
-                .labelNames("digital_twin_id")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
 
         odteReliabilityGauge = Gauge.build()
                 .name("dt_odte_reliability")
                 .help("Digital Twin ODTE Reliability")
-                .labelNames("digital_twin_id")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
 
         odteAvailabilityGauge = Gauge.build()
                 .name("dt_odte_availability")
                 .help("Digital Twin ODTE Availability")
-                .labelNames("digital_twin_id")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
 
         odteGauge = Gauge.build()
                 .name("dt_odte_value")
                 .help("Digital Twin ODTE Value")
-                .labelNames("digital_twin_id")
+                .labelNames(DIGITAL_TWIN_ID_LABEL)
                 .register();
-    }
 
-    /*
-    //Old Version where we use the current timestamp for the cache instead of the original physical value
-    public void addObservationDelaySec(double newObservationDelaySec){
+        resourceOdteTimelinessGauge = Gauge.build()
+                .name("dt_resource_odte_timeliness")
+                .help("Digital Twin ODTE Timeliness of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
 
-        long currentTimestampMs = System.currentTimeMillis();
+        resourceOdteReliabilityGauge = Gauge.build()
+                .name("dt_resource_odte_reliability")
+                .help("Digital Twin ODTE Reliability of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
 
-        //TODO Remove this last observation ?
-        lastObservationTimestampMs = currentTimestampMs;
+        resourceOdteAvailabilityGauge = Gauge.build()
+                .name("dt_resource_odte_availability")
+                .help("Digital Twin ODTE Availability of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
 
-        if(obervationDelayHistogram != null)
-            obervationDelayHistogram.observe(newObservationDelaySec);
+        resourceOdteGauge = Gauge.build()
+                .name("dt_resource_odte_value")
+                .help("Digital Twin ODTE Value of a Resource Stream")
+                .labelNames(DIGITAL_TWIN_ID_LABEL, RESOURCE_ID_LABEL, DEVICE_ID_LABEL)
+                .register();
 
-        if(timelinessCache != null)
-            timelinessCache.put(currentTimestampMs, newObservationDelaySec);
+        this.initialized = true;
     }
-    */
 
-    public void addObservationDelaySec(long packetTimestamp, double newObservationDelaySec){
+    /**
+     * Create the metrics context of a Digital Twin with the labelled children of the shared collectors. The ODTE
+     * sliding windows of the twin are created on the first observation of each stream
+     * @param digitalTwinConfiguration configuration of the target Digital Twin
+     * @return the created context or an empty Optional if the metrics are not initialized or the id is already used
+     */
+    public synchronized Optional<DigitalTwinMetricsContext> createMetricsContext(DigitalTwinConfiguration digitalTwinConfiguration){
 
-        //long currentTimestampMs = System.currentTimeMillis();
+        String digitalTwinId = digitalTwinConfiguration.getDigitalTwinId();
 
-        //TODO Remove this last observation ?
-        lastObservationTimestampMs = System.currentTimeMillis();;
+        if(!this.initialized){
+            logger.error("PrometheusManager -> Error creating Metrics Context for {} ! Metrics not initialized !", digitalTwinId);
+            return Optional.empty();
+        }
 
-        if(obervationDelayHistogram != null)
-            obervationDelayHistogram.observe(newObservationDelaySec);
+        if(digitalTwinId == null || this.metricsContextMap.containsKey(digitalTwinId)){
+            logger.error("PrometheusManager -> Error creating Metrics Context ! Invalid or duplicated Digital Twin Id: {}", digitalTwinId);
+            return Optional.empty();
+        }
 
-        if(timelinessCache != null)
-            timelinessCache.put(packetTimestamp, newObservationDelaySec);
+        //ODTE sliding windows are created for each observation stream (resource and source device) of the twin
+        DigitalTwinMetricsContext metricsContext = new DigitalTwinMetricsContext(digitalTwinConfiguration,
+                obervationDelayHistogram,
+                resourceOdteTimelinessGauge,
+                resourceOdteReliabilityGauge,
+                resourceOdteAvailabilityGauge,
+                resourceOdteGauge,
+                expectedMessageRateGauge.labels(digitalTwinId),
+                physicalAssetUptimeGauge.labels(digitalTwinId),
+                digitalTwinLifeCycleStateGauge.labels(digitalTwinId),
+                odteTimelinessGauge.labels(digitalTwinId),
+                odteReliabilityGauge.labels(digitalTwinId),
+                odteAvailabilityGauge.labels(digitalTwinId),
+                odteGauge.labels(digitalTwinId));
+
+        this.metricsContextMap.put(digitalTwinId, metricsContext);
+
+        return Optional.of(metricsContext);
     }
 
-    public void setExpectedMessageRateValue(double newExpectedMessageRateValue){
-        if(expectedMessageRateGauge != null)
-            expectedMessageRateGauge.set(newExpectedMessageRateValue);
+    public Optional<DigitalTwinMetricsContext> getMetricsContext(String digitalTwinId){
+        return Optional.ofNullable(this.metricsContextMap.get(digitalTwinId));
     }
 
-    public void setPhysicalAssetUptimeValue(double newPhysicalAssetUptimeValue){
-        if(physicalAssetUptimeGauge != null)
-            physicalAssetUptimeGauge.set(newPhysicalAssetUptimeValue);
-    }
+    /**
+     * Remove the metrics context and the labelled series of the target Digital Twin
+     */
+    public synchronized void removeMetricsContext(String digitalTwinId){
 
-    public void setDigitalTwinLifeCycleStateValue(DigitalTwinLifeCycleState digitalTwinLifeCycleState){
-        if(digitalTwinLifeCycleStateGauge != null)
-            digitalTwinLifeCycleStateGauge.labels(this.digitalTwinId).set(digitalTwinLifeCycleState.getValue());
-    }
+        DigitalTwinMetricsContext metricsContext = this.metricsContextMap.remove(digitalTwinId);
 
-    public void setDigitalTwinOdteValue(OdteResultDescription odteResultDescription){
-        if(odteResultDescription != null) {
-            odteTimelinessGauge.labels(this.digitalTwinId).set(odteResultDescription.getTimeliness());
-            odteReliabilityGauge.labels(this.digitalTwinId).set(odteResultDescription.getReliability());
-            odteAvailabilityGauge.labels(this.digitalTwinId).set(odteResultDescription.getAvailability());
-            odteGauge.labels(this.digitalTwinId).set(odteResultDescription.getOdte());
-        }
+        if(metricsContext == null)
+            return;
+
+        metricsContext.clearResourceMetricsContexts();
+        expectedMessageRateGauge.remove(digitalTwinId);
+        physicalAssetUptimeGauge.remove(digitalTwinId);
+        digitalTwinLifeCycleStateGauge.remove(digitalTwinId);
+        odteTimelinessGauge.remove(digitalTwinId);
+        odteReliabilityGauge.remove(digitalTwinId);
+        odteAvailabilityGauge.remove(digitalTwinId);
+        odteGauge.remove(digitalTwinId);
     }
 
     public Histogram getObervationDelayHistogram() {
@@ -213,10 +265,6 @@ public class MetricsManager {
         return physicalAssetUptimeGauge;
     }
 
-    public int getDigitalTwinLifeCycleStateGaugeValue() {
-        return (int)digitalTwinLifeCycleStateGauge.labels(this.digitalTwinId).get();
-    }
-
     public void exposeHttpServer(int targetPort){
         try{
 
@@ -247,10 +295,6 @@ public class MetricsManager {
         }
     }
 
-    public Cache<Long, Double> getTimelinessCache() {
-        return timelinessCache;
-    }
-
     public double getObservationBucketStart() {
         return observationBucketStart;
     }
@@ -283,7 +327,7 @@ public class MetricsManager {
         this.observationBucketType = observationBucketType;
     }
 
-    public long getLastObservationTimestampMs() {
-        return lastObservationTimestampMs;
+    public boolean isInitialized() {
+        return initialized;
     }
 }
@@ -1,12 +1,9 @@
 package it.unimore.dipi.iot.digitaltwin;
 
 import com.codahale.metrics.Timer;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
-import it.unimore.dipi.iot.utils.SenMLPack;
-import it.unimore.dipi.iot.utils.SenMLRecord;
+import it.unimore.dipi.iot.utils.SenMLEncoding;
+import it.unimore.dipi.iot.utils.SenMLWriter;
 import it.unimore.dipi.iot.wldt.metrics.WldtMetricsManager;
 import it.unimore.dipi.iot.wldt.processing.PipelineData;
 import it.unimore.dipi.iot.wldt.processing.ProcessingStep;
@@ -28,7 +25,16 @@ public class SenmlMqttProcessingStep implements ProcessingStep {
 
     private String deviceId;
 
-    private ObjectMapper objectMapper;
+    private String senmlPayloadEncoding;
+
+    private String sourceDeviceId;
+
+    private DigitalTwinMetricsContext metricsContext;
+
+    //Last resolved stream, reused while the step receives the same resource
+    private ResourceMetricsContext resourceMetricsContext;
+
+    private String resourceMetricsContextResourceId;
 
     private static final String SENML_DATA_TYPE = "string_resource";
 
@@ -43,13 +49,26 @@ public class SenmlMqttProcessingStep implements ProcessingStep {
     private static final String PROCESSING_PIPELINE_EXECUTION_TIME_METRICS_FIELD = "execution_time";
 
     public SenmlMqttProcessingStep(String deviceId) {
+        this(deviceId, SenMLEncoding.ENCODING_DEFAULT);
+    }
 
-        this.deviceId = deviceId;
-
-        //Jackson Object Mapper + Ignore Null Fields in order to properly generate the SenML Payload
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    /**
+     * @param senmlPayloadEncoding encoding of the generated SenML payload: json, cbor or binary
+     */
+    public SenmlMqttProcessingStep(String deviceId, String senmlPayloadEncoding) {
+        this(deviceId, senmlPayloadEncoding, null, null);
+    }
 
+    /**
+     * @param sourceDeviceId physical device generating the telemetry messages
+     * @param metricsContext metrics of the Digital Twin where the entanglement observations of the energy and
+     *                       temperature streams are recorded (not recorded if null)
+     */
+    public SenmlMqttProcessingStep(String deviceId, String senmlPayloadEncoding, String sourceDeviceId, DigitalTwinMetricsContext metricsContext) {
+        this.deviceId = deviceId;
+        this.senmlPayloadEncoding = senmlPayloadEncoding;
+        this.sourceDeviceId = sourceDeviceId;
+        this.metricsContext = metricsContext;
     }
 
     @Override
@@ -63,27 +82,32 @@ public class SenmlMqttProcessingStep implements ProcessingStep {
 
                 MqttPipelineData mqttPipelineData = (MqttPipelineData)pipelineData;
 
-                logger.debug("Executing SenmlMqttProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
+                if(logger.isDebugEnabled())
+                    logger.debug("Executing SenmlMqttProcessingStep Step with data: {}", new String(mqttPipelineData.getPayload()));
 
                 //Update payload with Senml
-                Optional<String> newPayloadOptional = Optional.empty();
+                Optional<byte[]> newPayloadOptional = Optional.empty();
 
                 //Handle GPS and Battery Telemetry Messages and generate the associated SenML Payload
                 if(mqttPipelineData.getTopic().contains("temperature")){
                     Optional<TelemetryMessage<Double>> optionalTelemetryMessage = parseTelemetryMessage(mqttPipelineData.getPayload());
 
-                    if(optionalTelemetryMessage.isPresent())
+                    if(optionalTelemetryMessage.isPresent()) {
+                        addObservation(DigitalTwin.TEMPERATURE_RESOURCE_ID, optionalTelemetryMessage.get());
                         newPayloadOptional = buildSenmlPayload(optionalTelemetryMessage.get(), "Cel");
+                    }
                 }
                 else if(mqttPipelineData.getTopic().contains("energy")){
                     Optional<TelemetryMessage<Double>> optionalTelemetryMessage = parseTelemetryMessage(mqttPipelineData.getPayload());
 
-                    if(optionalTelemetryMessage.isPresent())
+                    if(optionalTelemetryMessage.isPresent()) {
+                        addObservation(DigitalTwin.ENERGY_RESOURCE_ID, optionalTelemetryMessage.get());
                         newPayloadOptional = buildSenmlPayload(optionalTelemetryMessage.get(), "kW");
+                    }
                 }
 
                 if(newPayloadOptional.isPresent()){
-                    mqttPipelineData.setPayload(newPayloadOptional.get().getBytes());
+                    mqttPipelineData.setPayload(newPayloadOptional.get());
                     processingStepListener.onStepDone(this, Optional.of(mqttPipelineData));
                 }
                 else{
@@ -112,21 +136,37 @@ public class SenmlMqttProcessingStep implements ProcessingStep {
         }
     }
 
-    private Optional<String> buildSenmlPayload(TelemetryMessage<Double> telemetryMessage, String unit) {
+    private void addObservation(String resourceId, TelemetryMessage<Double> telemetryMessage){
 
-        try {
+        if(this.metricsContext == null || telemetryMessage.getTimestamp() <= 0)
+            return;
 
-            long originalTimestamp = telemetryMessage.getTimestamp();
+        long physicalTimestamp = telemetryMessage.getTimestamp();
+        double secDelay = (double)(System.currentTimeMillis() - physicalTimestamp)/1000.0;
 
-            SenMLRecord senmlRecord = new SenMLRecord();
-            senmlRecord.setT(originalTimestamp);
-            senmlRecord.setN(telemetryMessage.getType());
-            senmlRecord.setV(telemetryMessage.getDataValue());
-            senmlRecord.setU(unit);
+        this.metricsContext.addObservationDelaySec(getResourceMetricsContext(resourceId), physicalTimestamp, secDelay);
+    }
+
+    private ResourceMetricsContext getResourceMetricsContext(String resourceId){
+
+        ResourceMetricsContext resourceMetricsContext = this.resourceMetricsContext;
+
+        if(resourceMetricsContext == null || resourceMetricsContext.isRemoved() || !resourceId.equals(this.resourceMetricsContextResourceId)){
+            resourceMetricsContext = this.metricsContext.getResourceMetricsContext(resourceId, this.sourceDeviceId);
+            this.resourceMetricsContext = resourceMetricsContext;
+            this.resourceMetricsContextResourceId = resourceId;
+        }
 
-            SenMLPack senMLPack = new SenMLPack(){{ add(senmlRecord);}};
+        return resourceMetricsContext;
+    }
+
+    private Optional<byte[]> buildSenmlPayload(TelemetryMessage<Double> telemetryMessage, String unit) {
 
-            return Optional.of(this.objectMapper.writeValueAsString(senMLPack));
+        try {
+
+            return Optional.of(SenMLWriter.getInstance(this.senmlPayloadEncoding)
+                    .writeRecord(telemetryMessage.getType(), telemetryMessage.getTimestamp(), telemetryMessage.getDataValue(), unit)
+                    .toByteArray());
 
         }catch (Exception e){
             logger.error("Error serializing Senml Packet ! Msg: {}", e.getLocalizedMessage());
@@ -138,10 +178,7 @@ public class SenmlMqttProcessingStep implements ProcessingStep {
 
         try{
 
-            if(payload == null || payload.length == 0)
-                return Optional.empty();
-
-            return Optional.ofNullable(this.objectMapper.readValue(new String(payload), new TypeReference<TelemetryMessage<Double>>() {}));
+            return TelemetryMessageDecoder.getInstance().decodeDoubleTelemetryMessage(payload);
 
         }catch (Exception e){
             return Optional.empty();
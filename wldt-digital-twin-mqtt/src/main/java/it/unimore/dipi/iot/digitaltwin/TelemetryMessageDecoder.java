@@ -0,0 +1,199 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.smartobject.resource.AggregatedResourcePayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Single pass decoder of the TelemetryMessage payloads published by the physical devices. The timestamp, type and
+ * data fields are read directly from the received byte[] with a streaming JsonParser, without the intermediate
+ * String copy and the TypeReference/tree building of the ObjectMapper path. Nested values (not produced by the
+ * current devices) are delegated to a pre-built ObjectReader and unknown fields are skipped.
+ *
+ * The payload_overhead padding added by the devices to reach a target payload size can be skipped without
+ * materializing its value.
+ *
+ * Parsers are created for each call from a shared JsonFactory: the decoder is thread-safe.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 17:50
+ */
+public class TelemetryMessageDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryMessageDecoder.class);
+
+    public static final String TIMESTAMP_FIELD = "timestamp";
+
+    public static final String TYPE_FIELD = "type";
+
+    public static final String DATA_FIELD = "data";
+
+    public static final String PAYLOAD_OVERHEAD_FIELD = "payload_overhead";
+
+    private final JsonFactory jsonFactory;
+
+    private final ObjectReader valueReader;
+
+    private TelemetryMessageDecoder(){
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.jsonFactory = objectMapper.getFactory();
+        this.valueReader = objectMapper.readerFor(Object.class);
+    }
+
+    private static class InstanceHolder {
+        private static final TelemetryMessageDecoder INSTANCE = new TelemetryMessageDecoder();
+    }
+
+    public static TelemetryMessageDecoder getInstance(){
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Decode a single resource telemetry message (e.g. energy or temperature) with a numeric data value
+     * @return the decoded message or an empty Optional if the payload is empty or malformed
+     */
+    public Optional<TelemetryMessage<Double>> decodeDoubleTelemetryMessage(byte[] payload){
+
+        if(payload == null || payload.length == 0)
+            return Optional.empty();
+
+        try(JsonParser parser = this.jsonFactory.createParser(payload)){
+
+            if(parser.nextToken() != JsonToken.START_OBJECT)
+                return Optional.empty();
+
+            TelemetryMessage<Double> telemetryMessage = new TelemetryMessage<>();
+
+            while(parser.nextToken() == JsonToken.FIELD_NAME){
+
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+
+                if(TIMESTAMP_FIELD.equals(fieldName))
+                    telemetryMessage.setTimestamp(parser.getValueAsLong());
+                else if(TYPE_FIELD.equals(fieldName))
+                    telemetryMessage.setType(valueToken == JsonToken.VALUE_NULL ? null : parser.getText());
+                else if(DATA_FIELD.equals(fieldName))
+                    telemetryMessage.setDataValue(readDouble(parser, valueToken));
+                else
+                    parser.skipChildren();
+            }
+
+            return Optional.of(telemetryMessage);
+
+        }catch (Exception e){
+            logger.debug("Error decoding Telemetry Message ! Msg: {}", e.getLocalizedMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Decode an aggregated device state telemetry message
+     * @param skipPayloadOverhead if true the payload_overhead padding is skipped and not added to the decoded data
+     * @return the decoded message or an empty Optional if the payload is empty or malformed
+     */
+    public Optional<TelemetryMessage<AggregatedResourcePayload>> decodeAggregatedStateTelemetryMessage(byte[] payload, boolean skipPayloadOverhead){
+
+        if(payload == null || payload.length == 0)
+            return Optional.empty();
+
+        try(JsonParser parser = this.jsonFactory.createParser(payload)){
+
+            if(parser.nextToken() != JsonToken.START_OBJECT)
+                return Optional.empty();
+
+            TelemetryMessage<AggregatedResourcePayload> telemetryMessage = new TelemetryMessage<>();
+
+            while(parser.nextToken() == JsonToken.FIELD_NAME){
+
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+
+                if(TIMESTAMP_FIELD.equals(fieldName))
+                    telemetryMessage.setTimestamp(parser.getValueAsLong());
+                else if(TYPE_FIELD.equals(fieldName))
+                    telemetryMessage.setType(valueToken == JsonToken.VALUE_NULL ? null : parser.getText());
+                else if(DATA_FIELD.equals(fieldName))
+                    telemetryMessage.setDataValue(readAggregatedResourcePayload(parser, valueToken, skipPayloadOverhead));
+                else
+                    parser.skipChildren();
+            }
+
+            return Optional.of(telemetryMessage);
+
+        }catch (Exception e){
+            logger.debug("Error decoding Aggregated State Telemetry Message ! Msg: {}", e.getLocalizedMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Double readDouble(JsonParser parser, JsonToken valueToken) throws IOException {
+
+        if(valueToken == JsonToken.VALUE_NUMBER_FLOAT || valueToken == JsonToken.VALUE_NUMBER_INT)
+            return parser.getDoubleValue();
+        else if(valueToken == JsonToken.VALUE_NULL)
+            return null;
+        else if(valueToken == JsonToken.VALUE_STRING)
+            return Double.valueOf(parser.getText());
+        else
+            throw new IOException(String.format("Unexpected data token: %s", valueToken));
+    }
+
+    private AggregatedResourcePayload readAggregatedResourcePayload(JsonParser parser, JsonToken valueToken, boolean skipPayloadOverhead) throws IOException {
+
+        if(valueToken == JsonToken.VALUE_NULL)
+            return null;
+
+        if(valueToken != JsonToken.START_OBJECT)
+            throw new IOException(String.format("Unexpected data token: %s", valueToken));
+
+        AggregatedResourcePayload aggregatedResourcePayload = new AggregatedResourcePayload();
+
+        while(parser.nextToken() == JsonToken.FIELD_NAME){
+
+            String resourceName = parser.getCurrentName();
+            JsonToken resourceToken = parser.nextToken();
+
+            //Skip the padding without materializing its value
+            if(skipPayloadOverhead && PAYLOAD_OVERHEAD_FIELD.equals(resourceName)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            aggregatedResourcePayload.put(resourceName, readValue(parser, resourceToken));
+        }
+
+        return aggregatedResourcePayload;
+    }
+
+    //Same mapping of the ObjectMapper for untyped values
+    private Object readValue(JsonParser parser, JsonToken valueToken) throws IOException {
+
+        switch (valueToken){
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return this.valueReader.readValue(parser);
+        }
+    }
+
+}
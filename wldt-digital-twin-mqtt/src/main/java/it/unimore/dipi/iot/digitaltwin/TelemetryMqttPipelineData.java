@@ -0,0 +1,29 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import it.unimore.dipi.iot.smartobject.message.TelemetryMessage;
+import it.unimore.dipi.iot.wldt.worker.mqtt.MqttPipelineData;
+
+/**
+ * MQTT Pipeline Data carrying the TelemetryMessage already decoded by a previous processing step, so that the
+ * following steps of the same pipeline can use it without decoding the payload again. The original topic, topic
+ * descriptor, payload and retained flag are preserved.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 19:05
+ */
+public class TelemetryMqttPipelineData<T> extends MqttPipelineData {
+
+    private final TelemetryMessage<T> telemetryMessage;
+
+    public TelemetryMqttPipelineData(MqttPipelineData mqttPipelineData, TelemetryMessage<T> telemetryMessage) {
+        super(mqttPipelineData.getTopic(),
+                mqttPipelineData.getMqttTopicDescriptor(),
+                mqttPipelineData.getPayload(),
+                mqttPipelineData.isRetained());
+        this.telemetryMessage = telemetryMessage;
+    }
+
+    public TelemetryMessage<T> getTelemetryMessage() {
+        return telemetryMessage;
+    }
+}
@@ -0,0 +1,120 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import java.util.Arrays;
+
+/**
+ * Exact timeliness estimator keeping all the observations sorted in a primitive array.
+ * Insertion and removal cost O(n) (array shift), queries O(log n).
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 14:10
+ */
+public class ExactTimelinessEstimator implements TimelinessEstimator {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    private double[] sortedValues;
+
+    private int size = 0;
+
+    public ExactTimelinessEstimator() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public ExactTimelinessEstimator(int initialCapacity) {
+        this.sortedValues = new double[Math.max(1, initialCapacity)];
+    }
+
+    @Override
+    public void add(double observationSec) {
+
+        if(this.size == this.sortedValues.length)
+            this.sortedValues = Arrays.copyOf(this.sortedValues, this.sortedValues.length * 2);
+
+        int index = lowerBound(observationSec);
+        System.arraycopy(this.sortedValues, index, this.sortedValues, index + 1, this.size - index);
+        this.sortedValues[index] = observationSec;
+        this.size++;
+    }
+
+    @Override
+    public void remove(double observationSec) {
+
+        int index = lowerBound(observationSec);
+
+        if(index < this.size && this.sortedValues[index] == observationSec) {
+            System.arraycopy(this.sortedValues, index + 1, this.sortedValues, index, this.size - index - 1);
+            this.size--;
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return this.size;
+    }
+
+    @Override
+    public long countBelow(double thresholdSec) {
+        return lowerBound(thresholdSec);
+    }
+
+    @Override
+    public void merge(TimelinessEstimator other) {
+
+        if(!(other instanceof ExactTimelinessEstimator))
+            throw new IllegalArgumentException(String.format("Cannot merge %s into ExactTimelinessEstimator", other));
+
+        ExactTimelinessEstimator otherEstimator = (ExactTimelinessEstimator) other;
+
+        double[] mergedValues = new double[Math.max(this.sortedValues.length, this.size + otherEstimator.size)];
+
+        int i = 0, j = 0, k = 0;
+
+        while(i < this.size && j < otherEstimator.size)
+            mergedValues[k++] = this.sortedValues[i] <= otherEstimator.sortedValues[j] ? this.sortedValues[i++] : otherEstimator.sortedValues[j++];
+
+        while(i < this.size)
+            mergedValues[k++] = this.sortedValues[i++];
+
+        while(j < otherEstimator.size)
+            mergedValues[k++] = otherEstimator.sortedValues[j++];
+
+        this.sortedValues = mergedValues;
+        this.size = k;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+    }
+
+    @Override
+    public double getErrorBound() {
+        return 0.0;
+    }
+
+    //Index of the first sorted value >= target
+    private int lowerBound(double target){
+
+        int low = 0;
+        int high = this.size;
+
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(this.sortedValues[mid] < target)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("ExactTimelinessEstimator{");
+        sb.append("size=").append(size);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+/**
+ * Mergeable quantile sketch with logarithmic buckets (HDR Histogram / DDSketch style). Bucket i counts the
+ * observations in (gamma^(i-1), gamma^i] with gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy), so that the
+ * number of buckets only depends on the accuracy and on the tracked range.
+ *
+ * The relative accuracy bounds the error of a quantile estimated from its bucket (2 * gamma^i / (gamma + 1)), not the
+ * error of the timeliness threshold: {@link #countBelow(double)} counts the buckets before the one of the threshold,
+ * i.e. it evaluates the lower bound of the threshold bucket, between threshold / gamma and the threshold. The
+ * observations in that range are counted as not timely, so the relative error on the evaluated threshold is up to
+ * gamma - 1 (about twice the relative accuracy, see {@link #getErrorBound()}).
+ *
+ * Observations lower than the minimum tracked value (including zero and negative delays) are counted in a dedicated
+ * zero bucket, the ones greater than the maximum tracked value in the last bucket.
+ *
+ * Sketches with the same configuration can be merged by adding their bucket counts (e.g. to combine the windows of
+ * different devices).
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 14:45
+ */
+public class LogBucketSketchTimelinessEstimator implements TimelinessEstimator {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    public static final double DEFAULT_MIN_TRACKED_VALUE_SEC = 0.000001;
+
+    public static final double DEFAULT_MAX_TRACKED_VALUE_SEC = 3600.0;
+
+    private final double relativeAccuracy;
+
+    private final double minTrackedValueSec;
+
+    private final double maxTrackedValueSec;
+
+    private final double logGamma;
+
+    private final int minIndex;
+
+    //Bucket 0 is the zero bucket, bucket i > 0 is the log bucket (minIndex + i - 1)
+    private final BucketCounts bucketCounts;
+
+    public LogBucketSketchTimelinessEstimator(double relativeAccuracy) {
+        this(relativeAccuracy, DEFAULT_MIN_TRACKED_VALUE_SEC, DEFAULT_MAX_TRACKED_VALUE_SEC);
+    }
+
+    public LogBucketSketchTimelinessEstimator(double relativeAccuracy, double minTrackedValueSec, double maxTrackedValueSec) {
+
+        if(relativeAccuracy <= 0.0 || relativeAccuracy >= 1.0)
+            throw new IllegalArgumentException(String.format("Invalid relative accuracy (%f) ! It must be in (0.0, 1.0)", relativeAccuracy));
+
+        if(minTrackedValueSec <= 0.0 || maxTrackedValueSec <= minTrackedValueSec)
+            throw new IllegalArgumentException(String.format("Invalid tracked range [%f, %f] !", minTrackedValueSec, maxTrackedValueSec));
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.minTrackedValueSec = minTrackedValueSec;
+        this.maxTrackedValueSec = maxTrackedValueSec;
+        this.logGamma = Math.log((1.0 + relativeAccuracy) / (1.0 - relativeAccuracy));
+        this.minIndex = getLogIndex(minTrackedValueSec);
+
+        int maxIndex = getLogIndex(maxTrackedValueSec);
+
+        this.bucketCounts = new BucketCounts(maxIndex - this.minIndex + 2);
+    }
+
+    @Override
+    public void add(double observationSec) {
+        this.bucketCounts.add(getBucketIndex(observationSec), 1);
+    }
+
+    @Override
+    public void remove(double observationSec) {
+
+        int bucketIndex = getBucketIndex(observationSec);
+
+        if(this.bucketCounts.getCount(bucketIndex) > 0)
+            this.bucketCounts.add(bucketIndex, -1);
+    }
+
+    @Override
+    public long getCount() {
+        return this.bucketCounts.getTotalCount();
+    }
+
+    @Override
+    public long countBelow(double thresholdSec) {
+
+        if(thresholdSec <= this.minTrackedValueSec)
+            return 0;
+
+        //The buckets before the one of the threshold only contain values lower than the threshold
+        return this.bucketCounts.cumulativeCount(getBucketIndex(thresholdSec));
+    }
+
+    @Override
+    public void merge(TimelinessEstimator other) {
+
+        if(!(other instanceof LogBucketSketchTimelinessEstimator))
+            throw new IllegalArgumentException(String.format("Cannot merge %s into LogBucketSketchTimelinessEstimator", other));
+
+        LogBucketSketchTimelinessEstimator otherEstimator = (LogBucketSketchTimelinessEstimator) other;
+
+        if(otherEstimator.relativeAccuracy != this.relativeAccuracy
+                || otherEstimator.minTrackedValueSec != this.minTrackedValueSec
+                || otherEstimator.maxTrackedValueSec != this.maxTrackedValueSec)
+            throw new IllegalArgumentException(String.format("Cannot merge %s into %s: different sketch configuration", other, this));
+
+        this.bucketCounts.merge(otherEstimator.bucketCounts);
+    }
+
+    @Override
+    public void clear() {
+        this.bucketCounts.clear();
+    }
+
+    /**
+     * @return the relative error bound of the evaluated threshold, gamma - 1
+     */
+    @Override
+    public double getErrorBound() {
+        return Math.expm1(this.logGamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public int getBucketCount(){
+        return this.bucketCounts.getBucketCount();
+    }
+
+    private int getLogIndex(double value){
+        return (int) Math.ceil(Math.log(value) / this.logGamma);
+    }
+
+    private int getBucketIndex(double observationSec){
+
+        if(observationSec <= this.minTrackedValueSec)
+            return 0;
+
+        if(observationSec >= this.maxTrackedValueSec)
+            return this.bucketCounts.getBucketCount() - 1;
+
+        return Math.min(getLogIndex(observationSec) - this.minIndex + 1, this.bucketCounts.getBucketCount() - 1);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("LogBucketSketchTimelinessEstimator{");
+        sb.append("relativeAccuracy=").append(relativeAccuracy);
+        sb.append(", minTrackedValueSec=").append(minTrackedValueSec);
+        sb.append(", maxTrackedValueSec=").append(maxTrackedValueSec);
+        sb.append(", count=").append(getCount());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the up/down events of the connection to the broker delivering the physical observations and records the
+ * disconnections in an {@link AvailabilityIntervalLog} shared by the {@link AvailabilityTracker} of the streams
+ * received through that broker.
+ *
+ * The Mqtt2MqttWorker of the WLDT library does not notify the state of its connections, so the monitor keeps a
+ * dedicated lightweight client (no subscriptions) towards the same broker with a short keep alive: the connection is
+ * considered down from the connection loss (or from the start of the monitor) until the client is connected again.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 20:50
+ */
+public class MqttConnectionAvailabilityMonitor implements MqttCallbackExtended {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttConnectionAvailabilityMonitor.class);
+
+    public static final int DEFAULT_KEEP_ALIVE_SEC = 5;
+
+    public static final long DEFAULT_CONNECT_RETRY_MS = 2000;
+
+    private final String brokerAddress;
+
+    private final int brokerPort;
+
+    private final String clientId;
+
+    private final AvailabilityIntervalLog connectionIntervalLog;
+
+    private IMqttAsyncClient mqttClient;
+
+    private MqttConnectOptions connectOptions;
+
+    private ScheduledExecutorService retryScheduler;
+
+    public MqttConnectionAvailabilityMonitor(String brokerAddress, int brokerPort, String clientId, long retentionMs) {
+        this.brokerAddress = brokerAddress;
+        this.brokerPort = brokerPort;
+        this.clientId = clientId;
+        this.connectionIntervalLog = new AvailabilityIntervalLog(retentionMs);
+    }
+
+    /**
+     * Start the monitoring client. The connection is down until the first connection is completed.
+     */
+    public void start(){
+
+        try{
+
+            this.connectionIntervalLog.openInterval(System.currentTimeMillis());
+
+            this.connectOptions = new MqttConnectOptions();
+            this.connectOptions.setAutomaticReconnect(true);
+            this.connectOptions.setCleanSession(true);
+            this.connectOptions.setConnectionTimeout(10);
+            this.connectOptions.setKeepAliveInterval(DEFAULT_KEEP_ALIVE_SEC);
+
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, String.format("%s-retry", this.clientId));
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            this.mqttClient = new MqttAsyncClient(String.format("tcp://%s:%d", this.brokerAddress, this.brokerPort),
+                    this.clientId,
+                    new MemoryPersistence());
+
+            this.mqttClient.setCallback(this);
+
+            connect();
+
+        }catch (Exception e){
+            logger.error("MqttConnectionAvailabilityMonitor -> Error starting monitor {} ! Msg: {}", this.clientId, e.getLocalizedMessage());
+        }
+    }
+
+    public void stop(){
+
+        try{
+
+            if(this.retryScheduler != null)
+                this.retryScheduler.shutdownNow();
+
+            if(this.mqttClient != null && this.mqttClient.isConnected())
+                this.mqttClient.disconnect();
+
+        }catch (Exception e){
+            logger.error("MqttConnectionAvailabilityMonitor -> Error stopping monitor {} ! Msg: {}", this.clientId, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Automatic reconnection is handled by the client only after the first successful connection, so the first
+     * connection is retried until it succeeds
+     */
+    private void connect(){
+
+        try{
+
+            this.mqttClient.connect(this.connectOptions, null, new IMqttActionListener() {
+
+                @Override
+                public void onSuccess(IMqttToken asyncActionToken) {
+                    //Handled by connectComplete
+                }
+
+                @Override
+                public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                    logger.warn("MqttConnectionAvailabilityMonitor -> {} Connection to {}:{} failed ! Retrying in {} ms ...",
+                            clientId, brokerAddress, brokerPort, DEFAULT_CONNECT_RETRY_MS);
+                    scheduleConnect();
+                }
+            });
+
+        }catch (Exception e){
+            logger.error("MqttConnectionAvailabilityMonitor -> {} Error connecting ! Msg: {}", this.clientId, e.getLocalizedMessage());
+            scheduleConnect();
+        }
+    }
+
+    private void scheduleConnect(){
+        if(this.retryScheduler != null && !this.retryScheduler.isShutdown())
+            this.retryScheduler.schedule(this::connect, DEFAULT_CONNECT_RETRY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        logger.info("MqttConnectionAvailabilityMonitor -> {} Connected to {} (reconnect: {})", this.clientId, serverURI, reconnect);
+        this.connectionIntervalLog.closeInterval(System.currentTimeMillis());
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        logger.warn("MqttConnectionAvailabilityMonitor -> {} Connection lost ! Msg: {}", this.clientId, cause != null ? cause.getLocalizedMessage() : null);
+        this.connectionIntervalLog.openInterval(System.currentTimeMillis());
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+    }
+
+    public boolean isConnected(){
+        return !this.connectionIntervalLog.isIntervalOpen();
+    }
+
+    public AvailabilityIntervalLog getConnectionIntervalLog() {
+        return connectionIntervalLog;
+    }
+
+    public String getBrokerAddress() {
+        return brokerAddress;
+    }
+
+    public int getBrokerPort() {
+        return brokerPort;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("MqttConnectionAvailabilityMonitor{");
+        sb.append("brokerAddress='").append(brokerAddress).append('\'');
+        sb.append(", brokerPort=").append(brokerPort);
+        sb.append(", clientId='").append(clientId).append('\'');
+        sb.append(", connectionIntervalLog=").append(connectionIntervalLog);
+        sb.append('}');
+        return sb.toString();
+    }
+}
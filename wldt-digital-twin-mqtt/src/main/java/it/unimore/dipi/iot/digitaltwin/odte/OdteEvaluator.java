@@ -0,0 +1,26 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import java.util.Optional;
+
+/**
+ * Source of the ODTE of a Digital Twin evaluated on the current content of its windows, without publishing it or
+ * removing idle streams. It allows the life cycle to check the target percentile as soon as the observations arrive
+ * instead of waiting for the periodic update of the metrics.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 10:20
+ */
+public interface OdteEvaluator {
+
+    /**
+     * @return the combined ODTE of the twin or an empty Optional if there are no observations in the windows
+     */
+    Optional<OdteResultDescription> evaluateOdte(long currentTimestampMs);
+
+    /**
+     * @return the first timestamp after currentTimestampMs at which the ODTE changes without new observations
+     * (see {@link OdteManager#computeNextOdteChangeTimestampMs(java.util.Collection, long)})
+     */
+    long getNextOdteChangeTimestampMs(long currentTimestampMs);
+
+}
@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,17 +21,15 @@ public class OdteManager {
             0.005d, 0.01d, 0.025d, 0.05d, 0.075d, 0.1d, 0.25d, 0.5d, 0.75d, 1.0d, 2.5d, 5.0d, 7.5d, 10.0d, Double.POSITIVE_INFINITY
     };
 
-    private static OdteManager instance;
-
     private OdteManager(){
     }
 
-    public static OdteManager getInstance(){
-
-        if(instance == null)
-            instance = new OdteManager();
+    private static class InstanceHolder {
+        private static final OdteManager INSTANCE = new OdteManager();
+    }
 
-        return instance;
+    public static OdteManager getInstance(){
+        return InstanceHolder.INSTANCE;
     }
 
     public Optional<OdteResultDescription> computeOdte(List<Double> samplesList, double desiredTimelinessSec, double expectedMsgSec, double targetSlidingWindowSec){
@@ -52,9 +51,121 @@ public class OdteManager {
             return Optional.empty();
     }
 
+    /**
+     * Compute the ODTE on the incrementally maintained sliding window, expiring old samples before the computation
+     * @param slidingWindow target sliding window of timeliness observations
+     * @param currentTimestampMs reference timestamp used to slide the window
+     * @param expectedMsgSec expected message rate
+     * @return the computed ODTE or an empty Optional if the window is empty or the ODTE cannot be computed
+     */
+    public Optional<OdteResultDescription> computeOdte(OdteSlidingWindow slidingWindow, long currentTimestampMs, double expectedMsgSec){
+
+        slidingWindow.update(currentTimestampMs);
+
+        int receivedPackets = slidingWindow.getSize();
+
+        if(receivedPackets == 0)
+            return Optional.empty();
+
+        double timeliness = slidingWindow.computeTimeliness();
+        logger.info("Percentile of {} Sec -> Percentile Result: {}", slidingWindow.getDesiredTimelinessSec(), timeliness);
+
+        Optional<Double> reliabilityOptional = computeReliability(receivedPackets, expectedMsgSec, slidingWindow.getSlidingWindowMs() / 1000.0);
+        Optional<Double> availabilityOptional = computeAvailability();
+
+        if(reliabilityOptional.isPresent() && availabilityOptional.isPresent())
+            return Optional.of(
+                    new OdteResultDescription(
+                            timeliness,
+                            reliabilityOptional.get(),
+                            availabilityOptional.get(),
+                            reliabilityOptional.get() * availabilityOptional.get() * timeliness)
+            );
+        else
+            return Optional.empty();
+    }
+
+    /**
+     * Compute the ODTE of a single observation stream on its sliding window. Differently from
+     * {@link #computeOdte(OdteSlidingWindow, long, double)}, a stream without observations in the window results in a
+     * zero ODTE, so that a stalled stream is reported instead of being skipped.
+     * @return the computed ODTE or an empty Optional if the reliability cannot be computed (expected rate = 0.0)
+     */
+    public Optional<OdteResultDescription> computeResourceOdte(ResourceOdteWindow resourceOdteWindow, long currentTimestampMs){
+
+        OdteSlidingWindow slidingWindow = resourceOdteWindow.getOdteSlidingWindow();
+        slidingWindow.update(currentTimestampMs);
+
+        double timeliness = slidingWindow.computeTimeliness();
+
+        Optional<Double> reliabilityOptional = computeReliability(slidingWindow.getSize(), resourceOdteWindow.getExpectedMsgSec(), slidingWindow.getSlidingWindowMs() / 1000.0);
+        Optional<Double> availabilityOptional = computeAvailability(resourceOdteWindow, currentTimestampMs);
+
+        if(reliabilityOptional.isPresent() && availabilityOptional.isPresent())
+            return Optional.of(
+                    new OdteResultDescription(
+                            timeliness,
+                            reliabilityOptional.get(),
+                            availabilityOptional.get(),
+                            reliabilityOptional.get() * availabilityOptional.get() * timeliness)
+            );
+        else
+            return Optional.empty();
+    }
+
+    /**
+     * Combine the sliding windows of the observation streams of a Digital Twin. The result is the ODTE of a single
+     * window containing the observations of all the streams: the timeliness is computed on the union of the samples
+     * (summing the per-window counts, without merging the estimators) and the reliability on the sum of the
+     * expected rates, so a stalled stream lowers the combined reliability. The availability is the average of the
+     * availability of the streams weighted by their expected rate (see {@link #computeCombinedAvailability(Collection, long)}).
+     * @return the combined ODTE or an empty Optional if all the windows are empty or the ODTE cannot be computed
+     */
+    public Optional<OdteResultDescription> computeCombinedOdte(Collection<ResourceOdteWindow> resourceOdteWindows, long currentTimestampMs){
+
+        long receivedPackets = 0;
+        long timelyPackets = 0;
+        double expectedMsgSec = 0.0;
+        double slidingWindowSec = 0.0;
+
+        for(ResourceOdteWindow resourceOdteWindow : resourceOdteWindows){
+
+            OdteSlidingWindow slidingWindow = resourceOdteWindow.getOdteSlidingWindow();
+            slidingWindow.update(currentTimestampMs);
+
+            receivedPackets += slidingWindow.getSize();
+            timelyPackets += slidingWindow.countTimely();
+            expectedMsgSec += resourceOdteWindow.getExpectedMsgSec();
+            slidingWindowSec = Math.max(slidingWindowSec, slidingWindow.getSlidingWindowMs() / 1000.0);
+        }
+
+        if(receivedPackets == 0)
+            return Optional.empty();
+
+        double timeliness = TimelinessEstimator.timelinessOf(timelyPackets, receivedPackets);
+
+        Optional<Double> reliabilityOptional = computeReliability((int)Math.min(receivedPackets, Integer.MAX_VALUE), expectedMsgSec, slidingWindowSec);
+        Optional<Double> availabilityOptional = computeCombinedAvailability(resourceOdteWindows, currentTimestampMs);
+
+        if(reliabilityOptional.isPresent() && availabilityOptional.isPresent())
+            return Optional.of(
+                    new OdteResultDescription(
+                            timeliness,
+                            reliabilityOptional.get(),
+                            availabilityOptional.get(),
+                            reliabilityOptional.get() * availabilityOptional.get() * timeliness)
+            );
+        else
+            return Optional.empty();
+    }
+
     private Optional<Double> computeReliability(List<Double> samplesList, double expectedMsgSec, double targetSlidingWindowSec){
+        return computeReliability(samplesList.size(), expectedMsgSec, targetSlidingWindowSec);
+    }
+
+    private Optional<Double> computeReliability(int receivedPacketsCount, double expectedMsgSec, double targetSlidingWindowSec){
 
-        double receivedPackets = samplesList.size();
+        double receivedPackets = receivedPacketsCount;
         double expectedPackets = expectedMsgSec * targetSlidingWindowSec;
 
         if(expectedPackets == 0.0){
@@ -67,6 +178,66 @@ public class OdteManager {
             return Optional.of(receivedPackets/expectedPackets);
     }
 
+    /**
+     * Availability of the streams of a Digital Twin: the average of the availability of each stream weighted by its
+     * expected rate, i.e. the fraction of the expected observations whose source was available
+     * @return the combined availability or an empty Optional if there are no streams
+     */
+    public Optional<Double> computeCombinedAvailability(Collection<ResourceOdteWindow> resourceOdteWindows, long currentTimestampMs){
+
+        double weightedAvailability = 0.0;
+        double weightSum = 0.0;
+
+        for(ResourceOdteWindow resourceOdteWindow : resourceOdteWindows){
+
+            double weight = resourceOdteWindow.getExpectedMsgSec() > 0.0 ? resourceOdteWindow.getExpectedMsgSec() : 1.0;
+
+            weightedAvailability += weight * resourceOdteWindow.getAvailabilityTracker().computeAvailability(currentTimestampMs);
+            weightSum += weight;
+        }
+
+        if(weightSum == 0.0)
+            return Optional.empty();
+
+        return Optional.of(weightedAvailability / weightSum);
+    }
+
+    /**
+     * First timestamp after currentTimestampMs at which the ODTE of the windows changes without new observations:
+     * the oldest observation of a window leaves it or a stream exceeds its gap tolerance and becomes unavailable
+     * @return the timestamp of the next change or Long.MAX_VALUE if the windows are empty and already unavailable
+     */
+    public long computeNextOdteChangeTimestampMs(Collection<ResourceOdteWindow> resourceOdteWindows, long currentTimestampMs){
+
+        long nextChangeTimestampMs = Long.MAX_VALUE;
+
+        for(ResourceOdteWindow resourceOdteWindow : resourceOdteWindows){
+
+            OdteSlidingWindow slidingWindow = resourceOdteWindow.getOdteSlidingWindow();
+            long oldestTimestampMs = slidingWindow.getOldestTimestampMs();
+
+            //Observations are removed when they are older than the sliding window
+            if(oldestTimestampMs >= 0)
+                nextChangeTimestampMs = Math.min(nextChangeTimestampMs, oldestTimestampMs + slidingWindow.getSlidingWindowMs() + 1);
+
+            AvailabilityTracker availabilityTracker = resourceOdteWindow.getAvailabilityTracker();
+            long gapStartTimestampMs = availabilityTracker.getLastArrivalTimestampMs() + availabilityTracker.getGapToleranceMs() + 1;
+
+            if(gapStartTimestampMs > currentTimestampMs)
+                nextChangeTimestampMs = Math.min(nextChangeTimestampMs, gapStartTimestampMs);
+        }
+
+        return Math.max(nextChangeTimestampMs, currentTimestampMs + 1);
+    }
+
+    private Optional<Double> computeAvailability(ResourceOdteWindow resourceOdteWindow, long currentTimestampMs){
+        return Optional.of(resourceOdteWindow.getAvailabilityTracker().computeAvailability(currentTimestampMs));
+    }
+
+    /**
+     * Availability of the computations without information about the arrival of the observations (samples list and
+     * stand-alone sliding window): the source is assumed to be available
+     */
     private Optional<Double> computeAvailability(){
         return Optional.of(1.0);
     }
@@ -0,0 +1,208 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental sliding window of timeliness observations used to compute the ODTE.
+ *
+ * Observations are appended to a {@link TimelinessRingBuffer} by the thread receiving the physical packets without
+ * any lock. Each call to {@link #update(long)} ingests the samples appended since the previous call and expires the
+ * samples whose physical timestamp left the window, so that the timeliness percentile and the number of received
+ * packets are kept up to date without copying or sorting the whole set of samples. The timeliness is computed by
+ * the configured {@link TimelinessEstimator} (exact by default).
+ *
+ * Samples are copied from the ring buffer and then validated by reading the write sequence again: if the writer lapped
+ * a sample before or while it was copied (buffer overrun), the copied value is discarded and the window is rebuilt from
+ * the samples that are still readable (see {@link #getLostSamplesCount()}), so the estimator never ingests or removes
+ * an overwritten value.
+ *
+ * Samples with a timestamp ahead of the reference timestamp of the update (e.g. a source with a skewed clock) are not
+ * ingested until the reference timestamp reaches them, so the window never holds samples from its future, which would
+ * be counted as received and expire later than the window length.
+ *
+ * The reader side (update and queries) is synchronized since the ODTE can be evaluated by different threads.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 10:12
+ */
+public class OdteSlidingWindow {
+
+    private static final Logger logger = LoggerFactory.getLogger(OdteSlidingWindow.class);
+
+    public static final double DEFAULT_CAPACITY_HEADROOM_FACTOR = 2.0;
+
+    private final long slidingWindowMs;
+
+    private final double desiredTimelinessSec;
+
+    private final TimelinessRingBuffer timelinessRingBuffer;
+
+    //Window samples are the ones in [expireSequence, ingestSequence)
+    private long expireSequence = 0;
+
+    private long ingestSequence = 0;
+
+    private final TimelinessEstimator timelinessEstimator;
+
+    private long lostSamplesCount = 0;
+
+    public OdteSlidingWindow(long slidingWindowSec, double desiredTimelinessSec, double expectedMsgSec) {
+        this(slidingWindowSec, desiredTimelinessSec, expectedMsgSec, new ExactTimelinessEstimator());
+    }
+
+    public OdteSlidingWindow(long slidingWindowSec, double desiredTimelinessSec, double expectedMsgSec, TimelinessEstimator timelinessEstimator) {
+        this(slidingWindowSec, desiredTimelinessSec,
+                TimelinessRingBuffer.forSlidingWindow(slidingWindowSec, expectedMsgSec, DEFAULT_CAPACITY_HEADROOM_FACTOR),
+                timelinessEstimator);
+    }
+
+    public OdteSlidingWindow(long slidingWindowSec, double desiredTimelinessSec, TimelinessRingBuffer timelinessRingBuffer, TimelinessEstimator timelinessEstimator) {
+        this.slidingWindowMs = TimeUnit.SECONDS.toMillis(slidingWindowSec);
+        this.desiredTimelinessSec = desiredTimelinessSec;
+        this.timelinessRingBuffer = timelinessRingBuffer;
+        this.timelinessEstimator = timelinessEstimator;
+    }
+
+    /**
+     * Append a new observation. Must be called by a single writer thread.
+     */
+    public void addObservation(long timestampMs, double observationSec){
+        this.timelinessRingBuffer.append(timestampMs, observationSec);
+    }
+
+    /**
+     * Ingest the new observations up to the reference timestamp and remove all the observations with a timestamp older
+     * than the sliding window
+     * @param currentTimestampMs reference timestamp
+     */
+    public synchronized void update(long currentTimestampMs){
+
+        //The writer overwrote samples still in the window: rebuild the window from the readable samples
+        while(!ingestAndExpire(currentTimestampMs))
+            rebuildWindow();
+    }
+
+    /**
+     * @return false if a sample of the window has been overwritten by the writer before or while it was copied
+     */
+    private boolean ingestAndExpire(long currentTimestampMs){
+
+        long lowerTimestampMs = currentTimestampMs - this.slidingWindowMs;
+
+        if(this.expireSequence < this.timelinessRingBuffer.getOldestReadableSequence())
+            return false;
+
+        long writeSequence = this.timelinessRingBuffer.getWriteSequence();
+
+        while(this.ingestSequence < writeSequence){
+
+            long timestampMs = this.timelinessRingBuffer.getTimestampMs(this.ingestSequence);
+            double value = this.timelinessRingBuffer.getValue(this.ingestSequence);
+
+            //Validate the copy against the current write sequence (read after the slot, see TimelinessRingBuffer)
+            if(!this.timelinessRingBuffer.isReadable(this.ingestSequence))
+                return false;
+
+            //Ahead of the reference timestamp: the following samples are not older since the buffer is time ordered
+            if(timestampMs > currentTimestampMs)
+                break;
+
+            this.timelinessEstimator.add(value);
+            this.ingestSequence++;
+        }
+
+        while(this.expireSequence < this.ingestSequence){
+
+            long timestampMs = this.timelinessRingBuffer.getTimestampMs(this.expireSequence);
+            double value = this.timelinessRingBuffer.getValue(this.expireSequence);
+
+            if(!this.timelinessRingBuffer.isReadable(this.expireSequence))
+                return false;
+
+            if(timestampMs >= lowerTimestampMs)
+                break;
+
+            this.timelinessEstimator.remove(value);
+            this.expireSequence++;
+        }
+
+        return true;
+    }
+
+    private void rebuildWindow(){
+
+        long oldestReadableSequence = this.timelinessRingBuffer.getOldestReadableSequence();
+
+        this.lostSamplesCount += Math.max(0, oldestReadableSequence - this.expireSequence);
+
+        logger.warn("OdteSlidingWindow -> Buffer overrun ! Rebuilding window (capacity: {}, lost samples: {})",
+                this.timelinessRingBuffer.getCapacity(),
+                this.lostSamplesCount);
+
+        this.timelinessEstimator.clear();
+        this.expireSequence = oldestReadableSequence;
+        this.ingestSequence = oldestReadableSequence;
+    }
+
+    /**
+     * Percentile of the observations below the desired timeliness (see {@link TimelinessEstimator#computeTimeliness(double)})
+     * @return the timeliness of the current window or 0.0 if the window is empty
+     */
+    public synchronized double computeTimeliness(){
+        return this.timelinessEstimator.computeTimeliness(this.desiredTimelinessSec);
+    }
+
+    /**
+     * @return the (estimated) number of observations of the current window below the desired timeliness
+     */
+    public synchronized long countTimely(){
+        return this.timelinessEstimator.countBelow(this.desiredTimelinessSec);
+    }
+
+    public synchronized int getSize(){
+        return (int)(this.ingestSequence - this.expireSequence);
+    }
+
+    public synchronized long getOldestTimestampMs(){
+        return getSize() > 0 ? this.timelinessRingBuffer.getTimestampMs(this.expireSequence) : -1;
+    }
+
+    public synchronized long getNewestTimestampMs(){
+        return getSize() > 0 ? this.timelinessRingBuffer.getTimestampMs(this.ingestSequence - 1) : -1;
+    }
+
+    public synchronized long getLostSamplesCount() {
+        return lostSamplesCount;
+    }
+
+    public long getSlidingWindowMs() {
+        return slidingWindowMs;
+    }
+
+    public double getDesiredTimelinessSec() {
+        return desiredTimelinessSec;
+    }
+
+    public TimelinessRingBuffer getTimelinessRingBuffer() {
+        return timelinessRingBuffer;
+    }
+
+    public TimelinessEstimator getTimelinessEstimator() {
+        return timelinessEstimator;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuffer sb = new StringBuffer("OdteSlidingWindow{");
+        sb.append("slidingWindowMs=").append(slidingWindowMs);
+        sb.append(", desiredTimelinessSec=").append(desiredTimelinessSec);
+        sb.append(", size=").append(getSize());
+        sb.append(", timelinessEstimator=").append(timelinessEstimator);
+        sb.append(", lostSamplesCount=").append(lostSamplesCount);
+        sb.append('}');
+        return sb.toString();
+    }
+}
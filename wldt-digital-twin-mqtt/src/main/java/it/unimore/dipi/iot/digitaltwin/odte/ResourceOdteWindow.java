@@ -0,0 +1,122 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ODTE sliding window of a single observation stream, identified by the observed resource (e.g. energy, temperature
+ * or device_state) and by the source device. Keeping a window for each stream prevents a slow stream from being
+ * hidden by a faster one sharing the same Digital Twin.
+ *
+ * The ring buffer of each window is sized on the expected rate of its own stream, so the memory of a stream is
+ * bounded by (expected msg/sec * sliding window sec * headroom) samples plus the state of the timeliness estimator,
+ * which is constant for the bucket based estimators. Windows with the same configuration can be combined through
+ * {@link OdteManager#computeCombinedOdte(java.util.Collection, long)}.
+ *
+ * The availability of the stream is tracked by an {@link AvailabilityTracker} fed with the local arrival time of
+ * the observations.
+ *
+ * As the underlying {@link OdteSlidingWindow}, observations must be added by a single writer thread.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 18:20
+ */
+public class ResourceOdteWindow {
+
+    private final String resourceId;
+
+    private final String deviceId;
+
+    private final double expectedMsgSec;
+
+    private final OdteSlidingWindow odteSlidingWindow;
+
+    private final AvailabilityTracker availabilityTracker;
+
+    public ResourceOdteWindow(String resourceId, String deviceId, double expectedMsgSec, OdteSlidingWindow odteSlidingWindow, AvailabilityTracker availabilityTracker) {
+        this.resourceId = resourceId;
+        this.deviceId = deviceId;
+        this.expectedMsgSec = expectedMsgSec;
+        this.odteSlidingWindow = odteSlidingWindow;
+        this.availabilityTracker = availabilityTracker;
+    }
+
+    /**
+     * Build a window with a ring buffer sized on the expected rate of the stream
+     * @param estimatorType timeliness estimator type (see {@link TimelinessEstimatorFactory})
+     * @param gapToleranceFactor see {@link AvailabilityTracker}
+     * @param connectionIntervalLog disconnections of the source broker (nullable)
+     */
+    public static ResourceOdteWindow create(String resourceId,
+                                            String deviceId,
+                                            long slidingWindowSec,
+                                            double desiredTimelinessSec,
+                                            double expectedMsgSec,
+                                            String estimatorType,
+                                            double estimatorErrorBound,
+                                            double gapToleranceFactor,
+                                            AvailabilityIntervalLog connectionIntervalLog){
+
+        return new ResourceOdteWindow(resourceId, deviceId, expectedMsgSec,
+                new OdteSlidingWindow(slidingWindowSec,
+                        desiredTimelinessSec,
+                        expectedMsgSec,
+                        TimelinessEstimatorFactory.createEstimator(estimatorType, estimatorErrorBound)),
+                new AvailabilityTracker(TimeUnit.SECONDS.toMillis(slidingWindowSec),
+                        expectedMsgSec,
+                        gapToleranceFactor,
+                        connectionIntervalLog,
+                        System.currentTimeMillis()));
+    }
+
+    /**
+     * Append a new observation. Must be called by a single writer thread.
+     * A timestamp ahead of the local arrival time (skewed clock of the source) is clamped to the arrival time, so it
+     * cannot delay the following observations of the time ordered window.
+     */
+    public void addObservation(long timestampMs, double observationSec){
+
+        long arrivalTimestampMs = System.currentTimeMillis();
+
+        this.availabilityTracker.addArrival(arrivalTimestampMs);
+        this.odteSlidingWindow.addObservation(Math.min(timestampMs, arrivalTimestampMs), observationSec);
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public double getExpectedMsgSec() {
+        return expectedMsgSec;
+    }
+
+    public OdteSlidingWindow getOdteSlidingWindow() {
+        return odteSlidingWindow;
+    }
+
+    public AvailabilityTracker getAvailabilityTracker() {
+        return availabilityTracker;
+    }
+
+    /**
+     * @return the local time of the last observation or the creation time of the window
+     */
+    public long getLastObservationTimestampMs() {
+        return availabilityTracker.getLastArrivalTimestampMs();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("ResourceOdteWindow{");
+        sb.append("resourceId='").append(resourceId).append('\'');
+        sb.append(", deviceId='").append(deviceId).append('\'');
+        sb.append(", expectedMsgSec=").append(expectedMsgSec);
+        sb.append(", odteSlidingWindow=").append(odteSlidingWindow);
+        sb.append(", availabilityTracker=").append(availabilityTracker);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package it.unimore.dipi.iot.digitaltwin.store;
+
+import java.io.IOException;
+
+/**
+ * Consumer of the buckets computed by {@link MetricColumnFile#downsample(long, long, long, int[], MetricBucketConsumer)}.
+ * The value arrays are indexed as the requested columns (NaN if the column has no values in the bucket) and are
+ * reused for the following buckets.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 22:40
+ */
+public interface MetricBucketConsumer {
+
+    void onBucket(long bucketTimestamp, long rowCount, double[] minValues, double[] maxValues, double[] avgValues) throws IOException;
+
+}
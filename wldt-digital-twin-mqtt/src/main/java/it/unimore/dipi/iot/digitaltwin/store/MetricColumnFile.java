@@ -0,0 +1,382 @@
+package it.unimore.dipi.iot.digitaltwin.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Memory mapped columnar file with the history of a metric: a timestamp column [epoch sec] and a set of numeric
+ * value columns. Rows are stored in blocks of blockRowCount rows and each block stores its columns contiguously
+ * (the timestamps followed by each value column), so scans read sequential memory and the file grows by mapping
+ * new blocks without moving the existing ones.
+ *
+ * Layout: a header of {@link #HEADER_SIZE} bytes (magic, version, block row count, value column count, committed
+ * row count, ingested offset of the source file and the column names) followed by the blocks.
+ *
+ * Rows are appended by a single writer thread and published to the readers by {@link #commit(long)} through the
+ * volatile row count, so readers never observe a partially written row. Missing values are stored as NaN.
+ * Timestamps must be non decreasing to support the range queries.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 22:40
+ */
+public class MetricColumnFile implements Closeable {
+
+    public static final int MAGIC = 0x574C4454;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 4096;
+
+    public static final int DEFAULT_BLOCK_ROW_COUNT = 8192;
+
+    private static final int MAGIC_POSITION = 0;
+
+    private static final int VERSION_POSITION = 4;
+
+    private static final int BLOCK_ROW_COUNT_POSITION = 8;
+
+    private static final int COLUMN_COUNT_POSITION = 12;
+
+    private static final int ROW_COUNT_POSITION = 16;
+
+    private static final int SOURCE_OFFSET_POSITION = 24;
+
+    private static final int COLUMN_NAMES_POSITION = 32;
+
+    private final Path path;
+
+    private final FileChannel fileChannel;
+
+    private final MappedByteBuffer headerBuffer;
+
+    private final List<String> columnNameList;
+
+    private final int blockRowCount;
+
+    private final long blockSize;
+
+    private volatile MappedByteBuffer[] blockBuffers;
+
+    private volatile long rowCount;
+
+    private long appendedRowCount;
+
+    private long sourceOffset;
+
+    private MetricColumnFile(Path path, FileChannel fileChannel, MappedByteBuffer headerBuffer, List<String> columnNameList, int blockRowCount, long rowCount, long sourceOffset) throws IOException {
+
+        this.path = path;
+        this.fileChannel = fileChannel;
+        this.headerBuffer = headerBuffer;
+        this.columnNameList = Collections.unmodifiableList(new ArrayList<>(columnNameList));
+        this.blockRowCount = blockRowCount;
+        this.blockSize = (long) blockRowCount * (columnNameList.size() + 1) * Long.BYTES;
+        this.rowCount = rowCount;
+        this.appendedRowCount = rowCount;
+        this.sourceOffset = sourceOffset;
+
+        int blockCount = (int) ((rowCount + blockRowCount - 1) / blockRowCount);
+        MappedByteBuffer[] blockBuffers = new MappedByteBuffer[blockCount];
+
+        for(int blockIndex = 0; blockIndex < blockCount; blockIndex++)
+            blockBuffers[blockIndex] = mapBlock(blockIndex);
+
+        this.blockBuffers = blockBuffers;
+    }
+
+    /**
+     * Create a new empty file, replacing the existing one
+     * @param columnNameList names of the value columns
+     */
+    public static MetricColumnFile create(Path path, List<String> columnNameList, int blockRowCount) throws IOException {
+
+        if(path.getParent() != null)
+            Files.createDirectories(path.getParent());
+
+        FileChannel fileChannel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try{
+
+            MappedByteBuffer headerBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+            headerBuffer.putInt(MAGIC_POSITION, MAGIC);
+            headerBuffer.putInt(VERSION_POSITION, VERSION);
+            headerBuffer.putInt(BLOCK_ROW_COUNT_POSITION, blockRowCount);
+            headerBuffer.putInt(COLUMN_COUNT_POSITION, columnNameList.size());
+            headerBuffer.putLong(ROW_COUNT_POSITION, 0);
+            headerBuffer.putLong(SOURCE_OFFSET_POSITION, 0);
+
+            headerBuffer.position(COLUMN_NAMES_POSITION);
+
+            for(String columnName : columnNameList){
+
+                byte[] columnNameBytes = columnName.getBytes(StandardCharsets.UTF_8);
+
+                if(headerBuffer.remaining() < Short.BYTES + columnNameBytes.length)
+                    throw new IOException(String.format("Too many columns for the header of %s", path));
+
+                headerBuffer.putShort((short) columnNameBytes.length);
+                headerBuffer.put(columnNameBytes);
+            }
+
+            return new MetricColumnFile(path, fileChannel, headerBuffer, columnNameList, blockRowCount, 0, 0);
+
+        }catch (IOException | RuntimeException e){
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the existing file or an empty Optional if it does not exist or it is not valid
+     */
+    public static Optional<MetricColumnFile> open(Path path) throws IOException {
+
+        if(!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE)
+            return Optional.empty();
+
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try{
+
+            MappedByteBuffer headerBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+            int blockRowCount = headerBuffer.getInt(BLOCK_ROW_COUNT_POSITION);
+            int columnCount = headerBuffer.getInt(COLUMN_COUNT_POSITION);
+            long rowCount = headerBuffer.getLong(ROW_COUNT_POSITION);
+
+            if(headerBuffer.getInt(MAGIC_POSITION) != MAGIC || headerBuffer.getInt(VERSION_POSITION) != VERSION
+                    || blockRowCount <= 0 || columnCount < 0 || rowCount < 0){
+                fileChannel.close();
+                return Optional.empty();
+            }
+
+            List<String> columnNameList = new ArrayList<>(columnCount);
+            headerBuffer.position(COLUMN_NAMES_POSITION);
+
+            for(int columnIndex = 0; columnIndex < columnCount; columnIndex++){
+                byte[] columnNameBytes = new byte[headerBuffer.getShort()];
+                headerBuffer.get(columnNameBytes);
+                columnNameList.add(new String(columnNameBytes, StandardCharsets.UTF_8));
+            }
+
+            return Optional.of(new MetricColumnFile(path, fileChannel, headerBuffer, columnNameList, blockRowCount, rowCount, headerBuffer.getLong(SOURCE_OFFSET_POSITION)));
+
+        }catch (IOException | RuntimeException e){
+            fileChannel.close();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Append a new row, visible to the readers after the next {@link #commit(long)}. Must be called by a single
+     * writer thread.
+     * @param values values of the value columns (NaN if missing)
+     */
+    public void append(long timestamp, double[] values) throws IOException {
+
+        int blockIndex = (int) (this.appendedRowCount / this.blockRowCount);
+        int rowIndex = (int) (this.appendedRowCount % this.blockRowCount);
+
+        MappedByteBuffer[] blockBuffers = this.blockBuffers;
+
+        if(blockIndex >= blockBuffers.length){
+            blockBuffers = Arrays.copyOf(blockBuffers, blockIndex + 1);
+            blockBuffers[blockIndex] = mapBlock(blockIndex);
+            this.blockBuffers = blockBuffers;
+        }
+
+        MappedByteBuffer blockBuffer = blockBuffers[blockIndex];
+
+        blockBuffer.putLong(rowIndex * Long.BYTES, timestamp);
+
+        for(int columnIndex = 0; columnIndex < this.columnNameList.size(); columnIndex++)
+            blockBuffer.putDouble(((columnIndex + 1) * this.blockRowCount + rowIndex) * Long.BYTES,
+                    columnIndex < values.length ? values[columnIndex] : Double.NaN);
+
+        this.appendedRowCount++;
+    }
+
+    /**
+     * Publish the appended rows to the readers and store the offset of the source file ingested up to them
+     */
+    public void commit(long sourceOffset){
+        this.sourceOffset = sourceOffset;
+        this.headerBuffer.putLong(SOURCE_OFFSET_POSITION, sourceOffset);
+        this.headerBuffer.putLong(ROW_COUNT_POSITION, this.appendedRowCount);
+        this.rowCount = this.appendedRowCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getTimestamp(long row){
+        return this.blockBuffers[(int) (row / this.blockRowCount)].getLong((int) (row % this.blockRowCount) * Long.BYTES);
+    }
+
+    /**
+     * @param columnIndex index of the value column
+     */
+    public double getValue(int columnIndex, long row){
+        return this.blockBuffers[(int) (row / this.blockRowCount)]
+                .getDouble(((columnIndex + 1) * this.blockRowCount + (int) (row % this.blockRowCount)) * Long.BYTES);
+    }
+
+    /**
+     * @return the first committed row with a timestamp >= timestamp (the row count if there is none)
+     */
+    public long lowerBound(long timestamp){
+
+        long low = 0;
+        long high = this.rowCount;
+
+        while(low < high){
+
+            long middle = (low + high) >>> 1;
+
+            if(getTimestamp(middle) < timestamp)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * Aggregate the values of the committed rows with fromTimestamp <= timestamp <= toTimestamp in buckets of
+     * bucketSec seconds aligned to the epoch (each row is a bucket if bucketSec <= 0), notifying each non empty
+     * bucket to the consumer. The arrays passed to the consumer are reused for each bucket.
+     * @param columnIndexes indexes of the aggregated value columns
+     */
+    public void downsample(long fromTimestamp, long toTimestamp, long bucketSec, int[] columnIndexes, MetricBucketConsumer bucketConsumer) throws IOException {
+
+        long lastRow = this.rowCount;
+
+        double[] minValues = new double[columnIndexes.length];
+        double[] maxValues = new double[columnIndexes.length];
+        double[] sumValues = new double[columnIndexes.length];
+        long[] valueCounts = new long[columnIndexes.length];
+
+        long bucketTimestamp = 0;
+        long bucketRowCount = 0;
+
+        for(long row = lowerBound(fromTimestamp); row < lastRow; row++){
+
+            long timestamp = getTimestamp(row);
+
+            if(timestamp > toTimestamp)
+                break;
+
+            long rowBucketTimestamp = bucketSec > 0 ? Math.floorDiv(timestamp, bucketSec) * bucketSec : timestamp;
+
+            if(bucketRowCount > 0 && (bucketSec <= 0 || rowBucketTimestamp != bucketTimestamp)){
+                notifyBucket(bucketConsumer, bucketTimestamp, bucketRowCount, minValues, maxValues, sumValues, valueCounts);
+                bucketRowCount = 0;
+            }
+
+            if(bucketRowCount == 0){
+                bucketTimestamp = rowBucketTimestamp;
+                Arrays.fill(minValues, Double.POSITIVE_INFINITY);
+                Arrays.fill(maxValues, Double.NEGATIVE_INFINITY);
+                Arrays.fill(sumValues, 0.0);
+                Arrays.fill(valueCounts, 0);
+            }
+
+            for(int i = 0; i < columnIndexes.length; i++){
+
+                double value = getValue(columnIndexes[i], row);
+
+                if(Double.isNaN(value))
+                    continue;
+
+                minValues[i] = Math.min(minValues[i], value);
+                maxValues[i] = Math.max(maxValues[i], value);
+                sumValues[i] += value;
+                valueCounts[i]++;
+            }
+
+            bucketRowCount++;
+        }
+
+        if(bucketRowCount > 0)
+            notifyBucket(bucketConsumer, bucketTimestamp, bucketRowCount, minValues, maxValues, sumValues, valueCounts);
+    }
+
+    private static void notifyBucket(MetricBucketConsumer bucketConsumer, long bucketTimestamp, long bucketRowCount,
+                                     double[] minValues, double[] maxValues, double[] sumValues, long[] valueCounts) throws IOException {
+
+        //Columns without values in the bucket are notified as NaN, the sum array is reused for the averages
+        for(int i = 0; i < valueCounts.length; i++){
+            if(valueCounts[i] == 0){
+                minValues[i] = Double.NaN;
+                maxValues[i] = Double.NaN;
+                sumValues[i] = Double.NaN;
+            }
+            else
+                sumValues[i] = sumValues[i] / valueCounts[i];
+        }
+
+        bucketConsumer.onBucket(bucketTimestamp, bucketRowCount, minValues, maxValues, sumValues);
+    }
+
+    /**
+     * @return the index of the value column or -1 if it does not exist
+     */
+    public int getColumnIndex(String columnName){
+        return this.columnNameList.indexOf(columnName);
+    }
+
+    public List<String> getColumnNameList() {
+        return columnNameList;
+    }
+
+    public long getSourceOffset() {
+        return sourceOffset;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Close the file channel. The mapped blocks stay readable until they are garbage collected, so readers still
+     * holding the file are not affected.
+     */
+    @Override
+    public void close() throws IOException {
+        this.fileChannel.close();
+    }
+
+    private MappedByteBuffer mapBlock(int blockIndex) throws IOException {
+        return this.fileChannel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + blockIndex * this.blockSize, this.blockSize);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("MetricColumnFile{");
+        sb.append("path=").append(path);
+        sb.append(", columnNameList=").append(columnNameList);
+        sb.append(", blockRowCount=").append(blockRowCount);
+        sb.append(", rowCount=").append(rowCount);
+        sb.append(", sourceOffset=").append(sourceOffset);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,338 @@
+package it.unimore.dipi.iot.digitaltwin.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest stage of the metrics history: it periodically scans the CSV files written by the metrics reporter in the
+ * metrics folder ({metricsFolder}/{folderId}/{fileId}) and appends their new rows to a {@link MetricColumnFile} for
+ * each file ({storeFolder}/{folderId}/{fileId}.col). The timestamp column of the reporter ({@link #TIMESTAMP_COLUMN})
+ * is stored as the timestamp of the rows and all the other columns as numeric values.
+ *
+ * Each file is read from the offset ingested by the previous scan and only complete lines are consumed, so the
+ * files are parsed once. Column files are reopened on restart and rebuilt if the header of the CSV file changes or
+ * if the file is truncated.
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 22:40
+ */
+public class MetricsStoreIngester {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsStoreIngester.class);
+
+    public static final String DEFAULT_STORE_FOLDER = "metrics_store";
+
+    public static final long DEFAULT_SCAN_PERIOD_SEC = 10;
+
+    public static final String TIMESTAMP_COLUMN = "t";
+
+    public static final String CSV_FILE_EXTENSION = ".csv";
+
+    public static final String COLUMN_FILE_EXTENSION = ".col";
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path metricsFolder;
+
+    private final Path storeFolder;
+
+    private final long scanPeriodSec;
+
+    //{folderId}/{fileId} -> Column File
+    private final Map<String, MetricColumnFile> columnFileMap = new ConcurrentHashMap<>();
+
+    //{folderId}/{fileId} -> Index of the timestamp column in the CSV file (ingester thread only)
+    private final Map<String, Integer> timestampColumnIndexMap = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    public MetricsStoreIngester(Path metricsFolder, Path storeFolder, long scanPeriodSec) {
+        this.metricsFolder = metricsFolder;
+        this.storeFolder = storeFolder;
+        this.scanPeriodSec = scanPeriodSec;
+    }
+
+    public void start(){
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-store-ingester");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.scheduler.scheduleWithFixedDelay(this::scan, 0, this.scanPeriodSec, TimeUnit.SECONDS);
+
+        logger.info("MetricsStoreIngester -> Ingesting {} into {} every {} sec", this.metricsFolder, this.storeFolder, this.scanPeriodSec);
+    }
+
+    public void stop(){
+
+        try{
+
+            if(this.scheduler != null){
+                this.scheduler.shutdown();
+                this.scheduler.awaitTermination(this.scanPeriodSec, TimeUnit.SECONDS);
+            }
+
+            for(MetricColumnFile columnFile : this.columnFileMap.values())
+                columnFile.close();
+
+        }catch (Exception e){
+            logger.error("MetricsStoreIngester -> Error stopping ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return the column file of the CSV file {folderId}/{fileId} if it has been ingested
+     */
+    public Optional<MetricColumnFile> getMetricColumnFile(String folderId, String fileId){
+        return Optional.ofNullable(this.columnFileMap.get(getFileKey(folderId, fileId)));
+    }
+
+    /**
+     * Ingest the new rows of all the CSV files of the metrics folder
+     */
+    public synchronized void scan(){
+
+        if(!Files.isDirectory(this.metricsFolder))
+            return;
+
+        try(DirectoryStream<Path> folderStream = Files.newDirectoryStream(this.metricsFolder, Files::isDirectory)){
+
+            for(Path folderPath : folderStream)
+                try(DirectoryStream<Path> fileStream = Files.newDirectoryStream(folderPath, String.format("*%s", CSV_FILE_EXTENSION))){
+                    for(Path csvPath : fileStream)
+                        ingestFile(folderPath.getFileName().toString(), csvPath.getFileName().toString(), csvPath);
+                }
+
+        }catch (Exception e){
+            logger.error("MetricsStoreIngester -> Error scanning {} ! Msg: {}", this.metricsFolder, e.getLocalizedMessage());
+        }
+    }
+
+    private void ingestFile(String folderId, String fileId, Path csvPath){
+
+        String fileKey = getFileKey(folderId, fileId);
+
+        try(FileChannel csvChannel = FileChannel.open(csvPath, StandardOpenOption.READ)){
+
+            long csvSize = csvChannel.size();
+
+            MetricColumnFile columnFile = this.columnFileMap.get(fileKey);
+
+            //The CSV file has been truncated or replaced
+            if(columnFile != null && csvSize < columnFile.getSourceOffset()){
+                logger.info("MetricsStoreIngester -> {} truncated ! Rebuilding the column file ...", csvPath);
+                this.columnFileMap.remove(fileKey);
+                columnFile.close();
+                columnFile = null;
+            }
+
+            if(columnFile == null){
+
+                Optional<MetricColumnFile> columnFileOptional = openColumnFile(csvChannel, csvSize, fileKey, this.storeFolder.resolve(folderId).resolve(fileId + COLUMN_FILE_EXTENSION));
+
+                if(!columnFileOptional.isPresent())
+                    return;
+
+                columnFile = columnFileOptional.get();
+                this.columnFileMap.put(fileKey, columnFile);
+            }
+
+            if(csvSize > columnFile.getSourceOffset())
+                appendRows(csvChannel, csvSize, columnFile, this.timestampColumnIndexMap.get(fileKey));
+
+        }catch (Exception e){
+            logger.error("MetricsStoreIngester -> Error ingesting {} ! Msg: {}", csvPath, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return the existing column file if it matches the header of the CSV file, a new one otherwise (empty if the
+     * header is not complete or if it has no timestamp column)
+     */
+    private Optional<MetricColumnFile> openColumnFile(FileChannel csvChannel, long csvSize, String fileKey, Path columnFilePath) throws IOException {
+
+        this.readBuffer.clear();
+        csvChannel.read(this.readBuffer, 0);
+
+        int headerLength = indexOf(this.readBuffer.array(), 0, this.readBuffer.position(), (byte) '\n');
+
+        if(headerLength < 0)
+            return Optional.empty();
+
+        List<String> headerColumnList = Arrays.asList(new String(this.readBuffer.array(), 0, headerLength, StandardCharsets.UTF_8).trim().split(","));
+
+        if(!headerColumnList.contains(TIMESTAMP_COLUMN))
+            return Optional.empty();
+
+        List<String> columnNameList = new ArrayList<>(headerColumnList);
+        columnNameList.remove(TIMESTAMP_COLUMN);
+
+        this.timestampColumnIndexMap.put(fileKey, headerColumnList.indexOf(TIMESTAMP_COLUMN));
+
+        Optional<MetricColumnFile> existingColumnFileOptional = MetricColumnFile.open(columnFilePath);
+
+        if(existingColumnFileOptional.isPresent()){
+
+            MetricColumnFile existingColumnFile = existingColumnFileOptional.get();
+
+            if(existingColumnFile.getColumnNameList().equals(columnNameList) && existingColumnFile.getSourceOffset() <= csvSize)
+                return existingColumnFileOptional;
+
+            existingColumnFile.close();
+        }
+
+        MetricColumnFile columnFile = MetricColumnFile.create(columnFilePath, columnNameList, MetricColumnFile.DEFAULT_BLOCK_ROW_COUNT);
+        columnFile.commit(headerLength + 1);
+
+        logger.info("MetricsStoreIngester -> New column file: {}", columnFile);
+
+        return Optional.of(columnFile);
+    }
+
+    /**
+     * Append the complete lines between the ingested offset and the end of the CSV file
+     */
+    private void appendRows(FileChannel csvChannel, long csvSize, MetricColumnFile columnFile, int timestampColumnIndex) throws IOException {
+
+        List<String> columnNameList = columnFile.getColumnNameList();
+        double[] values = new double[columnNameList.size()];
+
+        long offset = columnFile.getSourceOffset();
+        long lastTimestamp = columnFile.getRowCount() > 0 ? columnFile.getTimestamp(columnFile.getRowCount() - 1) : Long.MIN_VALUE;
+
+        while(offset < csvSize){
+
+            this.readBuffer.clear();
+            int readBytes = csvChannel.read(this.readBuffer, offset);
+
+            if(readBytes <= 0)
+                break;
+
+            byte[] bytes = this.readBuffer.array();
+            int lineStart = 0;
+            int lineEnd;
+
+            while((lineEnd = indexOf(bytes, lineStart, readBytes, (byte) '\n')) >= 0){
+
+                long timestamp = parseRow(bytes, lineStart, lineEnd, timestampColumnIndex, values);
+
+                //Rows must be ordered by time to support the range queries
+                if(timestamp != Long.MIN_VALUE && timestamp >= lastTimestamp){
+                    columnFile.append(timestamp, values);
+                    lastTimestamp = timestamp;
+                }
+
+                lineStart = lineEnd + 1;
+            }
+
+            if(lineStart == 0){
+
+                //Line longer than the buffer
+                if(readBytes == this.readBuffer.capacity()){
+                    this.readBuffer = ByteBuffer.allocate(this.readBuffer.capacity() * 2);
+                    continue;
+                }
+
+                //Incomplete last line, ingested by the next scan
+                break;
+            }
+
+            offset += lineStart;
+            columnFile.commit(offset);
+        }
+    }
+
+    /**
+     * @return the timestamp of the row or Long.MIN_VALUE if it is not valid. Values are parsed into the values array
+     * (NaN if missing or not numeric)
+     */
+    private static long parseRow(byte[] bytes, int lineStart, int lineEnd, int timestampColumnIndex, double[] values){
+
+        Arrays.fill(values, Double.NaN);
+
+        long timestamp = Long.MIN_VALUE;
+        int columnIndex = 0;
+        int valueIndex = 0;
+        int fieldStart = lineStart;
+
+        while(fieldStart <= lineEnd){
+
+            int fieldEnd = indexOf(bytes, fieldStart, lineEnd, (byte) ',');
+
+            if(fieldEnd < 0)
+                fieldEnd = lineEnd;
+
+            String field = new String(bytes, fieldStart, fieldEnd - fieldStart, StandardCharsets.US_ASCII).trim();
+
+            try{
+                if(columnIndex == timestampColumnIndex)
+                    timestamp = Long.parseLong(field);
+                else if(valueIndex < values.length)
+                    values[valueIndex] = Double.parseDouble(field);
+            }catch (NumberFormatException e){
+                //Missing or not numeric: the value stays NaN
+            }
+
+            if(columnIndex != timestampColumnIndex)
+                valueIndex++;
+
+            columnIndex++;
+            fieldStart = fieldEnd + 1;
+        }
+
+        return timestamp;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte value){
+        for(int i = from; i < to; i++)
+            if(bytes[i] == value)
+                return i;
+        return -1;
+    }
+
+    private static String getFileKey(String folderId, String fileId){
+        return String.format("%s/%s", folderId, fileId);
+    }
+
+    public Path getMetricsFolder() {
+        return metricsFolder;
+    }
+
+    public Path getStoreFolder() {
+        return storeFolder;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("MetricsStoreIngester{");
+        sb.append("metricsFolder=").append(metricsFolder);
+        sb.append(", storeFolder=").append(storeFolder);
+        sb.append(", scanPeriodSec=").append(scanPeriodSec);
+        sb.append(", columnFileCount=").append(columnFileMap.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,690 @@
+package it.unimore.dipi.iot.utils;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import static it.unimore.dipi.iot.utils.SenMLEncoding.*;
+
+/**
+ * Single pass SenML writer producing the outbound byte[] without building the intermediate SenMLPack/SenMLRecord
+ * object graph and the String of the ObjectMapper path. Supported encodings are described in {@link SenMLEncoding}.
+ *
+ * Records are written into a reusable per-thread buffer. JSON fields follow the declaration order of
+ * {@link SenMLRecord} and null fields are omitted, so the JSON output is the same of an ObjectMapper configured with
+ * JsonInclude.Include.NON_NULL.
+ *
+ * Usage: SenMLWriter.getInstance(encoding).writeRecord(...).writeStringRecord(...).toByteArray()
+ *
+ * @project wldt-digital-twin-mqtt
+ * @created 18/10/2026 - 19:10
+ */
+public class SenMLWriter {
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    //Larger buffers (e.g. after a big padded payload) are released instead of being kept by the thread
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    private static final byte[] HEX_DIGITS_UPPER = "0123456789ABCDEF".getBytes();
+
+    private static final ThreadLocal<SenMLWriter> threadLocalWriter = ThreadLocal.withInitial(SenMLWriter::new);
+
+    private byte[] buffer;
+
+    private int position;
+
+    private int recordCount;
+
+    private String encoding;
+
+    private SenMLWriter(){
+        this.buffer = new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    /**
+     * @return the JSON writer associated to the current thread, reset and ready to write a new SenML Pack
+     */
+    public static SenMLWriter getInstance(){
+        return getInstance(ENCODING_JSON);
+    }
+
+    /**
+     * @param encoding json, cbor or binary. Unknown values fall back to json
+     * @return the writer associated to the current thread, reset and ready to write a new SenML Pack
+     */
+    public static SenMLWriter getInstance(String encoding){
+        SenMLWriter senMLWriter = threadLocalWriter.get();
+        senMLWriter.reset(SenMLEncoding.isSupported(encoding) ? encoding : ENCODING_JSON);
+        return senMLWriter;
+    }
+
+    private void reset(String encoding){
+
+        if(this.buffer.length > MAX_RETAINED_BUFFER_SIZE)
+            this.buffer = new byte[INITIAL_BUFFER_SIZE];
+
+        this.position = 0;
+        this.recordCount = 0;
+        this.encoding = encoding;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Write a record with a numeric value: {"n":name,"u":unit,"v":value,"t":time}
+     * @param unit optional unit, omitted if null
+     */
+    public SenMLWriter writeRecord(String name, long time, double value, String unit){
+
+        if(ENCODING_CBOR.equals(this.encoding)){
+            beginCborRecord((name != null ? 1 : 0) + (unit != null ? 1 : 0) + 2);
+            writeCborTextField(CBOR_LABEL_N, name);
+            writeCborTextField(CBOR_LABEL_U, unit);
+            writeCborDoubleField(CBOR_LABEL_V, value);
+            writeCborLongField(CBOR_LABEL_T, time);
+        }
+        else if(ENCODING_BINARY.equals(this.encoding)){
+            beginBinaryRecord((name != null ? BINARY_FLAG_N : 0) | (unit != null ? BINARY_FLAG_U : 0) | BINARY_FLAG_V | BINARY_FLAG_T);
+            writeBinaryString(name);
+            writeBinaryString(unit);
+            writeFixedLong(Double.doubleToLongBits(value));
+            writeFixedLong(time);
+        }
+        else {
+            beginRecord();
+            writeStringField("n", name);
+            writeStringField("u", unit);
+            writeDoubleField("v", value);
+            writeLongField("t", time);
+            endRecord();
+        }
+
+        return this;
+    }
+
+    /**
+     * Write a record with a string value: {"n":name,"vs":stringValue,"t":time}
+     */
+    public SenMLWriter writeStringRecord(String name, long time, String stringValue){
+
+        if(ENCODING_CBOR.equals(this.encoding)){
+            beginCborRecord((name != null ? 1 : 0) + (stringValue != null ? 1 : 0) + 1);
+            writeCborTextField(CBOR_LABEL_N, name);
+            writeCborTextField(CBOR_LABEL_VS, stringValue);
+            writeCborLongField(CBOR_LABEL_T, time);
+        }
+        else if(ENCODING_BINARY.equals(this.encoding)){
+            beginBinaryRecord((name != null ? BINARY_FLAG_N : 0) | (stringValue != null ? BINARY_FLAG_VS : 0) | BINARY_FLAG_T);
+            writeBinaryString(name);
+            writeBinaryString(stringValue);
+            writeFixedLong(time);
+        }
+        else {
+            beginRecord();
+            writeStringField("n", name);
+            writeStringField("vs", stringValue);
+            writeLongField("t", time);
+            endRecord();
+        }
+
+        return this;
+    }
+
+    /**
+     * Write all the not null fields of an existing record
+     * @throws IllegalArgumentException if the binary encoding is used and the record has fields not supported by it
+     */
+    public SenMLWriter writeRecord(SenMLRecord senMLRecord){
+
+        if(senMLRecord == null)
+            return this;
+
+        if(ENCODING_CBOR.equals(this.encoding))
+            writeCborRecord(senMLRecord);
+        else if(ENCODING_BINARY.equals(this.encoding))
+            writeBinaryRecord(senMLRecord);
+        else {
+            beginRecord();
+            writeStringField("bn", senMLRecord.getBn());
+            writeNumberField("bt", senMLRecord.getBt());
+            writeStringField("bu", senMLRecord.getBu());
+            writeNumberField("bv", senMLRecord.getBv());
+            writeNumberField("bver", senMLRecord.getBver());
+            writeStringField("n", senMLRecord.getN());
+            writeStringField("u", senMLRecord.getU());
+            writeNumberField("v", senMLRecord.getV());
+            writeStringField("vs", senMLRecord.getVs());
+            writeBooleanField("vb", senMLRecord.getVb());
+            writeStringField("vd", senMLRecord.getVd());
+            writeNumberField("s", senMLRecord.getS());
+            writeNumberField("t", senMLRecord.getT());
+            writeNumberField("ut", senMLRecord.getUt());
+            endRecord();
+        }
+
+        return this;
+    }
+
+    /**
+     * Write all the records of the target pack
+     */
+    public SenMLWriter writePack(SenMLPack senMLPack){
+
+        if(senMLPack != null)
+            for(SenMLRecord senMLRecord : senMLPack)
+                writeRecord(senMLRecord);
+
+        return this;
+    }
+
+    /**
+     * Close the SenML Pack and return the encoded payload. An empty JSON pack is encoded as []
+     */
+    public byte[] toByteArray(){
+
+        if(ENCODING_CBOR.equals(this.encoding))
+            return prependHeader(CBOR_MAJOR_TYPE_ARRAY << 5, false);
+
+        if(ENCODING_BINARY.equals(this.encoding))
+            return prependHeader(BINARY_MAGIC, true);
+
+        if(this.recordCount == 0)
+            writeByte('[');
+
+        writeByte(']');
+
+        return Arrays.copyOf(this.buffer, this.position);
+    }
+
+    /**
+     * The record count is known only at the end: the header is written directly in the returned array followed by
+     * the records, without moving the buffer content
+     */
+    private byte[] prependHeader(int firstByte, boolean binary){
+
+        byte[] header = new byte[12];
+        int headerLength;
+
+        if(binary){
+            header[0] = (byte)firstByte;
+            header[1] = (byte)BINARY_VERSION;
+            headerLength = 2;
+            long count = this.recordCount;
+            while((count & ~0x7FL) != 0){
+                header[headerLength++] = (byte)((count & 0x7F) | 0x80);
+                count >>>= 7;
+            }
+            header[headerLength++] = (byte)count;
+        }
+        else
+            headerLength = writeCborHead(header, 0, firstByte >> 5, this.recordCount);
+
+        byte[] result = new byte[headerLength + this.position];
+        System.arraycopy(header, 0, result, 0, headerLength);
+        System.arraycopy(this.buffer, 0, result, headerLength, this.position);
+
+        return result;
+    }
+
+    private void writeCborRecord(SenMLRecord senMLRecord){
+
+        int fieldCount = countNotNull(senMLRecord.getBver(), senMLRecord.getBn(), senMLRecord.getBt(), senMLRecord.getBu(),
+                senMLRecord.getBv(), senMLRecord.getN(), senMLRecord.getU(), senMLRecord.getV(), senMLRecord.getVs(),
+                senMLRecord.getVb(), senMLRecord.getS(), senMLRecord.getT(), senMLRecord.getUt(), senMLRecord.getVd());
+
+        beginCborRecord(fieldCount);
+        writeCborNumberField(CBOR_LABEL_BVER, senMLRecord.getBver());
+        writeCborTextField(CBOR_LABEL_BN, senMLRecord.getBn());
+        writeCborNumberField(CBOR_LABEL_BT, senMLRecord.getBt());
+        writeCborTextField(CBOR_LABEL_BU, senMLRecord.getBu());
+        writeCborNumberField(CBOR_LABEL_BV, senMLRecord.getBv());
+        writeCborTextField(CBOR_LABEL_N, senMLRecord.getN());
+        writeCborTextField(CBOR_LABEL_U, senMLRecord.getU());
+        writeCborNumberField(CBOR_LABEL_V, senMLRecord.getV());
+        writeCborTextField(CBOR_LABEL_VS, senMLRecord.getVs());
+
+        if(senMLRecord.getVb() != null){
+            writeCborInt(CBOR_LABEL_VB);
+            writeUnsignedByte(senMLRecord.getVb() ? CBOR_TRUE : CBOR_FALSE);
+        }
+
+        writeCborNumberField(CBOR_LABEL_S, senMLRecord.getS());
+        writeCborNumberField(CBOR_LABEL_T, senMLRecord.getT());
+        writeCborNumberField(CBOR_LABEL_UT, senMLRecord.getUt());
+
+        //The data value is a base64 string in JSON and a byte string in CBOR
+        if(senMLRecord.getVd() != null){
+            byte[] data = Base64.getUrlDecoder().decode(senMLRecord.getVd());
+            writeCborInt(CBOR_LABEL_VD);
+            writeCborHead(CBOR_MAJOR_TYPE_BYTE_STRING, data.length);
+            ensureCapacity(data.length);
+            System.arraycopy(data, 0, this.buffer, this.position, data.length);
+            this.position += data.length;
+        }
+    }
+
+    private static int countNotNull(Object... values){
+        int count = 0;
+        for(Object value : values)
+            if(value != null)
+                count++;
+        return count;
+    }
+
+    private void beginCborRecord(int fieldCount){
+        this.recordCount++;
+        writeCborHead(CBOR_MAJOR_TYPE_MAP, fieldCount);
+    }
+
+    private void writeCborTextField(int label, String value){
+
+        if(value == null)
+            return;
+
+        writeCborInt(label);
+        writeCborHead(CBOR_MAJOR_TYPE_TEXT_STRING, utf8Length(value));
+        writeUtf8(value);
+    }
+
+    private void writeCborLongField(int label, long value){
+        writeCborInt(label);
+        writeCborInt(value);
+    }
+
+    private void writeCborDoubleField(int label, double value){
+        writeCborInt(label);
+        writeCborDouble(value);
+    }
+
+    private void writeCborNumberField(int label, Number value){
+
+        if(value == null)
+            return;
+
+        writeCborInt(label);
+
+        if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            writeCborInt(value.longValue());
+        else
+            writeCborDouble(value.doubleValue());
+    }
+
+    private void writeCborInt(long value){
+        if(value >= 0)
+            writeCborHead(CBOR_MAJOR_TYPE_UNSIGNED_INT, value);
+        else
+            writeCborHead(CBOR_MAJOR_TYPE_NEGATIVE_INT, -1 - value);
+    }
+
+    //Doubles are written as 32 bit floats when the conversion is lossless
+    private void writeCborDouble(double value){
+
+        float floatValue = (float)value;
+
+        if((double)floatValue == value || Double.isNaN(value)){
+            writeUnsignedByte(CBOR_FLOAT_32);
+            int bits = Float.floatToIntBits(floatValue);
+            ensureCapacity(4);
+            for(int shift = 24; shift >= 0; shift -= 8)
+                this.buffer[this.position++] = (byte)(bits >>> shift);
+        }
+        else {
+            writeUnsignedByte(CBOR_FLOAT_64);
+            writeFixedLong(Double.doubleToLongBits(value));
+        }
+    }
+
+    private void writeCborHead(int majorType, long argument){
+        ensureCapacity(9);
+        this.position = writeCborHead(this.buffer, this.position, majorType, argument);
+    }
+
+    /**
+     * Write the CBOR initial byte and the following argument bytes
+     * @return the position after the written head
+     */
+    private static int writeCborHead(byte[] target, int offset, int majorType, long argument){
+
+        int type = majorType << 5;
+
+        if(argument < 24)
+            target[offset++] = (byte)(type | argument);
+        else if(argument < 0x100){
+            target[offset++] = (byte)(type | 24);
+            target[offset++] = (byte)argument;
+        }
+        else if(argument < 0x10000){
+            target[offset++] = (byte)(type | 25);
+            target[offset++] = (byte)(argument >>> 8);
+            target[offset++] = (byte)argument;
+        }
+        else if(argument < 0x100000000L){
+            target[offset++] = (byte)(type | 26);
+            for(int shift = 24; shift >= 0; shift -= 8)
+                target[offset++] = (byte)(argument >>> shift);
+        }
+        else {
+            target[offset++] = (byte)(type | 27);
+            for(int shift = 56; shift >= 0; shift -= 8)
+                target[offset++] = (byte)(argument >>> shift);
+        }
+
+        return offset;
+    }
+
+    private void writeBinaryRecord(SenMLRecord senMLRecord){
+
+        if(senMLRecord.getBn() != null || senMLRecord.getBt() != null || senMLRecord.getBu() != null || senMLRecord.getBv() != null
+                || senMLRecord.getBver() != null || senMLRecord.getVd() != null || senMLRecord.getS() != null || senMLRecord.getUt() != null)
+            throw new IllegalArgumentException(String.format("SenML Record not supported by the binary encoding: %s", senMLRecord));
+
+        int flags = (senMLRecord.getN() != null ? BINARY_FLAG_N : 0)
+                | (senMLRecord.getU() != null ? BINARY_FLAG_U : 0)
+                | (senMLRecord.getV() != null ? BINARY_FLAG_V : 0)
+                | (senMLRecord.getVs() != null ? BINARY_FLAG_VS : 0)
+                | (senMLRecord.getVb() != null ? BINARY_FLAG_VB : 0)
+                | (senMLRecord.getVb() != null && senMLRecord.getVb() ? BINARY_FLAG_VB_VALUE : 0)
+                | (senMLRecord.getT() != null ? BINARY_FLAG_T : 0);
+
+        beginBinaryRecord(flags);
+        writeBinaryString(senMLRecord.getN());
+        writeBinaryString(senMLRecord.getU());
+
+        if(senMLRecord.getV() != null)
+            writeFixedLong(Double.doubleToLongBits(senMLRecord.getV().doubleValue()));
+
+        writeBinaryString(senMLRecord.getVs());
+
+        if(senMLRecord.getT() != null)
+            writeFixedLong(senMLRecord.getT().longValue());
+    }
+
+    private void beginBinaryRecord(int flags){
+        this.recordCount++;
+        writeUnsignedByte(flags);
+    }
+
+    private void writeBinaryString(String value){
+
+        if(value == null)
+            return;
+
+        long length = utf8Length(value);
+
+        ensureCapacity(5);
+        while((length & ~0x7FL) != 0){
+            this.buffer[this.position++] = (byte)((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        this.buffer[this.position++] = (byte)length;
+
+        writeUtf8(value);
+    }
+
+    private void writeFixedLong(long value){
+        ensureCapacity(8);
+        for(int shift = 56; shift >= 0; shift -= 8)
+            this.buffer[this.position++] = (byte)(value >>> shift);
+    }
+
+    private static int utf8Length(String value){
+
+        int length = value.length();
+        int utf8Length = length;
+
+        for(int i = 0; i < length; i++){
+
+            char c = value.charAt(i);
+
+            if(c < 0x80)
+                continue;
+
+            if(c < 0x800)
+                utf8Length += 1;
+            else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))){
+                //4 bytes for the surrogate pair
+                utf8Length += 2;
+                i++;
+            }
+            else if(!Character.isSurrogate(c))
+                utf8Length += 2;
+        }
+
+        return utf8Length;
+    }
+
+    //Plain UTF-8 encoding used by CBOR and binary strings. Unpaired surrogates are replaced by '?'
+    private void writeUtf8(String value){
+
+        int length = value.length();
+        ensureCapacity(length * 3);
+
+        byte[] buf = this.buffer;
+        int pos = this.position;
+
+        for(int i = 0; i < length; i++){
+
+            char c = value.charAt(i);
+
+            if(c < 0x80)
+                buf[pos++] = (byte)c;
+            else if(c < 0x800){
+                buf[pos++] = (byte)(0xC0 | (c >> 6));
+                buf[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))){
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte)(0xF0 | (codePoint >> 18));
+                buf[pos++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                buf[pos++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                buf[pos++] = (byte)(0x80 | (codePoint & 0x3F));
+            }
+            else if(Character.isSurrogate(c))
+                buf[pos++] = '?';
+            else {
+                buf[pos++] = (byte)(0xE0 | (c >> 12));
+                buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+
+        this.position = pos;
+    }
+
+    private void beginRecord(){
+        writeByte(this.recordCount == 0 ? '[' : ',');
+        writeByte('{');
+        this.recordCount++;
+    }
+
+    private void endRecord(){
+        writeByte('}');
+    }
+
+    private void beginField(String fieldName){
+
+        if(this.buffer[this.position - 1] != '{')
+            writeByte(',');
+
+        writeByte('"');
+        writeAscii(fieldName);
+        writeByte('"');
+        writeByte(':');
+    }
+
+    private void writeStringField(String fieldName, String value){
+
+        if(value == null)
+            return;
+
+        beginField(fieldName);
+        writeQuotedString(value);
+    }
+
+    private void writeBooleanField(String fieldName, Boolean value){
+
+        if(value == null)
+            return;
+
+        beginField(fieldName);
+        writeAscii(value ? "true" : "false");
+    }
+
+    private void writeLongField(String fieldName, long value){
+        beginField(fieldName);
+        writeLong(value);
+    }
+
+    private void writeDoubleField(String fieldName, double value){
+        beginField(fieldName);
+        writeDouble(value);
+    }
+
+    private void writeNumberField(String fieldName, Number value){
+
+        if(value == null)
+            return;
+
+        beginField(fieldName);
+
+        if(value instanceof Double)
+            writeDouble(value.doubleValue());
+        else if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            writeLong(value.longValue());
+        else if(value instanceof Float && !Float.isFinite(value.floatValue()))
+            writeQuotedString(value.toString());
+        else
+            writeAscii(value.toString());
+    }
+
+    private void writeDouble(double value){
+
+        //Non finite values are written as strings as the ObjectMapper does by default
+        if(Double.isFinite(value))
+            writeAscii(Double.toString(value));
+        else
+            writeQuotedString(Double.toString(value));
+    }
+
+    private void writeLong(long value){
+
+        if(value == Long.MIN_VALUE){
+            writeAscii(Long.toString(value));
+            return;
+        }
+
+        if(value < 0){
+            writeByte('-');
+            value = -value;
+        }
+
+        int digitCount = 1;
+        for(long limit = 10; digitCount < 19 && value >= limit; limit *= 10)
+            digitCount++;
+
+        ensureCapacity(digitCount);
+
+        for(int i = this.position + digitCount - 1; i >= this.position; i--){
+            this.buffer[i] = (byte)('0' + (value % 10));
+            value /= 10;
+        }
+
+        this.position += digitCount;
+    }
+
+    private void writeAscii(String value){
+
+        int length = value.length();
+        ensureCapacity(length);
+
+        for(int i = 0; i < length; i++)
+            this.buffer[this.position++] = (byte)value.charAt(i);
+    }
+
+    //JSON string escaping and UTF-8 encoding in a single loop
+    private void writeQuotedString(String value){
+
+        int length = value.length();
+
+        //Worst case: every char escaped as \\uXXXX
+        ensureCapacity(length * 6 + 2);
+
+        byte[] buf = this.buffer;
+        int pos = this.position;
+
+        buf[pos++] = '"';
+
+        for(int i = 0; i < length; i++){
+
+            char c = value.charAt(i);
+
+            if(c == '"' || c == '\\'){
+                buf[pos++] = '\\';
+                buf[pos++] = (byte)c;
+            }
+            else if(c < 0x20){
+                buf[pos++] = '\\';
+                switch (c){
+                    case '\n': buf[pos++] = 'n'; break;
+                    case '\r': buf[pos++] = 'r'; break;
+                    case '\t': buf[pos++] = 't'; break;
+                    case '\b': buf[pos++] = 'b'; break;
+                    case '\f': buf[pos++] = 'f'; break;
+                    default:
+                        buf[pos++] = 'u';
+                        buf[pos++] = '0';
+                        buf[pos++] = '0';
+                        buf[pos++] = HEX_DIGITS[c >> 4];
+                        buf[pos++] = HEX_DIGITS[c & 0xF];
+                }
+            }
+            else if(c < 0x80)
+                buf[pos++] = (byte)c;
+            else if(c < 0x800){
+                buf[pos++] = (byte)(0xC0 | (c >> 6));
+                buf[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if(Character.isSurrogate(c)){
+                //Supplementary characters are escaped as the ObjectMapper does (e.g. \uD83D\uDE00)
+                buf[pos++] = '\\';
+                buf[pos++] = 'u';
+                buf[pos++] = HEX_DIGITS_UPPER[c >> 12];
+                buf[pos++] = HEX_DIGITS_UPPER[(c >> 8) & 0xF];
+                buf[pos++] = HEX_DIGITS_UPPER[(c >> 4) & 0xF];
+                buf[pos++] = HEX_DIGITS_UPPER[c & 0xF];
+            }
+            else {
+                buf[pos++] = (byte)(0xE0 | (c >> 12));
+                buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+
+        buf[pos++] = '"';
+
+        this.position = pos;
+    }
+
+    private void writeByte(char c){
+        ensureCapacity(1);
+        this.buffer[this.position++] = (byte)c;
+    }
+
+    private void writeUnsignedByte(int value){
+        ensureCapacity(1);
+        this.buffer[this.position++] = (byte)value;
+    }
+
+    private void ensureCapacity(int additionalBytes){
+
+        int requiredCapacity = this.position + additionalBytes;
+
+        if(requiredCapacity > this.buffer.length)
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, requiredCapacity));
+    }
+
+}
@@ -0,0 +1,137 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import it.unimore.dipi.iot.digitaltwin.odte.OdteEvaluator;
+import it.unimore.dipi.iot.digitaltwin.odte.OdteResultDescription;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 10:40
+ */
+public class DigitalTwinLifeCycleTest {
+
+    private static final double ODTE_TARGET_PERCENTILE = 0.9;
+
+    private static final long UN_BOUND_THRESHOLD_MS = 60000;
+
+    /**
+     * Evaluator returning a fixed ODTE value, changing only when an observation leaves the window at nextChangeTimestampMs
+     */
+    private static class FixedOdteEvaluator implements OdteEvaluator {
+
+        private volatile double odteValue;
+
+        private volatile long nextChangeTimestampMs = Long.MAX_VALUE;
+
+        @Override
+        public Optional<OdteResultDescription> evaluateOdte(long currentTimestampMs) {
+            return Optional.of(new OdteResultDescription(1.0, 1.0, 1.0, odteValue));
+        }
+
+        @Override
+        public long getNextOdteChangeTimestampMs(long currentTimestampMs) {
+            return nextChangeTimestampMs;
+        }
+    }
+
+    private DigitalTwinLifeCycle createBoundLifeCycle(ScheduledExecutorService scheduler, long timestampMs){
+
+        DigitalTwinLifeCycle lifeCycle = new DigitalTwinLifeCycle("dt-test", ODTE_TARGET_PERCENTILE, UN_BOUND_THRESHOLD_MS, scheduler);
+
+        lifeCycle.unBind(timestampMs);
+        lifeCycle.onObservation(timestampMs);
+
+        assertEquals(DigitalTwinLifeCycleState.BOUND, lifeCycle.getState());
+
+        return lifeCycle;
+    }
+
+    @Test
+    public void testOdteTargetIsCheckedOnEachObservation(){
+
+        FixedOdteEvaluator odteEvaluator = new FixedOdteEvaluator();
+        DigitalTwinLifeCycle lifeCycle = createBoundLifeCycle(null, 1000);
+        lifeCycle.setOdteEvaluator(odteEvaluator, 1000);
+
+        //The transition happens on the observation, without a periodic ODTE update
+        odteEvaluator.odteValue = 0.95;
+        lifeCycle.onOdteObservation(1010);
+
+        assertEquals(DigitalTwinLifeCycleState.SHADOWED, lifeCycle.getState());
+        assertEquals(DigitalTwinLifeCycleTransition.CAUSE_ODTE_ABOVE_TARGET, lifeCycle.getLastTransition().getCause());
+
+        odteEvaluator.odteValue = 0.5;
+        lifeCycle.onOdteObservation(1020);
+
+        assertEquals(DigitalTwinLifeCycleState.UN_SYNC, lifeCycle.getState());
+        assertEquals(DigitalTwinLifeCycleTransition.CAUSE_ODTE_BELOW_TARGET, lifeCycle.getLastTransition().getCause());
+        assertEquals(1020, lifeCycle.getLastTransition().getTimestampMs());
+    }
+
+    @Test
+    public void testStaleOdteUpdateIsIgnored(){
+
+        DigitalTwinLifeCycle lifeCycle = createBoundLifeCycle(null, 1000);
+
+        lifeCycle.onOdteUpdate(new OdteResultDescription(1.0, 1.0, 1.0, 0.95), 2000);
+        assertEquals(DigitalTwinLifeCycleState.SHADOWED, lifeCycle.getState());
+
+        //Computed on the windows before the last transition
+        lifeCycle.onOdteUpdate(new OdteResultDescription(1.0, 1.0, 1.0, 0.5), 1500);
+        assertEquals(DigitalTwinLifeCycleState.SHADOWED, lifeCycle.getState());
+
+        lifeCycle.onOdteUpdate(new OdteResultDescription(1.0, 1.0, 1.0, 0.5), 2500);
+        assertEquals(DigitalTwinLifeCycleState.UN_SYNC, lifeCycle.getState());
+    }
+
+    @Test
+    public void testSilentTwinReEvaluatesTheOdte() throws InterruptedException {
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        try{
+
+            FixedOdteEvaluator odteEvaluator = new FixedOdteEvaluator();
+            long currentTimestampMs = System.currentTimeMillis();
+
+            DigitalTwinLifeCycle lifeCycle = createBoundLifeCycle(scheduler, currentTimestampMs);
+            lifeCycle.setOdteEvaluator(odteEvaluator, DigitalTwinLifeCycle.MIN_ODTE_SILENCE_MS);
+
+            odteEvaluator.odteValue = 0.95;
+            lifeCycle.onOdteObservation(currentTimestampMs);
+
+            assertEquals(DigitalTwinLifeCycleState.SHADOWED, lifeCycle.getState());
+
+            //No more observations: the ODTE drops as the observations leave the window
+            odteEvaluator.odteValue = 0.5;
+
+            long deadlineTimestampMs = System.currentTimeMillis() + 5000;
+
+            while(lifeCycle.getState() == DigitalTwinLifeCycleState.SHADOWED && System.currentTimeMillis() < deadlineTimestampMs)
+                Thread.sleep(10);
+
+            assertEquals(DigitalTwinLifeCycleState.UN_SYNC, lifeCycle.getState());
+            assertEquals(DigitalTwinLifeCycleTransition.CAUSE_ODTE_BELOW_TARGET, lifeCycle.getLastTransition().getCause());
+
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testOdteSilence(){
+
+        //Gap tolerance of the expected rate
+        assertEquals(300, DigitalTwinLifeCycle.computeOdteSilenceMs(10.0, 3.0, 30));
+
+        //Bounded by the sliding window
+        assertEquals(2000, DigitalTwinLifeCycle.computeOdteSilenceMs(0.1, 3.0, 2));
+        assertEquals(30000, DigitalTwinLifeCycle.computeOdteSilenceMs(0.0, 3.0, 30));
+    }
+}
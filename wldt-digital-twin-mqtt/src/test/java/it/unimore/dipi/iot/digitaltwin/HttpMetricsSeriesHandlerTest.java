@@ -0,0 +1,140 @@
+package it.unimore.dipi.iot.digitaltwin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.undertow.Undertow;
+import io.undertow.server.RoutingHandler;
+import io.undertow.util.Methods;
+import it.unimore.dipi.iot.digitaltwin.store.MetricsStoreIngester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 13:20
+ */
+public class HttpMetricsSeriesHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path baseFolder;
+
+    private MetricsStoreIngester metricsStoreIngester;
+
+    private Undertow httpServer;
+
+    private int httpPort;
+
+    @Before
+    public void startServer() throws IOException {
+
+        this.baseFolder = Files.createTempDirectory("http-metrics-series-handler-test");
+
+        Path csvPath = this.baseFolder.resolve("metrics").resolve("dt-1").resolve("odte.csv");
+        Files.createDirectories(csvPath.getParent());
+        Files.write(csvPath, "t,odte,timeliness\n59,1.0,\n60,2.0,0.5\n90,4.0,\n120,8.0,\n".getBytes(StandardCharsets.US_ASCII));
+
+        this.metricsStoreIngester = new MetricsStoreIngester(this.baseFolder.resolve("metrics"), this.baseFolder.resolve("store"), MetricsStoreIngester.DEFAULT_SCAN_PERIOD_SEC);
+        this.metricsStoreIngester.scan();
+
+        try(ServerSocket serverSocket = new ServerSocket(0)){
+            this.httpPort = serverSocket.getLocalPort();
+        }
+
+        this.httpServer = Undertow.builder()
+                .addHttpListener(this.httpPort, "localhost", new RoutingHandler()
+                        .add(Methods.GET, "/metrics/{folderId}/{fileId}/series", new HttpMetricsSeriesHandler(this.metricsStoreIngester)))
+                .build();
+
+        this.httpServer.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+
+        this.httpServer.stop();
+        this.metricsStoreIngester.stop();
+
+        try(Stream<Path> pathStream = Files.walk(this.baseFolder)){
+            pathStream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        return (HttpURLConnection) new URL(String.format("http://localhost:%d%s", this.httpPort, path)).openConnection();
+    }
+
+    private JsonNode getJson(String path) throws IOException {
+
+        HttpURLConnection connection = get(path);
+
+        assertEquals(200, connection.getResponseCode());
+
+        try(InputStream inputStream = connection.getInputStream()){
+            return this.objectMapper.readTree(inputStream);
+        }
+    }
+
+    @Test
+    public void testRawRows() throws IOException {
+
+        JsonNode response = getJson("/metrics/dt-1/odte.csv/series");
+
+        assertEquals(2, response.get("columns").size());
+        assertEquals("odte", response.get("columns").get(0).asText());
+        assertEquals(0, response.get("bucketSec").asLong());
+        assertEquals(4, response.get("buckets").size());
+
+        JsonNode bucket = response.get("buckets").get(1);
+
+        assertEquals(60, bucket.get("t").asLong());
+        assertEquals(1, bucket.get("rows").asLong());
+        assertEquals(2.0, bucket.get("avg").get(0).asDouble(), 1e-9);
+        assertEquals(0.5, bucket.get("avg").get(1).asDouble(), 1e-9);
+
+        //Missing values are null
+        assertTrue(response.get("buckets").get(0).get("avg").get(1).isNull());
+    }
+
+    @Test
+    public void testDownsampledRange() throws IOException {
+
+        JsonNode response = getJson("/metrics/dt-1/odte.csv/series?from=60&to=120&bucket=60&columns=odte");
+
+        assertEquals(1, response.get("columns").size());
+        assertEquals(2, response.get("buckets").size());
+
+        JsonNode bucket = response.get("buckets").get(0);
+
+        assertEquals(60, bucket.get("t").asLong());
+        assertEquals(2, bucket.get("rows").asLong());
+        assertEquals(2.0, bucket.get("min").get(0).asDouble(), 1e-9);
+        assertEquals(4.0, bucket.get("max").get(0).asDouble(), 1e-9);
+        assertEquals(3.0, bucket.get("avg").get(0).asDouble(), 1e-9);
+
+        assertEquals(120, response.get("buckets").get(1).get("t").asLong());
+    }
+
+    @Test
+    public void testInvalidRequests() throws IOException {
+
+        assertEquals(404, get("/metrics/dt-1/unknown.csv/series").getResponseCode());
+        assertEquals(400, get("/metrics/dt-1/odte.csv/series?from=yesterday").getResponseCode());
+        assertEquals(400, get("/metrics/dt-1/odte.csv/series?columns=unknown").getResponseCode());
+    }
+}
@@ -0,0 +1,128 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 10:00
+ */
+public class AvailabilityIntervalLogTest {
+
+    private static final long RETENTION_MS = 60000;
+
+    @Test
+    public void testDisjointIntervals(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        intervalLog.addInterval(1000, 2000);
+        intervalLog.addInterval(5000, 5500);
+
+        assertEquals(2, intervalLog.getSize());
+        assertEquals(1.0 - 1500.0 / 10000.0, intervalLog.computeAvailability(0, 10000), 1e-9);
+
+        //Clipped to the evaluated range
+        assertEquals(1.0 - 1000.0 / 4000.0, intervalLog.computeAvailability(1500, 5500), 1e-9);
+    }
+
+    @Test
+    public void testOverlappingIntervalsAreMerged(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        intervalLog.addInterval(1000, 2000);
+        intervalLog.addInterval(1500, 3000);
+
+        assertEquals(1, intervalLog.getSize());
+        assertEquals(1.0 - 2000.0 / 10000.0, intervalLog.computeAvailability(0, 10000), 1e-9);
+    }
+
+    @Test
+    public void testOpenIntervalIsAccountedUntilTheEndOfTheRange(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        intervalLog.openInterval(8000);
+
+        assertTrue(intervalLog.isIntervalOpen());
+        assertEquals(0.8, intervalLog.computeAvailability(0, 10000), 1e-9);
+
+        intervalLog.closeInterval(9000);
+
+        assertFalse(intervalLog.isIntervalOpen());
+        assertEquals(0.9, intervalLog.computeAvailability(0, 20000) * 2.0 - 1.0, 1e-9);
+    }
+
+    @Test
+    public void testExpiredIntervalsAreDropped(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        intervalLog.addInterval(1000, 2000);
+        intervalLog.addInterval(2000 + RETENTION_MS + 1, 3000 + RETENTION_MS);
+
+        assertEquals(1, intervalLog.getSize());
+    }
+
+    /**
+     * Jitter gaps at 1 kHz with a 3 ms gap tolerance fill the log many times: the availability must stay close to the
+     * real one instead of dropping towards 0
+     */
+    @Test
+    public void testFullLogKeepsTheAvailabilityBounded(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        //A 4 ms gap every 50 ms for 10 minutes: 8% unavailable
+        long endMs = 10 * RETENTION_MS;
+
+        for(long startMs = 0; startMs < endMs; startMs += 50)
+            intervalLog.addInterval(startMs + 10, startMs + 14);
+
+        assertTrue(intervalLog.getCoalescedIntervalCount() > 0);
+        assertEquals(AvailabilityIntervalLog.DEFAULT_CAPACITY, intervalLog.getSize());
+        assertEquals(0.92, intervalLog.computeAvailability(endMs - RETENTION_MS, endMs), 0.01);
+    }
+
+    @Test
+    public void testCoalescedIntervalsExpire(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        for(long startMs = 0; startMs < 5 * RETENTION_MS; startMs += 50)
+            intervalLog.addInterval(startMs + 10, startMs + 14);
+
+        //No gaps for longer than the retention, then a single 1 s outage
+        long outageStartMs = 7 * RETENTION_MS;
+        intervalLog.addInterval(outageStartMs, outageStartMs + 1000);
+
+        assertEquals(1, intervalLog.getSize());
+        assertEquals(1.0 - 1000.0 / RETENTION_MS, intervalLog.computeAvailability(outageStartMs + 1000 - RETENTION_MS, outageStartMs + 1000), 1e-9);
+    }
+
+    @Test
+    public void testOutageIsNotSpreadByTheCoalescedJitter(){
+
+        AvailabilityIntervalLog intervalLog = new AvailabilityIntervalLog(RETENTION_MS);
+
+        long endMs = 3 * RETENTION_MS;
+
+        //4 ms gaps every 50 ms and a 6 s outage in the middle of the last window
+        for(long startMs = 0; startMs < endMs; startMs += 50){
+
+            if(startMs == endMs - RETENTION_MS / 2)
+                intervalLog.addInterval(startMs, startMs + 6000);
+
+            if(startMs < endMs - RETENTION_MS / 2 || startMs >= endMs - RETENTION_MS / 2 + 6000)
+                intervalLog.addInterval(startMs + 10, startMs + 14);
+        }
+
+        double expectedAvailability = 1.0 - (6000.0 + 0.08 * (RETENTION_MS - 6000.0)) / RETENTION_MS;
+
+        assertEquals(expectedAvailability, intervalLog.computeAvailability(endMs - RETENTION_MS, endMs), 0.01);
+    }
+}
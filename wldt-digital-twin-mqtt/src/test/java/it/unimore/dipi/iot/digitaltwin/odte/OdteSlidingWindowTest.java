@@ -0,0 +1,154 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 11:20
+ */
+public class OdteSlidingWindowTest {
+
+    private static final long SLIDING_WINDOW_SEC = 10;
+
+    private static final double DESIRED_TIMELINESS_SEC = 0.5;
+
+    @Test
+    public void testTimelinessOfTheWindow(){
+
+        OdteSlidingWindow slidingWindow = new OdteSlidingWindow(SLIDING_WINDOW_SEC, DESIRED_TIMELINESS_SEC,
+                new TimelinessRingBuffer(64), new ExactTimelinessEstimator());
+
+        assertEquals(0.0, slidingWindow.computeTimeliness(), 1e-9);
+
+        slidingWindow.addObservation(1000, 0.1);
+        slidingWindow.addObservation(2000, 0.2);
+        slidingWindow.addObservation(3000, 0.9);
+        slidingWindow.addObservation(4000, 1.2);
+
+        //Observations are only visible after the update
+        assertEquals(0, slidingWindow.getSize());
+
+        slidingWindow.update(5000);
+
+        assertEquals(4, slidingWindow.getSize());
+        assertEquals(2, slidingWindow.countTimely());
+        assertEquals(TimelinessEstimator.timelinessOf(2, 4), slidingWindow.computeTimeliness(), 1e-9);
+        assertEquals(1000, slidingWindow.getOldestTimestampMs());
+        assertEquals(4000, slidingWindow.getNewestTimestampMs());
+    }
+
+    @Test
+    public void testExpiredObservationsAreRemoved(){
+
+        OdteSlidingWindow slidingWindow = new OdteSlidingWindow(SLIDING_WINDOW_SEC, DESIRED_TIMELINESS_SEC,
+                new TimelinessRingBuffer(64), new ExactTimelinessEstimator());
+
+        for(int i = 0; i < 20; i++)
+            slidingWindow.addObservation(i * 1000L, i % 2 == 0 ? 0.1 : 1.0);
+
+        slidingWindow.update(19000);
+
+        //Window [9000, 19000]
+        assertEquals(11, slidingWindow.getSize());
+        assertEquals(9000, slidingWindow.getOldestTimestampMs());
+        assertEquals(5, slidingWindow.countTimely());
+
+        slidingWindow.update(40000);
+
+        assertEquals(0, slidingWindow.getSize());
+        assertEquals(-1, slidingWindow.getOldestTimestampMs());
+        assertEquals(0, slidingWindow.getTimelinessEstimator().getCount());
+        assertEquals(0, slidingWindow.getLostSamplesCount());
+    }
+
+    @Test
+    public void testBufferOverrunRebuildsTheWindow(){
+
+        TimelinessRingBuffer ringBuffer = new TimelinessRingBuffer(16);
+
+        //1 s window: at most 11 samples of the 100 ms stream, that fit the buffer
+        OdteSlidingWindow slidingWindow = new OdteSlidingWindow(1, DESIRED_TIMELINESS_SEC,
+                ringBuffer, new ExactTimelinessEstimator());
+
+        slidingWindow.addObservation(0, 0.1);
+        slidingWindow.update(0);
+
+        assertEquals(1, slidingWindow.getSize());
+
+        //The writer laps the window before the next update
+        for(int i = 1; i <= 40; i++)
+            slidingWindow.addObservation(i * 100L, 0.1);
+
+        long oldestReadableSequence = ringBuffer.getOldestReadableSequence();
+
+        slidingWindow.update(4000);
+
+        //The window is rebuilt from the readable samples, the overwritten ones are counted as lost
+        assertEquals(oldestReadableSequence, slidingWindow.getLostSamplesCount());
+        assertEquals(11, slidingWindow.getSize());
+        assertEquals(slidingWindow.getSize(), slidingWindow.getTimelinessEstimator().getCount());
+        assertEquals(3000, slidingWindow.getOldestTimestampMs());
+        assertEquals(4000, slidingWindow.getNewestTimestampMs());
+
+        //The following updates are incremental again
+        slidingWindow.addObservation(4100, 1.0);
+        slidingWindow.update(4100);
+
+        assertEquals(11, slidingWindow.getSize());
+        assertEquals(3100, slidingWindow.getOldestTimestampMs());
+        assertEquals(10, slidingWindow.countTimely());
+        assertEquals(oldestReadableSequence, slidingWindow.getLostSamplesCount());
+    }
+
+    @Test
+    public void testFutureObservationsAreIngestedWhenReached(){
+
+        OdteSlidingWindow slidingWindow = new OdteSlidingWindow(SLIDING_WINDOW_SEC, DESIRED_TIMELINESS_SEC,
+                new TimelinessRingBuffer(64), new ExactTimelinessEstimator());
+
+        slidingWindow.addObservation(1000, 0.1);
+        slidingWindow.addObservation(2000, 0.1);
+
+        //Ahead of the update (skewed clock of the source)
+        slidingWindow.addObservation(30000, 1.0);
+
+        slidingWindow.update(5000);
+
+        assertEquals(2, slidingWindow.getSize());
+        assertEquals(2, slidingWindow.countTimely());
+        assertEquals(2000, slidingWindow.getNewestTimestampMs());
+
+        //The sample enters the window at its timestamp and expires a window later
+        slidingWindow.update(30000);
+
+        assertEquals(1, slidingWindow.getSize());
+        assertEquals(0, slidingWindow.countTimely());
+        assertEquals(30000, slidingWindow.getOldestTimestampMs());
+
+        slidingWindow.update(40001);
+
+        assertEquals(0, slidingWindow.getSize());
+        assertEquals(0, slidingWindow.getTimelinessEstimator().getCount());
+    }
+
+    @Test
+    public void testFutureTimestampIsClampedToTheArrivalTime(){
+
+        ResourceOdteWindow resourceOdteWindow = ResourceOdteWindow.create("energy", "device-1", SLIDING_WINDOW_SEC,
+                DESIRED_TIMELINESS_SEC, 1.0, TimelinessEstimatorFactory.ESTIMATOR_TYPE_EXACT, 0.0,
+                AvailabilityTracker.DEFAULT_GAP_TOLERANCE_FACTOR, null);
+
+        long currentTimestampMs = System.currentTimeMillis();
+
+        resourceOdteWindow.addObservation(currentTimestampMs + 3600000, 0.1);
+        resourceOdteWindow.getOdteSlidingWindow().update(System.currentTimeMillis());
+
+        //Visible now instead of holding back the window for an hour
+        assertEquals(1, resourceOdteWindow.getOdteSlidingWindow().getSize());
+        assertTrue(resourceOdteWindow.getOdteSlidingWindow().getNewestTimestampMs() <= System.currentTimeMillis());
+    }
+
+}
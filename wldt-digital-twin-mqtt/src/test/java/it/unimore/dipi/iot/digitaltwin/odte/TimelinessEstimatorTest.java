@@ -0,0 +1,166 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 11:40
+ */
+public class TimelinessEstimatorTest {
+
+    private static final int OBSERVATION_COUNT = 10000;
+
+    private static final double[] THRESHOLDS_SEC = {0.002, 0.01, 0.05, 0.1, 0.25, 0.5, 0.9};
+
+    //Observations in (0.001, 1.0) s, log-uniform as the network latencies
+    private static double[] createObservations(long seed){
+
+        Random random = new Random(seed);
+        double[] observations = new double[OBSERVATION_COUNT];
+
+        for(int i = 0; i < OBSERVATION_COUNT; i++)
+            observations[i] = Math.pow(10.0, -3.0 + 3.0 * random.nextDouble());
+
+        return observations;
+    }
+
+    private static TimelinessEstimator fill(TimelinessEstimator timelinessEstimator, double[] observations){
+
+        for(double observation : observations)
+            timelinessEstimator.add(observation);
+
+        return timelinessEstimator;
+    }
+
+    @Test
+    public void testExactEstimator(){
+
+        TimelinessEstimator timelinessEstimator = new ExactTimelinessEstimator();
+
+        fill(timelinessEstimator, new double[]{0.3, 0.1, 0.2, 0.2, 0.5});
+
+        assertEquals(5, timelinessEstimator.getCount());
+        assertEquals(0, timelinessEstimator.countBelow(0.1));
+        assertEquals(1, timelinessEstimator.countBelow(0.15));
+        assertEquals(3, timelinessEstimator.countBelow(0.3));
+        assertEquals(5, timelinessEstimator.countBelow(1.0));
+        assertEquals(0.0, timelinessEstimator.getErrorBound(), 1e-12);
+
+        timelinessEstimator.remove(0.2);
+
+        assertEquals(4, timelinessEstimator.getCount());
+        assertEquals(2, timelinessEstimator.countBelow(0.3));
+    }
+
+    @Test
+    public void testFixedBucketErrorBound(){
+
+        double bucketWidthSec = 0.01;
+        double[] observations = createObservations(1);
+
+        TimelinessEstimator exactEstimator = fill(new ExactTimelinessEstimator(), observations);
+        TimelinessEstimator fixedBucketEstimator = fill(new FixedBucketTimelinessEstimator(bucketWidthSec), observations);
+
+        assertEquals(bucketWidthSec, fixedBucketEstimator.getErrorBound(), 1e-12);
+        assertEquals(OBSERVATION_COUNT, fixedBucketEstimator.getCount());
+
+        //The evaluated threshold is in [T - width, T]
+        for(double thresholdSec : THRESHOLDS_SEC){
+            long count = fixedBucketEstimator.countBelow(thresholdSec);
+            assertTrue(count <= exactEstimator.countBelow(thresholdSec));
+            assertTrue(count >= exactEstimator.countBelow(thresholdSec - bucketWidthSec));
+        }
+    }
+
+    @Test
+    public void testLogSketchErrorBound(){
+
+        double relativeAccuracy = 0.01;
+        double[] observations = createObservations(2);
+
+        TimelinessEstimator exactEstimator = fill(new ExactTimelinessEstimator(), observations);
+        LogBucketSketchTimelinessEstimator sketchEstimator = new LogBucketSketchTimelinessEstimator(relativeAccuracy);
+        fill(sketchEstimator, observations);
+
+        double gamma = (1.0 + relativeAccuracy) / (1.0 - relativeAccuracy);
+
+        assertEquals(gamma - 1.0, sketchEstimator.getErrorBound(), 1e-12);
+        assertEquals(relativeAccuracy, sketchEstimator.getRelativeAccuracy(), 1e-12);
+        assertEquals(OBSERVATION_COUNT, sketchEstimator.getCount());
+
+        //The evaluated threshold is in [T / gamma, T], i.e. within a relative error of gamma - 1
+        for(double thresholdSec : THRESHOLDS_SEC){
+            long count = sketchEstimator.countBelow(thresholdSec);
+            assertTrue(count <= exactEstimator.countBelow(thresholdSec));
+            assertTrue(count >= exactEstimator.countBelow(thresholdSec / (1.0 + sketchEstimator.getErrorBound())));
+        }
+    }
+
+    @Test
+    public void testMergeAndRemove(){
+
+        double[] observations = createObservations(3);
+        double[] otherObservations = createObservations(4);
+
+        TimelinessEstimator[] estimators = {
+                new ExactTimelinessEstimator(),
+                new FixedBucketTimelinessEstimator(FixedBucketTimelinessEstimator.DEFAULT_BUCKET_WIDTH_SEC),
+                new LogBucketSketchTimelinessEstimator(LogBucketSketchTimelinessEstimator.DEFAULT_RELATIVE_ACCURACY)
+        };
+
+        TimelinessEstimator[] otherEstimators = {
+                new ExactTimelinessEstimator(),
+                new FixedBucketTimelinessEstimator(FixedBucketTimelinessEstimator.DEFAULT_BUCKET_WIDTH_SEC),
+                new LogBucketSketchTimelinessEstimator(LogBucketSketchTimelinessEstimator.DEFAULT_RELATIVE_ACCURACY)
+        };
+
+        for(int i = 0; i < estimators.length; i++){
+
+            TimelinessEstimator timelinessEstimator = fill(estimators[i], observations);
+            long countBelow = timelinessEstimator.countBelow(0.1);
+
+            fill(otherEstimators[i], otherObservations);
+            long otherCountBelow = otherEstimators[i].countBelow(0.1);
+
+            timelinessEstimator.merge(otherEstimators[i]);
+
+            assertEquals(2 * OBSERVATION_COUNT, timelinessEstimator.getCount());
+            assertEquals(countBelow + otherCountBelow, timelinessEstimator.countBelow(0.1));
+
+            //Removing the merged observations restores the original counts
+            for(double observation : otherObservations)
+                timelinessEstimator.remove(observation);
+
+            assertEquals(OBSERVATION_COUNT, timelinessEstimator.getCount());
+            assertEquals(countBelow, timelinessEstimator.countBelow(0.1));
+
+            timelinessEstimator.clear();
+
+            assertEquals(0, timelinessEstimator.getCount());
+            assertEquals(0.0, timelinessEstimator.computeTimeliness(0.1), 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeOfDifferentConfigurationsIsRejected(){
+        new LogBucketSketchTimelinessEstimator(0.01).merge(new LogBucketSketchTimelinessEstimator(0.02));
+    }
+
+    @Test
+    public void testFactory(){
+
+        assertTrue(TimelinessEstimatorFactory.createEstimator(TimelinessEstimatorFactory.ESTIMATOR_TYPE_EXACT, 0.01) instanceof ExactTimelinessEstimator);
+        assertTrue(TimelinessEstimatorFactory.createEstimator(TimelinessEstimatorFactory.ESTIMATOR_TYPE_FIXED_BUCKET, 0.01) instanceof FixedBucketTimelinessEstimator);
+        assertTrue(TimelinessEstimatorFactory.createEstimator(TimelinessEstimatorFactory.ESTIMATOR_TYPE_LOG_SKETCH, 0.01) instanceof LogBucketSketchTimelinessEstimator);
+
+        //Unknown types and invalid configurations fall back to the exact estimator
+        assertTrue(TimelinessEstimatorFactory.createEstimator("unknown", 0.01) instanceof ExactTimelinessEstimator);
+        assertTrue(TimelinessEstimatorFactory.createEstimator(TimelinessEstimatorFactory.ESTIMATOR_TYPE_LOG_SKETCH, 1.5) instanceof ExactTimelinessEstimator);
+    }
+
+}
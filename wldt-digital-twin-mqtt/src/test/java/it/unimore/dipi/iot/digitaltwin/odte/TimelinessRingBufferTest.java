@@ -0,0 +1,117 @@
+package it.unimore.dipi.iot.digitaltwin.odte;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 11:00
+ */
+public class TimelinessRingBufferTest {
+
+    private static final int CAPACITY = 16;
+
+    @Test
+    public void testCapacityIsRoundedToPowerOfTwo(){
+
+        assertEquals(16, new TimelinessRingBuffer(1).getCapacity());
+        assertEquals(128, new TimelinessRingBuffer(100).getCapacity());
+        assertEquals(128, new TimelinessRingBuffer(128).getCapacity());
+
+        //10 s at 10 msg/sec with a 2x headroom
+        assertEquals(256, TimelinessRingBuffer.forSlidingWindow(10, 10.0, 2.0).getCapacity());
+    }
+
+    @Test
+    public void testAppendAndRead(){
+
+        TimelinessRingBuffer ringBuffer = new TimelinessRingBuffer(CAPACITY);
+
+        for(int i = 0; i < 10; i++)
+            ringBuffer.append(i * 100L, i * 0.1);
+
+        assertEquals(10, ringBuffer.getWriteSequence());
+        assertEquals(0, ringBuffer.getOldestReadableSequence());
+        assertTrue(ringBuffer.isReadable(0));
+        assertTrue(ringBuffer.isReadable(9));
+        assertFalse(ringBuffer.isReadable(10));
+        assertEquals(300, ringBuffer.getTimestampMs(3));
+        assertEquals(0.3, ringBuffer.getValue(3), 1e-9);
+    }
+
+    @Test
+    public void testOverrunInvalidatesOverwrittenSamples(){
+
+        TimelinessRingBuffer ringBuffer = new TimelinessRingBuffer(CAPACITY);
+
+        int sampleCount = 40;
+
+        for(int i = 0; i < sampleCount; i++)
+            ringBuffer.append(i * 100L, i);
+
+        //The last (capacity - 1) samples are readable, the slot of the next sample can be written at any time
+        long oldestReadableSequence = sampleCount - CAPACITY + 1;
+
+        assertEquals(oldestReadableSequence, ringBuffer.getOldestReadableSequence());
+        assertFalse(ringBuffer.isReadable(0));
+        assertFalse(ringBuffer.isReadable(oldestReadableSequence - 1));
+        assertTrue(ringBuffer.isReadable(oldestReadableSequence));
+        assertTrue(ringBuffer.isReadable(sampleCount - 1));
+        assertEquals((double) oldestReadableSequence, ringBuffer.getValue(oldestReadableSequence), 1e-9);
+
+        long[] timestamps = new long[CAPACITY];
+        double[] values = new double[CAPACITY];
+
+        //The overwritten samples are never returned, even if the range includes them
+        int count = ringBuffer.readRange(0, Long.MAX_VALUE, timestamps, values);
+
+        assertEquals(CAPACITY - 1, count);
+        assertEquals(oldestReadableSequence * 100L, timestamps[0]);
+        assertEquals((double) (sampleCount - 1), values[count - 1], 1e-9);
+    }
+
+    @Test
+    public void testReadRangeIsInclusive(){
+
+        TimelinessRingBuffer ringBuffer = new TimelinessRingBuffer(CAPACITY);
+
+        for(int i = 0; i < 10; i++)
+            ringBuffer.append(i * 100L, i);
+
+        long[] timestamps = new long[CAPACITY];
+        double[] values = new double[CAPACITY];
+
+        int count = ringBuffer.readRange(250, 600, timestamps, values);
+
+        assertEquals(4, count);
+        assertEquals(300, timestamps[0]);
+        assertEquals(600, timestamps[3]);
+        assertEquals(3.0, values[0], 1e-9);
+
+        //Limited by the size of the target arrays
+        assertEquals(2, ringBuffer.readRange(0, 900, new long[2], new double[2]));
+
+        assertEquals(0, ringBuffer.readRange(1000, 2000, timestamps, values));
+    }
+
+    @Test
+    public void testOutOfOrderSamplesAreClamped(){
+
+        TimelinessRingBuffer ringBuffer = new TimelinessRingBuffer(CAPACITY);
+
+        ringBuffer.append(1000, 0.1);
+        ringBuffer.append(500, 0.2);
+        ringBuffer.append(1500, 0.3);
+
+        assertEquals(1, ringBuffer.getClampedSamplesCount());
+
+        //Stored with the last timestamp, the value is kept
+        assertEquals(1000, ringBuffer.getTimestampMs(1));
+        assertEquals(0.2, ringBuffer.getValue(1), 1e-9);
+        assertEquals(1500, ringBuffer.getTimestampMs(2));
+    }
+
+}
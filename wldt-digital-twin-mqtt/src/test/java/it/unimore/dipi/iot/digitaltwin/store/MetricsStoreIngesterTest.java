@@ -0,0 +1,221 @@
+package it.unimore.dipi.iot.digitaltwin.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 12:40
+ */
+public class MetricsStoreIngesterTest {
+
+    private static final String FOLDER_ID = "dt-1";
+
+    private static final String FILE_ID = "odte.csv";
+
+    private Path baseFolder;
+
+    private Path csvPath;
+
+    @Before
+    public void createFolders() throws IOException {
+        this.baseFolder = Files.createTempDirectory("metrics-store-ingester-test");
+        this.csvPath = this.baseFolder.resolve("metrics").resolve(FOLDER_ID).resolve(FILE_ID);
+        Files.createDirectories(this.csvPath.getParent());
+    }
+
+    @After
+    public void deleteFolders() throws IOException {
+        try(Stream<Path> pathStream = Files.walk(this.baseFolder)){
+            pathStream.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private MetricsStoreIngester createIngester(){
+        return new MetricsStoreIngester(this.baseFolder.resolve("metrics"), this.baseFolder.resolve("store"), MetricsStoreIngester.DEFAULT_SCAN_PERIOD_SEC);
+    }
+
+    private void writeCsv(String content, StandardOpenOption... openOptions) throws IOException {
+        Files.write(this.csvPath, content.getBytes(StandardCharsets.US_ASCII), openOptions);
+    }
+
+    private MetricColumnFile getColumnFile(MetricsStoreIngester ingester){
+        Optional<MetricColumnFile> columnFileOptional = ingester.getMetricColumnFile(FOLDER_ID, FILE_ID);
+        assertTrue(columnFileOptional.isPresent());
+        return columnFileOptional.get();
+    }
+
+    @Test
+    public void testRowsAreIngested() throws IOException {
+
+        MetricsStoreIngester ingester = createIngester();
+
+        try{
+
+            writeCsv("value,t,count\n0.5,1000,3\nnot_a_number,1001,4\n");
+            ingester.scan();
+
+            MetricColumnFile columnFile = getColumnFile(ingester);
+
+            //The timestamp column is not stored as a value column
+            assertEquals(Arrays.asList("value", "count"), columnFile.getColumnNameList());
+            assertEquals(2, columnFile.getRowCount());
+            assertEquals(1000, columnFile.getTimestamp(0));
+            assertEquals(0.5, columnFile.getValue(0, 0), 1e-9);
+            assertEquals(3.0, columnFile.getValue(1, 0), 1e-9);
+            assertTrue(Double.isNaN(columnFile.getValue(0, 1)));
+            assertEquals(4.0, columnFile.getValue(1, 1), 1e-9);
+            assertEquals(Files.size(this.csvPath), columnFile.getSourceOffset());
+
+        } finally {
+            ingester.stop();
+        }
+    }
+
+    @Test
+    public void testPartialLastLineIsIngestedWhenComplete() throws IOException {
+
+        MetricsStoreIngester ingester = createIngester();
+
+        try{
+
+            //The reporter is still writing the last line
+            writeCsv("t,value\n1000,1.0\n1001,2.");
+            ingester.scan();
+
+            MetricColumnFile columnFile = getColumnFile(ingester);
+
+            assertEquals(1, columnFile.getRowCount());
+            assertEquals("t,value\n1000,1.0\n".length(), columnFile.getSourceOffset());
+
+            //No new complete line
+            ingester.scan();
+            assertEquals(1, columnFile.getRowCount());
+
+            writeCsv("5\n1002,3.0\n", StandardOpenOption.APPEND);
+            ingester.scan();
+
+            assertEquals(3, columnFile.getRowCount());
+            assertEquals(1001, columnFile.getTimestamp(1));
+            assertEquals(2.5, columnFile.getValue(0, 1), 1e-9);
+            assertEquals(3.0, columnFile.getValue(0, 2), 1e-9);
+
+        } finally {
+            ingester.stop();
+        }
+    }
+
+    @Test
+    public void testIncompleteHeaderIsNotIngested() throws IOException {
+
+        MetricsStoreIngester ingester = createIngester();
+
+        try{
+
+            writeCsv("t,val");
+            ingester.scan();
+
+            assertFalse(ingester.getMetricColumnFile(FOLDER_ID, FILE_ID).isPresent());
+
+            writeCsv("ue\n1000,1.0\n", StandardOpenOption.APPEND);
+            ingester.scan();
+
+            assertEquals(1, getColumnFile(ingester).getRowCount());
+
+        } finally {
+            ingester.stop();
+        }
+    }
+
+    @Test
+    public void testColumnFileIsReopenedAfterRestart() throws IOException {
+
+        MetricsStoreIngester ingester = createIngester();
+
+        writeCsv("t,value\n1000,1.0\n1001,2.0\n");
+        ingester.scan();
+        ingester.stop();
+
+        writeCsv("1002,3.0\n", StandardOpenOption.APPEND);
+
+        MetricsStoreIngester restartedIngester = createIngester();
+
+        try{
+
+            restartedIngester.scan();
+
+            //Rows ingested before the restart are not duplicated
+            MetricColumnFile columnFile = getColumnFile(restartedIngester);
+
+            assertEquals(3, columnFile.getRowCount());
+            assertEquals(1000, columnFile.getTimestamp(0));
+            assertEquals(1002, columnFile.getTimestamp(2));
+            assertEquals(3.0, columnFile.getValue(0, 2), 1e-9);
+
+        } finally {
+            restartedIngester.stop();
+        }
+    }
+
+    @Test
+    public void testTruncatedCsvRebuildsTheColumnFile() throws IOException {
+
+        MetricsStoreIngester ingester = createIngester();
+
+        try{
+
+            writeCsv("t,value\n1000,1.0\n1001,2.0\n");
+            ingester.scan();
+
+            assertEquals(2, getColumnFile(ingester).getRowCount());
+
+            //Replaced by a shorter file
+            writeCsv("t,value\n5,9.0\n");
+            ingester.scan();
+
+            MetricColumnFile columnFile = getColumnFile(ingester);
+
+            assertEquals(1, columnFile.getRowCount());
+            assertEquals(5, columnFile.getTimestamp(0));
+            assertEquals(9.0, columnFile.getValue(0, 0), 1e-9);
+
+        } finally {
+            ingester.stop();
+        }
+    }
+
+    @Test
+    public void testOutOfOrderRowsAreSkipped() throws IOException {
+
+        MetricsStoreIngester ingester = createIngester();
+
+        try{
+
+            writeCsv("t,value\n1000,1.0\n999,2.0\n1000,3.0\n");
+            ingester.scan();
+
+            MetricColumnFile columnFile = getColumnFile(ingester);
+
+            assertEquals(2, columnFile.getRowCount());
+            assertEquals(3.0, columnFile.getValue(0, 1), 1e-9);
+
+        } finally {
+            ingester.stop();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package it.unimore.dipi.iot.utils;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @project wldt-digital-twin-mqtt
+ * @created 19/10/2026 - 12:00
+ */
+public class SenMLCodecTest {
+
+    private static final String[] ENCODINGS = {SenMLEncoding.ENCODING_JSON, SenMLEncoding.ENCODING_CBOR, SenMLEncoding.ENCODING_BINARY};
+
+    private static final long TIMESTAMP_MS = 1760000000123L;
+
+    private static SenMLPack readPack(byte[] payload){
+
+        Optional<SenMLPack> senMLPack = SenMLReader.getInstance().read(payload);
+
+        assertTrue(senMLPack.isPresent());
+
+        return senMLPack.get();
+    }
+
+    @Test
+    public void testRecordRoundTrip(){
+
+        for(String encoding : ENCODINGS){
+
+            byte[] payload = SenMLWriter.getInstance(encoding)
+                    .writeRecord("iot.sensor.energy", TIMESTAMP_MS, 42.123456, "kW")
+                    .writeRecord("iot.sensor.temperature", TIMESTAMP_MS + 1, -21.5, null)
+                    .writeStringRecord("iot.device.status", TIMESTAMP_MS + 2, "ON")
+                    .toByteArray();
+
+            assertEquals(encoding, SenMLEncoding.detectEncoding(payload));
+
+            SenMLPack senMLPack = readPack(payload);
+
+            assertEquals(encoding, 3, senMLPack.size());
+
+            SenMLRecord energyRecord = senMLPack.get(0);
+            assertEquals("iot.sensor.energy", energyRecord.getN());
+            assertEquals("kW", energyRecord.getU());
+            assertEquals(42.123456, energyRecord.getV().doubleValue(), 0.0);
+            assertEquals(TIMESTAMP_MS, energyRecord.getT().longValue());
+
+            SenMLRecord temperatureRecord = senMLPack.get(1);
+            assertNull(temperatureRecord.getU());
+            assertEquals(-21.5, temperatureRecord.getV().doubleValue(), 0.0);
+            assertEquals(TIMESTAMP_MS + 1, temperatureRecord.getT().longValue());
+
+            SenMLRecord statusRecord = senMLPack.get(2);
+            assertEquals("iot.device.status", statusRecord.getN());
+            assertEquals("ON", statusRecord.getVs());
+            assertNull(statusRecord.getV());
+            assertEquals(TIMESTAMP_MS + 2, statusRecord.getT().longValue());
+        }
+    }
+
+    @Test
+    public void testPackRoundTrip(){
+
+        SenMLPack senMLPack = new SenMLPack();
+
+        SenMLRecord valueRecord = new SenMLRecord();
+        valueRecord.setN("device-1/energy");
+        valueRecord.setV(0.1);
+        valueRecord.setT(TIMESTAMP_MS);
+        senMLPack.add(valueRecord);
+
+        SenMLRecord booleanRecord = new SenMLRecord();
+        booleanRecord.setN("device-1/switch");
+        booleanRecord.setVb(true);
+        senMLPack.add(booleanRecord);
+
+        //Non ASCII names are encoded as UTF-8
+        SenMLRecord utf8Record = new SenMLRecord();
+        utf8Record.setN("sensor/\u00b0C \"quoted\"");
+        utf8Record.setVs("caf\u00e9");
+        senMLPack.add(utf8Record);
+
+        for(String encoding : ENCODINGS){
+
+            SenMLPack decodedPack = readPack(SenMLWriter.getInstance(encoding).writePack(senMLPack).toByteArray());
+
+            assertEquals(encoding, senMLPack.size(), decodedPack.size());
+
+            assertEquals("device-1/energy", decodedPack.get(0).getN());
+            assertEquals(0.1, decodedPack.get(0).getV().doubleValue(), 0.0);
+            assertEquals(TIMESTAMP_MS, decodedPack.get(0).getT().longValue());
+
+            assertEquals(Boolean.TRUE, decodedPack.get(1).getVb());
+            assertNull(decodedPack.get(1).getT());
+
+            assertEquals("sensor/\u00b0C \"quoted\"", decodedPack.get(2).getN());
+            assertEquals("caf\u00e9", decodedPack.get(2).getVs());
+        }
+    }
+
+    @Test
+    public void testEmptyPack(){
+
+        for(String encoding : ENCODINGS)
+            assertEquals(encoding, 0, readPack(SenMLWriter.getInstance(encoding).toByteArray()).size());
+    }
+
+    @Test
+    public void testUnknownEncodingFallsBackToJson(){
+
+        byte[] payload = SenMLWriter.getInstance("xml").writeRecord("n", TIMESTAMP_MS, 1.0, null).toByteArray();
+
+        assertEquals(SenMLEncoding.ENCODING_JSON, SenMLEncoding.detectEncoding(payload));
+        assertEquals(1, readPack(payload).size());
+    }
+
+    @Test
+    public void testMalformedPayloads(){
+
+        assertFalse(SenMLReader.getInstance().read(new byte[0]).isPresent());
+        assertFalse(SenMLReader.getInstance().read("[{\"n\":".getBytes(StandardCharsets.UTF_8)).isPresent());
+
+        //Truncated CBOR and binary packs
+        for(String encoding : new String[]{SenMLEncoding.ENCODING_CBOR, SenMLEncoding.ENCODING_BINARY}){
+
+            byte[] payload = SenMLWriter.getInstance(encoding).writeRecord("iot.sensor.energy", TIMESTAMP_MS, 1.0, "kW").toByteArray();
+            byte[] truncatedPayload = new byte[payload.length - 4];
+            System.arraycopy(payload, 0, truncatedPayload, 0, truncatedPayload.length);
+
+            assertFalse(encoding, SenMLReader.getInstance().read(truncatedPayload).isPresent());
+        }
+    }
+
+    @Test
+    public void testCborNestingDepthIsBounded(){
+
+        assertEquals(1, readPack(createNestedCborPack(SenMLReader.MAX_CBOR_NESTING_DEPTH)).size());
+
+        //Rejected as malformed instead of recursing once per level
+        assertFalse(SenMLReader.getInstance().read(createNestedCborPack(SenMLReader.MAX_CBOR_NESTING_DEPTH + 1)).isPresent());
+        assertFalse(SenMLReader.getInstance().read(createNestedCborPack(100000)).isPresent());
+    }
+
+    //Pack of a single record with an unknown label whose value is nested in depth arrays
+    private static byte[] createNestedCborPack(int depth){
+
+        byte[] payload = new byte[depth + 5];
+
+        payload[0] = (byte) 0x81;
+        payload[1] = (byte) 0xA1;
+        payload[2] = (byte) 0x18;
+        payload[3] = (byte) 99;
+
+        for(int i = 0; i < depth; i++)
+            payload[4 + i] = (byte) 0x81;
+
+        payload[depth + 4] = 0x00;
+
+        return payload;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBinaryEncodingRejectsUnsupportedFields(){
+
+        SenMLRecord senMLRecord = new SenMLRecord();
+        senMLRecord.setBn("base/");
+        senMLRecord.setV(1.0);
+
+        SenMLWriter.getInstance(SenMLEncoding.ENCODING_BINARY).writeRecord(senMLRecord);
+    }
+
+}